@@ -14,7 +14,10 @@ import java.util.concurrent.TimeUnit;
 @Target({ElementType.METHOD, ElementType.FIELD})
 public @interface CacheRefresh {
 
-    int refresh();
+    /**
+     * Refresh interval, 0 means no timed refresh (can be used with earlyRefresh only).
+     */
+    int refresh() default 0;
 
     int stopRefreshAfterLastAccess() default CacheConsts.UNDEFINED_INT;
 
@@ -22,4 +25,15 @@ public @interface CacheRefresh {
 
     TimeUnit timeUnit() default TimeUnit.SECONDS;
 
+    /**
+     * Probabilistic early refresh (XFetch): a read near expire time may reload the value in background,
+     * the probability rises as the expire time nears and scales with the measured load time.
+     */
+    boolean earlyRefresh() default false;
+
+    /**
+     * A value greater than 1.0 favors earlier refresh, less than 1.0 favors later refresh.
+     */
+    double earlyRefreshBeta() default 1.0;
+
 }
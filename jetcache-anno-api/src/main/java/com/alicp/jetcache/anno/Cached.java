@@ -128,4 +128,18 @@ public @interface Cached {
      */
     String postCondition() default CacheConsts.UNDEFINED_STRING;
 
+    /**
+     * Max time to wait for the target method when cache miss, use the timeUnit of this annotation.
+     * When timeout, a stale value is returned if available, or CacheInvokeException is thrown.
+     * @return the loader timeout, no limit if not specified
+     */
+    int loaderTimeout() default CacheConsts.UNDEFINED_INT;
+
+    /**
+     * If a load takes longer than this percentile (for example 0.95) of recent loads, invoke the target
+     * method again and use the first result. The target method should be idempotent.
+     * @return the hedge percentile, 0 means no hedged load
+     */
+    double loaderHedgePercentile() default 0;
+
 }
@@ -24,5 +24,10 @@ public interface KeyConvertor extends Function<Object, Object> {
      */
     String FASTJSON2 = "FASTJSON2";
 
+    /**
+     * @since 2.7.6
+     */
+    String BINARY = "BINARY";
+
     Function<Object, Object> NONE_INSTANCE = k -> k;
 }
@@ -47,6 +47,30 @@ public interface SerialPolicy {
      */
     int IDENTITY_NUMBER_FASTJSON2 = 0xF6E0A5C1;
 
+    /**
+     * Compact envelope of CacheValueHolder, the payload is encoded by another encoder.
+     *
+     * @see com.alicp.jetcache.support.CompactValueEncoder
+     * @since 2.7.6
+     */
+    int IDENTITY_NUMBER_COMPACT = 0xF6E0A5C2;
+
+    /**
+     * LZ4 compressed value, the compressed data is encoded by another encoder.
+     *
+     * @see com.alicp.jetcache.support.Lz4ValueEncoder
+     * @since 2.7.6
+     */
+    int IDENTITY_NUMBER_LZ4 = 0xF6E0A5C3;
+
+    /**
+     * Manifest of a large value stored in several chunk keys, it's read by the cache, not by the decoders.
+     *
+     * @see com.alicp.jetcache.external.ChunkManifest
+     * @since 2.7.6
+     */
+    int IDENTITY_NUMBER_CHUNK_MANIFEST = 0xF6E0A5C4;
+
     Function<Object, byte[]> encoder();
 
     Function<byte[], Object> decoder();
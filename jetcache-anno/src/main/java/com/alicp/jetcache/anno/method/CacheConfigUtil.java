@@ -49,6 +49,8 @@ public class CacheConfigUtil {
         cc.setSerialPolicy(anno.serialPolicy());
         cc.setKeyConvertor(anno.keyConvertor());
         cc.setKey(anno.key());
+        cc.setLoaderTimeout(anno.loaderTimeout());
+        cc.setLoaderHedgePercentile(anno.loaderHedgePercentile());
         cc.setDefineMethod(m);
 
         CacheRefresh cacheRefresh = m.getAnnotation(CacheRefresh.class);
@@ -86,6 +88,9 @@ public class CacheConfigUtil {
         if (!CacheConsts.isUndefined(cacheRefresh.refreshLockTimeout())) {
             policy.setRefreshLockTimeoutMillis(t.toMillis(cacheRefresh.refreshLockTimeout()));
         }
+        if (cacheRefresh.earlyRefresh()) {
+            policy.earlyRefresh(cacheRefresh.earlyRefreshBeta());
+        }
         return policy;
     }
 
@@ -310,6 +310,11 @@ public class CacheHandler implements InvocationHandler {
             return loadAndCount(context, cache, key);
         }
 
+        if (context.getMethod() != null && ReactiveSupport.isReactive(context.getMethod().getReturnType())) {
+            // 返回Mono/Flux的方法，缓存发射的值而不是Mono/Flux对象本身，订阅时才查询缓存和执行原方法
+            return ReactiveCachedInvoker.invoke(context, cache, key);
+        }
+
         try {
             // 创建一个执行原有方法的函数
             // 这里创建了一个CacheLoader的类实例，该类用于当缓存不存在对应key数据时调用原始方法（读数据库或者调用api请求数据）获取数据
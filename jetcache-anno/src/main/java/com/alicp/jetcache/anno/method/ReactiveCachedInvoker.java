@@ -0,0 +1,62 @@
+package com.alicp.jetcache.anno.method;
+
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.anno.support.CachedAnnoConfig;
+import com.alicp.jetcache.reactor.DefaultReactiveCache;
+import com.alicp.jetcache.reactor.ReactiveCache;
+import com.alicp.jetcache.reactor.ReactiveCacheLoader;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Handle @Cached methods which return Mono or Flux. The emitted value (elements of Flux are collected into
+ * a List) is cached instead of the publisher, the original method is invoked when the result is subscribed
+ * and the key not exists in cache.
+ *
+ * @author huangli
+ */
+class ReactiveCachedInvoker {
+
+    @SuppressWarnings("unchecked")
+    static Object invoke(CacheInvokeContext context, Cache cache, Object key) {
+        CachedAnnoConfig cac = context.getCacheInvokeConfig().getCachedAnnoConfig();
+        ReactiveCache<Object, Object> reactiveCache = (ReactiveCache<Object, Object>) cac.getReactiveCache();
+        if (reactiveCache == null || reactiveCache.getCache() != cache) {
+            reactiveCache = new DefaultReactiveCache<>((Cache<Object, Object>) cache);
+            cac.setReactiveCache(reactiveCache);
+        }
+        boolean flux = Flux.class.isAssignableFrom(context.getMethod().getReturnType());
+        ReactiveCacheLoader<Object, Object> loader = new ReactiveCacheLoader<Object, Object>() {
+            @Override
+            public Mono<Object> apply(Object k) {
+                Object origin;
+                try {
+                    origin = context.getInvoker().invoke();
+                } catch (Throwable e) {
+                    return Mono.error(e);
+                }
+                Mono<Object> mono;
+                if (origin == null) {
+                    mono = Mono.empty();
+                } else if (flux) {
+                    mono = ((Flux<Object>) origin).collectList().map(list -> list);
+                } else {
+                    mono = (Mono<Object>) origin;
+                }
+                return mono.doOnNext(context::setResult);
+            }
+
+            @Override
+            public boolean vetoCacheUpdate() {
+                return !ExpressionUtil.evalPostCondition(context, cac);
+            }
+        };
+        Mono<Object> result = reactiveCache.computeIfAbsent(key, loader);
+        if (flux) {
+            return result.flatMapMany(list -> Flux.fromIterable((List<Object>) list));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,28 @@
+package com.alicp.jetcache.anno.method;
+
+/**
+ * Detect methods returning Mono/Flux without referencing reactor classes, the invoker is only loaded
+ * when reactor-core and jetcache-reactor are both in the classpath.
+ *
+ * @author huangli
+ */
+class ReactiveSupport {
+
+    private static final Class<?> MONO_CLASS = loadClass("reactor.core.publisher.Mono");
+    private static final Class<?> FLUX_CLASS = loadClass("reactor.core.publisher.Flux");
+    private static final boolean ENABLED = MONO_CLASS != null && FLUX_CLASS != null
+            && loadClass("com.alicp.jetcache.reactor.ReactiveCache") != null;
+
+    private static Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name, false, ReactiveSupport.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    static boolean isReactive(Class<?> returnType) {
+        return ENABLED && returnType != null
+                && (MONO_CLASS.isAssignableFrom(returnType) || FLUX_CLASS.isAssignableFrom(returnType));
+    }
+}
@@ -132,6 +132,12 @@ public class CacheContext {
             b.penetrationProtectTimeout(ppc.getPenetrationProtectTimeout());
         }
         b.refreshPolicy(cac.getRefreshPolicy());
+        if (cac.getLoaderTimeout() > 0) {
+            b.loaderTimeout(Duration.ofMillis(timeUnit.toMillis(cac.getLoaderTimeout())));
+        }
+        if (cac.getLoaderHedgePercentile() > 0) {
+            b.loaderHedgePercentile(cac.getLoaderHedgePercentile());
+        }
 
         // 往下
         return cacheManager.getOrCreateCache(b.build());
@@ -29,6 +29,11 @@ public class CachedAnnoConfig extends CacheAnnoConfig {
     private Function<Object, Boolean> postConditionEvaluator;
     private RefreshPolicy refreshPolicy;
     private PenetrationProtectConfig penetrationProtectConfig;
+    private long loaderTimeout;
+    private double loaderHedgePercentile;
+
+    // 返回Mono/Flux的方法使用的ReactiveCache，类型声明为Object，避免没有jetcache-reactor时加载失败
+    private volatile Object reactiveCache;
 
     public boolean isEnabled() {
         return enabled;
@@ -142,4 +147,28 @@ public class CachedAnnoConfig extends CacheAnnoConfig {
     public void setSyncLocal(boolean syncLocal) {
         this.syncLocal = syncLocal;
     }
+
+    public long getLoaderTimeout() {
+        return loaderTimeout;
+    }
+
+    public void setLoaderTimeout(long loaderTimeout) {
+        this.loaderTimeout = loaderTimeout;
+    }
+
+    public double getLoaderHedgePercentile() {
+        return loaderHedgePercentile;
+    }
+
+    public void setLoaderHedgePercentile(double loaderHedgePercentile) {
+        this.loaderHedgePercentile = loaderHedgePercentile;
+    }
+
+    public Object getReactiveCache() {
+        return reactiveCache;
+    }
+
+    public void setReactiveCache(Object reactiveCache) {
+        this.reactiveCache = reactiveCache;
+    }
 }
@@ -16,6 +16,20 @@ import java.util.function.Function;
  * @author huangli
  */
 public class DefaultEncoderParser implements EncoderParser {
+    /**
+     * Modifier of the value encoder, for example "KRYO5+COMPACT".
+     *
+     * @see CompactValueEncoder
+     */
+    public static final String COMPACT = "COMPACT";
+
+    /**
+     * Modifier of the value encoder, for example "KRYO5+LZ4?compressThreshold=2048".
+     *
+     * @see Lz4ValueEncoder
+     */
+    public static final String LZ4 = "LZ4";
+
     protected static Map<String, String> parseQueryParameters(String query) {
         Map<String, String> m = new HashMap<>();
         if (query != null) {
@@ -43,19 +57,47 @@ public class DefaultEncoderParser implements EncoderParser {
         }
         valueEncoder = valueEncoder.trim();
         URI uri = URI.create(valueEncoder);
-        valueEncoder = uri.getPath();
+        // 形如 KRYO5+COMPACT，+后面是修饰
+        String[] parts = uri.getPath().split("\\+");
+        valueEncoder = parts[0].trim();
         boolean useIdentityNumber = isUseIdentityNumber(uri);
+        AbstractValueEncoder encoder;
         if (SerialPolicy.KRYO.equalsIgnoreCase(valueEncoder)) {
-            return new KryoValueEncoder(useIdentityNumber);
+            encoder = new KryoValueEncoder(useIdentityNumber);
         } else if (SerialPolicy.JAVA.equalsIgnoreCase(valueEncoder)) {
-            return new JavaValueEncoder(useIdentityNumber);
+            encoder = new JavaValueEncoder(useIdentityNumber);
         } else if (SerialPolicy.KRYO5.equalsIgnoreCase(valueEncoder)) {
-            return new Kryo5ValueEncoder(useIdentityNumber);
+            encoder = new Kryo5ValueEncoder(useIdentityNumber);
         } else if (SerialPolicy.FASTJSON2.equalsIgnoreCase(valueEncoder)) {
-            return new Fastjson2ValueEncoder(useIdentityNumber);
+            encoder = new Fastjson2ValueEncoder(useIdentityNumber);
         }else {
             throw new CacheConfigException("not supported:" + valueEncoder);
         }
+        Map<String, String> params = parseQueryParameters(uri.getQuery());
+        for (int i = 1; i < parts.length; i++) {
+            encoder = decorateEncoder(encoder, parts[i].trim(), params);
+        }
+        return encoder;
+    }
+
+    protected AbstractValueEncoder decorateEncoder(AbstractValueEncoder encoder, String modifier,
+                                                   Map<String, String> params) {
+        if (COMPACT.equalsIgnoreCase(modifier)) {
+            return new CompactValueEncoder(encoder);
+        } else if (LZ4.equalsIgnoreCase(modifier)) {
+            String threshold = params.get("compressThreshold");
+            try {
+                return new Lz4ValueEncoder(encoder,
+                        threshold == null ? Lz4ValueEncoder.DEFAULT_THRESHOLD : Integer.parseInt(threshold));
+            } catch (NumberFormatException e) {
+                throw new CacheConfigException("illegal compressThreshold:" + threshold);
+            }
+        }
+        throw new CacheConfigException("not supported:" + modifier);
+    }
+
+    private static boolean isModifier(String modifier) {
+        return COMPACT.equalsIgnoreCase(modifier) || LZ4.equalsIgnoreCase(modifier);
     }
 
     private boolean isUseIdentityNumber(URI uri) {
@@ -74,8 +116,18 @@ public class DefaultEncoderParser implements EncoderParser {
         }
         valueDecoder = valueDecoder.trim();
         URI uri = URI.create(valueDecoder);
-        valueDecoder = uri.getPath();
+        // 解码时按identity number选择decoder，修饰不影响decoder的选择
+        String[] parts = uri.getPath().split("\\+");
+        valueDecoder = parts[0].trim();
         boolean useIdentityNumber = isUseIdentityNumber(uri);
+        for (int i = 1; i < parts.length; i++) {
+            if (!isModifier(parts[i].trim())) {
+                throw new CacheConfigException("not supported:" + parts[i]);
+            }
+            if (!useIdentityNumber) {
+                throw new CacheConfigException(parts[i] + " requires useIdentityNumber");
+            }
+        }
         if (SerialPolicy.KRYO.equalsIgnoreCase(valueDecoder)) {
             return new KryoValueDecoder(useIdentityNumber);
         } else if (SerialPolicy.JAVA.equalsIgnoreCase(valueDecoder)) {
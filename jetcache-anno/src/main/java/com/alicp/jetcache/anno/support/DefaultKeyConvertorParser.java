@@ -5,6 +5,7 @@ package com.alicp.jetcache.anno.support;
 
 import com.alicp.jetcache.CacheConfigException;
 import com.alicp.jetcache.anno.KeyConvertor;
+import com.alicp.jetcache.support.BinaryKeyConvertor;
 import com.alicp.jetcache.support.Fastjson2KeyConvertor;
 import com.alicp.jetcache.support.FastjsonKeyConvertor;
 import com.alicp.jetcache.support.JacksonKeyConvertor;
@@ -26,6 +27,8 @@ public class DefaultKeyConvertorParser implements KeyConvertorParser {
             return Fastjson2KeyConvertor.INSTANCE;
         } else if (KeyConvertor.JACKSON.equalsIgnoreCase(convertor)) {
             return JacksonKeyConvertor.INSTANCE;
+        } else if (KeyConvertor.BINARY.equalsIgnoreCase(convertor)) {
+            return BinaryKeyConvertor.INSTANCE;
         } else if (KeyConvertor.NONE.equalsIgnoreCase(convertor)) {
             return KeyConvertor.NONE_INSTANCE;
         }
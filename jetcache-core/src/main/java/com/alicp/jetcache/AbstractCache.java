@@ -1,6 +1,7 @@
 package com.alicp.jetcache;
 
 import com.alicp.jetcache.embedded.AbstractEmbeddedCache;
+import com.alicp.jetcache.event.CacheClearEvent;
 import com.alicp.jetcache.event.CacheEvent;
 import com.alicp.jetcache.event.CacheGetAllEvent;
 import com.alicp.jetcache.event.CacheGetEvent;
@@ -8,13 +9,16 @@ import com.alicp.jetcache.event.CachePutAllEvent;
 import com.alicp.jetcache.event.CachePutEvent;
 import com.alicp.jetcache.event.CacheRemoveAllEvent;
 import com.alicp.jetcache.event.CacheRemoveEvent;
+import com.alicp.jetcache.event.CacheStaleEvent;
 import com.alicp.jetcache.external.AbstractExternalCache;
+import com.alicp.jetcache.support.JetCacheExecutor;
 import com.alicp.jetcache.support.SquashedLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -24,6 +28,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Created on 2016/10/7.
@@ -43,6 +48,16 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     private volatile ConcurrentHashMap<Object, LoaderLock> loaderMap;
 
+    /**
+     * 正在后台重新加载（stale-while-revalidate）的key
+     */
+    private final ConcurrentHashMap<Object, Boolean> revalidatingKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 配置了加载超时或对冲加载时使用，记录该缓存最近的加载耗时
+     */
+    private volatile TimedLoader timedLoader;
+
     // 标记缓存是否已关闭
     protected volatile boolean closed;
     // 用于初始化loaderMap的互斥锁，确保线程安全
@@ -67,6 +82,20 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         return loaderMap;
     }
 
+    TimedLoader initOrGetTimedLoader() {
+        if (timedLoader == null) {
+            reentrantLock.lock();
+            try {
+                if (timedLoader == null) {
+                    timedLoader = new TimedLoader();
+                }
+            } finally {
+                reentrantLock.unlock();
+            }
+        }
+        return timedLoader;
+    }
+
     protected void logError(String oper, Object key, Throwable e) {
         StringBuilder sb = new StringBuilder(256);
         sb.append("jetcache(")
@@ -111,7 +140,9 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         if (key == null) {
             result = new CacheGetResult<V>(CacheResultCode.FAIL, CacheResult.MSG_ILLEGAL_ARGUMENT, null);
         } else {
-            result = do_GET(key);
+            long staleRetention = staleRetentionMillis(config());
+            result = guard(() -> staleRetention > 0 ? markStale(do_GET(key), staleRetention) : do_GET(key),
+                    msg -> new CacheGetResult<>(CacheResultCode.FAIL, msg, null));
         }
         // 异步触发获取事件的通知
         result.future().thenRun(() -> {
@@ -121,6 +152,17 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         return result;
     }
 
+    /**
+     * 执行实际的缓存操作（do_XXX方法），子类可以覆盖它对所有操作做统一的处理，比如远程缓存的熔断。
+     *
+     * @param action     实际的缓存操作
+     * @param failResult 不执行操作时根据错误信息构造返回的结果
+     * @return 操作结果
+     */
+    protected <R extends CacheResult> R guard(Supplier<R> action, Function<String, R> failResult) {
+        return action.get();
+    }
+
     /**
      * 实际获取缓存值的逻辑。
      *
@@ -143,7 +185,9 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         if (keys == null) {
             result = new MultiGetResult<>(CacheResultCode.FAIL, CacheResult.MSG_ILLEGAL_ARGUMENT, null);
         } else {
-            result = do_GET_ALL(keys);
+            long staleRetention = staleRetentionMillis(config());
+            result = guard(() -> staleRetention > 0 ? markStale(do_GET_ALL(keys), staleRetention) : do_GET_ALL(keys),
+                    msg -> new MultiGetResult<>(CacheResultCode.FAIL, msg, null));
         }
         // 异步触发批量获取事件的通知
         result.future().thenRun(() -> {
@@ -161,6 +205,45 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     protected abstract MultiGetResult<K, V> do_GET_ALL(Set<? extends K> keys);
 
+    /**
+     * 逻辑过期后数据仍需保留的时间，写入时会加到过期时间上
+     */
+    static long staleRetentionMillis(CacheConfig config) {
+        return Math.max(config.getStaleWhileRevalidateInMillis(), config.getStaleIfErrorInMillis());
+    }
+
+    /**
+     * 已过逻辑过期时间（过期时间减去保留时间）的数据返回 EXPIRED，但保留 holder 供 computeIfAbsent 返回旧值
+     */
+    private static <V> CacheGetResult<V> markStale(CacheGetResult<V> result, long staleRetention) {
+        return new CacheGetResult<>(result.future().thenApply(rd -> {
+            if (rd.getResultCode() == CacheResultCode.SUCCESS && rd.getOriginData() instanceof CacheValueHolder) {
+                CacheValueHolder<?> holder = (CacheValueHolder<?>) rd.getOriginData();
+                if (System.currentTimeMillis() >= holder.getExpireTime() - staleRetention) {
+                    return new ResultData(CacheResultCode.EXPIRED, rd.getMessage(), holder);
+                }
+            }
+            return rd;
+        }));
+    }
+
+    private static <K, V> MultiGetResult<K, V> markStale(MultiGetResult<K, V> result, long staleRetention) {
+        return new MultiGetResult<>(result.future().thenApply(rd -> {
+            Map<K, CacheGetResult<V>> values = (Map<K, CacheGetResult<V>>) rd.getOriginData();
+            if (values == null) {
+                return rd;
+            }
+            Map<K, CacheGetResult<V>> newValues = new HashMap<>(values.size());
+            values.forEach((k, v) -> newValues.put(k, markStale(v, staleRetention)));
+            return new ResultData(rd.getResultCode(), rd.getMessage(), newValues);
+        }));
+    }
+
+    private static long addStaleRetention(long expireAfterWriteInMillis, long staleRetention) {
+        long expire = expireAfterWriteInMillis + staleRetention;
+        return expire < 0 ? Long.MAX_VALUE : expire;
+    }
+
     @Override
     public final V computeIfAbsent(K key, Function<K, V> loader, boolean cacheNullWhenLoaderReturnNull) {
         return computeIfAbsentImpl(key, loader, cacheNullWhenLoaderReturnNull,
@@ -202,7 +285,10 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         AbstractCache<K, V> abstractCache = CacheUtil.getAbstractCache(cache);
         // 创建带有缓存监听的缓存加载器
         // 封装 loader 函数成一个 ProxyLoader 对象，主要在重新加载缓存后发出一个 CacheLoadEvent 到 CacheMonitor
-        CacheLoader<K, V> newLoader = CacheUtil.createProxyLoader(cache, loader, abstractCache::notify);
+        // RefreshCache 会额外统计加载耗时，用于提前刷新
+        Consumer<CacheEvent> eventConsumer = cache instanceof LoadingCache ?
+                ((LoadingCache<K, V>) cache).eventConsumer : abstractCache::notify;
+        CacheLoader<K, V> newLoader = CacheUtil.createProxyLoader(cache, loader, eventConsumer);
 
         // 获取缓存获取结果
         CacheGetResult<V> r;
@@ -220,6 +306,8 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
             r = refreshCache.GET(key);
             // 添加/更新当前 RefreshCache 的刷新缓存任务，存放于 RefreshCache 的 taskMap 中
             refreshCache.addOrUpdateRefreshTask(key, newLoader);
+            // 临近过期时按概率在后台提前刷新（XFetch）
+            refreshCache.earlyRefreshIfNeeded(key, r, newLoader);
         } else {
             // 从缓存中获取数据
             r = cache.GET(key);
@@ -246,17 +334,49 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
                 }
             };
 
+            // 已逻辑过期但仍在保留期内的旧值
+            CacheConfig<K, V> config = cache.config();
+            CacheValueHolder<V> staleHolder = r.getResultCode() == CacheResultCode.EXPIRED ? r.getHolder() : null;
+            long staleAge = 0;
+            if (staleHolder != null) {
+                staleAge = System.currentTimeMillis() - (staleHolder.getExpireTime() - staleRetentionMillis(config));
+                if (staleAge < config.getStaleWhileRevalidateInMillis()) {
+                    // stale-while-revalidate：直接返回旧值，由一个后台任务重新加载
+                    abstractCache.revalidate(key, newLoader, cacheUpdater);
+                    eventConsumer.accept(new CacheStaleEvent(cache, key, r.getValue(), false));
+                    return r.getValue();
+                }
+            }
+
+            // 配置了加载超时或对冲加载时，在加载线程池中执行
+            Function<K, V> load = newLoader;
+            Duration loaderTimeout = config.getLoaderTimeout();
+            double hedgePercentile = config.getLoaderHedgePercentile();
+            if (loaderTimeout != null || hedgePercentile > 0) {
+                TimedLoader timedLoader = abstractCache.initOrGetTimedLoader();
+                load = k -> timedLoader.load(k, newLoader, loaderTimeout, hedgePercentile);
+            }
+
             // 加载值
             V loadedValue;
-            if (cache.config().isCachePenetrationProtect()) { // 添加了 @CachePenetrationProtect 注解
-                // 一个JVM只允许一个线程执行
-                loadedValue = synchronizedLoad(cache.config(), abstractCache, key, newLoader, cacheUpdater);
-            } else {
-                // 否则直接通过缓存加载器加载值，并执行缓存更新逻辑
-                // 执行方法
-                loadedValue = newLoader.apply(key);
-                // 将新的结果异步缓存
-                cacheUpdater.accept(loadedValue);
+            try {
+                if (config.isCachePenetrationProtect()) { // 添加了 @CachePenetrationProtect 注解
+                    // 一个JVM只允许一个线程执行
+                    loadedValue = synchronizedLoad(config, abstractCache, key, load, cacheUpdater);
+                } else {
+                    // 否则直接通过缓存加载器加载值，并执行缓存更新逻辑
+                    // 执行方法
+                    loadedValue = load.apply(key);
+                    // 将新的结果异步缓存
+                    cacheUpdater.accept(loadedValue);
+                }
+            } catch (RuntimeException e) {
+                if (staleHolder != null && staleAge < config.getStaleIfErrorInMillis()) {
+                    // stale-if-error：加载失败时返回旧值
+                    eventConsumer.accept(new CacheStaleEvent(cache, key, r.getValue(), true));
+                    return r.getValue();
+                }
+                throw e;
             }
 
             // 返回加载的值
@@ -264,6 +384,22 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         }
     }
 
+    private void revalidate(K key, Function<K, V> loader, Consumer<V> cacheUpdater) {
+        Object lockKey = buildLoaderLockKey(this, key);
+        if (revalidatingKeys.putIfAbsent(lockKey, Boolean.TRUE) != null) {
+            return;
+        }
+        JetCacheExecutor.refreshExecutor().execute(() -> {
+            try {
+                cacheUpdater.accept(loader.apply(key));
+            } catch (Throwable e) {
+                logError("revalidate", key, e);
+            } finally {
+                revalidatingKeys.remove(lockKey);
+            }
+        });
+    }
+
     static <K, V> V synchronizedLoad(CacheConfig config, AbstractCache<K, V> abstractCache,
                                      K key, Function<K, V> newLoader, Consumer<V> cacheUpdater) {
         ConcurrentHashMap<Object, LoaderLock> loaderMap = abstractCache.initOrGetLoaderMap();
@@ -359,7 +495,15 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         if (key == null) {
             result = CacheResult.FAIL_ILLEGAL_ARGUMENT;
         } else {
-            result = do_PUT(key, value, expireAfterWrite, timeUnit);
+            long staleRetention = staleRetentionMillis(config());
+            if (staleRetention > 0 && timeUnit != null) {
+                long expire = addStaleRetention(timeUnit.toMillis(expireAfterWrite), staleRetention);
+                result = guard(() -> do_PUT(key, value, expire, TimeUnit.MILLISECONDS),
+                        msg -> new CacheResult(CacheResultCode.FAIL, msg));
+            } else {
+                result = guard(() -> do_PUT(key, value, expireAfterWrite, timeUnit),
+                        msg -> new CacheResult(CacheResultCode.FAIL, msg));
+            }
         }
         // 在异步操作完成后触发事件通知
         result.future().thenRun(() -> {
@@ -395,7 +539,15 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         if (map == null) {
             result = CacheResult.FAIL_ILLEGAL_ARGUMENT;
         } else {
-            result = do_PUT_ALL(map, expireAfterWrite, timeUnit);
+            long staleRetention = staleRetentionMillis(config());
+            if (staleRetention > 0 && timeUnit != null) {
+                long expire = addStaleRetention(timeUnit.toMillis(expireAfterWrite), staleRetention);
+                result = guard(() -> do_PUT_ALL(map, expire, TimeUnit.MILLISECONDS),
+                        msg -> new CacheResult(CacheResultCode.FAIL, msg));
+            } else {
+                result = guard(() -> do_PUT_ALL(map, expireAfterWrite, timeUnit),
+                        msg -> new CacheResult(CacheResultCode.FAIL, msg));
+            }
         }
         // 在异步操作完成后触发事件通知
         result.future().thenRun(() -> {
@@ -429,7 +581,8 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         if (key == null) {
             result = CacheResult.FAIL_ILLEGAL_ARGUMENT;
         } else {
-            result = do_REMOVE(key);
+            result = guard(() -> do_REMOVE(key),
+                    msg -> new CacheResult(CacheResultCode.FAIL, msg));
         }
         // 在异步操作完成后触发事件通知
         result.future().thenRun(() -> {
@@ -462,7 +615,8 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         if (keys == null) {
             result = CacheResult.FAIL_ILLEGAL_ARGUMENT;
         } else {
-            result = do_REMOVE_ALL(keys);
+            result = guard(() -> do_REMOVE_ALL(keys),
+                    msg -> new CacheResult(CacheResultCode.FAIL, msg));
         }
         // 在异步操作完成后触发事件通知
         result.future().thenRun(() -> {
@@ -480,6 +634,26 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     protected abstract CacheResult do_REMOVE_ALL(Set<? extends K> keys);
 
+    @Override
+    public final CacheResult CLEAR() {
+        long t = System.currentTimeMillis();
+        CacheResult result = do_CLEAR();
+        result.future().thenRun(() -> {
+            CacheClearEvent event = new CacheClearEvent(this, System.currentTimeMillis() - t, result);
+            notify(event);
+        });
+        return result;
+    }
+
+    /**
+     * 实际执行清除操作的方法，默认不支持。
+     *
+     * @return 操作结果，包含操作是否成功等信息。
+     */
+    protected CacheResult do_CLEAR() {
+        return new CacheResult(CacheResultCode.FAIL, "CLEAR is not supported by " + getClass().getName());
+    }
+
     /**
      * 如果指定的键在缓存中不存在，则将其添加。
      *
@@ -496,7 +670,16 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         if (key == null) {
             result = CacheResult.FAIL_ILLEGAL_ARGUMENT;
         } else {
-            result = do_PUT_IF_ABSENT(key, value, expireAfterWrite, timeUnit);
+            // 和PUT一样加上保留时间，否则GET按 过期时间-保留时间 判断会提前返回EXPIRED
+            long staleRetention = staleRetentionMillis(config());
+            if (staleRetention > 0 && timeUnit != null) {
+                long expire = addStaleRetention(timeUnit.toMillis(expireAfterWrite), staleRetention);
+                result = guard(() -> do_PUT_IF_ABSENT(key, value, expire, TimeUnit.MILLISECONDS),
+                        msg -> new CacheResult(CacheResultCode.FAIL, msg));
+            } else {
+                result = guard(() -> do_PUT_IF_ABSENT(key, value, expireAfterWrite, timeUnit),
+                        msg -> new CacheResult(CacheResultCode.FAIL, msg));
+            }
         }
         // 在异步操作完成后触发事件通知
         result.future().thenRun(() -> {
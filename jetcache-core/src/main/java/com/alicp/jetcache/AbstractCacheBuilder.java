@@ -1,5 +1,6 @@
 package com.alicp.jetcache;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -48,6 +49,10 @@ public abstract class AbstractCacheBuilder<T extends AbstractCacheBuilder<T>> im
         beforeBuild();
         // 克隆一份配置信息，因为这里获取到的是全局配置信息，以防后续被修改
         CacheConfig c = getConfig().clone();
+        if (c.getLoader() != null && c.getLoaderBatchSize() > 0 && !(c.getLoader() instanceof BatchingCacheLoader)) {
+            c.setLoader(new BatchingCacheLoader<>(c.getLoader(), c.getLoaderBatchWindowInMillis(), c.getLoaderBatchSize(),
+                    c.getLoaderTimeout()));
+        }
         // 通过构建函数创建一个缓存实例
         Cache<K, V> cache = buildFunc.apply(c);
         if (c.getLoader() != null) {
@@ -143,4 +148,67 @@ public abstract class AbstractCacheBuilder<T extends AbstractCacheBuilder<T>> im
     public void setCachePenetrateProtect(boolean cachePenetrateProtect) {
         getConfig().setCachePenetrationProtect(cachePenetrateProtect);
     }
+
+    public T staleWhileRevalidate(long staleWhileRevalidate, TimeUnit timeUnit) {
+        getConfig().setStaleWhileRevalidateInMillis(timeUnit.toMillis(staleWhileRevalidate));
+        return self();
+    }
+
+    public void setStaleWhileRevalidateInMillis(long staleWhileRevalidateInMillis) {
+        getConfig().setStaleWhileRevalidateInMillis(staleWhileRevalidateInMillis);
+    }
+
+    public T staleIfError(long staleIfError, TimeUnit timeUnit) {
+        getConfig().setStaleIfErrorInMillis(timeUnit.toMillis(staleIfError));
+        return self();
+    }
+
+    public void setStaleIfErrorInMillis(long staleIfErrorInMillis) {
+        getConfig().setStaleIfErrorInMillis(staleIfErrorInMillis);
+    }
+
+    /**
+     * Coalesce concurrent single-key loads into one {@link CacheLoader#loadAll(java.util.Set)} call.
+     * @param maxBatchSize max keys of one batch
+     * @param batchWindow how long a batch waits for more keys
+     * @param timeUnit time unit of batchWindow
+     * @return this builder
+     */
+    public T loaderBatch(int maxBatchSize, long batchWindow, TimeUnit timeUnit) {
+        getConfig().setLoaderBatchSize(maxBatchSize);
+        getConfig().setLoaderBatchWindowInMillis(timeUnit.toMillis(batchWindow));
+        return self();
+    }
+
+    public void setLoaderBatchSize(int loaderBatchSize) {
+        getConfig().setLoaderBatchSize(loaderBatchSize);
+    }
+
+    public void setLoaderBatchWindowInMillis(long loaderBatchWindowInMillis) {
+        getConfig().setLoaderBatchWindowInMillis(loaderBatchWindowInMillis);
+    }
+
+    public T loaderTimeout(long loaderTimeout, TimeUnit timeUnit) {
+        getConfig().setLoaderTimeout(Duration.ofMillis(timeUnit.toMillis(loaderTimeout)));
+        return self();
+    }
+
+    public void setLoaderTimeout(Duration loaderTimeout) {
+        getConfig().setLoaderTimeout(loaderTimeout);
+    }
+
+    /**
+     * Start a second (hedged) load when a load takes longer than this percentile of recent loads,
+     * the first result wins. The loader should be idempotent.
+     * @param loaderHedgePercentile percentile in (0, 1), for example 0.95
+     * @return this builder
+     */
+    public T loaderHedgePercentile(double loaderHedgePercentile) {
+        getConfig().setLoaderHedgePercentile(loaderHedgePercentile);
+        return self();
+    }
+
+    public void setLoaderHedgePercentile(double loaderHedgePercentile) {
+        getConfig().setLoaderHedgePercentile(loaderHedgePercentile);
+    }
 }
@@ -11,4 +11,15 @@ public interface AutoReleaseLock extends AutoCloseable {
      */
     @Override
     void close();
+
+    /**
+     * Fencing token of the lock, it increases every time a lock of the same cache is acquired.
+     * Pass it to the resource protected by the lock, and the resource rejects the requests with a smaller token
+     * than it has seen, so an owner paused after its lock is expired can't overwrite the work of the next owner.
+     *
+     * @return the token, or -1 if the lock doesn't support fencing token
+     */
+    default long getFencingToken() {
+        return -1;
+    }
 }
@@ -0,0 +1,142 @@
+package com.alicp.jetcache;
+
+import com.alicp.jetcache.support.JetCacheExecutor;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A loader wrapper that coalesces concurrent single-key loads into one {@link CacheLoader#loadAll(Set)} call.
+ * The first key of a batch starts a window, keys arriving within the window (or until maxBatchSize keys
+ * are collected) are loaded together, and each caller gets its own value from the result.
+ * A batch closed by its window is loaded in the loader executor, a full batch is loaded by the caller
+ * which fills it. Callers wait at most loadTimeout if it is set.
+ *
+ * @author huangli
+ */
+public class BatchingCacheLoader<K, V> implements CacheLoader<K, V> {
+
+    private final CacheLoader<K, V> loader;
+    private final long batchWindowMillis;
+    private final int maxBatchSize;
+    private final Duration loadTimeout;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * 当前正在收集key的批次，分发后置为null
+     */
+    private Batch<K, V> currentBatch;
+
+    private static class Batch<K, V> {
+        private final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+    }
+
+    public BatchingCacheLoader(CacheLoader<K, V> loader, long batchWindowMillis, int maxBatchSize) {
+        this(loader, batchWindowMillis, maxBatchSize, null);
+    }
+
+    public BatchingCacheLoader(CacheLoader<K, V> loader, long batchWindowMillis, int maxBatchSize,
+                               Duration loadTimeout) {
+        if (loader == null) {
+            throw new NullPointerException();
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.loader = loader;
+        this.batchWindowMillis = batchWindowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.loadTimeout = loadTimeout;
+    }
+
+    @Override
+    public V load(K key) throws Throwable {
+        CompletableFuture<V> future;
+        Batch<K, V> fullBatch = null;
+        lock.lock();
+        try {
+            Batch<K, V> batch = currentBatch;
+            if (batch == null) {
+                batch = new Batch<>();
+                currentBatch = batch;
+                Batch<K, V> b = batch;
+                // 定时线程只负责计时，loadAll在加载线程池中执行
+                JetCacheExecutor.defaultExecutor().schedule(() -> dispatchInLoaderExecutor(b),
+                        batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+            future = batch.futures.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (batch.futures.size() >= maxBatchSize) {
+                currentBatch = null;
+                fullBatch = batch;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (fullBatch != null) {
+            // 批次已满，在当前线程中直接加载
+            dispatch(fullBatch);
+        }
+        try {
+            if (loadTimeout == null) {
+                return future.get();
+            }
+            return future.get(loadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            throw new CacheInvokeException("batch load timeout: " + loadTimeout, e);
+        }
+    }
+
+    private void dispatchInLoaderExecutor(Batch<K, V> batch) {
+        lock.lock();
+        try {
+            if (currentBatch != batch) {
+                // 已经因为批次已满被分发
+                return;
+            }
+            currentBatch = null;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            JetCacheExecutor.loaderExecutor().execute(() -> dispatch(batch));
+        } catch (RejectedExecutionException e) {
+            // 加载线程池已满，不在定时线程中加载，这个批次直接失败
+            batch.futures.values().forEach(f -> f.completeExceptionally(e));
+        }
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        Set<K> keys = new LinkedHashSet<>(batch.futures.keySet());
+        try {
+            Map<K, V> values = loader.loadAll(keys);
+            batch.futures.forEach((k, f) -> f.complete(values == null ? null : values.get(k)));
+        } catch (Throwable e) {
+            batch.futures.values().forEach(f -> f.completeExceptionally(e));
+        }
+    }
+
+    @Override
+    public Map<K, V> loadAll(Set<K> keys) throws Throwable {
+        return loader.loadAll(keys);
+    }
+
+    @Override
+    public boolean vetoCacheUpdate() {
+        return loader.vetoCacheUpdate();
+    }
+
+    public CacheLoader<K, V> getLoader() {
+        return loader;
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
 
 /**
@@ -122,6 +123,16 @@ public interface Cache<K, V> extends Closeable {
         REMOVE_ALL(keys);
     }
 
+    /**
+     * Removes all entries of this cache.
+     * <p>If error occurs during cache access, the method will not throw an exception.</p>
+     * <p>The cache operation of this method is asynchronous for remote caches.</p>
+     * @see #CLEAR()
+     */
+    default void clear() {
+        CLEAR();
+    }
+
     /**
      * Provides a standard way to access the underlying concrete cache entry
      * implementation in order to provide access to further, proprietary features.
@@ -310,6 +321,43 @@ public interface Cache<K, V> extends Closeable {
         }
     }
 
+    /**
+     * Acquire an exclusive lock of the key, wait at most waitTimeout if the lock is held by others.
+     * <p>{@link MultiLevelCache} will use the last level cache to support this operation.
+     * The redis caches wake up the waiters when the lock is released, other caches poll by {@link #tryLock}
+     * with a bounded interval.</p>
+     * examples:
+     * <pre>
+     *   try(AutoReleaseLock lock = cache.lock("MyKey", 100, 5, TimeUnit.SECONDS)){
+     *      if(lock != null){
+     *          // do something
+     *      }
+     *   }
+     * </pre>
+     * @param key lockKey
+     * @param expire lock expire time
+     * @param waitTimeout max time to wait for the lock
+     * @param timeUnit time unit of expire and waitTimeout
+     * @return the lock, or null if the lock can't be acquired before timeout, or the thread is interrupted
+     */
+    default AutoReleaseLock lock(K key, long expire, long waitTimeout, TimeUnit timeUnit) {
+        long deadline = System.nanoTime() + timeUnit.toNanos(waitTimeout);
+        long sleepMillis = 1;
+        while (true) {
+            AutoReleaseLock lock = tryLock(key, expire, timeUnit);
+            if (lock != null || key == null) {
+                return lock;
+            }
+            long remain = deadline - System.nanoTime();
+            if (remain <= 0 || Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            // 没有释放通知，只能轮询，间隔逐渐增加到上限
+            sleepMillis = Math.min(sleepMillis * 2, 100);
+            LockSupport.parkNanos(Math.min(remain, TimeUnit.MILLISECONDS.toNanos(sleepMillis)));
+        }
+    }
+
     /**
      * Gets an entry from the cache.
      * <p>if the implementation supports asynchronous operation, the cache access may not completed after this method
@@ -468,6 +516,17 @@ public interface Cache<K, V> extends Closeable {
      */
     CacheResult REMOVE_ALL(Set<? extends K> keys);
 
+    /**
+     * 移除这个缓存的所有数据。
+     * <p>远程缓存通过SCAN按keyPrefix遍历所有节点，并分批UNLINK删除，多级缓存同时通过广播清除其它JVM的本地缓存。
+     * 通常在后台执行，耗时和key的数量成正比。不支持的实现返回FAIL。</p>
+     * @return 操作结果
+     * @see #clear()
+     */
+    default CacheResult CLEAR() {
+        return new CacheResult(CacheResultCode.FAIL, "CLEAR is not supported by " + getClass().getName());
+    }
+
     /**
      * 如果指定键尚未与值关联，则将其与给定值关联。
      * <p>如果实现支持异步操作，调用此方法后缓存访问可能并未完成。
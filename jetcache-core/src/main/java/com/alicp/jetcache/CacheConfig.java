@@ -34,6 +34,30 @@ public class CacheConfig<K, V> implements Cloneable {
     private boolean cachePenetrationProtect = false;
     private Duration penetrationProtectTimeout = null;
 
+    /**
+     * 逻辑过期后，在此时间内直接返回旧值，同时在后台重新加载
+     */
+    private long staleWhileRevalidateInMillis = 0;
+    /**
+     * 逻辑过期后，在此时间内如果加载失败，返回旧值
+     */
+    private long staleIfErrorInMillis = 0;
+
+    /**
+     * 大于0时，并发的单个key加载会合并为一次 loadAll 调用，见 {@link BatchingCacheLoader}
+     */
+    private int loaderBatchSize = 0;
+    private long loaderBatchWindowInMillis = 0;
+
+    /**
+     * 加载超时时间，超时后返回旧值（配置了 staleIfError 时）或抛出异常，null 表示不限制
+     */
+    private Duration loaderTimeout = null;
+    /**
+     * 大于0时，加载耗时超过最近加载耗时的该百分位（例如0.95）会再发起一次加载，先返回的结果生效
+     */
+    private double loaderHedgePercentile = 0;
+
     @Override
     public CacheConfig clone() {
         try {
@@ -163,4 +187,52 @@ public class CacheConfig<K, V> implements Cloneable {
     public void setPenetrationProtectTimeout(Duration penetrationProtectTimeout) {
         this.penetrationProtectTimeout = penetrationProtectTimeout;
     }
+
+    public long getStaleWhileRevalidateInMillis() {
+        return staleWhileRevalidateInMillis;
+    }
+
+    public void setStaleWhileRevalidateInMillis(long staleWhileRevalidateInMillis) {
+        this.staleWhileRevalidateInMillis = staleWhileRevalidateInMillis;
+    }
+
+    public long getStaleIfErrorInMillis() {
+        return staleIfErrorInMillis;
+    }
+
+    public void setStaleIfErrorInMillis(long staleIfErrorInMillis) {
+        this.staleIfErrorInMillis = staleIfErrorInMillis;
+    }
+
+    public int getLoaderBatchSize() {
+        return loaderBatchSize;
+    }
+
+    public void setLoaderBatchSize(int loaderBatchSize) {
+        this.loaderBatchSize = loaderBatchSize;
+    }
+
+    public long getLoaderBatchWindowInMillis() {
+        return loaderBatchWindowInMillis;
+    }
+
+    public void setLoaderBatchWindowInMillis(long loaderBatchWindowInMillis) {
+        this.loaderBatchWindowInMillis = loaderBatchWindowInMillis;
+    }
+
+    public Duration getLoaderTimeout() {
+        return loaderTimeout;
+    }
+
+    public void setLoaderTimeout(Duration loaderTimeout) {
+        this.loaderTimeout = loaderTimeout;
+    }
+
+    public double getLoaderHedgePercentile() {
+        return loaderHedgePercentile;
+    }
+
+    public void setLoaderHedgePercentile(double loaderHedgePercentile) {
+        this.loaderHedgePercentile = loaderHedgePercentile;
+    }
 }
@@ -13,6 +13,7 @@ import java.util.concurrent.*;
 public class CacheResult {
 
     public static final String MSG_ILLEGAL_ARGUMENT = "illegal argument";
+    public static final String MSG_CIRCUIT_OPEN = "circuit breaker is open";
 
     private static Duration DEFAULT_TIMEOUT = CacheConsts.ASYNC_RESULT_TIMEOUT;
 
@@ -1,5 +1,10 @@
 package com.alicp.jetcache;
 
+import com.alicp.jetcache.embedded.AbstractEmbeddedCache;
+import com.alicp.jetcache.external.AbstractExternalCache;
+import com.alicp.jetcache.external.ExternalCacheConfig;
+import com.alicp.jetcache.support.CircuitBreaker;
+
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -7,6 +12,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -25,6 +31,7 @@ public class MultiLevelCache<K, V> extends AbstractCache<K, V> {
     public MultiLevelCache(Cache... caches) throws CacheConfigException {
         this.caches = caches;
         checkCaches();
+        addInvalidationListeners();
         CacheConfig lastConfig = caches[caches.length - 1].config();
         config = new MultiLevelCacheConfig<>();
         config.setCaches(Arrays.asList(caches));
@@ -37,6 +44,7 @@ public class MultiLevelCache<K, V> extends AbstractCache<K, V> {
         this.config = cacheConfig;
         this.caches = cacheConfig.getCaches().toArray(new Cache[]{});
         checkCaches();
+        addInvalidationListeners();
     }
 
     private void checkCaches() {
@@ -50,6 +58,32 @@ public class MultiLevelCache<K, V> extends AbstractCache<K, V> {
         }
     }
 
+    /**
+     * When a remote cache finds some keys are modified by other clients, invalidate them in the caches before it.
+     */
+    private void addInvalidationListeners() {
+        for (int i = 1; i < caches.length; i++) {
+            AbstractCache remote = CacheUtil.getAbstractCache(caches[i]);
+            if (!(remote instanceof AbstractExternalCache)) {
+                continue;
+            }
+            int level = i;
+            ((AbstractExternalCache<K, V>) remote).addInvalidationListener(keys -> {
+                for (int j = 0; j < level; j++) {
+                    AbstractCache local = CacheUtil.getAbstractCache(caches[j]);
+                    if (local instanceof AbstractEmbeddedCache) {
+                        AbstractEmbeddedCache<K, V> embedded = (AbstractEmbeddedCache<K, V>) local;
+                        Set newKeys = new HashSet();
+                        for (K k : keys) {
+                            newKeys.add(embedded.buildKey(k));
+                        }
+                        embedded.__removeAll(newKeys);
+                    }
+                }
+            });
+        }
+    }
+
     public Cache[] caches() {
         return caches;
     }
@@ -81,16 +115,23 @@ public class MultiLevelCache<K, V> extends AbstractCache<K, V> {
     }
 
     /**
-     * 遍历caches数组，也就是先从本地缓存获取，如果获取缓存不成功则从远程缓存获取，成功获取到缓存后会调用checkResultAndFillUpperCache方法
+     * 遍历caches数组，也就是先从本地缓存获取，如果获取缓存不成功则从远程缓存获取，成功获取到缓存后会调用checkResultAndFillUpperCache方法。
+     * 上一级的结果完成后再异步的查询下一级，不会阻塞等待远程缓存的结果
      */
     @Override
     protected CacheGetResult<V> do_GET(K key) {
-        // 遍历多级缓存（远程缓存排在后面）
-        for (int i = 0; i < caches.length; i++) {
-            Cache cache = caches[i];
-            CacheGetResult result = cache.GET(key);
-            if (result.isSuccess()) {
-                CacheValueHolder<V> holder = unwrapHolder(result.getHolder());
+        return new CacheGetResult<>(getFromLevel(key, 0));
+    }
+
+    private CompletionStage<ResultData> getFromLevel(K key, int i) {
+        if (i >= caches.length) {
+            return CompletableFuture.completedFuture(new ResultData(CacheResultCode.NOT_EXISTS, null, null));
+        }
+        CacheGetResult result = caches[i].GET(key);
+        return result.future().handle((rd, ex) -> ex == null ? rd : null).thenCompose(rd -> {
+            ResultData data = (ResultData) rd;
+            if (data != null && data.getResultCode() == CacheResultCode.SUCCESS) {
+                CacheValueHolder<V> holder = unwrapHolder((CacheValueHolder<V>) data.getOriginData());
                 /*
                  * 这个遍历是从低层的缓存开始获取，获取成功则将该值设置到更低层的缓存中
                  * 情景：
@@ -98,10 +139,10 @@ public class MultiLevelCache<K, V> extends AbstractCache<K, V> {
                  * 这样下次请求则直接从本次获取，减少了远程获取的时间
                  */
                 checkResultAndFillUpperCache(key, i, holder);
-                return new CacheGetResult(CacheResultCode.SUCCESS, null, holder);
+                return CompletableFuture.completedFuture(new ResultData(CacheResultCode.SUCCESS, null, holder));
             }
-        }
-        return CacheGetResult.NOT_EXISTS_WITHOUT_MSG;
+            return getFromLevel(key, i + 1);
+        });
     }
 
     private CacheValueHolder<V> unwrapHolder(CacheValueHolder<V> h) {
@@ -139,14 +180,27 @@ public class MultiLevelCache<K, V> extends AbstractCache<K, V> {
     @Override
     protected MultiGetResult<K, V> do_GET_ALL(Set<? extends K> keys) {
         HashMap<K, CacheGetResult<V>> resultMap = new HashMap<>();
-        Set<K> restKeys = new HashSet<>(keys);
-        for (int i = 0; i < caches.length; i++) {
-            if (restKeys.size() == 0) {
-                break;
+        CompletionStage<ResultData> future = getAllFromLevel(new HashSet<>(keys), 0, resultMap).thenApply(restKeys -> {
+            for (K k : restKeys) {
+                resultMap.put(k, CacheGetResult.NOT_EXISTS_WITHOUT_MSG);
             }
-            Cache<K, CacheValueHolder<V>> c = caches[i];
-            MultiGetResult<K, CacheValueHolder<V>> allResult = c.GET_ALL(restKeys);
-            if (allResult.isSuccess() && allResult.getValues() != null) {
+            return new ResultData(CacheResultCode.SUCCESS, null, resultMap);
+        });
+        return new MultiGetResult<>(future);
+    }
+
+    /**
+     * 从第i级开始查询剩下的key，返回所有级都没有命中的key
+     */
+    private CompletionStage<Set<K>> getAllFromLevel(Set<K> restKeys, int i, Map<K, CacheGetResult<V>> resultMap) {
+        if (restKeys.size() == 0 || i >= caches.length) {
+            return CompletableFuture.completedFuture(restKeys);
+        }
+        Cache<K, CacheValueHolder<V>> c = caches[i];
+        MultiGetResult<K, CacheValueHolder<V>> allResult = c.GET_ALL(restKeys);
+        return allResult.future().handle((rd, ex) -> ex == null ? rd : null).thenCompose(rd -> {
+            // future已经完成，这里不会阻塞
+            if (rd != null && allResult.isSuccess() && allResult.getValues() != null) {
                 for (Map.Entry<K, CacheGetResult<CacheValueHolder<V>>> en : allResult.getValues().entrySet()) {
                     K key = en.getKey();
                     CacheGetResult result = en.getValue();
@@ -158,11 +212,8 @@ public class MultiLevelCache<K, V> extends AbstractCache<K, V> {
                     }
                 }
             }
-        }
-        for (K k : restKeys) {
-            resultMap.put(k, CacheGetResult.NOT_EXISTS_WITHOUT_MSG);
-        }
-        return new MultiGetResult<>(CacheResultCode.SUCCESS, null, resultMap);
+            return getAllFromLevel(restKeys, i + 1, resultMap);
+        });
     }
 
     @Override
@@ -174,9 +225,13 @@ public class MultiLevelCache<K, V> extends AbstractCache<K, V> {
     @Override
     protected CacheResult do_PUT_ALL(Map<? extends K, ? extends V> map, long expireAfterWrite, TimeUnit timeUnit) {
         CompletableFuture<ResultData> future = CompletableFuture.completedFuture(null);
+        long degradedExpire = degradedLocalExpireMillis();
         for (Cache c : caches) {
             CacheResult r;
-            if(timeUnit == null) {
+            long localExpire = localExpireWhenDegraded(c, degradedExpire, expireAfterWrite, timeUnit);
+            if (localExpire > 0) {
+                r = c.PUT_ALL(map, localExpire, TimeUnit.MILLISECONDS);
+            } else if(timeUnit == null) {
                 r = c.PUT_ALL(map);
             } else {
                 r = c.PUT_ALL(map, expireAfterWrite, timeUnit);
@@ -186,12 +241,45 @@ public class MultiLevelCache<K, V> extends AbstractCache<K, V> {
         return new CacheResult(future);
     }
 
+    /**
+     * 远程缓存熔断（没有关闭）时，本地缓存最少使用的过期时间，0表示没有熔断或者不需要延长
+     */
+    private long degradedLocalExpireMillis() {
+        for (Cache c : caches) {
+            AbstractCache a = CacheUtil.getAbstractCache(c);
+            if (a instanceof AbstractExternalCache) {
+                CircuitBreaker cb = ((ExternalCacheConfig) a.config()).getCircuitBreaker();
+                if (cb != null && cb.getState() != CircuitBreaker.State.CLOSED) {
+                    return cb.getLocalExpireInMillisWhenOpen();
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 熔断期间只剩本地缓存可用，延长本地缓存的过期时间，减少穿透到loader的请求
+     *
+     * @return 延长后的过期时间，0表示不需要延长
+     */
+    private static long localExpireWhenDegraded(Cache cache, long degradedExpire, long expire, TimeUnit timeUnit) {
+        if (degradedExpire <= 0 || !(CacheUtil.getAbstractCache(cache) instanceof AbstractEmbeddedCache)) {
+            return 0;
+        }
+        long expireMillis = timeUnit == null ? cache.config().getExpireAfterWriteInMillis() : timeUnit.toMillis(expire);
+        return Math.max(expireMillis, degradedExpire);
+    }
+
     private CacheResult PUT_caches(int lastIndex, K key, V value, long expire, TimeUnit timeUnit) {
         CompletableFuture<ResultData> future = CompletableFuture.completedFuture(null);
+        long degradedExpire = degradedLocalExpireMillis();
         for (int i = 0; i < lastIndex; i++) {
             Cache cache = caches[i];
             CacheResult r;
-            if (timeUnit == null) { // 表示本地缓存使用自己过期时间
+            long localExpire = localExpireWhenDegraded(cache, degradedExpire, expire, timeUnit);
+            if (localExpire > 0) {
+                r = cache.PUT(key, value, localExpire, TimeUnit.MILLISECONDS);
+            } else if (timeUnit == null) { // 表示本地缓存使用自己过期时间
                 r = cache.PUT(key, value);
             } else {
                 r = cache.PUT(key, value, expire, timeUnit);
@@ -235,6 +323,28 @@ public class MultiLevelCache<K, V> extends AbstractCache<K, V> {
         return new CacheResult(future);
     }
 
+    /**
+     * 从最后一级（远程缓存）开始逐级清除，上一级清除完成后再清除下一级，避免本地缓存被还没清除的远程数据重新填充
+     */
+    @Override
+    protected CacheResult do_CLEAR() {
+        CompletionStage<ResultData> future = CompletableFuture.completedFuture(null);
+        for (int i = caches.length - 1; i >= 0; i--) {
+            Cache cache = caches[i];
+            future = future.thenCompose(d1 -> cache.CLEAR().future().thenApply(d2 -> {
+                ResultData r = (ResultData) d2;
+                if (d1 == null) {
+                    return r;
+                }
+                if (d1.getResultCode() != r.getResultCode()) {
+                    return new ResultData(CacheResultCode.PART_SUCCESS, null, null);
+                }
+                return d1;
+            }));
+        }
+        return new CacheResult(future);
+    }
+
     @Override
     public <T> T unwrap(Class<T> clazz) {
         Objects.requireNonNull(clazz);
@@ -260,6 +370,14 @@ public class MultiLevelCache<K, V> extends AbstractCache<K, V> {
         return caches[caches.length - 1].tryLock(key, expire, timeUnit);
     }
 
+    @Override
+    public AutoReleaseLock lock(K key, long expire, long waitTimeout, TimeUnit timeUnit) {
+        if (key == null) {
+            return null;
+        }
+        return caches[caches.length - 1].lock(key, expire, waitTimeout, timeUnit);
+    }
+
     @Override
     public boolean putIfAbsent(K key, V value) {
         throw new UnsupportedOperationException("putIfAbsent is not supported by MultiLevelCache");
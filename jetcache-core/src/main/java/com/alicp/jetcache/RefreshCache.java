@@ -1,6 +1,8 @@
 package com.alicp.jetcache;
 
 import com.alicp.jetcache.embedded.AbstractEmbeddedCache;
+import com.alicp.jetcache.event.CacheEvent;
+import com.alicp.jetcache.event.CacheLoadEvent;
 import com.alicp.jetcache.external.AbstractExternalCache;
 import com.alicp.jetcache.support.JetCacheExecutor;
 import org.slf4j.Logger;
@@ -14,6 +16,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -43,9 +46,28 @@ public class RefreshCache<K, V> extends LoadingCache<K, V> {
 
     private boolean multiLevelCache;
 
+    /**
+     * 正在提前刷新（XFetch）的key，避免同一个key重复提交后台加载任务
+     */
+    private final ConcurrentHashMap<Object, Boolean> earlyRefreshingKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 加载耗时的指数加权平均值（毫秒），作为XFetch的delta
+     */
+    private volatile double avgLoadMillis;
+
     public RefreshCache(Cache cache) {
         super(cache);
         multiLevelCache = isMultiLevelCache();
+        eventConsumer = eventConsumer.andThen(this::recordLoadTime);
+    }
+
+    private void recordLoadTime(CacheEvent event) {
+        if (event instanceof CacheLoadEvent && ((CacheLoadEvent) event).isSuccess()) {
+            long millis = ((CacheLoadEvent) event).getMillis();
+            double old = avgLoadMillis;
+            avgLoadMillis = old == 0 ? millis : old * 0.8 + millis * 0.2;
+        }
     }
 
     protected void stopRefresh() {
@@ -141,7 +163,7 @@ public class RefreshCache<K, V> extends LoadingCache<K, V> {
                  * 运行的任务task、多久延迟后开始执行、后续执行的周期间隔多长，时间单位
                  * 通过其创建一个循环任务，用于刷新缓存数据
                  */
-                ScheduledFuture<?> future = JetCacheExecutor.heavyIOExecutor().scheduleWithFixedDelay(
+                ScheduledFuture<?> future = JetCacheExecutor.refreshExecutor().scheduleWithFixedDelay(
                         task, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
                 task.future = future;
                 return task;
@@ -151,6 +173,76 @@ public class RefreshCache<K, V> extends LoadingCache<K, V> {
         }
     }
 
+    /**
+     * Probabilistic early recomputation (XFetch): a read triggers a background reload when
+     * <code>now - avgLoadMillis * beta * ln(random()) &gt;= expireTime</code>.
+     * The probability rises as the expire time nears and scales with the measured load time.
+     */
+    protected void earlyRefreshIfNeeded(K key, CacheGetResult<V> getResult, CacheLoader<K, V> loader) {
+        RefreshPolicy refreshPolicy = config.getRefreshPolicy();
+        if (refreshPolicy == null || !refreshPolicy.isEarlyRefresh() || !getResult.isSuccess()) {
+            return;
+        }
+        CacheLoader<K, V> l = loader == null ? config.getLoader() : loader;
+        double delta = avgLoadMillis;
+        CacheValueHolder<V> holder = getResult.getHolder();
+        if (l == null || delta <= 0 || holder == null) {
+            // 还没有加载耗时的样本，无法计算提前量
+            return;
+        }
+        double rand = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double gap = -delta * refreshPolicy.getEarlyRefreshBeta() * Math.log(rand);
+        // 开启了 stale 保留时，holder 中的过期时间包含了保留时间
+        long expireTime = holder.getExpireTime() - AbstractCache.staleRetentionMillis(config);
+        if (System.currentTimeMillis() + gap < expireTime) {
+            return;
+        }
+        Object taskId = getTaskId(key);
+        if (taskId == null || earlyRefreshingKeys.putIfAbsent(taskId, Boolean.TRUE) != null) {
+            return;
+        }
+        logger.debug("early refresh key: {}", key);
+        JetCacheExecutor.refreshExecutor().execute(() -> {
+            try {
+                earlyRefresh(key, l);
+            } catch (Throwable e) {
+                logger.error("early refresh error: key=" + key, e);
+            } finally {
+                earlyRefreshingKeys.remove(taskId);
+            }
+        });
+    }
+
+    private void earlyRefresh(K key, CacheLoader<K, V> loader) {
+        CacheLoader<K, V> l = CacheUtil.createProxyLoader(cache, loader, eventConsumer);
+        Runnable r = () -> {
+            V v = l.apply(key);
+            if (needUpdate(v, l)) {
+                cache.PUT(key, v);
+            }
+        };
+        Cache concreteCache = concreteCache();
+        if (concreteCache instanceof AbstractExternalCache) {
+            // 远程缓存使用与定时刷新相同的分布式锁，避免多个实例同时加载
+            byte[] lockKey = combine(((AbstractExternalCache) concreteCache).buildLockKey(key), LOCK_KEY_SUFFIX);
+            long loadTimeOut = config.getRefreshPolicy().getRefreshLockTimeoutMillis();
+            lockAndRun((AbstractExternalCache) concreteCache, lockKey, loadTimeOut, r);
+        } else {
+            r.run();
+        }
+    }
+
+    // 加载时间超过锁的过期时间时自动续期，避免其它实例在加载完成前拿到锁重复加载
+    private static boolean lockAndRun(AbstractExternalCache cache, byte[] lockKey, long lease, Runnable r) {
+        try (AutoReleaseLock lock = cache.tryLock(lockKey, lease, TimeUnit.MILLISECONDS, true)) {
+            if (lock == null) {
+                return false;
+            }
+            r.run();
+            return true;
+        }
+    }
+
     @Override
     public V get(K key) throws CacheInvokeException {
         if (config.getRefreshPolicy() != null && hasLoader()) {
@@ -239,8 +331,8 @@ public class RefreshCache<K, V> extends LoadingCache<K, V> {
                 throws Throwable {
             // 获取 Key 转换后的值
             byte[] newKey = ((AbstractExternalCache) concreteCache).buildKey(key);
-            // 创建分布式锁对应的Key
-            byte[] lockKey = combine(newKey, LOCK_KEY_SUFFIX);
+            // 创建分布式锁对应的Key，不包含key generation，CLEAR以后还是同一把锁
+            byte[] lockKey = combine(((AbstractExternalCache) concreteCache).buildLockKey(key), LOCK_KEY_SUFFIX);
             // 分布式锁的存在时间
             long loadTimeOut = RefreshCache.this.config.getRefreshPolicy().getRefreshLockTimeoutMillis();
             // 刷新间隔
@@ -282,12 +374,13 @@ public class RefreshCache<K, V> extends LoadingCache<K, V> {
 
             // AbstractExternalCache buildKey method will not convert byte[]
             // 分布式缓存没有一个全局分配的功能，这里尝试获取一把非严格的分布式锁，获取锁的超时时间默认60秒，也就是获取到这把锁最多可以拥有60秒
+            // Redis缓存使用原生锁，加载期间会自动续期，释放时只删除自己持有的锁
             // 只有获取Key对应的这把分布式锁，才执行重新加载的操作
-            boolean lockSuccess = concreteCache.tryLockAndRun(lockKey, loadTimeOut, TimeUnit.MILLISECONDS, r);
+            boolean lockSuccess = lockAndRun((AbstractExternalCache) concreteCache, lockKey, loadTimeOut, r);
             if(!lockSuccess && multiLevelCache) {  // 没有获取到锁并且是多级缓存
                 // 这个时候应该有其他实例在刷新缓存，所以这里设置过一会直接获取远程的缓存数据更新到本地
                 // 创建一个延迟任务（1/5刷新间隔后），将最顶层的缓存数据更新至每一层
-                JetCacheExecutor.heavyIOExecutor().schedule(
+                JetCacheExecutor.refreshExecutor().schedule(
                         () -> refreshUpperCaches(key), (long)(0.2 * refreshMillis), TimeUnit.MILLISECONDS);
             }
         }
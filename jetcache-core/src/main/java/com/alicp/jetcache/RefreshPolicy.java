@@ -13,6 +13,12 @@ public class RefreshPolicy implements Cloneable {
     private long stopRefreshAfterLastAccessMillis;
     private long refreshLockTimeoutMillis = 60 * 1000;
 
+    /**
+     * probabilistic early recomputation (XFetch), a read near expiry may trigger a background reload.
+     */
+    private boolean earlyRefresh;
+    private double earlyRefreshBeta = 1.0;
+
     public RefreshPolicy() {
     }
 
@@ -32,6 +38,26 @@ public class RefreshPolicy implements Cloneable {
         return this;
     }
 
+    /**
+     * Create a policy that refresh the value in background when it is read close to its expire time.
+     * The probability rises as the expire time nears and scales with the measured load time (XFetch),
+     * so no timer is needed and keys that are not read simply expire.
+     * @param beta scale factor of the load time, 1.0 is a good default, a larger value refresh earlier
+     * @return the policy
+     */
+    public static RefreshPolicy newEarlyRefreshPolicy(double beta) {
+        RefreshPolicy p = new RefreshPolicy();
+        p.earlyRefresh = true;
+        p.earlyRefreshBeta = beta;
+        return p;
+    }
+
+    public RefreshPolicy earlyRefresh(double beta) {
+        this.earlyRefresh = true;
+        this.earlyRefreshBeta = beta;
+        return this;
+    }
+
     @Override
     public RefreshPolicy clone() {
         try {
@@ -64,4 +90,20 @@ public class RefreshPolicy implements Cloneable {
     public void setRefreshLockTimeoutMillis(long refreshLockTimeoutMillis) {
         this.refreshLockTimeoutMillis = refreshLockTimeoutMillis;
     }
+
+    public boolean isEarlyRefresh() {
+        return earlyRefresh;
+    }
+
+    public void setEarlyRefresh(boolean earlyRefresh) {
+        this.earlyRefresh = earlyRefresh;
+    }
+
+    public double getEarlyRefreshBeta() {
+        return earlyRefreshBeta;
+    }
+
+    public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+        this.earlyRefreshBeta = earlyRefreshBeta;
+    }
 }
@@ -9,10 +9,12 @@ public class ResultData {
     private CacheResultCode resultCode;
     private String message;
     private Object data;
+    private Throwable exception;
 
     public ResultData(Throwable e) {
         this.resultCode = CacheResultCode.FAIL;
         this.message = "Ex : " + e.getClass() + ", " + e.getMessage();
+        this.exception = e;
     }
 
     public ResultData(CacheResultCode resultCode, String message, Object data) {
@@ -50,4 +52,11 @@ public class ResultData {
         this.data = data;
     }
 
+    /**
+     * The exception if the operation fails with an exception (including timeout of the client), otherwise null.
+     */
+    public Throwable getException() {
+        return exception;
+    }
+
 }
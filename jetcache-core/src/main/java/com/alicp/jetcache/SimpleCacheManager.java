@@ -149,6 +149,10 @@ public class SimpleCacheManager implements CacheManager, AutoCloseable {
         // 设置缓存未命中时，JVM是否只允许一个线程执行方法，其他线程等待，全局配置默认为false
         cache.config().setCachePenetrationProtect(protect);
         cache.config().setPenetrationProtectTimeout(config.getPenetrationProtectTimeout());
+        cache.config().setLoaderTimeout(config.getLoaderTimeout());
+        if (config.getLoaderHedgePercentile() != null) {
+            cache.config().setLoaderHedgePercentile(config.getLoaderHedgePercentile());
+        }
 
         for (CacheMonitorInstaller i : cacheBuilderTemplate.getCacheMonitorInstallers()) {
             // 添加监控统计配置, 里面有 syncLocal的配置处理
@@ -178,7 +182,7 @@ public class SimpleCacheManager implements CacheManager, AutoCloseable {
         // 设置缓存 key 的前缀
         if (cacheBuilder.getConfig().getKeyPrefixSupplier() != null) {
             Supplier<String> supplier = cacheBuilder.getConfig().getKeyPrefixSupplier();
-            cacheBuilder.setKeyPrefixSupplier(() -> supplier.get() + prefix);
+            cacheBuilder.setKeyPrefixSupplier(new ConcatPrefixSupplier(supplier, prefix));
         } else {
             cacheBuilder.setKeyPrefix(prefix);
         }
@@ -225,4 +229,32 @@ public class SimpleCacheManager implements CacheManager, AutoCloseable {
                 config.getCacheNullValue() : DEFAULT_CACHE_NULL_VALUE);
         return cacheBuilder.buildCache();
     }
+
+    /**
+     * Concat the prefix of the cache to the supplied prefix, the result is reused while the supplier returns
+     * the same string instance, so building key does not concat strings for every operation.
+     */
+    static final class ConcatPrefixSupplier implements Supplier<String> {
+        private final Supplier<String> supplier;
+        private final String suffix;
+        // [0]是supplier返回的前缀，[1]是拼接的结果，放在一个数组里保证两者一致
+        private volatile String[] last;
+
+        ConcatPrefixSupplier(Supplier<String> supplier, String suffix) {
+            this.supplier = supplier;
+            this.suffix = suffix;
+        }
+
+        @Override
+        public String get() {
+            String base = supplier.get();
+            String[] last = this.last;
+            if (last != null && last[0] == base) {
+                return last[1];
+            }
+            String result = base + suffix;
+            this.last = new String[]{base, result};
+            return result;
+        }
+    }
 }
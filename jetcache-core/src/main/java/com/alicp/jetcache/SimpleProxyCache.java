@@ -63,6 +63,11 @@ public class SimpleProxyCache<K, V> implements ProxyCache<K, V> {
         cache.removeAll(keys);
     }
 
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
     @Override
     public <T> T unwrap(Class<T> clazz) {
         return cache.unwrap(clazz);
@@ -78,6 +83,11 @@ public class SimpleProxyCache<K, V> implements ProxyCache<K, V> {
         return cache.tryLockAndRun(key, expire, timeUnit, action);
     }
 
+    @Override
+    public AutoReleaseLock lock(K key, long expire, long waitTimeout, TimeUnit timeUnit) {
+        return cache.lock(key, expire, waitTimeout, timeUnit);
+    }
+
     @Override
     public CacheGetResult<V> GET(K key) {
         return cache.GET(key);
@@ -143,6 +153,11 @@ public class SimpleProxyCache<K, V> implements ProxyCache<K, V> {
         return cache.REMOVE_ALL(keys);
     }
 
+    @Override
+    public CacheResult CLEAR() {
+        return cache.CLEAR();
+    }
+
     @Override
     public CacheResult PUT_IF_ABSENT(K key, V value, long expireAfterWrite, TimeUnit timeUnit) {
         return cache.PUT_IF_ABSENT(key, value, expireAfterWrite, timeUnit);
@@ -0,0 +1,129 @@
+package com.alicp.jetcache;
+
+import com.alicp.jetcache.support.JetCacheExecutor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Runs loader on the loader executor with a hard timeout and percentile based hedging.
+ * One instance per cache, it keeps the latency of recent successful loads.
+ *
+ * @author huangli
+ */
+class TimedLoader {
+
+    private static final int SAMPLE_SIZE = 128;
+    private static final int MIN_SAMPLE_COUNT = 16;
+    private static final int RECOMPUTE_INTERVAL = 8;
+    /**
+     * 很快的加载不对冲，否则分位数接近0时几乎每次加载都会被对冲
+     */
+    static final long MIN_HEDGE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long[] samples = new long[SAMPLE_SIZE];
+    private int sampleIndex;
+    private int sampleCount;
+    private long recordCount;
+
+    /**
+     * 当前的对冲阈值（纳秒），样本不足时为-1
+     */
+    private volatile long hedgeDelayNanos = -1;
+
+    void record(long nanos, double percentile) {
+        lock.lock();
+        try {
+            samples[sampleIndex] = nanos;
+            sampleIndex = (sampleIndex + 1) % SAMPLE_SIZE;
+            sampleCount = Math.min(sampleCount + 1, SAMPLE_SIZE);
+            recordCount++;
+            if (percentile > 0 && sampleCount >= MIN_SAMPLE_COUNT && recordCount % RECOMPUTE_INTERVAL == 0) {
+                long[] copy = Arrays.copyOf(samples, sampleCount);
+                Arrays.sort(copy);
+                int index = (int) Math.ceil(percentile * sampleCount) - 1;
+                hedgeDelayNanos = Math.max(MIN_HEDGE_DELAY_NANOS, copy[Math.max(0, Math.min(index, sampleCount - 1))]);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getHedgeDelayNanos() {
+        return hedgeDelayNanos;
+    }
+
+    <K, V> V load(K key, Function<K, V> loader, Duration timeout, double hedgePercentile) {
+        long start = System.nanoTime();
+        CompletableFuture<V> result = new CompletableFuture<>();
+        // 第一次加载开始执行的时间，对冲从这里开始计时，不包含在loaderExecutor中排队的时间
+        CompletableFuture<Long> started = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        Runnable attempt = () -> {
+            long t = System.nanoTime();
+            started.complete(t);
+            try {
+                V v = loader.apply(key);
+                record(System.nanoTime() - t, hedgePercentile);
+                result.complete(v);
+            } catch (Throwable e) {
+                // 所有的加载都失败才算失败
+                if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(e);
+                }
+            }
+        };
+        try {
+            JetCacheExecutor.loaderExecutor().execute(attempt);
+        } catch (RejectedExecutionException e) {
+            if (timeout != null) {
+                // 在调用线程中加载无法保证超时，直接失败
+                throw new CacheInvokeException("loader executor is full", e);
+            }
+            // 只配置了对冲时在调用线程中加载，不再对冲
+            return loader.apply(key);
+        }
+        try {
+            long hedgeDelay = hedgePercentile > 0 ? hedgeDelayNanos : -1;
+            if (hedgeDelay >= 0 && (timeout == null || hedgeDelay < timeout.toNanos())) {
+                long startRunning = timeout == null ? started.get()
+                        : started.get(Math.max(start + timeout.toNanos() - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                try {
+                    return result.get(Math.max(startRunning + hedgeDelay - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    pending.incrementAndGet();
+                    try {
+                        JetCacheExecutor.loaderExecutor().execute(attempt);
+                    } catch (RejectedExecutionException ex) {
+                        pending.decrementAndGet();
+                    }
+                }
+            }
+            if (timeout == null) {
+                return result.get();
+            }
+            long rest = start + timeout.toNanos() - System.nanoTime();
+            return result.get(Math.max(rest, 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CacheInvokeException(cause.getMessage(), cause);
+        } catch (TimeoutException e) {
+            throw new CacheInvokeException("load timeout: " + timeout, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheInvokeException(e.getMessage(), e);
+        }
+    }
+}
@@ -5,6 +5,7 @@ package com.alicp.jetcache.embedded;
 
 import com.alicp.jetcache.*;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -46,6 +47,10 @@ public abstract class AbstractEmbeddedCache<K, V> extends AbstractCache<K, V> {
         Function<K, Object> keyConvertor = config.getKeyConvertor();
         if (keyConvertor != null) {
             newKey = keyConvertor.apply(key);
+            if (newKey instanceof byte[] && newKey != key) {
+                // 转换成byte[]的key(比如BinaryKeyConvertor)按内容比较
+                newKey = ByteBuffer.wrap((byte[]) newKey);
+            }
         }
         return newKey;
     }
@@ -139,11 +144,22 @@ public abstract class AbstractEmbeddedCache<K, V> extends AbstractCache<K, V> {
         return CacheResult.SUCCESS_WITHOUT_MSG;
     }
 
+    @Override
+    protected CacheResult do_CLEAR() {
+        innerMap.clearValues();
+        return CacheResult.SUCCESS_WITHOUT_MSG;
+    }
+
     // internal method
     public void __removeAll(Set<? extends K> keys) {
         innerMap.removeAllValues(keys);
     }
 
+    // internal method
+    public void __clear() {
+        innerMap.clearValues();
+    }
+
     @Override
     protected CacheResult do_PUT_IF_ABSENT(K key, V value, long expireAfterWrite, TimeUnit timeUnit) {
         CacheValueHolder<V> cacheObject = new CacheValueHolder(value, timeUnit.toMillis(expireAfterWrite));
@@ -119,6 +119,11 @@ public class CaffeineCache<K, V> extends AbstractEmbeddedCache<K, V> {
                 cache.invalidateAll(keys);
             }
 
+            @Override
+            public void clearValues() {
+                cache.invalidateAll();
+            }
+
             @Override
             public boolean putIfAbsentValue(Object key, Object value) {
                 return cache.asMap().putIfAbsent(key, value) == null;
@@ -34,8 +34,8 @@ class Cleaner {
     private static final ReentrantLock reentrantLock = new  ReentrantLock();
 
     static {
-        // 创建一个线程池，1个核心线程
-        ScheduledExecutorService executorService = JetCacheExecutor.defaultExecutor();
+        // 维护任务线程池，默认为 defaultExecutor（1个核心线程）
+        ScheduledExecutorService executorService = JetCacheExecutor.maintenanceExecutor();
         // Cleaner会周期性（每隔60秒）遍历LinkedHashMapCache缓存实例，调用其cleanExpiredEntry方法
         // 起一个循环任务一直清理 linkedHashMapCaches 过期的数据（每隔60秒）
         executorService.scheduleWithFixedDelay(() -> run(), 60, 60, TimeUnit.SECONDS);
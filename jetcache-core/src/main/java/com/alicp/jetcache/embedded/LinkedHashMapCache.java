@@ -197,6 +197,17 @@ public class LinkedHashMapCache<K, V> extends AbstractEmbeddedCache<K, V> {
             }
         }
 
+        @Override
+        public void clearValues() {
+            Lock lock = readWriteLock.writeLock();
+            lock.lock();
+            try{
+                clear();
+            }finally {
+                lock.unlock();
+            }
+        }
+
         @Override
         @SuppressWarnings("unchecked")
         public boolean putIfAbsentValue(Object key, Object value) {
@@ -0,0 +1,26 @@
+package com.alicp.jetcache.event;
+
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.CacheResult;
+
+/**
+ * @author huangli
+ */
+public class CacheClearEvent extends CacheEvent {
+    private final long millis;
+    private final CacheResult result;
+
+    public CacheClearEvent(Cache cache, long millis, CacheResult result) {
+        super(cache);
+        this.millis = millis;
+        this.result = result;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public CacheResult getResult() {
+        return result;
+    }
+}
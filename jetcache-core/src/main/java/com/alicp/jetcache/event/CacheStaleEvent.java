@@ -0,0 +1,34 @@
+package com.alicp.jetcache.event;
+
+import com.alicp.jetcache.Cache;
+
+/**
+ * Fired when an expired value is returned by computeIfAbsent, either while it is being reloaded in background
+ * (stale-while-revalidate) or because the loader failed (stale-if-error).
+ *
+ * @author huangli
+ */
+public class CacheStaleEvent extends CacheEvent {
+    private final Object key;
+    private final Object staleValue;
+    private final boolean loadFail;
+
+    public CacheStaleEvent(Cache cache, Object key, Object staleValue, boolean loadFail) {
+        super(cache);
+        this.key = key;
+        this.staleValue = staleValue;
+        this.loadFail = loadFail;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public Object getStaleValue() {
+        return staleValue;
+    }
+
+    public boolean isLoadFail() {
+        return loadFail;
+    }
+}
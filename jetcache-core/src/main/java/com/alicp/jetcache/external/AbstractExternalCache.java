@@ -1,19 +1,107 @@
 package com.alicp.jetcache.external;
 
 import com.alicp.jetcache.AbstractCache;
+import com.alicp.jetcache.AutoReleaseLock;
 import com.alicp.jetcache.CacheConfigException;
 import com.alicp.jetcache.CacheException;
+import com.alicp.jetcache.CacheGetResult;
+import com.alicp.jetcache.CacheResult;
+import com.alicp.jetcache.CacheResultCode;
 import com.alicp.jetcache.RefreshCache;
+import com.alicp.jetcache.ResultData;
 import com.alicp.jetcache.anno.KeyConvertor;
+import com.alicp.jetcache.support.CircuitBreaker;
+import com.alicp.jetcache.support.CircuitBreakerStat;
+import com.alicp.jetcache.support.CompactValueEncoder;
+import com.alicp.jetcache.support.CompressionStat;
+import com.alicp.jetcache.support.JetCacheExecutor;
+import com.alicp.jetcache.support.Lz4ValueEncoder;
+import com.alicp.jetcache.support.ReplicaStat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 // 远程缓存, 看子类
 public abstract class AbstractExternalCache<K, V> extends AbstractCache<K, V> {
 
+    private static final Logger logger = LoggerFactory.getLogger(AbstractExternalCache.class);
+
     // 缓存实例对象远程缓存的配置信息ExternalCacheConfig对象，提供了将缓存key转换成字节数组的方法
     private ExternalCacheConfig<K, V> config;
 
+    // 远程缓存得知key被其它客户端修改时(比如redis的client tracking)通知监听者，MultiLevelCache用它来失效本地缓存
+    private final List<Consumer<Set<K>>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    // 编码后的key前缀，supplier或者它返回的前缀变化时才重新编码
+    private volatile PrefixBytes prefixBytes;
+
+    // key generation模式下当前key前缀的generation，第一次使用时从远程缓存加载
+    private volatile Generation generation;
+    private final Object generationLock = new Object();
+    // generation加载失败后的退避，退避期间构建key直接失败，不再同步访问远程缓存
+    private volatile long generationRetryTime;
+    private long generationRetryMillis;
+    private volatile ScheduledFuture<?> generationRefreshFuture;
+
+    // 本JVM中等待锁的线程，锁释放时由本地释放或者pub/sub消息唤醒
+    private final LockWaiters lockWaiters = new LockWaiters();
+    private volatile AutoCloseable lockSubscription;
+    private volatile long lockSubscribeRetryTime;
+
+    static final String GENERATION_KEY_SUFFIX = "__generation";
+    static final String FENCING_KEY_SUFFIX = "__fencing";
+    static final String LOCK_RELEASE_CHANNEL_SUFFIX = "__lock_release";
+    // 等待锁时的轮询间隔，订阅了释放通知时轮询只是为了应对锁过期和丢失的消息
+    static final long LOCK_POLL_MILLIS = 100;
+    static final long LOCK_POLL_MILLIS_SUBSCRIBED = 1000;
+    private static final long LOCK_SUBSCRIBE_RETRY_MILLIS = 10000;
+    // generation的key过期后会用当前时间重新初始化，只是让缓存整体失效一次
+    private static final long GENERATION_EXPIRE_MILLIS = TimeUnit.DAYS.toMillis(365);
+    static final long GENERATION_RETRY_MIN_MILLIS = 100;
+    private static final long GENERATION_RETRY_MAX_MILLIS = 10000;
+
+    private static final class PrefixBytes {
+        final Supplier<String> supplier;
+        final String prefix;
+        final long generation;
+        final byte[] bytes;
+
+        PrefixBytes(Supplier<String> supplier, String prefix, long generation, byte[] bytes) {
+            this.supplier = supplier;
+            this.prefix = prefix;
+            this.generation = generation;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Generation {
+        final String prefix;
+        final long value;
+
+        Generation(String prefix, long value) {
+            this.prefix = prefix;
+            this.value = value;
+        }
+    }
+
     public AbstractExternalCache(ExternalCacheConfig<K, V> config) {
         this.config = config;
         checkConfig();
@@ -29,16 +117,583 @@ public abstract class AbstractExternalCache<K, V> extends AbstractCache<K, V> {
         if (config.getKeyPrefix() == null) {
             throw new CacheConfigException("keyPrefix is required");
         }
+        if (config.getClearBatchSize() <= 0) {
+            throw new CacheConfigException("clearBatchSize must be positive: " + config.getClearBatchSize());
+        }
+        if (config.getClearKeysPerSecond() < 0) {
+            throw new CacheConfigException("clearKeysPerSecond can't be negative: " + config.getClearKeysPerSecond());
+        }
+    }
+
+    public void addInvalidationListener(Consumer<Set<K>> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    public void removeInvalidationListener(Consumer<Set<K>> listener) {
+        invalidationListeners.remove(listener);
+    }
+
+    protected void fireInvalidation(Set<K> keys) {
+        for (Consumer<Set<K>> l : invalidationListeners) {
+            l.accept(keys);
+        }
+    }
+
+    /**
+     * Whether the operations return without waiting for the response of the server.
+     * Callers on event loop threads (for example the reactive facade) must switch to another thread
+     * to access the cache if it returns false. The result may change (see {@link #isKeyGenerationLoaded()}),
+     * so check it before each operation.
+     */
+    public boolean isNonBlocking() {
+        return false;
+    }
+
+    /**
+     * Whether the key generation of the current key prefix is loaded, always true if key generation is disabled.
+     * Before it's loaded (or after the backoff of a failed load), building a key loads it from the remote cache
+     * synchronously, so a non-blocking cache is blocking until then.
+     */
+    protected boolean isKeyGenerationLoaded() {
+        if (!config.isKeyGeneration()) {
+            return true;
+        }
+        Generation g = this.generation;
+        return g != null && g.prefix.equals(config.getKeyPrefixSupplier().get());
+    }
+
+    /**
+     * Read statistics of the replicas, null if the cache does not select replica by itself.
+     */
+    public List<ReplicaStat> getReplicaStats() {
+        return null;
+    }
+
+    /**
+     * Compression statistics of the value encoder, null if the values are not compressed.
+     */
+    public CompressionStat getCompressionStat() {
+        Function<Object, byte[]> encoder = config.getValueEncoder();
+        if (encoder instanceof CompactValueEncoder) {
+            encoder = ((CompactValueEncoder) encoder).getPayloadEncoder();
+        }
+        if (encoder instanceof Lz4ValueEncoder) {
+            return ((Lz4ValueEncoder) encoder).stat();
+        }
+        return null;
+    }
+
+    /**
+     * State of the circuit breaker, null if the circuit breaker is not configured.
+     */
+    public CircuitBreakerStat getCircuitBreakerStat() {
+        CircuitBreaker cb = config.getCircuitBreaker();
+        return cb == null ? null : cb.stat();
+    }
+
+    /**
+     * Fail fast without accessing the remote cache if the circuit breaker is open. Errors and slow calls are
+     * counted when the result is completed, so the asynchronous operations are counted correctly. Only exceptions
+     * (including the timeout of the client) are errors, a FAIL result such as removing an absent key is not.
+     */
+    @Override
+    protected <R extends CacheResult> R guard(Supplier<R> action, Function<String, R> failResult) {
+        CircuitBreaker cb = config.getCircuitBreaker();
+        if (cb == null) {
+            return action.get();
+        }
+        CircuitBreaker.Permit permit = cb.tryAcquire();
+        if (permit == null) {
+            return failResult.apply(CacheResult.MSG_CIRCUIT_OPEN);
+        }
+        long t = System.nanoTime();
+        R result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            cb.record(permit, System.nanoTime() - t, false);
+            throw e;
+        }
+        result.future().whenComplete((rd, ex) -> cb.record(permit, System.nanoTime() - t,
+                ex == null && rd != null && rd.getException() == null));
+        return result;
+    }
+
+    /**
+     * SCAN and UNLINK operations used by {@link #CLEAR()}, null if the cache doesn't support clear.
+     */
+    protected KeyScanner keyScanner() {
+        return null;
+    }
+
+    /**
+     * Redis commands used by the native lock, null if the cache uses the default lock implementation of
+     * {@link com.alicp.jetcache.Cache#tryLock(Object, long, TimeUnit)}.
+     */
+    protected LockCommands lockCommands() {
+        return null;
+    }
+
+    @Override
+    public AutoReleaseLock tryLock(K key, long expire, TimeUnit timeUnit) {
+        return tryLock(key, expire, timeUnit, false);
+    }
+
+    /**
+     * Try to acquire a lock without blocking. If the cache supports native lock, the lock is acquired by
+     * SET NX PX, and released by a Lua script which deletes the key only if it's still owned by the caller.
+     * The returned lock has a fencing token increased by every acquisition attempt of the locks of this cache,
+     * the resource protected by the lock can reject the requests with a smaller token than it has seen.
+     * The token is taken before SET NX, so a later owner always has a larger token than an earlier one.
+     * The lock key doesn't contain the key generation, so {@link #CLEAR()} doesn't release the locks.
+     *
+     * @param key        lock key
+     * @param expire     lease of the lock
+     * @param timeUnit   time unit of the lease
+     * @param renewLease whether to renew the lease every third of it until the lock is closed, so the lock is not
+     *                   expired during a long critical section. It's ignored if the cache doesn't support native lock
+     * @return the lock, or null if the lock is held by others or the cache access fails
+     */
+    public AutoReleaseLock tryLock(K key, long expire, TimeUnit timeUnit, boolean renewLease) {
+        LockCommands commands = lockCommands();
+        if (commands == null) {
+            return super.tryLock(key, expire, timeUnit);
+        }
+        if (key == null) {
+            return null;
+        }
+        byte[] lockKey = buildLockKey(key);
+        String uuid = UUID.randomUUID().toString();
+        byte[] owner = uuid.getBytes(StandardCharsets.UTF_8);
+        long leaseMillis = timeUnit.toMillis(expire);
+        long fencingToken;
+        try {
+            // 先取token再加锁：如果加锁以后才取token，锁过期后被别人拿到，旧的持有者可能拿到更大的token
+            fencingToken = commands.increment(fencingKey());
+        } catch (Exception e) {
+            logger.info("[tryLock] [{}] get fencing token failed, return null. Key={}, msg={}", uuid, key,
+                    e.toString());
+            return null;
+        }
+        for (int i = 1; i <= config.getTryLockLockCount(); i++) {
+            try {
+                if (commands.setIfAbsent(lockKey, owner, leaseMillis)) {
+                    return newLock(commands, lockKey, owner, leaseMillis, fencingToken, renewLease);
+                }
+                logger.debug("[tryLock] [{} of {}] [{}] others holds the lock, return null. Key={}",
+                        i, config.getTryLockLockCount(), uuid, key);
+                return null;
+            } catch (Exception e) {
+                logger.info("[tryLock] [{} of {}] [{}] cache access failed during get lock, will inquiry {} times. Key={}, msg={}",
+                        i, config.getTryLockLockCount(), uuid, config.getTryLockInquiryCount(), key, e.toString());
+            }
+            // SET可能已经执行成功只是没有收到响应，确认锁是否是自己的
+            for (int j = 1; j <= config.getTryLockInquiryCount(); j++) {
+                try {
+                    if (commands.compareAndExpire(lockKey, owner, leaseMillis)) {
+                        return newLock(commands, lockKey, owner, leaseMillis, fencingToken, renewLease);
+                    }
+                    // 锁不是自己的，可能是SET没有成功，重新加锁
+                    break;
+                } catch (Exception e) {
+                    logger.info("[tryLock] [{} of {}] [{}] inquiry failed. Key={}, msg={}",
+                            j, config.getTryLockInquiryCount(), uuid, key, e.toString());
+                }
+            }
+        }
+        logger.debug("[tryLock] [{}] return null after {} attempts. Key={}", uuid, config.getTryLockLockCount(), key);
+        return null;
+    }
+
+    private AutoReleaseLock newLock(LockCommands commands, byte[] lockKey, byte[] owner, long leaseMillis,
+                                    long fencingToken, boolean renewLease) {
+        ExternalLock lock = new ExternalLock(commands, lockKey, owner, lockReleaseChannel(), lockWaiters,
+                leaseMillis, fencingToken, config.getTryLockUnlockCount());
+        if (renewLease) {
+            lock.startWatchdog();
+        }
+        return lock;
+    }
+
+    // fencing token的计数器，不包含generation，CLEAR以后token也不会变小
+    private byte[] fencingKey() {
+        return (config.getKeyPrefixSupplier().get() + FENCING_KEY_SUFFIX).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] lockReleaseChannel() {
+        return (config.getKeyPrefixSupplier().get() + LOCK_RELEASE_CHANNEL_SUFFIX).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public AutoReleaseLock lock(K key, long expire, long waitTimeout, TimeUnit timeUnit) {
+        return lock(key, expire, waitTimeout, timeUnit, false);
+    }
+
+    /**
+     * Acquire a lock, wait at most waitTimeout if the lock is held by others. If the cache supports native lock,
+     * the waiters subscribe the release notification published by the unlock script of the cache (one channel
+     * per cache), the waiter which starts waiting first is woken up when the lock is released.
+     * The waiters in the same JVM as the owner are woken up directly without the notification.
+     * If pub/sub is not available, the waiters poll every {@value #LOCK_POLL_MILLIS} ms.
+     *
+     * @param key         lock key
+     * @param expire      lease of the lock
+     * @param waitTimeout max time to wait
+     * @param timeUnit    time unit of expire and waitTimeout
+     * @param renewLease  whether to renew the lease until the lock is closed, see
+     *                    {@link #tryLock(Object, long, TimeUnit, boolean)}
+     * @return the lock, or null if the lock can't be acquired before timeout, or the thread is interrupted
+     */
+    public AutoReleaseLock lock(K key, long expire, long waitTimeout, TimeUnit timeUnit, boolean renewLease) {
+        LockCommands commands = lockCommands();
+        if (commands == null) {
+            return super.lock(key, expire, waitTimeout, timeUnit);
+        }
+        AutoReleaseLock lock = tryLock(key, expire, timeUnit, renewLease);
+        if (lock != null || key == null || waitTimeout <= 0) {
+            return lock;
+        }
+        ByteBuffer lockKey = ByteBuffer.wrap(buildLockKey(key));
+        long pollMillis = subscribeLockRelease(commands) ? LOCK_POLL_MILLIS_SUBSCRIBED : LOCK_POLL_MILLIS;
+        long deadline = System.nanoTime() + timeUnit.toNanos(waitTimeout);
+        Thread thread = Thread.currentThread();
+        // 先排队再尝试加锁，尝试失败之后的释放通知不会丢失
+        lockWaiters.add(lockKey, thread);
+        try {
+            while (true) {
+                lock = tryLock(key, expire, timeUnit, renewLease);
+                if (lock != null) {
+                    return lock;
+                }
+                long remain = deadline - System.nanoTime();
+                if (remain <= 0 || thread.isInterrupted()) {
+                    logger.debug("[lock] wait timeout or interrupted. Key={}", key);
+                    return null;
+                }
+                // 轮询加上随机抖动，避免多个JVM的等待者同时访问服务器
+                long poll = pollMillis / 2 + ThreadLocalRandom.current().nextLong(pollMillis / 2 + 1);
+                LockSupport.parkNanos(this, Math.min(remain, TimeUnit.MILLISECONDS.toNanos(poll)));
+            }
+        } finally {
+            lockWaiters.remove(lockKey, thread, lock == null);
+        }
+    }
+
+    private boolean subscribeLockRelease(LockCommands commands) {
+        if (lockSubscription != null) {
+            return true;
+        }
+        if (System.currentTimeMillis() < lockSubscribeRetryTime) {
+            return false;
+        }
+        synchronized (lockWaiters) {
+            if (lockSubscription != null) {
+                return true;
+            }
+            if (closed || System.currentTimeMillis() < lockSubscribeRetryTime) {
+                return false;
+            }
+            try {
+                AutoCloseable subscription = commands.subscribe(lockReleaseChannel(),
+                        k -> lockWaiters.wakeUp(ByteBuffer.wrap(k)));
+                if (subscription == null) {
+                    // 客户端不支持pub/sub，一直使用轮询
+                    lockSubscribeRetryTime = Long.MAX_VALUE;
+                    return false;
+                }
+                lockSubscription = subscription;
+                return true;
+            } catch (Exception e) {
+                logger.warn("subscribe lock release channel failed, waiters use polling: {}", e.toString());
+                lockSubscribeRetryTime = System.currentTimeMillis() + LOCK_SUBSCRIBE_RETRY_MILLIS;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Delete all keys starting with the current key prefix in background. The keys are found by SCAN on every
+     * master node and deleted by UNLINK in batches of clearBatchSize, at most clearKeysPerSecond keys are deleted
+     * per second. Each page of SCAN is a task of the maintenance executor, the next page is scheduled after the
+     * delay required by the rate limit, so no thread is occupied while waiting.
+     * The prefix is matched as a glob pattern, so it must end with a separator (a character other than letters
+     * and digits), otherwise the keys of another cache whose prefix starts with this prefix (for example
+     * "userProfile" of "user") may be deleted, and the CLEAR fails.
+     * <p>If key generation is enabled, only the generation is increased, the keys of the old generation are not
+     * accessed any more and expire by their TTL.</p>
+     */
+    @Override
+    protected CacheResult do_CLEAR() {
+        if (config.isKeyGeneration()) {
+            return increaseGeneration();
+        }
+        KeyScanner scanner = keyScanner();
+        if (scanner == null) {
+            return super.do_CLEAR();
+        }
+        byte[] prefix = prefixBytes();
+        if (!endsWithSeparator(prefix)) {
+            return new CacheResult(CacheResultCode.FAIL, "key prefix must end with a separator to clear: "
+                    + new String(prefix, StandardCharsets.UTF_8));
+        }
+        ClearTask task = new ClearTask(scanner, scanPattern(prefix));
+        try {
+            JetCacheExecutor.maintenanceExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            return new CacheResult(e);
+        }
+        return new CacheResult(task.future);
+    }
+
+    /**
+     * Increase the generation atomically by {@link LockCommands#GENERATION_SCRIPT}, so concurrent CLEARs of
+     * different JVMs always get different generations.
+     */
+    private CacheResult increaseGeneration() {
+        String prefix = config.getKeyPrefixSupplier().get();
+        try {
+            // 用当前时间作为generation的下限，generation的key丢失后重新初始化也不会和用过的重复
+            long next = generationCommands().generation(generationKey(prefix), System.currentTimeMillis(),
+                    GENERATION_EXPIRE_MILLIS, true);
+            synchronized (generationLock) {
+                this.generation = new Generation(prefix, next);
+                startGenerationRefresh();
+            }
+            return new CacheResult(CacheResultCode.SUCCESS, "generation " + next);
+        } catch (Exception e) {
+            logError("CLEAR", prefix + GENERATION_KEY_SUFFIX, e);
+            return new CacheResult(e);
+        }
+    }
+
+    /**
+     * Get the generation of the prefix, load it from the remote cache if the prefix is used for the first time.
+     * If the load fails, the following calls fail fast without accessing the remote cache until the backoff
+     * (doubled after each failure) is passed.
+     */
+    private Generation generation(String prefix) {
+        Generation g = this.generation;
+        if (g != null && (g.prefix == prefix || g.prefix.equals(prefix))) {
+            return g;
+        }
+        checkGenerationRetryTime();
+        synchronized (generationLock) {
+            g = this.generation;
+            if (g != null && g.prefix.equals(prefix)) {
+                return g;
+            }
+            // 等锁的时候别的线程可能加载失败了
+            checkGenerationRetryTime();
+            try {
+                g = new Generation(prefix, loadGeneration(prefix));
+            } catch (RuntimeException e) {
+                generationRetryMillis = generationRetryMillis == 0 ? GENERATION_RETRY_MIN_MILLIS
+                        : Math.min(generationRetryMillis * 2, GENERATION_RETRY_MAX_MILLIS);
+                generationRetryTime = System.currentTimeMillis() + generationRetryMillis;
+                throw e;
+            }
+            generationRetryMillis = 0;
+            this.generation = g;
+            startGenerationRefresh();
+            return g;
+        }
+    }
+
+    private void checkGenerationRetryTime() {
+        long wait = generationRetryTime - System.currentTimeMillis();
+        if (wait > 0) {
+            throw new CacheException("load key generation failed, retry after " + wait + "ms");
+        }
+    }
+
+    private long loadGeneration(String prefix) {
+        return generationCommands().generation(generationKey(prefix), System.currentTimeMillis(),
+                GENERATION_EXPIRE_MILLIS, false);
+    }
+
+    private LockCommands generationCommands() {
+        LockCommands commands = lockCommands();
+        if (commands == null) {
+            throw new CacheException("key generation is not supported by " + getClass().getSimpleName());
+        }
+        return commands;
+    }
+
+    // 保存generation的key，不包含generation本身
+    private static byte[] generationKey(String prefix) {
+        return (prefix + GENERATION_KEY_SUFFIX).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void startGenerationRefresh() {
+        long interval = config.getKeyGenerationRefreshMillis();
+        if (interval > 0 && generationRefreshFuture == null && !closed) {
+            generationRefreshFuture = JetCacheExecutor.heavyIOExecutor().scheduleWithFixedDelay(
+                    this::refreshKeyGeneration, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reload the key generation from the remote cache, it's called when the generation is increased by other JVM.
+     * Do nothing if the key generation is not enabled or not loaded yet.
+     */
+    public void refreshKeyGeneration() {
+        Generation g = this.generation;
+        if (!config.isKeyGeneration() || g == null || closed) {
+            return;
+        }
+        try {
+            long value = loadGeneration(g.prefix);
+            if (value != g.value) {
+                synchronized (generationLock) {
+                    // CLEAR已经更新了就不用旧的结果覆盖
+                    if (this.generation == g) {
+                        this.generation = new Generation(g.prefix, value);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logError("REFRESH_GENERATION", g.prefix + GENERATION_KEY_SUFFIX, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        ScheduledFuture<?> f = generationRefreshFuture;
+        if (f != null) {
+            f.cancel(false);
+        }
+        super.close();
+        synchronized (lockWaiters) {
+            AutoCloseable subscription = lockSubscription;
+            if (subscription != null) {
+                lockSubscription = null;
+                try {
+                    subscription.close();
+                } catch (Exception e) {
+                    logger.warn("unsubscribe lock release channel failed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Process one page of SCAN in each run, and reschedule itself until the iteration is finished.
+     */
+    private class ClearTask implements Runnable {
+        private final KeyScanner scanner;
+        private final byte[] pattern;
+        private final int batchSize = config.getClearBatchSize();
+        private final int keysPerSecond = config.getClearKeysPerSecond();
+        private final CompletableFuture<ResultData> future = new CompletableFuture<>();
+        private final List<byte[]> batch = new ArrayList<>();
+        private final long startNanos = System.nanoTime();
+        private KeyScanner.ScanCursor cursor;
+        private long deleted;
+        private boolean finished;
+
+        ClearTask(KeyScanner scanner, byte[] pattern) {
+            this.scanner = scanner;
+            this.pattern = pattern;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (finished) {
+                    complete(new ResultData(CacheResultCode.SUCCESS, "deleted " + deleted + " keys", null));
+                    return;
+                }
+                if (closed) {
+                    throw new CacheException("cache is closed");
+                }
+                if (cursor == null) {
+                    cursor = scanner.scan(pattern, batchSize);
+                }
+                List<byte[]> page = cursor.next();
+                if (page == null) {
+                    finished = true;
+                } else {
+                    batch.addAll(page);
+                }
+                while (batch.size() >= batchSize || (finished && !batch.isEmpty())) {
+                    List<byte[]> keys = batch.subList(0, Math.min(batchSize, batch.size()));
+                    scanner.unlink(keys);
+                    deleted += keys.size();
+                    keys.clear();
+                }
+                long delayNanos = 0;
+                if (keysPerSecond > 0) {
+                    // 按已删除的数量计算应该用的时间，删除得太快就推迟下一次执行
+                    delayNanos = deleted * 1_000_000_000L / keysPerSecond - (System.nanoTime() - startNanos);
+                }
+                JetCacheExecutor.maintenanceExecutor().schedule(this, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+            } catch (Throwable e) {
+                logError("CLEAR", new String(pattern, StandardCharsets.UTF_8), e);
+                complete(new ResultData(e));
+            }
+        }
+
+        private void complete(ResultData rd) {
+            KeyScanner.ScanCursor c = cursor;
+            if (c != null) {
+                try {
+                    c.close();
+                } catch (Exception e) {
+                    logger.warn("close scan cursor failed", e);
+                }
+            }
+            future.complete(rd);
+        }
+    }
+
+    // 最后一个字符是字母或者数字时，SCAN的前缀匹配会匹配到以它开头的其它前缀
+    private static boolean endsWithSeparator(byte[] prefix) {
+        if (prefix.length == 0) {
+            return false;
+        }
+        int last = prefix[prefix.length - 1];
+        return !(last >= 'a' && last <= 'z') && !(last >= 'A' && last <= 'Z') && !(last >= '0' && last <= '9');
+    }
+
+    /**
+     * Build the glob pattern of SCAN MATCH, the special characters in the prefix are escaped.
+     */
+    static byte[] scanPattern(byte[] prefix) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(prefix.length + 8);
+        for (byte b : prefix) {
+            if (b == '*' || b == '?' || b == '[' || b == ']' || b == '\\') {
+                bos.write('\\');
+            }
+            bos.write(b);
+        }
+        bos.write('*');
+        return bos.toByteArray();
     }
 
     public byte[] buildKey(K key) {
+        return buildKey(key, prefixBytes(), config.getKeyConvertor());
+    }
+
+    /**
+     * Build the key of a lock. Like {@link #fencingKey()} it doesn't contain the key generation, so
+     * {@link #CLEAR()} doesn't move a lock which is still held to another key.
+     */
+    public byte[] buildLockKey(K key) {
+        if (!config.isKeyGeneration()) {
+            return buildKey(key);
+        }
+        byte[] prefix = config.getKeyPrefixSupplier().get().getBytes(StandardCharsets.UTF_8);
+        return buildKey(key, prefix, config.getKeyConvertor());
+    }
+
+    private byte[] buildKey(K key, byte[] prefix, Function<K, Object> keyConvertor) {
         try {
             Object newKey = key;
-            if (config.getKeyConvertor() != null) {
-                if (config.getKeyConvertor() instanceof KeyConvertor) {
+            if (keyConvertor != null) {
+                if (keyConvertor instanceof KeyConvertor) {
                     if (!isPreservedKey(key)) {
                         // since 2.7.3 KeyConvertor extends Function<Object, Object>
-                        newKey = config.getKeyConvertor().apply(key);
+                        newKey = keyConvertor.apply(key);
                     }
                 } else {
                     // before 2.7.3, KeyConvertor is interface only place some constants.
@@ -48,16 +703,32 @@ public abstract class AbstractExternalCache<K, V> extends AbstractCache<K, V> {
                     } else if (key instanceof String) {
                         newKey = key;
                     } else {
-                        newKey = config.getKeyConvertor().apply(key);
+                        newKey = keyConvertor.apply(key);
                     }
                 }
             }
-            return ExternalKeyUtil.buildKeyAfterConvert(newKey, config.getKeyPrefix());
+            return ExternalKeyUtil.buildKeyAfterConvert(newKey, prefix);
         } catch (IOException e) {
             throw new CacheException(e);
         }
     }
 
+    private byte[] prefixBytes() {
+        Supplier<String> supplier = config.getKeyPrefixSupplier();
+        String prefix = supplier.get();
+        // generation只在加载和CLEAR时变化，平时只是读一下volatile变量
+        long gen = config.isKeyGeneration() ? generation(prefix).value : -1;
+        PrefixBytes p = this.prefixBytes;
+        if (p != null && p.supplier == supplier && p.generation == gen
+                && (p.prefix == prefix || p.prefix.equals(prefix))) {
+            return p.bytes;
+        }
+        String fullPrefix = gen < 0 ? prefix : prefix + "g" + gen + "_";
+        p = new PrefixBytes(supplier, prefix, gen, fullPrefix.getBytes(StandardCharsets.UTF_8));
+        this.prefixBytes = p;
+        return p.bytes;
+    }
+
     private boolean isPreservedKey(Object key) {
         if (key instanceof byte[]) {
             byte[] keyBytes = (byte[]) key;
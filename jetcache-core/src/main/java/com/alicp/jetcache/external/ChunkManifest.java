@@ -0,0 +1,156 @@
+package com.alicp.jetcache.external;
+
+import com.alicp.jetcache.anno.SerialPolicy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Manifest of a large value which is split into fixed-size chunks. The manifest is stored in the key of the value:
+ * <pre>
+ * identity number(4) | version(1) | expire time(8) | total length(4) | chunk size(4) | generation(8)
+ * </pre>
+ * Chunks are stored in keys derived from the key and the generation (in the same cluster slot as the key),
+ * so a new value never overwrites the chunks of the old one, and writing the manifest after all chunks switches
+ * to the new value atomically.
+ *
+ * @author huangli
+ */
+public class ChunkManifest {
+
+    private static final int VERSION = 1;
+    private static final int SIZE = 29;
+
+    private final long expireTime;
+    private final int totalLength;
+    private final int chunkSize;
+    private final long generation;
+
+    ChunkManifest(long expireTime, int totalLength, int chunkSize, long generation) {
+        this.expireTime = expireTime;
+        this.totalLength = totalLength;
+        this.chunkSize = chunkSize;
+        this.generation = generation;
+    }
+
+    public static ChunkManifest create(long expireTime, int totalLength, int chunkSize) {
+        return new ChunkManifest(expireTime, totalLength, chunkSize, ThreadLocalRandom.current().nextLong());
+    }
+
+    public static boolean isManifest(byte[] bytes) {
+        return bytes != null && bytes.length == SIZE
+                && ByteBuffer.wrap(bytes).getInt() == SerialPolicy.IDENTITY_NUMBER_CHUNK_MANIFEST;
+    }
+
+    /**
+     * @return the manifest, or null if the bytes is not a manifest
+     */
+    public static ChunkManifest parse(byte[] bytes) {
+        if (!isManifest(bytes)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 4, SIZE - 4);
+        if (buffer.get() != VERSION) {
+            return null;
+        }
+        return new ChunkManifest(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+    }
+
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        buffer.putInt(SerialPolicy.IDENTITY_NUMBER_CHUNK_MANIFEST);
+        buffer.put((byte) VERSION);
+        buffer.putLong(expireTime);
+        buffer.putInt(totalLength);
+        buffer.putInt(chunkSize);
+        buffer.putLong(generation);
+        return buffer.array();
+    }
+
+    public int chunkCount() {
+        return (totalLength + chunkSize - 1) / chunkSize;
+    }
+
+    /**
+     * The chunk keys are in the same redis cluster slot as the key, so all chunks of a value can be read by one MGET.
+     * If the key has no hash tag, it's wrapped as the hash tag: <code>{key}:chunk:generation:index</code>.
+     */
+    public byte[][] chunkKeys(byte[] key) {
+        byte[] prefix = hashTagPrefix(key);
+        byte[] suffix = (":chunk:" + Long.toHexString(generation) + ":").getBytes(StandardCharsets.US_ASCII);
+        byte[][] keys = new byte[chunkCount()][];
+        for (int i = 0; i < keys.length; i++) {
+            byte[] index = Integer.toString(i).getBytes(StandardCharsets.US_ASCII);
+            byte[] k = Arrays.copyOf(prefix, prefix.length + suffix.length + index.length);
+            System.arraycopy(suffix, 0, k, prefix.length, suffix.length);
+            System.arraycopy(index, 0, k, prefix.length + suffix.length, index.length);
+            keys[i] = k;
+        }
+        return keys;
+    }
+
+    private static byte[] hashTagPrefix(byte[] key) {
+        int close = -1;
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] == '}') {
+                close = i;
+                break;
+            }
+        }
+        if (close < 0) {
+            // 没有'}'，用整个key做hash tag，和key在同一个slot
+            byte[] k = new byte[key.length + 2];
+            k[0] = '{';
+            System.arraycopy(key, 0, k, 1, key.length);
+            k[k.length - 1] = '}';
+            return k;
+        }
+        // key中已经有hash tag时后面加后缀不改变slot；有'}'但没有合法的hash tag时无法包装，chunk可能在不同的slot
+        return key;
+    }
+
+    public byte[] chunk(byte[] value, int index) {
+        int from = index * chunkSize;
+        return Arrays.copyOfRange(value, from, Math.min(from + chunkSize, totalLength));
+    }
+
+    /**
+     * Copy the chunks into one array, which is passed to the decoder directly.
+     *
+     * @return the value, or null if any chunk is missing or the length does not match
+     */
+    public byte[] assemble(List<byte[]> chunks) {
+        if (chunks.size() != chunkCount()) {
+            return null;
+        }
+        byte[] value = new byte[totalLength];
+        int offset = 0;
+        for (byte[] c : chunks) {
+            if (c == null || offset + c.length > totalLength) {
+                return null;
+            }
+            System.arraycopy(c, 0, value, offset, c.length);
+            offset += c.length;
+        }
+        return offset == totalLength ? value : null;
+    }
+
+    public long getExpireTime() {
+        return expireTime;
+    }
+
+    public int getTotalLength() {
+        return totalLength;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+}
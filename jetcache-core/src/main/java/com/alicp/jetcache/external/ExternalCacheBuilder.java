@@ -3,6 +3,7 @@ package com.alicp.jetcache.external;
 import com.alicp.jetcache.AbstractCacheBuilder;
 import com.alicp.jetcache.CacheManager;
 import com.alicp.jetcache.support.BroadcastManager;
+import com.alicp.jetcache.support.CircuitBreaker;
 
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -78,4 +79,66 @@ public abstract class ExternalCacheBuilder<T extends ExternalCacheBuilder<T>> ex
     public void setValueDecoder(Function<byte[], Object> valueDecoder){
         getConfig().setValueDecoder(valueDecoder);
     }
+
+    /**
+     * Count of SCAN and the batch size of UNLINK when clearing the cache.
+     */
+    public T clearBatchSize(int clearBatchSize) {
+        getConfig().setClearBatchSize(clearBatchSize);
+        return self();
+    }
+
+    public void setClearBatchSize(int clearBatchSize) {
+        getConfig().setClearBatchSize(clearBatchSize);
+    }
+
+    /**
+     * Max keys deleted per second when clearing the cache, 0 means no limit.
+     */
+    public T clearKeysPerSecond(int clearKeysPerSecond) {
+        getConfig().setClearKeysPerSecond(clearKeysPerSecond);
+        return self();
+    }
+
+    public void setClearKeysPerSecond(int clearKeysPerSecond) {
+        getConfig().setClearKeysPerSecond(clearKeysPerSecond);
+    }
+
+    /**
+     * Add a generation number stored in the remote cache to the key prefix, then clear() only increases
+     * the generation and the old keys expire by their TTL. Other JVMs reload the generation through
+     * the broadcast channel, or by the periodic refresh.
+     */
+    public T keyGeneration(boolean keyGeneration) {
+        getConfig().setKeyGeneration(keyGeneration);
+        return self();
+    }
+
+    public void setKeyGeneration(boolean keyGeneration) {
+        getConfig().setKeyGeneration(keyGeneration);
+    }
+
+    /**
+     * Interval to reload the key generation from the remote cache, 0 means only reload by broadcast.
+     */
+    public T keyGenerationRefreshMillis(long keyGenerationRefreshMillis) {
+        getConfig().setKeyGenerationRefreshMillis(keyGenerationRefreshMillis);
+        return self();
+    }
+
+    public void setKeyGenerationRefreshMillis(long keyGenerationRefreshMillis) {
+        getConfig().setKeyGenerationRefreshMillis(keyGenerationRefreshMillis);
+    }
+
+    /**
+     * Fail fast when the remote cache is unhealthy. The caches built by this builder share the breaker.
+     */
+    public T circuitBreaker(CircuitBreaker circuitBreaker) {
+        getConfig().setCircuitBreaker(circuitBreaker);
+        return self();
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        getConfig().setCircuitBreaker(circuitBreaker);
+    }
 }
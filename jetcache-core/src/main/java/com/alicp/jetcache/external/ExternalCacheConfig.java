@@ -1,6 +1,7 @@
 package com.alicp.jetcache.external;
 
 import com.alicp.jetcache.CacheConfig;
+import com.alicp.jetcache.support.CircuitBreaker;
 import com.alicp.jetcache.support.DecoderMap;
 import com.alicp.jetcache.support.JavaValueEncoder;
 
@@ -18,6 +19,11 @@ public class ExternalCacheConfig<K, V> extends CacheConfig<K, V> {
     private Function<Object, byte[]> valueEncoder = JavaValueEncoder.INSTANCE;
     private Function<byte[], Object> valueDecoder = DecoderMap.defaultJavaValueDecoder();
     private String broadcastChannel;
+    private int clearBatchSize = 500;
+    private int clearKeysPerSecond = 10000;
+    private boolean keyGeneration;
+    private long keyGenerationRefreshMillis = 60000;
+    private CircuitBreaker circuitBreaker;
 
     public String getKeyPrefix() {
         return keyPrefixSupplier == null ? null : keyPrefixSupplier.get();
@@ -58,4 +64,44 @@ public class ExternalCacheConfig<K, V> extends CacheConfig<K, V> {
     public void setBroadcastChannel(String broadcastChannel) {
         this.broadcastChannel = broadcastChannel;
     }
+
+    public int getClearBatchSize() {
+        return clearBatchSize;
+    }
+
+    public void setClearBatchSize(int clearBatchSize) {
+        this.clearBatchSize = clearBatchSize;
+    }
+
+    public int getClearKeysPerSecond() {
+        return clearKeysPerSecond;
+    }
+
+    public void setClearKeysPerSecond(int clearKeysPerSecond) {
+        this.clearKeysPerSecond = clearKeysPerSecond;
+    }
+
+    public boolean isKeyGeneration() {
+        return keyGeneration;
+    }
+
+    public void setKeyGeneration(boolean keyGeneration) {
+        this.keyGeneration = keyGeneration;
+    }
+
+    public long getKeyGenerationRefreshMillis() {
+        return keyGenerationRefreshMillis;
+    }
+
+    public void setKeyGenerationRefreshMillis(long keyGenerationRefreshMillis) {
+        this.keyGenerationRefreshMillis = keyGenerationRefreshMillis;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
 }
@@ -7,7 +7,9 @@ import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
 
 /**
@@ -16,36 +18,150 @@ import java.util.Date;
  * @author huangli
  */
 public class ExternalKeyUtil {
+
+    // 超过这个大小的缓冲区用完后不放回线程池化缓冲，避免个别大key长期占用内存
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss,SSS");
+
+    private static final ThreadLocal<KeyBuffer> BUFFER = ThreadLocal.withInitial(KeyBuffer::new);
+
     public static byte[] buildKeyAfterConvert(Object newKey, String prefix) throws IOException {
+        return buildKeyAfterConvert(newKey, prefix.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Build the key with encoded prefix, the prefix and key are written into the result array directly.
+     * The returned array is always a new array (it's held by the remote client), the prefix array is not modified.
+     */
+    public static byte[] buildKeyAfterConvert(Object newKey, byte[] prefixBytes) throws IOException {
         if (newKey == null) {
             throw new NullPointerException("key can't be null");
         }
-        byte[] keyBytesWithOutPrefix;
         if (newKey instanceof String) {
-            keyBytesWithOutPrefix = newKey.toString().getBytes(StandardCharsets.UTF_8);
+            return concat(prefixBytes, (String) newKey);
         } else if (newKey instanceof byte[]) {
-            keyBytesWithOutPrefix = (byte[]) newKey;
+            byte[] keyBytes = (byte[]) newKey;
+            byte[] rt = new byte[prefixBytes.length + keyBytes.length];
+            System.arraycopy(prefixBytes, 0, rt, 0, prefixBytes.length);
+            System.arraycopy(keyBytes, 0, rt, prefixBytes.length, keyBytes.length);
+            return rt;
         } else if (newKey instanceof Number) {
-            keyBytesWithOutPrefix = (newKey.getClass().getSimpleName() + newKey).getBytes(StandardCharsets.UTF_8);
+            return concat(prefixBytes, newKey.getClass().getSimpleName() + newKey);
         } else if (newKey instanceof Date) {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMddHHmmss,SSS");
-            keyBytesWithOutPrefix = (newKey.getClass().getSimpleName() + sdf.format(newKey)).getBytes();
+            // DateTimeFormatter是线程安全的，不用每次创建SimpleDateFormat，格式和原来一样使用默认时区
+            String time = DATE_FORMATTER.format(Instant.ofEpochMilli(((Date) newKey).getTime())
+                    .atZone(ZoneId.systemDefault()));
+            // 保持原来的行为，使用平台默认编码
+            byte[] keyBytes = (newKey.getClass().getSimpleName() + time).getBytes();
+            return buildKeyAfterConvert(keyBytes, prefixBytes);
         } else if (newKey instanceof Boolean) {
-            keyBytesWithOutPrefix = newKey.toString().getBytes(StandardCharsets.UTF_8);
+            return concat(prefixBytes, newKey.toString());
         } else if (newKey instanceof Serializable) {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            ObjectOutputStream os = new ObjectOutputStream(bos);
-            os.writeObject(newKey);
-            os.close();
-            bos.close();
-            keyBytesWithOutPrefix = bos.toByteArray();
+            KeyBuffer buffer = BUFFER.get();
+            if (buffer.inUse) {
+                // writeObject中重入(比如自定义的writeObject又构建了key)，不使用池化的缓冲
+                buffer = new KeyBuffer();
+            }
+            buffer.inUse = true;
+            try {
+                ObjectOutputStream os = new ObjectOutputStream(buffer);
+                os.writeObject(newKey);
+                os.close();
+                return buffer.toByteArray(prefixBytes);
+            } finally {
+                buffer.release();
+            }
         } else {
             throw new CacheException("can't convert key of class: " + newKey.getClass());
         }
-        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
-        byte[] rt = new byte[prefixBytes.length + keyBytesWithOutPrefix.length];
+    }
+
+    private static byte[] concat(byte[] prefixBytes, String key) {
+        byte[] rt = new byte[prefixBytes.length + utf8Length(key)];
         System.arraycopy(prefixBytes, 0, rt, 0, prefixBytes.length);
-        System.arraycopy(keyBytesWithOutPrefix, 0, rt, prefixBytes.length, keyBytesWithOutPrefix.length);
+        encodeUtf8(key, rt, prefixBytes.length);
         return rt;
     }
+
+    static int utf8Length(String s) {
+        int len = s.length();
+        int count = len;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                count += 1;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    // 代理对两个char编码成4个字节
+                    count += 2;
+                    i++;
+                }
+                // 不成对的代理和JDK一样替换成'?'，占1个字节
+            } else {
+                count += 2;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Encode the string into the array like String.getBytes(UTF_8), unpaired surrogate is replaced by '?'.
+     */
+    static int encodeUtf8(String s, byte[] dest, int index) {
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                dest[index++] = (byte) c;
+            } else if (c < 0x800) {
+                dest[index++] = (byte) (0xC0 | (c >> 6));
+                dest[index++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    dest[index++] = (byte) (0xF0 | (cp >> 18));
+                    dest[index++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    dest[index++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    dest[index++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    dest[index++] = '?';
+                }
+            } else {
+                dest[index++] = (byte) (0xE0 | (c >> 12));
+                dest[index++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dest[index++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reusable buffer of one thread, the serialized key is copied into the result with the prefix.
+     */
+    private static class KeyBuffer extends ByteArrayOutputStream {
+        boolean inUse;
+
+        KeyBuffer() {
+            super(256);
+        }
+
+        byte[] toByteArray(byte[] prefixBytes) {
+            byte[] rt = new byte[prefixBytes.length + count];
+            System.arraycopy(prefixBytes, 0, rt, 0, prefixBytes.length);
+            System.arraycopy(buf, 0, rt, prefixBytes.length, count);
+            return rt;
+        }
+
+        void release() {
+            inUse = false;
+            reset();
+            if (buf.length > MAX_POOLED_BUFFER_SIZE) {
+                buf = new byte[256];
+            }
+        }
+    }
 }
@@ -0,0 +1,116 @@
+package com.alicp.jetcache.external;
+
+import com.alicp.jetcache.AutoReleaseLock;
+import com.alicp.jetcache.support.JetCacheExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lock acquired by {@link LockCommands}. It is released by compare-and-delete, so it never deletes the lock
+ * of another owner after its own lease is expired. If the lease is renewed, a watchdog resets the expire time
+ * every third of the lease until the lock is closed. The release is published to the waiters of other JVMs,
+ * and the waiters of this JVM are woken up directly.
+ *
+ * @author huangli
+ */
+public class ExternalLock implements AutoReleaseLock {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalLock.class);
+
+    private final LockCommands commands;
+    private final byte[] key;
+    private final byte[] owner;
+    private final byte[] channel;
+    private final LockWaiters waiters;
+    private final long leaseMillis;
+    private final long fencingToken;
+    private final int unlockCount;
+
+    private volatile boolean held = true;
+    private volatile ScheduledFuture<?> watchdog;
+
+    ExternalLock(LockCommands commands, byte[] key, byte[] owner, byte[] channel, LockWaiters waiters,
+                 long leaseMillis, long fencingToken, int unlockCount) {
+        this.commands = commands;
+        this.key = key;
+        this.owner = owner;
+        this.channel = channel;
+        this.waiters = waiters;
+        this.leaseMillis = leaseMillis;
+        this.fencingToken = fencingToken;
+        this.unlockCount = unlockCount;
+    }
+
+    void startWatchdog() {
+        long interval = Math.max(1, leaseMillis / 3);
+        watchdog = JetCacheExecutor.heavyIOExecutor().scheduleWithFixedDelay(this::renew,
+                interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew() {
+        if (!held) {
+            return;
+        }
+        try {
+            if (!commands.compareAndExpire(key, owner, leaseMillis)) {
+                // 续期失败说明锁已经过期或者被别人拿走了，不再续期
+                held = false;
+                cancelWatchdog();
+                logger.warn("[tryLock] [{}] lock is lost before release. Key={}", new String(owner), new String(key));
+            }
+        } catch (Exception e) {
+            // 下次继续尝试，锁在lease内还是有效的
+            logger.info("[tryLock] [{}] renew lock failed. Key={}, msg={}", new String(owner), new String(key),
+                    e.toString());
+        }
+    }
+
+    private void cancelWatchdog() {
+        ScheduledFuture<?> f = watchdog;
+        if (f != null) {
+            f.cancel(false);
+        }
+    }
+
+    /**
+     * Whether the lock is still held, it becomes false after close, or the watchdog finds the lock is lost.
+     */
+    public boolean isHeld() {
+        return held;
+    }
+
+    @Override
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    @Override
+    public void close() {
+        cancelWatchdog();
+        if (!held) {
+            return;
+        }
+        held = false;
+        for (int i = 1; i <= unlockCount; i++) {
+            try {
+                if (commands.compareAndDelete(key, owner, channel)) {
+                    logger.debug("[tryLock] [{}] successfully release the lock. Key={}", new String(owner),
+                            new String(key));
+                    // 同一个JVM中的等待者直接唤醒，不用等pub/sub消息
+                    waiters.wakeUp(ByteBuffer.wrap(key));
+                } else {
+                    logger.info("[tryLock] [{}] lock already expired or held by others. Key={}", new String(owner),
+                            new String(key));
+                }
+                return;
+            } catch (Exception e) {
+                logger.info("[tryLock] [{} of {}] [{}] unlock failed. Key={}, msg = {}", i, unlockCount,
+                        new String(owner), new String(key), e.toString());
+            }
+        }
+    }
+}
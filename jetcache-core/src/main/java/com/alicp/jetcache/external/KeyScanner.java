@@ -0,0 +1,39 @@
+package com.alicp.jetcache.external;
+
+import java.util.List;
+
+/**
+ * Key iteration and deletion of a remote cache, used to clear all keys of a cache.
+ *
+ * @author huangli
+ * @see AbstractExternalCache#keyScanner()
+ */
+public interface KeyScanner {
+
+    /**
+     * Start to iterate the keys matching the glob pattern by cursor (SCAN) on every master node.
+     */
+    ScanCursor scan(byte[] pattern, int count);
+
+    /**
+     * Delete the keys (UNLINK if supported by the server), keys may belong to different slots.
+     */
+    void unlink(List<byte[]> keys);
+
+    /**
+     * Cursor of a key iteration. Each call of {@link #next()} fetches one page, so the caller can pause between
+     * pages without occupying a thread. A key may be returned more than once. It's used by one thread at a time,
+     * and must be closed after use.
+     */
+    interface ScanCursor extends AutoCloseable {
+
+        /**
+         * Fetch the next page of keys, the page may be empty. Return null if the iteration is finished.
+         */
+        List<byte[]> next();
+
+        @Override
+        default void close() {
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.alicp.jetcache.external;
+
+import java.util.function.Consumer;
+
+/**
+ * Redis commands used by the native distributed lock and the key generation. The methods throw exception if the
+ * server can't be accessed.
+ *
+ * @author huangli
+ * @see AbstractExternalCache#lockCommands()
+ */
+public interface LockCommands {
+
+    /**
+     * Delete the key only if its value is the owner, and publish the key to the channel to wake up the waiters.
+     * KEYS[1] is the lock key, ARGV[1] is the owner and ARGV[2] is the channel.
+     */
+    String UNLOCK_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "redis.call('del', KEYS[1]) redis.call('publish', ARGV[2], KEYS[1]) return 1 else return 0 end";
+
+    /**
+     * Reset the expire time of the key only if its value is the owner, ARGV[2] is the expire time in millis.
+     */
+    String RENEW_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end";
+
+    /**
+     * Read or increase the key generation, which is stored as a decimal string. ARGV[1] is the min value and
+     * ARGV[2] is the expire time in millis. If ARGV[3] is "1", the value is set to max(value + 1, ARGV[1]),
+     * otherwise the value is returned, or initialized to ARGV[1] if it doesn't exist.
+     */
+    String GENERATION_SCRIPT = "local v = tonumber(redis.call('get', KEYS[1])) local m = tonumber(ARGV[1]) "
+            + "if v and ARGV[3] ~= '1' then return v end "
+            + "if v and v + 1 > m then m = v + 1 end "
+            + "redis.call('set', KEYS[1], string.format('%d', m), 'px', ARGV[2]) return m";
+
+    /**
+     * SET key owner NX PX ttlMillis.
+     *
+     * @return true if the key is set
+     */
+    boolean setIfAbsent(byte[] key, byte[] owner, long ttlMillis);
+
+    /**
+     * Run {@link #UNLOCK_SCRIPT}.
+     *
+     * @return true if the key is deleted
+     */
+    boolean compareAndDelete(byte[] key, byte[] owner, byte[] channel);
+
+    /**
+     * Run {@link #RENEW_SCRIPT}.
+     *
+     * @return true if the key is still owned by the owner and its expire time is reset
+     */
+    boolean compareAndExpire(byte[] key, byte[] owner, long ttlMillis);
+
+    /**
+     * INCR key.
+     */
+    long increment(byte[] key);
+
+    /**
+     * Run {@link #GENERATION_SCRIPT}.
+     *
+     * @return the generation after the script is executed
+     */
+    long generation(byte[] key, long min, long ttlMillis, boolean increase);
+
+    /**
+     * Subscribe the channel which {@link #UNLOCK_SCRIPT} publishes the released lock keys to.
+     * It returns after the subscription is confirmed by the server, or throws an exception if it's not confirmed.
+     * The listener is called in the IO thread of the client, it should return quickly.
+     *
+     * @return a handle to unsubscribe, or null if the client doesn't support pub/sub
+     */
+    default AutoCloseable subscribe(byte[] channel, Consumer<byte[]> listener) {
+        return null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.alicp.jetcache.external;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Threads of this JVM waiting for the locks of a cache. When a lock is released, only the thread waiting longest
+ * is woken up, so the waiters get the lock roughly in the order they start waiting.
+ *
+ * @author huangli
+ */
+class LockWaiters {
+
+    private final ConcurrentHashMap<ByteBuffer, Queue<Thread>> waiters = new ConcurrentHashMap<>();
+
+    void add(ByteBuffer key, Thread thread) {
+        waiters.compute(key, (k, q) -> {
+            if (q == null) {
+                q = new ConcurrentLinkedQueue<>();
+            }
+            q.add(thread);
+            return q;
+        });
+    }
+
+    /**
+     * Remove the waiter. If it's the head and leaves without the lock (timeout or interrupted), the wakeup it may
+     * have received is passed to the next waiter, otherwise the next waiter only finds the lock free by polling.
+     */
+    void remove(ByteBuffer key, Thread thread, boolean passWakeUp) {
+        waiters.computeIfPresent(key, (k, q) -> {
+            boolean head = q.peek() == thread;
+            q.remove(thread);
+            if (head && passWakeUp) {
+                Thread next = q.peek();
+                if (next != null) {
+                    LockSupport.unpark(next);
+                }
+            }
+            return q.isEmpty() ? null : q;
+        });
+    }
+
+    void wakeUp(ByteBuffer key) {
+        Queue<Thread> q = waiters.get(key);
+        if (q != null) {
+            Thread t = q.peek();
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+    }
+}
@@ -11,7 +11,9 @@ import com.alicp.jetcache.external.ExternalCacheConfig;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -20,6 +22,7 @@ import java.util.stream.Collectors;
 public class MockRemoteCache<K, V> extends AbstractExternalCache<K, V> {
     private Cache<ByteBuffer, byte[]> cache;
     private ExternalCacheConfig<K, V> config;
+    private final Map<ByteBuffer, Consumer<byte[]>> lockListeners = new ConcurrentHashMap<>();
 
     public MockRemoteCache(MockRemoteCacheConfig<K, V> config) {
         super(config);
@@ -157,4 +160,127 @@ public class MockRemoteCache<K, V> extends AbstractExternalCache<K, V> {
     protected CacheResult do_PUT_IF_ABSENT(K key, V value, long expireAfterWrite, TimeUnit timeUnit) {
         return cache.PUT_IF_ABSENT(genKey(key), config.getValueEncoder().apply(value), expireAfterWrite, timeUnit);
     }
+
+    @Override
+    protected KeyScanner keyScanner() {
+        return new KeyScanner() {
+            @Override
+            public ScanCursor scan(byte[] pattern, int count) {
+                byte[] prefix = unescapePrefix(pattern);
+                LinkedHashMap<ByteBuffer, ?> map = cache.unwrap(LinkedHashMap.class);
+                Iterator<ByteBuffer> it = new ArrayList<>(map.keySet()).iterator();
+                return () -> {
+                    if (!it.hasNext()) {
+                        return null;
+                    }
+                    List<byte[]> page = new ArrayList<>();
+                    while (it.hasNext() && page.size() < count) {
+                        ByteBuffer k = it.next();
+                        byte[] bytes = new byte[k.remaining()];
+                        k.duplicate().get(bytes);
+                        if (startsWith(bytes, prefix)) {
+                            page.add(bytes);
+                        }
+                    }
+                    return page;
+                };
+            }
+
+            @Override
+            public void unlink(List<byte[]> keys) {
+                cache.REMOVE_ALL(keys.stream().map(ByteBuffer::wrap).collect(Collectors.toSet()));
+            }
+        };
+    }
+
+    @Override
+    protected LockCommands lockCommands() {
+        return new LockCommands() {
+            @Override
+            public boolean setIfAbsent(byte[] key, byte[] owner, long ttlMillis) {
+                return cache.PUT_IF_ABSENT(ByteBuffer.wrap(key), owner, ttlMillis, TimeUnit.MILLISECONDS).isSuccess();
+            }
+
+            @Override
+            public boolean compareAndDelete(byte[] key, byte[] owner, byte[] channel) {
+                synchronized (cache) {
+                    if (!isOwner(key, owner) || !cache.REMOVE(ByteBuffer.wrap(key)).isSuccess()) {
+                        return false;
+                    }
+                }
+                Consumer<byte[]> listener = lockListeners.get(ByteBuffer.wrap(channel));
+                if (listener != null) {
+                    listener.accept(key);
+                }
+                return true;
+            }
+
+            @Override
+            public boolean compareAndExpire(byte[] key, byte[] owner, long ttlMillis) {
+                synchronized (cache) {
+                    return isOwner(key, owner)
+                            && cache.PUT(ByteBuffer.wrap(key), owner, ttlMillis, TimeUnit.MILLISECONDS).isSuccess();
+                }
+            }
+
+            @Override
+            public long increment(byte[] key) {
+                synchronized (cache) {
+                    byte[] old = cache.get(ByteBuffer.wrap(key));
+                    long v = old == null ? 1 : Long.parseLong(new String(old)) + 1;
+                    cache.PUT(ByteBuffer.wrap(key), String.valueOf(v).getBytes(), 365, TimeUnit.DAYS);
+                    return v;
+                }
+            }
+
+            @Override
+            public long generation(byte[] key, long min, long ttlMillis, boolean increase) {
+                synchronized (cache) {
+                    byte[] old = cache.get(ByteBuffer.wrap(key));
+                    if (old != null && !increase) {
+                        return Long.parseLong(new String(old));
+                    }
+                    long v = old == null ? min : Math.max(Long.parseLong(new String(old)) + 1, min);
+                    cache.PUT(ByteBuffer.wrap(key), String.valueOf(v).getBytes(), ttlMillis, TimeUnit.MILLISECONDS);
+                    return v;
+                }
+            }
+
+            @Override
+            public AutoCloseable subscribe(byte[] channel, Consumer<byte[]> listener) {
+                ByteBuffer c = ByteBuffer.wrap(channel);
+                lockListeners.put(c, listener);
+                return () -> lockListeners.remove(c, listener);
+            }
+
+            private boolean isOwner(byte[] key, byte[] owner) {
+                return Arrays.equals(owner, cache.get(ByteBuffer.wrap(key)));
+            }
+        };
+    }
+
+    // 只支持"转义后的前缀*"这种pattern
+    private static byte[] unescapePrefix(byte[] pattern) {
+        byte[] prefix = new byte[pattern.length];
+        int len = 0;
+        for (int i = 0; i < pattern.length - 1; i++) {
+            if (pattern[i] == '\\') {
+                i++;
+            }
+            prefix[len++] = pattern[i];
+        }
+        return Arrays.copyOf(prefix, len);
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -1,5 +1,6 @@
 package com.alicp.jetcache.support;
 
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.function.Function;
 
@@ -30,8 +31,26 @@ public abstract class AbstractValueDecoder implements Function<byte[], Object>,
         return x;
     }
 
+    protected int parseHeader(ByteBuffer buf) {
+        return buf.getInt(buf.position());
+    }
+
     protected abstract Object doApply(byte[] buffer) throws Exception;
 
+    /**
+     * Decode from the remaining bytes of the buffer. The default implementation uses the backing array if the
+     * buffer wraps a whole array, otherwise copies the bytes. Subclasses override it to read the buffer in place.
+     */
+    protected Object doApply(ByteBuffer buffer) throws Exception {
+        if (buffer.hasArray() && buffer.arrayOffset() + buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            return doApply(buffer.array());
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return doApply(bytes);
+    }
+
     @Override
     public Object apply(byte[] buffer) {
         try {
@@ -49,10 +68,48 @@ public abstract class AbstractValueDecoder implements Function<byte[], Object>,
         }
     }
 
+    /**
+     * Decode from the remaining bytes of the buffer, the position of the buffer is not changed.
+     */
+    public Object apply(ByteBuffer buffer) {
+        try {
+            if (useIdentityNumber) {
+                decoderMap.initDefaultDecoder();
+                int identityNumber = parseHeader(buffer);
+                AbstractValueDecoder decoder = decoderMap.getDecoder(identityNumber);
+                Objects.requireNonNull(decoder, "no decoder for identity number:" + identityNumber);
+                return decoder.doApply(buffer.duplicate());
+            } else {
+                return doApply(buffer.duplicate());
+            }
+        } catch (Throwable e) {
+            throw new CacheEncodeException("decode error", e);
+        }
+    }
+
+    /**
+     * Whether the remaining bytes of the buffer start with an identity number known by the decoder map.
+     * Always true if the decoder doesn't use identity number.
+     */
+    public boolean isKnownFormat(ByteBuffer buffer) {
+        if (!useIdentityNumber) {
+            return true;
+        }
+        if (buffer.remaining() < 4) {
+            return false;
+        }
+        decoderMap.initDefaultDecoder();
+        return decoderMap.getDecoder(parseHeader(buffer)) != null;
+    }
+
     public boolean isUseIdentityNumber() {
         return useIdentityNumber;
     }
 
+    public DecoderMap getDecoderMap() {
+        return decoderMap;
+    }
+
     public void setDecoderMap(DecoderMap decoderMap) {
         this.decoderMap = decoderMap;
     }
@@ -0,0 +1,344 @@
+package com.alicp.jetcache.support;
+
+import com.alicp.jetcache.anno.KeyConvertor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Key convertor which encodes keys into short and stable binary keys, without reflection and
+ * the header of java serialization stream. Each value is written as a type tag and a fixed layout:
+ * <pre>
+ * boolean                  tag
+ * byte/short/char          tag | 1/2/2 bytes
+ * int/long/Date            tag | zigzag varint (Date is epoch millis)
+ * float/double             tag | 4/8 bytes
+ * String/enum/BigInteger   tag | varint length | bytes (UTF-8 string, enum name, two's complement)
+ * UUID                     tag | 16 bytes
+ * Instant/LocalDateTime    tag | zigzag varint (epoch second/epoch day) | varint (nano of second/nano of day)
+ * arrays and lists         tag | varint count | elements
+ * </pre>
+ * A String key is returned as it is, so the key in remote cache keeps the same as other convertors and is
+ * readable. Other keys are converted to byte[], Object[] (the default key of method cache with multiple
+ * parameters) and List are composites of their elements. Custom types can be registered by
+ * {@link #register(Class, BiConsumer)}, unsupported types cause CacheEncodeException.
+ * <p>
+ * The tags are control characters, so binary keys don't conflict with printable string keys.
+ *
+ * @author huangli
+ */
+public class BinaryKeyConvertor implements KeyConvertor {
+
+    public static final BinaryKeyConvertor INSTANCE = new BinaryKeyConvertor();
+
+    static final byte NULL = 0x01;
+    static final byte FALSE = 0x02;
+    static final byte TRUE = 0x03;
+    static final byte BYTE = 0x04;
+    static final byte SHORT = 0x05;
+    static final byte CHAR = 0x06;
+    static final byte INT = 0x07;
+    static final byte LONG = 0x08;
+    static final byte FLOAT = 0x09;
+    static final byte DOUBLE = 0x0A;
+    static final byte STRING = 0x0B;
+    static final byte UUID_TAG = 0x0C;
+    static final byte ENUM = 0x0D;
+    static final byte DATE = 0x0E;
+    static final byte INSTANT = 0x0F;
+    static final byte LOCAL_DATE = 0x10;
+    static final byte LOCAL_DATE_TIME = 0x11;
+    static final byte BIG_INTEGER = 0x12;
+    static final byte BIG_DECIMAL = 0x13;
+    static final byte BYTES = 0x14;
+    static final byte ARRAY = 0x15;
+    static final byte CUSTOM = 0x16;
+
+    // 超过这个大小的缓冲区用完后不放回，避免个别大key长期占用内存
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<KeyWriter> WRITER = ThreadLocal.withInitial(KeyWriter::new);
+
+    private final Map<Class<?>, BiConsumer<Object, KeyWriter>> customWriters = new ConcurrentHashMap<>();
+
+    /**
+     * Register writer of custom key type. The writer should write the fields which decide the identity of the key,
+     * in a fixed order. The type is matched exactly, subclasses are not matched.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> BinaryKeyConvertor register(Class<T> type, BiConsumer<T, KeyWriter> writer) {
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(writer);
+        customWriters.put(type, (BiConsumer<Object, KeyWriter>) writer);
+        return this;
+    }
+
+    @Override
+    public Object apply(Object originalKey) {
+        if (originalKey == null) {
+            return null;
+        }
+        if (originalKey instanceof String || originalKey instanceof byte[]) {
+            return originalKey;
+        }
+        KeyWriter writer = WRITER.get();
+        if (writer.inUse) {
+            // 自定义writer中又转换了key，不使用池化的缓冲
+            writer = new KeyWriter();
+        }
+        writer.inUse = true;
+        writer.customWriters = customWriters;
+        try {
+            writer.writeObject(originalKey);
+            return writer.toByteArray();
+        } finally {
+            writer.release();
+        }
+    }
+
+    /**
+     * Writer passed to the custom writers.
+     */
+    public static final class KeyWriter {
+        private byte[] buf = new byte[64];
+        private int count;
+        private boolean inUse;
+        private Map<Class<?>, BiConsumer<Object, KeyWriter>> customWriters;
+
+        private KeyWriter() {
+        }
+
+        private void ensure(int n) {
+            if (count + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + n));
+            }
+        }
+
+        private void writeTag(byte tag) {
+            ensure(1);
+            buf[count++] = tag;
+        }
+
+        private void writeFixed(long v, int bytes) {
+            ensure(bytes);
+            for (int i = bytes - 1; i >= 0; i--) {
+                buf[count++] = (byte) (v >>> (i << 3));
+            }
+        }
+
+        private void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[count++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[count++] = (byte) v;
+        }
+
+        private void writeZigZag(long v) {
+            writeVarLong((v << 1) ^ (v >> 63));
+        }
+
+        private void writeRaw(byte[] bs) {
+            writeVarLong(bs.length);
+            ensure(bs.length);
+            System.arraycopy(bs, 0, buf, count, bs.length);
+            count += bs.length;
+        }
+
+        public void writeInt(int v) {
+            writeTag(INT);
+            writeZigZag(v);
+        }
+
+        public void writeLong(long v) {
+            writeTag(LONG);
+            writeZigZag(v);
+        }
+
+        public void writeString(String s) {
+            writeTag(STRING);
+            writeRaw(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public void writeBytes(byte[] bs) {
+            writeTag(BYTES);
+            writeRaw(bs);
+        }
+
+        public void writeObject(Object o) {
+            if (o == null) {
+                writeTag(NULL);
+            } else if (o instanceof String) {
+                writeString((String) o);
+            } else if (o instanceof Integer) {
+                writeInt((Integer) o);
+            } else if (o instanceof Long) {
+                writeLong((Long) o);
+            } else if (o instanceof Boolean) {
+                writeTag((Boolean) o ? TRUE : FALSE);
+            } else if (o instanceof Enum) {
+                writeTag(ENUM);
+                writeRaw(((Enum<?>) o).name().getBytes(StandardCharsets.UTF_8));
+            } else if (o instanceof UUID) {
+                UUID u = (UUID) o;
+                writeTag(UUID_TAG);
+                writeFixed(u.getMostSignificantBits(), 8);
+                writeFixed(u.getLeastSignificantBits(), 8);
+            } else if (o instanceof Object[]) {
+                Object[] array = (Object[]) o;
+                writeTag(ARRAY);
+                writeVarLong(array.length);
+                for (Object e : array) {
+                    writeObject(e);
+                }
+            } else if (o instanceof List) {
+                List<?> list = (List<?>) o;
+                writeTag(ARRAY);
+                writeVarLong(list.size());
+                for (Object e : list) {
+                    writeObject(e);
+                }
+            } else if (o instanceof byte[]) {
+                writeBytes((byte[]) o);
+            } else if (!writeOther(o) && !writeCustom(o) && !writePrimitiveArray(o)) {
+                throw new CacheEncodeException("BinaryKeyConvertor can't convert key of class: " + o.getClass());
+            }
+        }
+
+        private boolean writeOther(Object o) {
+            if (o instanceof Short) {
+                writeTag(SHORT);
+                writeFixed((Short) o, 2);
+            } else if (o instanceof Byte) {
+                writeTag(BYTE);
+                writeFixed((Byte) o, 1);
+            } else if (o instanceof Character) {
+                writeTag(CHAR);
+                writeFixed((Character) o, 2);
+            } else if (o instanceof Double) {
+                writeTag(DOUBLE);
+                writeFixed(Double.doubleToLongBits((Double) o), 8);
+            } else if (o instanceof Float) {
+                writeTag(FLOAT);
+                writeFixed(Float.floatToIntBits((Float) o), 4);
+            } else if (o instanceof BigInteger) {
+                writeTag(BIG_INTEGER);
+                writeRaw(((BigInteger) o).toByteArray());
+            } else if (o instanceof BigDecimal) {
+                BigDecimal d = (BigDecimal) o;
+                writeTag(BIG_DECIMAL);
+                writeZigZag(d.scale());
+                writeRaw(d.unscaledValue().toByteArray());
+            } else if (o.getClass() == Date.class) {
+                // java.sql.Timestamp等子类有额外的字段，不按Date处理
+                writeTag(DATE);
+                writeZigZag(((Date) o).getTime());
+            } else if (o instanceof Instant) {
+                Instant i = (Instant) o;
+                writeTag(INSTANT);
+                writeZigZag(i.getEpochSecond());
+                writeVarLong(i.getNano());
+            } else if (o instanceof LocalDate) {
+                writeTag(LOCAL_DATE);
+                writeZigZag(((LocalDate) o).toEpochDay());
+            } else if (o instanceof LocalDateTime) {
+                LocalDateTime t = (LocalDateTime) o;
+                writeTag(LOCAL_DATE_TIME);
+                writeZigZag(t.toLocalDate().toEpochDay());
+                writeVarLong(t.toLocalTime().toNanoOfDay());
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        private boolean writeCustom(Object o) {
+            BiConsumer<Object, KeyWriter> w = customWriters.get(o.getClass());
+            if (w == null) {
+                return false;
+            }
+            writeTag(CUSTOM);
+            // 自定义类型的字段个数不固定，这里用类名区分不同类型
+            writeRaw(o.getClass().getName().getBytes(StandardCharsets.UTF_8));
+            w.accept(o, this);
+            return true;
+        }
+
+        private boolean writePrimitiveArray(Object o) {
+            if (o instanceof int[]) {
+                int[] a = (int[]) o;
+                writeTag(ARRAY);
+                writeVarLong(a.length);
+                for (int v : a) {
+                    writeInt(v);
+                }
+            } else if (o instanceof long[]) {
+                long[] a = (long[]) o;
+                writeTag(ARRAY);
+                writeVarLong(a.length);
+                for (long v : a) {
+                    writeLong(v);
+                }
+            } else if (o instanceof char[]) {
+                writeString(new String((char[]) o));
+            } else if (o instanceof short[]) {
+                short[] a = (short[]) o;
+                writeTag(ARRAY);
+                writeVarLong(a.length);
+                for (short v : a) {
+                    writeObject(v);
+                }
+            } else if (o instanceof boolean[]) {
+                boolean[] a = (boolean[]) o;
+                writeTag(ARRAY);
+                writeVarLong(a.length);
+                for (boolean v : a) {
+                    writeTag(v ? TRUE : FALSE);
+                }
+            } else if (o instanceof double[]) {
+                double[] a = (double[]) o;
+                writeTag(ARRAY);
+                writeVarLong(a.length);
+                for (double v : a) {
+                    writeObject(v);
+                }
+            } else if (o instanceof float[]) {
+                float[] a = (float[]) o;
+                writeTag(ARRAY);
+                writeVarLong(a.length);
+                for (float v : a) {
+                    writeObject(v);
+                }
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+
+        private void release() {
+            inUse = false;
+            count = 0;
+            customWriters = null;
+            if (buf.length > MAX_POOLED_BUFFER_SIZE) {
+                buf = new byte[64];
+            }
+        }
+    }
+}
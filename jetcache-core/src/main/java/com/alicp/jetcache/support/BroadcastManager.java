@@ -9,6 +9,7 @@ import com.alicp.jetcache.CacheResult;
 import com.alicp.jetcache.CacheUtil;
 import com.alicp.jetcache.MultiLevelCache;
 import com.alicp.jetcache.embedded.AbstractEmbeddedCache;
+import com.alicp.jetcache.external.AbstractExternalCache;
 import com.alicp.jetcache.external.ExternalCacheConfig;
 import com.alicp.jetcache.CacheConfigException;
 import org.slf4j.Logger;
@@ -87,6 +88,25 @@ public abstract class BroadcastManager implements AutoCloseable {
         }
     }
 
+    private void processClear(Cache absCache) {
+        Cache[] caches = absCache instanceof MultiLevelCache ? ((MultiLevelCache) absCache).caches() : new Cache[]{absCache};
+        // 远程缓存已经由发送方清除，如果使用key generation，先重新加载generation，再清除本地缓存，避免本地缓存被旧数据重新填充
+        for (Cache c : caches) {
+            Cache remoteCache = CacheUtil.getAbstractCache(c);
+            if (remoteCache instanceof AbstractExternalCache) {
+                ((AbstractExternalCache) remoteCache).refreshKeyGeneration();
+            }
+        }
+        for (Cache c : caches) {
+            Cache localCache = CacheUtil.getAbstractCache(c);
+            if (localCache instanceof AbstractEmbeddedCache) {
+                ((AbstractEmbeddedCache) localCache).__clear();
+            } else {
+                break;
+            }
+        }
+    }
+
     private void processCacheMessage(CacheMessage cacheMessage) {
         // 看是不是自己本机, 本机就忽略, 不处理这个消息
         if (sourceId.equals(cacheMessage.getSourceId())) {
@@ -98,6 +118,10 @@ public abstract class BroadcastManager implements AutoCloseable {
             return;
         }
         Cache absCache = CacheUtil.getAbstractCache(cache);
+        if (cacheMessage.getType() == CacheMessage.TYPE_CLEAR) {
+            processClear(absCache);
+            return;
+        }
         //如果不是多级缓存就忽略
         if (!(absCache instanceof MultiLevelCache)) {
             logger.warn("Cache instance is not MultiLevelCache: {},{}", cacheMessage.getArea(), cacheMessage.getCacheName());
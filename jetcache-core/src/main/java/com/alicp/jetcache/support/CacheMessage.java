@@ -17,6 +17,7 @@ public class CacheMessage implements Serializable {
     public static final int TYPE_PUT_ALL = 2;
     public static final int TYPE_REMOVE = 3;
     public static final int TYPE_REMOVE_ALL = 4;
+    public static final int TYPE_CLEAR = 5;
 
     private String sourceId;
 
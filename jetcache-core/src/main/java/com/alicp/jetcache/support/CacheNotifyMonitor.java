@@ -11,6 +11,7 @@ import com.alicp.jetcache.CacheUtil;
 import com.alicp.jetcache.MultiLevelCache;
 import com.alicp.jetcache.anno.CacheConsts;
 import com.alicp.jetcache.embedded.AbstractEmbeddedCache;
+import com.alicp.jetcache.event.CacheClearEvent;
 import com.alicp.jetcache.event.CacheEvent;
 import com.alicp.jetcache.event.CachePutAllEvent;
 import com.alicp.jetcache.event.CachePutEvent;
@@ -73,6 +74,16 @@ public class CacheNotifyMonitor implements CacheMonitor {
         if (absCache.isClosed()) {
             return;
         }
+        if (event instanceof CacheClearEvent) {
+            // 没有本地缓存时也要通知，其它JVM需要重新加载key generation
+            CacheMessage m = new CacheMessage();
+            m.setArea(area);
+            m.setCacheName(cacheName);
+            m.setSourceId(sourceId);
+            m.setType(CacheMessage.TYPE_CLEAR);
+            broadcastManager.publish(m);
+            return;
+        }
         AbstractEmbeddedCache localCache = getLocalCache(absCache);
         if (localCache == null) {
             return;
@@ -3,6 +3,7 @@ package com.alicp.jetcache.support;
 import com.alicp.jetcache.CacheException;
 
 import java.io.Serializable;
+import java.util.List;
 
 /**
  * Created on 2016/10/27.
@@ -47,6 +48,18 @@ public class CacheStat implements Serializable, Cloneable {
     protected long minLoadTime = Long.MAX_VALUE;
     protected long maxLoadTime = 0;
 
+    protected long staleCount;
+    protected long staleIfErrorCount;
+
+    // 从库读取的统计，只有开启了自适应从库读取的远程缓存才有
+    protected List<ReplicaStat> replicaStats;
+
+    // 压缩的统计，只有开启了压缩的远程缓存才有
+    protected CompressionStat compressionStat;
+
+    // 熔断器的状态，只有配置了熔断器的远程缓存才有
+    protected CircuitBreakerStat circuitBreakerStat;
+
     @Override
     public CacheStat clone() {
         try {
@@ -354,4 +367,44 @@ public class CacheStat implements Serializable, Cloneable {
     public void setCacheName(String cacheName) {
         this.cacheName = cacheName;
     }
+
+    public long getStaleCount() {
+        return staleCount;
+    }
+
+    public void setStaleCount(long staleCount) {
+        this.staleCount = staleCount;
+    }
+
+    public long getStaleIfErrorCount() {
+        return staleIfErrorCount;
+    }
+
+    public void setStaleIfErrorCount(long staleIfErrorCount) {
+        this.staleIfErrorCount = staleIfErrorCount;
+    }
+
+    public List<ReplicaStat> getReplicaStats() {
+        return replicaStats;
+    }
+
+    public void setReplicaStats(List<ReplicaStat> replicaStats) {
+        this.replicaStats = replicaStats;
+    }
+
+    public CompressionStat getCompressionStat() {
+        return compressionStat;
+    }
+
+    public void setCompressionStat(CompressionStat compressionStat) {
+        this.compressionStat = compressionStat;
+    }
+
+    public CircuitBreakerStat getCircuitBreakerStat() {
+        return circuitBreakerStat;
+    }
+
+    public void setCircuitBreakerStat(CircuitBreakerStat circuitBreakerStat) {
+        this.circuitBreakerStat = circuitBreakerStat;
+    }
 }
@@ -0,0 +1,313 @@
+package com.alicp.jetcache.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker of a remote cache client. Counts the calls of a sliding time window, opens when the failure rate
+ * or the slow call rate reaches the threshold, rejects all calls while open, and lets a few probe calls go
+ * after openDurationInMillis (half open) to decide whether to close again.
+ *
+ * <p>The caches created by the same builder share the breaker, so they are broken together as they share the client.</p>
+ *
+ * @author huangli
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final int BUCKET_COUNT = 10;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+
+    private int failureRatePercent = 50;
+    private int slowCallRatePercent = 80;
+    private long slowCallDurationInMillis = 1000;
+    private int minimumCalls = 20;
+    private long windowInMillis = 10000;
+    private long openDurationInMillis = 5000;
+    private int halfOpenCalls = 5;
+    private long localExpireInMillisWhenOpen;
+
+    // 每次状态变化都换一个新的Permit对象，调用结束时据此判断状态是否在调用期间变化过
+    private final AtomicReference<Permit> current = new AtomicReference<>(new Permit(State.CLOSED, 0));
+    private volatile long openUntil;
+
+    private volatile Bucket[] buckets;
+
+    private final LongAdder rejectedCount = new LongAdder();
+    private final AtomicLong openCount = new AtomicLong();
+    private final AtomicLong stateChangeCount = new AtomicLong();
+    private volatile long lastStateChangeTime = System.currentTimeMillis();
+
+    /**
+     * Permit of an allowed call. It's the state in which the call is allowed, the result of the call is ignored if
+     * the state is changed before the call is completed.
+     */
+    public static final class Permit {
+        private final State state;
+        // 半开状态剩余的探测请求数和成功的探测请求数，每次进入半开状态重新计数
+        private final AtomicInteger probePermits;
+        private final AtomicInteger probeSuccesses = new AtomicInteger();
+
+        private Permit(State state, int probePermits) {
+            this.state = state;
+            this.probePermits = new AtomicInteger(probePermits);
+        }
+
+        public State getState() {
+            return state;
+        }
+    }
+
+    private static final class Bucket {
+        volatile long start;
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder slowCalls = new LongAdder();
+    }
+
+    public CircuitBreaker(String name) {
+        this.name = name;
+        resetBuckets();
+    }
+
+    private void resetBuckets() {
+        Bucket[] bs = new Bucket[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bs[i] = new Bucket();
+        }
+        buckets = bs;
+    }
+
+    private long bucketMillis() {
+        return Math.max(1, windowInMillis / BUCKET_COUNT);
+    }
+
+    /**
+     * Acquire a permit for a call. The caller must call {@link #record(Permit, long, boolean)} with the permit
+     * after the call is completed.
+     *
+     * @return the permit, or null if the call is rejected
+     */
+    public Permit tryAcquire() {
+        Permit p = current.get();
+        if (p.state == State.CLOSED) {
+            return p;
+        }
+        if (p.state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                rejectedCount.increment();
+                return null;
+            }
+            if (current.compareAndSet(p, new Permit(State.HALF_OPEN, halfOpenCalls))) {
+                onStateChange(State.OPEN, State.HALF_OPEN, null);
+            }
+            p = current.get();
+        }
+        if (p.state == State.HALF_OPEN && p.probePermits.getAndDecrement() > 0) {
+            return p;
+        }
+        rejectedCount.increment();
+        return null;
+    }
+
+    /**
+     * Record the result of an allowed call.
+     *
+     * @param permit  the permit returned by {@link #tryAcquire()}
+     * @param nanos   time of the call
+     * @param success false if the call fails
+     */
+    public void record(Permit permit, long nanos, boolean success) {
+        if (current.get() != permit) {
+            // 调用期间状态已经变化（比如打开之前发出的请求），结果已经没有意义
+            return;
+        }
+        boolean slow = nanos >= slowCallDurationInMillis * 1_000_000L;
+        if (permit.state == State.HALF_OPEN) {
+            if (!success || slow) {
+                open(permit, !success ? "probe failed" : "probe is slow");
+            } else if (permit.probeSuccesses.incrementAndGet() >= halfOpenCalls
+                    && current.compareAndSet(permit, new Permit(State.CLOSED, 0))) {
+                resetBuckets();
+                onStateChange(State.HALF_OPEN, State.CLOSED, null);
+            }
+            return;
+        }
+        Bucket b = bucket(System.currentTimeMillis());
+        b.calls.increment();
+        if (!success) {
+            b.failures.increment();
+        }
+        if (slow) {
+            b.slowCalls.increment();
+        }
+        if (!success || slow) {
+            checkRate(permit);
+        }
+    }
+
+    private Bucket bucket(long now) {
+        long bucketMillis = bucketMillis();
+        long start = now - now % bucketMillis;
+        Bucket b = buckets[(int) ((now / bucketMillis) % BUCKET_COUNT)];
+        if (b.start != start) {
+            synchronized (b) {
+                if (b.start != start) {
+                    // 过期的bucket复用，重置时并发的计数可能丢失，对统计影响不大
+                    b.calls.reset();
+                    b.failures.reset();
+                    b.slowCalls.reset();
+                    b.start = start;
+                }
+            }
+        }
+        return b;
+    }
+
+    private void checkRate(Permit permit) {
+        long minStart = System.currentTimeMillis() - windowInMillis;
+        long calls = 0;
+        long failures = 0;
+        long slowCalls = 0;
+        for (Bucket b : buckets) {
+            if (b.start > minStart) {
+                calls += b.calls.sum();
+                failures += b.failures.sum();
+                slowCalls += b.slowCalls.sum();
+            }
+        }
+        if (calls < minimumCalls) {
+            return;
+        }
+        if (failures * 100 >= calls * failureRatePercent) {
+            open(permit, "failure rate " + failures * 100 / calls + "%");
+        } else if (slowCalls * 100 >= calls * slowCallRatePercent) {
+            open(permit, "slow call rate " + slowCalls * 100 / calls + "%");
+        }
+    }
+
+    private void open(Permit from, String reason) {
+        openUntil = System.currentTimeMillis() + openDurationInMillis;
+        if (current.compareAndSet(from, new Permit(State.OPEN, 0))) {
+            openCount.incrementAndGet();
+            onStateChange(from.state, State.OPEN, reason);
+        }
+    }
+
+    private void onStateChange(State from, State to, String reason) {
+        stateChangeCount.incrementAndGet();
+        lastStateChangeTime = System.currentTimeMillis();
+        if (to == State.OPEN) {
+            logger.warn("circuit breaker {} changed from {} to {}: {}", name, from, to, reason);
+        } else {
+            logger.info("circuit breaker {} changed from {} to {}", name, from, to);
+        }
+    }
+
+    public State getState() {
+        return current.get().state;
+    }
+
+    public CircuitBreakerStat stat() {
+        return new CircuitBreakerStat(name, getState(), rejectedCount.sum(), openCount.get(),
+                stateChangeCount.get(), lastStateChangeTime);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getFailureRatePercent() {
+        return failureRatePercent;
+    }
+
+    /**
+     * Open when the percentage of failed calls in the window reaches it.
+     */
+    public void setFailureRatePercent(int failureRatePercent) {
+        this.failureRatePercent = failureRatePercent;
+    }
+
+    public int getSlowCallRatePercent() {
+        return slowCallRatePercent;
+    }
+
+    /**
+     * Open when the percentage of slow calls in the window reaches it.
+     */
+    public void setSlowCallRatePercent(int slowCallRatePercent) {
+        this.slowCallRatePercent = slowCallRatePercent;
+    }
+
+    public long getSlowCallDurationInMillis() {
+        return slowCallDurationInMillis;
+    }
+
+    public void setSlowCallDurationInMillis(long slowCallDurationInMillis) {
+        this.slowCallDurationInMillis = slowCallDurationInMillis;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * The rates are not checked until the window has so many calls.
+     */
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    public long getWindowInMillis() {
+        return windowInMillis;
+    }
+
+    public void setWindowInMillis(long windowInMillis) {
+        this.windowInMillis = windowInMillis;
+    }
+
+    public long getOpenDurationInMillis() {
+        return openDurationInMillis;
+    }
+
+    /**
+     * How long to reject all calls before probing.
+     */
+    public void setOpenDurationInMillis(long openDurationInMillis) {
+        this.openDurationInMillis = openDurationInMillis;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    /**
+     * Count of the probe calls in half open state, the breaker closes after all of them succeed.
+     */
+    public void setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    public long getLocalExpireInMillisWhenOpen() {
+        return localExpireInMillisWhenOpen;
+    }
+
+    /**
+     * Min expire time of the values MultiLevelCache puts into its local caches while the breaker is not closed,
+     * 0 means no change.
+     */
+    public void setLocalExpireInMillisWhenOpen(long localExpireInMillisWhenOpen) {
+        this.localExpireInMillisWhenOpen = localExpireInMillisWhenOpen;
+    }
+}
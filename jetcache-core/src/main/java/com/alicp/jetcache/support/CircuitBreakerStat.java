@@ -0,0 +1,63 @@
+package com.alicp.jetcache.support;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the state of a circuit breaker, the counts are accumulated since the breaker is created.
+ *
+ * @author huangli
+ */
+public class CircuitBreakerStat implements Serializable {
+
+    private static final long serialVersionUID = 6405728736429012318L;
+
+    private final String name;
+    private final CircuitBreaker.State state;
+    private final long rejectedCount;
+    private final long openCount;
+    private final long stateChangeCount;
+    private final long lastStateChangeTime;
+
+    public CircuitBreakerStat(String name, CircuitBreaker.State state, long rejectedCount, long openCount,
+                              long stateChangeCount, long lastStateChangeTime) {
+        this.name = name;
+        this.state = state;
+        this.rejectedCount = rejectedCount;
+        this.openCount = openCount;
+        this.stateChangeCount = stateChangeCount;
+        this.lastStateChangeTime = lastStateChangeTime;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker.State getState() {
+        return state;
+    }
+
+    /**
+     * Count of the calls failed fast because the breaker is not closed.
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public long getOpenCount() {
+        return openCount;
+    }
+
+    public long getStateChangeCount() {
+        return stateChangeCount;
+    }
+
+    public long getLastStateChangeTime() {
+        return lastStateChangeTime;
+    }
+
+    @Override
+    public String toString() {
+        return name + "(state=" + state + ", rejected=" + rejectedCount + ", opened=" + openCount
+                + ", stateChanges=" + stateChangeCount + ")";
+    }
+}
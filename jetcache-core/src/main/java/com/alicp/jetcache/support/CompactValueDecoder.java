@@ -0,0 +1,90 @@
+package com.alicp.jetcache.support;
+
+import com.alicp.jetcache.CacheValueHolder;
+import com.alicp.jetcache.anno.SerialPolicy;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Decoder of the compact envelope written by {@link CompactValueEncoder}. It's registered in the DecoderMap,
+ * so any decoder with identity number can read both the envelope and the old formats.
+ * If skipExpiredPayload is true, the payload of an expired entry is not deserialized, a holder with
+ * the expire time and null value is returned, and the cache will treat it as expired.
+ *
+ * @author huangli
+ */
+public class CompactValueDecoder extends AbstractValueDecoder {
+
+    public static final CompactValueDecoder INSTANCE = new CompactValueDecoder(true);
+
+    private final boolean skipExpiredPayload;
+
+    public CompactValueDecoder(boolean skipExpiredPayload) {
+        super(true);
+        this.skipExpiredPayload = skipExpiredPayload;
+    }
+
+    /**
+     * Read the expire time of the envelope without deserializing the payload.
+     *
+     * @return the expire time, or -1 if the bytes is not a compact envelope
+     */
+    public static long readExpireTime(byte[] bytes) {
+        if (bytes == null || bytes.length < 7) {
+            return -1;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt() != SerialPolicy.IDENTITY_NUMBER_COMPACT || buffer.get() != CompactValueEncoder.VERSION) {
+            return -1;
+        }
+        buffer.get();
+        return readVarLong(buffer);
+    }
+
+    @Override
+    protected Object doApply(byte[] buffer) throws Exception {
+        return doApply(ByteBuffer.wrap(buffer));
+    }
+
+    @Override
+    protected Object doApply(ByteBuffer buffer) throws Exception {
+        buffer.position(buffer.position() + 4);
+        int version = buffer.get();
+        if (version != CompactValueEncoder.VERSION) {
+            throw new CacheEncodeException("unsupported compact envelope version:" + version);
+        }
+        int flags = buffer.get();
+        long expireTime = readVarLong(buffer);
+
+        CacheValueHolder<Object> holder = new CacheValueHolder<>();
+        holder.setExpireTime(expireTime);
+        if ((flags & CompactValueEncoder.FLAG_NULL_VALUE) != 0) {
+            return holder;
+        }
+        if (skipExpiredPayload && System.currentTimeMillis() >= expireTime) {
+            // 已过期，不用反序列化value
+            return holder;
+        }
+        ByteBuffer payload = buffer.slice();
+        int identityNumber = parseHeader(payload);
+        DecoderMap decoderMap = getDecoderMap();
+        decoderMap.initDefaultDecoder();
+        AbstractValueDecoder decoder = decoderMap.getDecoder(identityNumber);
+        Objects.requireNonNull(decoder, "no decoder for identity number:" + identityNumber);
+        holder.setValue(decoder.doApply(payload));
+        return holder;
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new CacheEncodeException("malformed varint in compact envelope");
+    }
+}
@@ -0,0 +1,85 @@
+package com.alicp.jetcache.support;
+
+import com.alicp.jetcache.CacheConfigException;
+import com.alicp.jetcache.CacheValueHolder;
+import com.alicp.jetcache.anno.SerialPolicy;
+
+/**
+ * Encode CacheValueHolder into a compact envelope instead of serializing the holder object:
+ * <pre>
+ * identity number(4 bytes) | version(1 byte) | flags(1 byte) | expire time(varint) | payload
+ * </pre>
+ * The payload is the value encoded by the inner encoder (with its identity number), so the expire time can be
+ * read without deserializing the value. The access time of the holder is not kept.
+ * Other values are encoded by the inner encoder directly.
+ *
+ * @author huangli
+ * @see CompactValueDecoder
+ */
+public class CompactValueEncoder extends AbstractValueEncoder {
+
+    static final int VERSION = 1;
+    static final int FLAG_NULL_VALUE = 1;
+
+    // identity number + version + flags + 最长10字节的varint
+    private static final int MAX_HEADER_SIZE = 16;
+
+    private final AbstractValueEncoder payloadEncoder;
+
+    public CompactValueEncoder(AbstractValueEncoder payloadEncoder) {
+        super(true);
+        if (!payloadEncoder.isUseIdentityNumber()) {
+            throw new CacheConfigException("payload encoder of compact envelope must use identity number");
+        }
+        this.payloadEncoder = payloadEncoder;
+    }
+
+    public AbstractValueEncoder getPayloadEncoder() {
+        return payloadEncoder;
+    }
+
+    @Override
+    public byte[] apply(Object value) {
+        if (!(value instanceof CacheValueHolder)) {
+            return payloadEncoder.apply(value);
+        }
+        CacheValueHolder<?> holder = (CacheValueHolder<?>) value;
+        try {
+            byte[] payload = holder.getValue() == null ? null : payloadEncoder.apply(holder.getValue());
+            byte[] header = new byte[MAX_HEADER_SIZE];
+            int index = writeInt(header, 0, SerialPolicy.IDENTITY_NUMBER_COMPACT);
+            header[index++] = VERSION;
+            header[index++] = (byte) (payload == null ? FLAG_NULL_VALUE : 0);
+            index = writeVarLong(header, index, holder.getExpireTime());
+
+            byte[] result = new byte[index + (payload == null ? 0 : payload.length)];
+            System.arraycopy(header, 0, result, 0, index);
+            if (payload != null) {
+                System.arraycopy(payload, 0, result, index, payload.length);
+            }
+            return result;
+        } catch (CacheEncodeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new CacheEncodeException("Compact Encode error. msg=" + e.getMessage(), e);
+        }
+    }
+
+    static int writeInt(byte[] buf, int index, int value) {
+        buf[index] = (byte) (value >> 24 & 0xFF);
+        buf[index + 1] = (byte) (value >> 16 & 0xFF);
+        buf[index + 2] = (byte) (value >> 8 & 0xFF);
+        buf[index + 3] = (byte) (value & 0xFF);
+        return index + 4;
+    }
+
+    static int writeVarLong(byte[] buf, int index, long value) {
+        // 无符号varint，每个字节7位，最高位表示后面还有字节
+        while ((value & ~0x7FL) != 0) {
+            buf[index++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[index++] = (byte) value;
+        return index;
+    }
+}
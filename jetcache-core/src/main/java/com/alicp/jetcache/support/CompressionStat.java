@@ -0,0 +1,84 @@
+package com.alicp.jetcache.support;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the compression statistics of a value encoder, counted since the encoder is created.
+ *
+ * @author huangli
+ */
+public class CompressionStat implements Serializable {
+
+    private static final long serialVersionUID = -1432265907046120127L;
+
+    private final String algorithm;
+    private final long compressCount;
+    private final long skipCount;
+    private final long rawBytes;
+    private final long compressedBytes;
+    private final long compressNanos;
+
+    public CompressionStat(String algorithm, long compressCount, long skipCount, long rawBytes,
+                           long compressedBytes, long compressNanos) {
+        this.algorithm = algorithm;
+        this.compressCount = compressCount;
+        this.skipCount = skipCount;
+        this.rawBytes = rawBytes;
+        this.compressedBytes = compressedBytes;
+        this.compressNanos = compressNanos;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Count of the values stored compressed.
+     */
+    public long getCompressCount() {
+        return compressCount;
+    }
+
+    /**
+     * Count of the values stored uncompressed, because they are below the threshold or not compressible.
+     */
+    public long getSkipCount() {
+        return skipCount;
+    }
+
+    /**
+     * Total size of the values before compression, only the compressed values are counted.
+     */
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * Time spent in compression, includes the values which are not compressible.
+     */
+    public long getCompressNanos() {
+        return compressNanos;
+    }
+
+    public double ratio() {
+        return compressedBytes == 0 ? 0 : (double) rawBytes / compressedBytes;
+    }
+
+    /**
+     * Average compression time of the values stored compressed.
+     */
+    public double avgCompressMicros() {
+        return compressCount == 0 ? 0 : compressNanos / 1000.0 / compressCount;
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + "(compressed=" + compressCount + ", skipped=" + skipCount + ", ratio="
+                + String.format("%.2f", ratio()) + ", avgCompressTime=" + String.format("%.3f", avgCompressMicros())
+                + "us)";
+    }
+}
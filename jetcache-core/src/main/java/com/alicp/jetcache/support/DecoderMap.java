@@ -59,6 +59,8 @@ public class DecoderMap {
             register(SerialPolicy.IDENTITY_NUMBER_KRYO4, KryoValueDecoder.INSTANCE);
             register(SerialPolicy.IDENTITY_NUMBER_KRYO5, Kryo5ValueDecoder.INSTANCE);
              register(SerialPolicy.IDENTITY_NUMBER_FASTJSON2, Fastjson2ValueDecoder.INSTANCE);
+            register(SerialPolicy.IDENTITY_NUMBER_COMPACT, CompactValueDecoder.INSTANCE);
+            register(SerialPolicy.IDENTITY_NUMBER_LZ4, Lz4ValueDecoder.INSTANCE);
             inited = true;
         } finally {
             reentrantLock.unlock();
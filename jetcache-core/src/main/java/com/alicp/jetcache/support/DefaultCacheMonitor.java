@@ -13,12 +13,15 @@ import com.alicp.jetcache.event.CachePutAllEvent;
 import com.alicp.jetcache.event.CachePutEvent;
 import com.alicp.jetcache.event.CacheRemoveAllEvent;
 import com.alicp.jetcache.event.CacheRemoveEvent;
+import com.alicp.jetcache.event.CacheStaleEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * 实现了CacheMonitor接口，其afterOperation方法根据CacheEvent的具体类型来执行不同的处理逻辑，主要是维护CacheStat的相关属性
@@ -31,6 +34,9 @@ public class DefaultCacheMonitor implements CacheMonitor {
     // 定义了get、put、remove、load这几类动作的相关指标
     protected CacheStat cacheStat;
     private String cacheName;
+    private Supplier<List<ReplicaStat>> replicaStatSupplier;
+    private Supplier<CompressionStat> compressionStatSupplier;
+    private Supplier<CircuitBreakerStat> circuitBreakerStatSupplier;
 
     public DefaultCacheMonitor(String cacheName) {
         if (cacheName == null) {
@@ -44,6 +50,18 @@ public class DefaultCacheMonitor implements CacheMonitor {
         return cacheName;
     }
 
+    public void setReplicaStatSupplier(Supplier<List<ReplicaStat>> replicaStatSupplier) {
+        this.replicaStatSupplier = replicaStatSupplier;
+    }
+
+    public void setCompressionStatSupplier(Supplier<CompressionStat> compressionStatSupplier) {
+        this.compressionStatSupplier = compressionStatSupplier;
+    }
+
+    public void setCircuitBreakerStatSupplier(Supplier<CircuitBreakerStat> circuitBreakerStatSupplier) {
+        this.circuitBreakerStatSupplier = circuitBreakerStatSupplier;
+    }
+
     public void resetStat() {
         reentrantLock.lock();
         try {
@@ -60,6 +78,15 @@ public class DefaultCacheMonitor implements CacheMonitor {
         try {
             CacheStat stat = cacheStat.clone();
             stat.setStatEndTime(System.currentTimeMillis());
+            if (replicaStatSupplier != null) {
+                stat.setReplicaStats(replicaStatSupplier.get());
+            }
+            if (compressionStatSupplier != null) {
+                stat.setCompressionStat(compressionStatSupplier.get());
+            }
+            if (circuitBreakerStatSupplier != null) {
+                stat.setCircuitBreakerStat(circuitBreakerStatSupplier.get());
+            }
             return stat;
         }finally {
             reentrantLock.unlock();
@@ -95,6 +122,9 @@ public class DefaultCacheMonitor implements CacheMonitor {
             } else if (event instanceof CacheRemoveAllEvent) {
                 CacheRemoveAllEvent e = (CacheRemoveAllEvent) event;
                 afterRemoveAll(e.getMillis(), e.getKeys(), e.getResult());
+            } else if (event instanceof CacheStaleEvent) {
+                CacheStaleEvent e = (CacheStaleEvent) event;
+                afterStale(e.getKey(), e.isLoadFail());
             }
         }finally {
             reentrantLock.unlock();
@@ -179,6 +209,14 @@ public class DefaultCacheMonitor implements CacheMonitor {
         }
     }
 
+    private void afterStale(Object key, boolean loadFail) {
+        if (loadFail) {
+            cacheStat.staleIfErrorCount++;
+        } else {
+            cacheStat.staleCount++;
+        }
+    }
+
     private void afterLoadAll(long millis, Set keys, Map loadedValue, boolean success) {
         if (keys == null) {
             return;
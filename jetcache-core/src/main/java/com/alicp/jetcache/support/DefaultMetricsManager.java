@@ -81,7 +81,7 @@ public class DefaultMetricsManager {
                 return;
             }
             long delay = firstDelay(resetTime, resetTimeUnit);
-            future = JetCacheExecutor.defaultExecutor().scheduleAtFixedRate(
+            future = JetCacheExecutor.maintenanceExecutor().scheduleAtFixedRate(
                     cmd, delay, resetTimeUnit.toMillis(resetTime), TimeUnit.MILLISECONDS);
             logger.info("cache stat period at " + resetTime + " " + resetTimeUnit);
         }finally {
@@ -0,0 +1,51 @@
+package com.alicp.jetcache.support;
+
+/**
+ * Saturation snapshot of a jetcache executor.
+ *
+ * @author huangli
+ */
+public class ExecutorStat {
+    private final String name;
+    private final int poolSize;
+    private final int activeCount;
+    private final int queueSize;
+    private final long rejectedCount;
+
+    public ExecutorStat(String name, int poolSize, int activeCount, int queueSize, long rejectedCount) {
+        this.name = name;
+        this.poolSize = poolSize;
+        this.activeCount = activeCount;
+        this.queueSize = queueSize;
+        this.rejectedCount = rejectedCount;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Always 0 for a running ScheduledThreadPoolExecutor, its queue is unbounded.
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    @Override
+    public String toString() {
+        return name + "(pool=" + poolSize + ", active=" + activeCount + ", queue=" + queueSize
+                + ", rejected=" + rejectedCount + ")";
+    }
+}
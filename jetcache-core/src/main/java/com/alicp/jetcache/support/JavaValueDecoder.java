@@ -3,6 +3,7 @@ package com.alicp.jetcache.support;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Created on 2016/10/4.
@@ -29,6 +30,22 @@ public class JavaValueDecoder extends AbstractValueDecoder {
         return ois.readObject();
     }
 
+    @Override
+    protected Object doApply(ByteBuffer buffer) throws Exception {
+        if (!buffer.hasArray()) {
+            return super.doApply(buffer);
+        }
+        // 堆内的buffer直接读取其数组
+        int offset = buffer.arrayOffset() + buffer.position();
+        int len = buffer.remaining();
+        if (useIdentityNumber) {
+            offset += 4;
+            len -= 4;
+        }
+        ObjectInputStream ois = buildObjectInputStream(new ByteArrayInputStream(buffer.array(), offset, len));
+        return ois.readObject();
+    }
+
     protected ObjectInputStream buildObjectInputStream(ByteArrayInputStream in) throws IOException {
         return new ObjectInputStream(in);
     }
@@ -1,38 +1,149 @@
 package com.alicp.jetcache.support;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * Executors of jetcache. Each role (refresh, loader, logging, maintenance, broadcast, decode) can be replaced by
+ * the setXxxExecutor methods before use. The refresh role falls back to heavyIOExecutor, the logging,
+ * maintenance and broadcast roles fall back to defaultExecutor.
+ * <p>
+ * Set system property jetcache.virtualThread=true (or call setVirtualThreadEnabled) to run loader, logging
+ * and broadcast tasks in virtual threads, it takes effect on JDK 21+ only.
+ * <p>
+ * Tasks rejected by the built-in executors are counted, see {@link #getRejectedCount(String)}.
+ *
  * Created on 2017/5/3.
  *
  * @author huangli
  */
 public class JetCacheExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(JetCacheExecutor.class);
+
+    public static final String DEFAULT = "default";
+    public static final String HEAVY_IO = "heavyIO";
+    public static final String REFRESH = "refresh";
+    public static final String LOADER = "loader";
+    public static final String LOGGING = "logging";
+    public static final String MAINTENANCE = "maintenance";
+    public static final String BROADCAST = "broadcast";
+    public static final String DECODE = "decode";
+
     protected volatile static ScheduledExecutorService defaultExecutor;
     protected volatile static ScheduledExecutorService heavyIOExecutor;
+    protected volatile static ExecutorService loaderExecutor;
+    protected volatile static ScheduledExecutorService refreshExecutor;
+    protected volatile static ScheduledExecutorService maintenanceExecutor;
+    protected volatile static ExecutorService loggingExecutor;
+    protected volatile static ExecutorService broadcastExecutor;
+    protected volatile static ExecutorService decodeExecutor;
     private static final ReentrantLock reentrantLock = new ReentrantLock();
 
+    private static volatile boolean virtualThreadEnabled = Boolean.getBoolean("jetcache.virtualThread");
+    private static volatile ExecutorService virtualThreadExecutor;
+
+    private static final ConcurrentHashMap<String, LongAdder> rejectedCounters = new ConcurrentHashMap<>();
+
     private static AtomicInteger threadCount = new AtomicInteger(0);
 
     static {
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
-                if (defaultExecutor != null) {
-                    defaultExecutor.shutdownNow();
-                }
-                if (heavyIOExecutor != null) {
-                    heavyIOExecutor.shutdownNow();
-                }
+                shutdown(defaultExecutor);
+                shutdown(heavyIOExecutor);
+                shutdown(loaderExecutor);
+                shutdown(refreshExecutor);
+                shutdown(maintenanceExecutor);
+                shutdown(loggingExecutor);
+                shutdown(broadcastExecutor);
+                shutdown(decodeExecutor);
+                shutdown(virtualThreadExecutor);
             }
         });
     }
 
+    private static void shutdown(ExecutorService executor) {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 被拒绝的任务计数并打印日志，而不是静默丢弃
+     */
+    static class CountingDiscardPolicy implements RejectedExecutionHandler {
+        private final String name;
+        private final boolean abort;
+
+        CountingDiscardPolicy(String name, boolean abort) {
+            this.name = name;
+            this.abort = abort;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            LongAdder counter = rejectedCounter(name);
+            counter.increment();
+            long count = counter.sum();
+            if (!executor.isShutdown() && (count == 1 || count % 1000 == 0)) {
+                logger.warn("jetcache " + name + " executor is full, " + count + " tasks rejected. pool="
+                        + executor.getPoolSize() + ", active=" + executor.getActiveCount()
+                        + ", queue=" + executor.getQueue().size());
+            }
+            if (abort) {
+                throw new RejectedExecutionException("jetcache " + name + " executor is full");
+            }
+        }
+    }
+
+    /**
+     * 被拒绝的任务计数后在提交任务的线程中直接执行
+     */
+    static class CountingCallerRunsPolicy extends CountingDiscardPolicy {
+        CountingCallerRunsPolicy(String name) {
+            super(name, false);
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            super.rejectedExecution(r, executor);
+            if (!executor.isShutdown()) {
+                r.run();
+            }
+        }
+    }
+
+    private static LongAdder rejectedCounter(String name) {
+        return rejectedCounters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    private static ThreadFactory threadFactory(String namePrefix, boolean appendIndex) {
+        return r -> {
+            Thread t = new Thread(r, appendIndex ? namePrefix + threadCount.getAndIncrement() : namePrefix);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
     public static ScheduledExecutorService defaultExecutor() {
         if (defaultExecutor != null) {
             return defaultExecutor;
@@ -40,13 +151,9 @@ public class JetCacheExecutor {
         reentrantLock.lock();
         try{
             if (defaultExecutor == null) {
-                ThreadFactory tf = r -> {
-                    Thread t = new Thread(r, "JetCacheDefaultExecutor");
-                    t.setDaemon(true);
-                    return t;
-                };
-                defaultExecutor = new ScheduledThreadPoolExecutor(
-                        1, tf, new ThreadPoolExecutor.DiscardPolicy());
+                // 队列无界，只有shutdown之后才会拒绝任务
+                defaultExecutor = new ScheduledThreadPoolExecutor(1,
+                        threadFactory("JetCacheDefaultExecutor", false), new CountingDiscardPolicy(DEFAULT, false));
             }
         }finally {
             reentrantLock.unlock();
@@ -61,13 +168,9 @@ public class JetCacheExecutor {
         reentrantLock.lock();
         try {
             if (heavyIOExecutor == null) {
-                ThreadFactory tf = r -> {
-                    Thread t = new Thread(r, "JetCacheHeavyIOExecutor" + threadCount.getAndIncrement());
-                    t.setDaemon(true);
-                    return t;
-                };
-                heavyIOExecutor = new ScheduledThreadPoolExecutor(
-                        10, tf, new ThreadPoolExecutor.DiscardPolicy());
+                // 队列无界，只有shutdown之后才会拒绝任务
+                heavyIOExecutor = new ScheduledThreadPoolExecutor(10,
+                        threadFactory("JetCacheHeavyIOExecutor", true), new CountingDiscardPolicy(HEAVY_IO, false));
             }
         }finally {
             reentrantLock.unlock();
@@ -75,6 +178,158 @@ public class JetCacheExecutor {
         return heavyIOExecutor;
     }
 
+    /**
+     * Executor to run loaders with timeout or hedging. It is bounded and rejects tasks when full.
+     */
+    public static ExecutorService loaderExecutor() {
+        if (loaderExecutor != null) {
+            return loaderExecutor;
+        }
+        reentrantLock.lock();
+        try {
+            if (loaderExecutor == null) {
+                ExecutorService executor = virtualThreadEnabled ? virtualThreadExecutor() : null;
+                if (executor == null) {
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(20, 20, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(1000), threadFactory("JetCacheLoaderExecutor", true),
+                            new CountingDiscardPolicy(LOADER, true));
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                }
+                loaderExecutor = executor;
+            }
+        } finally {
+            reentrantLock.unlock();
+        }
+        return loaderExecutor;
+    }
+
+    /**
+     * Executor to decode values out of IO threads. It is bounded by the number of processors, tasks are run
+     * in the submitting thread when it is full.
+     */
+    public static ExecutorService decodeExecutor() {
+        if (decodeExecutor != null) {
+            return decodeExecutor;
+        }
+        reentrantLock.lock();
+        try {
+            if (decodeExecutor == null) {
+                int n = Runtime.getRuntime().availableProcessors();
+                decodeExecutor = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(10000), threadFactory("JetCacheDecodeExecutor", true),
+                        new CountingCallerRunsPolicy(DECODE));
+            }
+        } finally {
+            reentrantLock.unlock();
+        }
+        return decodeExecutor;
+    }
+
+    /**
+     * Executor to run refresh tasks, heavyIOExecutor by default.
+     */
+    public static ScheduledExecutorService refreshExecutor() {
+        ScheduledExecutorService executor = refreshExecutor;
+        return executor != null ? executor : heavyIOExecutor();
+    }
+
+    /**
+     * Executor to run periodic maintenance tasks (expired entry cleaner, metrics rollup), defaultExecutor by default.
+     */
+    public static ScheduledExecutorService maintenanceExecutor() {
+        ScheduledExecutorService executor = maintenanceExecutor;
+        return executor != null ? executor : defaultExecutor();
+    }
+
+    /**
+     * Executor to write error logs out of IO threads, defaultExecutor by default.
+     */
+    public static ExecutorService loggingExecutor() {
+        ExecutorService executor = loggingExecutor;
+        if (executor == null && virtualThreadEnabled) {
+            executor = virtualThreadExecutor();
+        }
+        return executor != null ? executor : defaultExecutor();
+    }
+
+    /**
+     * Executor to run broadcast callbacks, defaultExecutor by default.
+     */
+    public static ExecutorService broadcastExecutor() {
+        ExecutorService executor = broadcastExecutor;
+        if (executor == null && virtualThreadEnabled) {
+            executor = virtualThreadExecutor();
+        }
+        return executor != null ? executor : defaultExecutor();
+    }
+
+    /**
+     * Create virtual thread per task executor by reflection.
+     * @return the executor, or null if the JDK does not support virtual thread
+     */
+    static ExecutorService virtualThreadExecutor() {
+        if (virtualThreadExecutor != null) {
+            return virtualThreadExecutor;
+        }
+        reentrantLock.lock();
+        try {
+            if (virtualThreadExecutor == null) {
+                Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                virtualThreadExecutor = (ExecutorService) method.invoke(null);
+                logger.info("jetcache use virtual thread");
+            }
+        } catch (Exception e) {
+            logger.warn("virtual thread is not supported by current JDK: " + System.getProperty("java.version"));
+            virtualThreadEnabled = false;
+        } finally {
+            reentrantLock.unlock();
+        }
+        return virtualThreadExecutor;
+    }
+
+    /**
+     * Number of tasks rejected by the built-in executor. The default and heavyIO executors are
+     * ScheduledThreadPoolExecutor with an unbounded queue, they only reject tasks after shutdown, so their
+     * count stays 0 while running; use the queue size of {@link #executorStats()} to see their backlog.
+     */
+    public static long getRejectedCount(String executorName) {
+        LongAdder counter = rejectedCounters.get(executorName);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Saturation of the built-in executors which have been created.
+     */
+    public static List<ExecutorStat> executorStats() {
+        List<ExecutorStat> list = new ArrayList<>();
+        addStat(list, DEFAULT, defaultExecutor);
+        addStat(list, HEAVY_IO, heavyIOExecutor);
+        addStat(list, LOADER, loaderExecutor);
+        addStat(list, REFRESH, refreshExecutor);
+        addStat(list, MAINTENANCE, maintenanceExecutor);
+        addStat(list, LOGGING, loggingExecutor);
+        addStat(list, BROADCAST, broadcastExecutor);
+        addStat(list, DECODE, decodeExecutor);
+        return list;
+    }
+
+    private static void addStat(List<ExecutorStat> list, String name, ExecutorService executor) {
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor e = (ThreadPoolExecutor) executor;
+            list.add(new ExecutorStat(name, e.getPoolSize(), e.getActiveCount(), e.getQueue().size(),
+                    getRejectedCount(name)));
+        }
+    }
+
+    public static boolean isVirtualThreadEnabled() {
+        return virtualThreadEnabled;
+    }
+
+    public static void setVirtualThreadEnabled(boolean virtualThreadEnabled) {
+        JetCacheExecutor.virtualThreadEnabled = virtualThreadEnabled;
+    }
+
     public static void setDefaultExecutor(ScheduledExecutorService executor) {
         JetCacheExecutor.defaultExecutor = executor;
     }
@@ -82,4 +337,28 @@ public class JetCacheExecutor {
     public static void setHeavyIOExecutor(ScheduledExecutorService heavyIOExecutor) {
         JetCacheExecutor.heavyIOExecutor = heavyIOExecutor;
     }
+
+    public static void setLoaderExecutor(ExecutorService loaderExecutor) {
+        JetCacheExecutor.loaderExecutor = loaderExecutor;
+    }
+
+    public static void setRefreshExecutor(ScheduledExecutorService refreshExecutor) {
+        JetCacheExecutor.refreshExecutor = refreshExecutor;
+    }
+
+    public static void setMaintenanceExecutor(ScheduledExecutorService maintenanceExecutor) {
+        JetCacheExecutor.maintenanceExecutor = maintenanceExecutor;
+    }
+
+    public static void setLoggingExecutor(ExecutorService loggingExecutor) {
+        JetCacheExecutor.loggingExecutor = loggingExecutor;
+    }
+
+    public static void setBroadcastExecutor(ExecutorService broadcastExecutor) {
+        JetCacheExecutor.broadcastExecutor = broadcastExecutor;
+    }
+
+    public static void setDecodeExecutor(ExecutorService decodeExecutor) {
+        JetCacheExecutor.decodeExecutor = decodeExecutor;
+    }
 }
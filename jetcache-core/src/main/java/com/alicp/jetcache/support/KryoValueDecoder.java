@@ -1,9 +1,10 @@
 package com.alicp.jetcache.support;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.Input;
 
-import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Created on 2016/10/4.
@@ -20,13 +21,25 @@ public class KryoValueDecoder extends AbstractValueDecoder {
 
     @Override
     public Object doApply(byte[] buffer) {
-        ByteArrayInputStream in;
+        // 直接读取数组，不再经过InputStream和Input内部缓冲区的复制
+        Input input;
         if (useIdentityNumber) {
-            in = new ByteArrayInputStream(buffer, 4, buffer.length - 4);
+            input = new Input(buffer, 4, buffer.length - 4);
         } else {
-            in = new ByteArrayInputStream(buffer);
+            input = new Input(buffer);
         }
-        Input input = new Input(in);
+        return readObject(input);
+    }
+
+    @Override
+    protected Object doApply(ByteBuffer buffer) {
+        if (useIdentityNumber) {
+            buffer.position(buffer.position() + 4);
+        }
+        return readObject(new ByteBufferInput(buffer.slice()));
+    }
+
+    private Object readObject(Input input) {
         KryoValueEncoder.KryoCache kryoCache = null;
         try {
             kryoCache =  KryoValueEncoder.kryoCacheObjectPool.borrowObject();
@@ -0,0 +1,58 @@
+package com.alicp.jetcache.support;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Decoder of the LZ4 compressed value written by {@link Lz4ValueEncoder}. It's registered in the DecoderMap,
+ * so any decoder with identity number can read compressed and uncompressed values.
+ *
+ * @author huangli
+ */
+public class Lz4ValueDecoder extends AbstractValueDecoder {
+
+    public static final Lz4ValueDecoder INSTANCE = new Lz4ValueDecoder();
+
+    /**
+     * Same as the max size of a redis string value.
+     */
+    static final int MAX_RAW_LENGTH = 512 * 1024 * 1024;
+
+    /**
+     * A LZ4 block never expands more than 255 times (one byte of length extension for 255 bytes of match).
+     */
+    private static final int MAX_RATIO = 255;
+
+    public Lz4ValueDecoder() {
+        super(true);
+    }
+
+    @Override
+    protected Object doApply(byte[] buffer) throws Exception {
+        return doApply(ByteBuffer.wrap(buffer));
+    }
+
+    @Override
+    protected Object doApply(ByteBuffer buffer) throws Exception {
+        buffer.position(buffer.position() + 4);
+        long rawLength = CompactValueDecoder.readVarLong(buffer);
+        int compressedLength = buffer.remaining();
+        // 长度来自远程数据，分配内存前先检查，避免损坏的数据导致分配巨大的数组
+        if (rawLength < 4 || rawLength > MAX_RAW_LENGTH || rawLength > (long) compressedLength * MAX_RATIO) {
+            throw new CacheEncodeException("illegal LZ4 uncompressed length " + rawLength
+                    + ", compressed length " + compressedLength);
+        }
+        byte[] raw = new byte[(int) rawLength];
+        int len = Lz4ValueEncoder.Codec.decompressor().decompress(buffer, buffer.position(), compressedLength,
+                ByteBuffer.wrap(raw), 0, raw.length);
+        if (len != rawLength) {
+            throw new CacheEncodeException("LZ4 decompressed length mismatch, expect " + rawLength + ", actual " + len);
+        }
+        int identityNumber = parseHeader(raw);
+        DecoderMap decoderMap = getDecoderMap();
+        decoderMap.initDefaultDecoder();
+        AbstractValueDecoder decoder = decoderMap.getDecoder(identityNumber);
+        Objects.requireNonNull(decoder, "no decoder for identity number:" + identityNumber);
+        return decoder.doApply(raw);
+    }
+}
@@ -0,0 +1,109 @@
+package com.alicp.jetcache.support;
+
+import com.alicp.jetcache.CacheConfigException;
+import com.alicp.jetcache.anno.SerialPolicy;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compress the bytes of another encoder by LZ4 (the pure java implementation) if the size reaches the threshold:
+ * <pre>
+ * identity number(4 bytes) | uncompressed length(varint) | LZ4 block
+ * </pre>
+ * The uncompressed bytes starts with the identity number of the inner encoder, so Lz4ValueDecoder can find the
+ * decoder from DecoderMap after decompression. Values below the threshold, or not compressible, are stored as
+ * the output of the inner encoder.
+ *
+ * @author huangli
+ * @see Lz4ValueDecoder
+ */
+public class Lz4ValueEncoder extends AbstractValueEncoder {
+
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private static final int MAX_HEADER_SIZE = 4 + 5;
+
+    private final AbstractValueEncoder payloadEncoder;
+    private final int threshold;
+
+    private final LongAdder compressCount = new LongAdder();
+    private final LongAdder skipCount = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+
+    /**
+     * Load lz4 classes when used, lz4-java is an optional dependency.
+     */
+    static class Codec {
+        private static final LZ4Factory FACTORY = LZ4Factory.fastestJavaInstance();
+
+        static LZ4Compressor compressor() {
+            return FACTORY.fastCompressor();
+        }
+
+        static LZ4SafeDecompressor decompressor() {
+            return FACTORY.safeDecompressor();
+        }
+    }
+
+    public Lz4ValueEncoder(AbstractValueEncoder payloadEncoder) {
+        this(payloadEncoder, DEFAULT_THRESHOLD);
+    }
+
+    public Lz4ValueEncoder(AbstractValueEncoder payloadEncoder, int threshold) {
+        super(true);
+        if (!payloadEncoder.isUseIdentityNumber()) {
+            throw new CacheConfigException("payload encoder of LZ4 must use identity number");
+        }
+        this.payloadEncoder = payloadEncoder;
+        this.threshold = threshold;
+    }
+
+    public AbstractValueEncoder getPayloadEncoder() {
+        return payloadEncoder;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public byte[] apply(Object value) {
+        byte[] raw = payloadEncoder.apply(value);
+        if (raw.length < threshold) {
+            skipCount.increment();
+            return raw;
+        }
+        try {
+            long t = System.nanoTime();
+            LZ4Compressor compressor = Codec.compressor();
+            int maxLen = compressor.maxCompressedLength(raw.length);
+            byte[] buffer = new byte[MAX_HEADER_SIZE + maxLen];
+            int index = CompactValueEncoder.writeInt(buffer, 0, SerialPolicy.IDENTITY_NUMBER_LZ4);
+            index = CompactValueEncoder.writeVarLong(buffer, index, raw.length);
+            int len = compressor.compress(raw, 0, raw.length, buffer, index, maxLen);
+            compressNanos.add(System.nanoTime() - t);
+            if (index + len >= raw.length) {
+                // 压缩后没有变小，直接存原始数据
+                skipCount.increment();
+                return raw;
+            }
+            compressCount.increment();
+            rawBytes.add(raw.length);
+            compressedBytes.add(index + len);
+            return Arrays.copyOf(buffer, index + len);
+        } catch (Throwable e) {
+            throw new CacheEncodeException("LZ4 Encode error. msg=" + e.getMessage(), e);
+        }
+    }
+
+    public CompressionStat stat() {
+        return new CompressionStat("LZ4", compressCount.sum(), skipCount.sum(), rawBytes.sum(),
+                compressedBytes.sum(), compressNanos.sum());
+    }
+}
@@ -0,0 +1,152 @@
+package com.alicp.jetcache.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency aware replica selection. Keeps EWMA of latency and error rate of each replica,
+ * selects replica by power of two choices, ejects the replica after continuous failures and probes it later.
+ *
+ * @author huangli
+ */
+public class ReplicaSelector {
+
+    // 新样本的权重
+    private static final double ALPHA = 0.2;
+    private static final int EJECT_FAILURE_COUNT = 3;
+    private static final long MIN_EJECT_MILLIS = 1000;
+    private static final long MAX_EJECT_MILLIS = 30000;
+
+    private final Map<String, Replica> replicas = new ConcurrentHashMap<>();
+
+    public static class Replica {
+        private final String name;
+        private double latencyNanos;
+        private double errorRate;
+        private long requestCount;
+        private long errorCount;
+        private int continuousFailures;
+        private volatile long ejectMillis = MIN_EJECT_MILLIS;
+        // 0表示没有被摘除，到期后第一个CAS成功的请求作为探测请求
+        private final AtomicLong ejectedUntil = new AtomicLong();
+
+        Replica(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public synchronized void record(long nanos, boolean success) {
+            latencyNanos = requestCount == 0 ? nanos : latencyNanos + ALPHA * (nanos - latencyNanos);
+            requestCount++;
+            if (success) {
+                errorRate = errorRate * (1 - ALPHA);
+                continuousFailures = 0;
+                ejectMillis = MIN_EJECT_MILLIS;
+                ejectedUntil.set(0);
+            } else {
+                errorRate = errorRate * (1 - ALPHA) + ALPHA;
+                errorCount++;
+                continuousFailures++;
+                if (continuousFailures >= EJECT_FAILURE_COUNT) {
+                    ejectedUntil.set(System.currentTimeMillis() + ejectMillis);
+                    ejectMillis = Math.min(ejectMillis * 2, MAX_EJECT_MILLIS);
+                }
+            }
+        }
+
+        /**
+         * Current latency average, can be used as the latency of a failure which has no latency.
+         */
+        public synchronized long latencyNanos() {
+            return (long) latencyNanos;
+        }
+
+        synchronized double score() {
+            return latencyNanos / (1 - Math.min(errorRate, 0.99));
+        }
+
+        boolean isAvailable() {
+            return ejectedUntil.get() == 0;
+        }
+
+        /**
+         * The ejection is expired, let one request go as probe and keep it ejected for others.
+         */
+        boolean tryProbe(long now) {
+            long until = ejectedUntil.get();
+            return until != 0 && until <= now && ejectedUntil.compareAndSet(until, now + ejectMillis);
+        }
+
+        synchronized ReplicaStat stat() {
+            return new ReplicaStat(name, latencyNanos / 1_000_000.0, errorRate, requestCount, errorCount,
+                    ejectedUntil.get() != 0);
+        }
+    }
+
+    public Replica replica(String name) {
+        return replicas.computeIfAbsent(name, Replica::new);
+    }
+
+    /**
+     * Select a replica from the candidates.
+     *
+     * @param candidates the replicas
+     * @param weights    static weights of the candidates, null means same weight
+     * @return index of the selected candidate, -1 if all candidates are ejected
+     */
+    public int select(Replica[] candidates, int[] weights) {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < candidates.length; i++) {
+            if (candidates[i].tryProbe(now)) {
+                return i;
+            }
+        }
+        int a = randomAvailable(candidates, weights);
+        if (a < 0) {
+            return -1;
+        }
+        int b = randomAvailable(candidates, weights);
+        if (a == b) {
+            return a;
+        }
+        return candidates[a].score() <= candidates[b].score() ? a : b;
+    }
+
+    private static int randomAvailable(Replica[] candidates, int[] weights) {
+        int sum = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (candidates[i].isAvailable()) {
+                sum += weights == null ? 1 : weights[i];
+            }
+        }
+        if (sum <= 0) {
+            return -1;
+        }
+        int r = ThreadLocalRandom.current().nextInt(sum);
+        for (int i = 0; i < candidates.length; i++) {
+            if (candidates[i].isAvailable()) {
+                r -= weights == null ? 1 : weights[i];
+                if (r < 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public List<ReplicaStat> stats() {
+        List<ReplicaStat> list = new ArrayList<>();
+        for (Replica r : replicas.values()) {
+            list.add(r.stat());
+        }
+        list.sort((o1, o2) -> o1.getName().compareTo(o2.getName()));
+        return list;
+    }
+}
@@ -0,0 +1,67 @@
+package com.alicp.jetcache.support;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the read statistics of a replica.
+ *
+ * @author huangli
+ */
+public class ReplicaStat implements Serializable {
+
+    private static final long serialVersionUID = 3785203428715734816L;
+
+    private final String name;
+    private final double latencyMillis;
+    private final double errorRate;
+    private final long requestCount;
+    private final long errorCount;
+    private final boolean ejected;
+
+    public ReplicaStat(String name, double latencyMillis, double errorRate, long requestCount, long errorCount,
+                       boolean ejected) {
+        this.name = name;
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+        this.requestCount = requestCount;
+        this.errorCount = errorCount;
+        this.ejected = ejected;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * EWMA of the latency.
+     */
+    public double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    /**
+     * EWMA of the error rate.
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    @Override
+    public String toString() {
+        return name + "(latency=" + String.format("%.3f", latencyMillis) + "ms, errorRate="
+                + String.format("%.3f", errorRate) + ", request=" + requestCount + ", error=" + errorCount
+                + ", ejected=" + ejected + ")";
+    }
+}
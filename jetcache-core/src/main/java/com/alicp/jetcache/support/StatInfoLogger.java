@@ -161,6 +161,36 @@ public class StatInfoLogger implements Consumer<StatInfo> {
             sb.append(String.format("%,7d", s.getMinLoadTime() == Long.MAX_VALUE ? 0 : s.getMinLoadTime())).append('|');
             sb.append(String.format("%,7d", s.getMaxLoadTime())).append('\n');
 
+            long staleCount = s.getStaleCount() + s.getStaleIfErrorCount();
+            if (staleCount > 0) {
+                // success 列为后台重新加载时返回的旧值，fail 列为加载失败时返回的旧值
+                sb.append(String.format("%-10s", "stale")).append('|');
+                sb.append(String.format("%10s", "N/A")).append('|');
+                sb.append(String.format("%,14d", staleCount)).append('|');
+                sb.append(String.format("%,14d", s.getStaleCount())).append('|');
+                sb.append(String.format("%,14d", s.getStaleIfErrorCount())).append('|');
+                sb.append(String.format("%14s", "N/A")).append('|');
+                sb.append(String.format("%14s", "N/A")).append('|');
+                sb.append(String.format("%9s", "N/A")).append('|');
+                sb.append(String.format("%7s", "N/A")).append('|');
+                sb.append(String.format("%7s", "N/A")).append('\n');
+            }
+
+            List<ReplicaStat> replicaStats = s.getReplicaStats();
+            if (replicaStats != null && !replicaStats.isEmpty()) {
+                // 从库的延迟和错误率是EWMA，不是本统计周期的平均值
+                for (ReplicaStat r : replicaStats) {
+                    sb.append("replica ").append(r).append('\n');
+                }
+            }
+            if (s.getCompressionStat() != null) {
+                // 压缩的统计从cache创建开始累计
+                sb.append("compression ").append(s.getCompressionStat()).append('\n');
+            }
+            if (s.getCircuitBreakerStat() != null) {
+                // 熔断器的计数从创建开始累计
+                sb.append("circuitBreaker ").append(s.getCircuitBreakerStat()).append('\n');
+            }
         }
         return sb;
     }
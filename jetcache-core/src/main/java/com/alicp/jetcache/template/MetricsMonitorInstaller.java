@@ -7,6 +7,7 @@ import com.alicp.jetcache.Cache;
 import com.alicp.jetcache.CacheManager;
 import com.alicp.jetcache.CacheUtil;
 import com.alicp.jetcache.MultiLevelCache;
+import com.alicp.jetcache.external.AbstractExternalCache;
 import com.alicp.jetcache.support.AbstractLifecycle;
 import com.alicp.jetcache.support.DefaultCacheMonitor;
 import com.alicp.jetcache.support.DefaultMetricsManager;
@@ -64,13 +65,24 @@ public class MetricsMonitorInstaller extends AbstractLifecycle implements CacheM
                 DefaultCacheMonitor localMonitor = new DefaultCacheMonitor(quickConfig.getName() + "_local");
                 local.config().getMonitors().add(localMonitor);
                 DefaultCacheMonitor remoteMonitor = new DefaultCacheMonitor(quickConfig.getName() + "_remote");
+                addExternalStats(remoteMonitor, remote);
                 remote.config().getMonitors().add(remoteMonitor);
                 metricsManager.add(localMonitor, remoteMonitor);
             }
         }
         // 创建DefaultCacheMonitor并添加到cache的config中
         DefaultCacheMonitor monitor = new DefaultCacheMonitor(quickConfig.getName());
+        addExternalStats(monitor, cache);
         cache.config().getMonitors().add(monitor);
         metricsManager.add(monitor);
     }
+
+    private void addExternalStats(DefaultCacheMonitor monitor, Cache cache) {
+        Cache c = CacheUtil.getAbstractCache(cache);
+        if (c instanceof AbstractExternalCache) {
+            monitor.setReplicaStatSupplier(((AbstractExternalCache) c)::getReplicaStats);
+            monitor.setCompressionStatSupplier(((AbstractExternalCache) c)::getCompressionStat);
+            monitor.setCircuitBreakerStatSupplier(((AbstractExternalCache) c)::getCircuitBreakerStat);
+        }
+    }
 }
@@ -9,7 +9,9 @@ import com.alicp.jetcache.CacheManager;
 import com.alicp.jetcache.CacheMonitor;
 import com.alicp.jetcache.CacheUtil;
 import com.alicp.jetcache.MultiLevelCache;
+import com.alicp.jetcache.external.AbstractExternalCache;
 import com.alicp.jetcache.external.ExternalCacheBuilder;
+import com.alicp.jetcache.external.ExternalCacheConfig;
 import com.alicp.jetcache.support.BroadcastManager;
 import com.alicp.jetcache.support.CacheNotifyMonitor;
 
@@ -28,10 +30,10 @@ public class NotifyMonitorInstaller implements CacheMonitorInstaller {
 
     @Override
     public void addMonitors(CacheManager cacheManager, Cache cache, QuickConfig quickConfig) {
-        if (quickConfig.getSyncLocal() == null || !quickConfig.getSyncLocal()) {
-            return;
-        }
-        if (!(CacheUtil.getAbstractCache(cache) instanceof MultiLevelCache)) {
+        boolean syncLocal = quickConfig.getSyncLocal() != null && quickConfig.getSyncLocal()
+                && CacheUtil.getAbstractCache(cache) instanceof MultiLevelCache;
+        // 使用key generation时，clear以后需要通知其它JVM重新加载generation
+        if (!syncLocal && !isKeyGeneration(cache)) {
             return;
         }
         String area = quickConfig.getArea(); // 默认default
@@ -57,4 +59,16 @@ public class NotifyMonitorInstaller implements CacheMonitorInstaller {
         CacheMonitor monitor = new CacheNotifyMonitor(cacheManager, area, quickConfig.getName());
         cache.config().getMonitors().add(monitor);
     }
+
+    private boolean isKeyGeneration(Cache cache) {
+        Cache absCache = CacheUtil.getAbstractCache(cache);
+        Cache[] caches = absCache instanceof MultiLevelCache ? ((MultiLevelCache) absCache).caches() : new Cache[]{absCache};
+        for (Cache c : caches) {
+            Cache a = CacheUtil.getAbstractCache(c);
+            if (a instanceof AbstractExternalCache && ((ExternalCacheConfig) a.config()).isKeyGeneration()) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
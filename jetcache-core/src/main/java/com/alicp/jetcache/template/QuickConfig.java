@@ -32,6 +32,8 @@ public class QuickConfig {
     private Duration penetrationProtectTimeout;
     private RefreshPolicy refreshPolicy;
     private CacheLoader<? extends Object, ? extends Object> loader;
+    private Duration loaderTimeout;
+    private Double loaderHedgePercentile;
 
     private QuickConfig() {
     }
@@ -61,6 +63,8 @@ public class QuickConfig {
         private Duration penetrationProtectTimeout;
         private RefreshPolicy refreshPolicy;
         private CacheLoader<? extends Object, ? extends Object> loader;
+        private Duration loaderTimeout;
+        private Double loaderHedgePercentile;
 
         Builder(String name) {
             Objects.requireNonNull(name);
@@ -92,6 +96,8 @@ public class QuickConfig {
             c.penetrationProtectTimeout = penetrationProtectTimeout;
             c.refreshPolicy = refreshPolicy;
             c.loader = loader;
+            c.loaderTimeout = loaderTimeout;
+            c.loaderHedgePercentile = loaderHedgePercentile;
             return c;
         }
 
@@ -164,6 +170,16 @@ public class QuickConfig {
             this.loader = loader;
             return this;
         }
+
+        public Builder loaderTimeout(Duration loaderTimeout) {
+            this.loaderTimeout = loaderTimeout;
+            return this;
+        }
+
+        public Builder loaderHedgePercentile(Double loaderHedgePercentile) {
+            this.loaderHedgePercentile = loaderHedgePercentile;
+            return this;
+        }
     }
 
     public String getArea() {
@@ -229,4 +245,12 @@ public class QuickConfig {
     public <K, V> CacheLoader<K, V> getLoader() {
         return (CacheLoader<K, V>) loader;
     }
+
+    public Duration getLoaderTimeout() {
+        return loaderTimeout;
+    }
+
+    public Double getLoaderHedgePercentile() {
+        return loaderHedgePercentile;
+    }
 }
@@ -4,6 +4,7 @@ import com.alicp.jetcache.CacheBuilder;
 import com.alicp.jetcache.anno.CacheConsts;
 import com.alicp.jetcache.anno.support.ParserFunction;
 import com.alicp.jetcache.external.ExternalCacheBuilder;
+import com.alicp.jetcache.support.CircuitBreaker;
 
 /**
  * Created on 2016/11/29.
@@ -32,6 +33,17 @@ public abstract class ExternalCacheAutoInit extends AbstractCacheAutoInit {
         ExternalCacheBuilder ecb = (ExternalCacheBuilder) builder;
         // 设置远程缓存 key 的前缀
         ecb.setKeyPrefix(ct.getProperty("keyPrefix"));
+        // CLEAR 时每批扫描/删除的 key 数量，以及每秒最多删除的 key 数量
+        ecb.setClearBatchSize(ct.getProperty("clearBatchSize", 500));
+        ecb.setClearKeysPerSecond(ct.getProperty("clearKeysPerSecond", 10000));
+        // key 前缀中加入保存在远程缓存中的 generation，clear 时只需要增加 generation
+        ecb.setKeyGeneration(ct.getProperty("keyGeneration", false));
+        ecb.setKeyGenerationRefreshMillis(ct.getProperty("keyGenerationRefreshMillis", 60000L));
+        // 熔断器，同一个 area 的缓存共用一个客户端，也共用一个熔断器
+        ConfigTree cbt = ct.subTree("circuitBreaker.");
+        if (cbt.getProperty("enabled", false)) {
+            ecb.setCircuitBreaker(parseCircuitBreaker(cbt, ct.getPrefix()));
+        }
         /*
          * 根据配置创建缓存数据的编码函数和解码函数
          *
@@ -42,6 +54,27 @@ public abstract class ExternalCacheAutoInit extends AbstractCacheAutoInit {
         ecb.setValueDecoder(new ParserFunction(ct.getProperty("valueDecoder", CacheConsts.DEFAULT_SERIAL_POLICY)));
     }
 
+    /**
+     * 解析熔断器配置
+     *
+     * @param ct   熔断器的配置信息
+     * @param name 熔断器的名称
+     * @return 熔断器
+     */
+    protected CircuitBreaker parseCircuitBreaker(ConfigTree ct, String name) {
+        CircuitBreaker cb = new CircuitBreaker(name.endsWith(".") ? name.substring(0, name.length() - 1) : name);
+        cb.setFailureRatePercent(ct.getProperty("failureRatePercent", cb.getFailureRatePercent()));
+        cb.setSlowCallRatePercent(ct.getProperty("slowCallRatePercent", cb.getSlowCallRatePercent()));
+        cb.setSlowCallDurationInMillis(ct.getProperty("slowCallDurationInMillis", cb.getSlowCallDurationInMillis()));
+        cb.setMinimumCalls(ct.getProperty("minimumCalls", cb.getMinimumCalls()));
+        cb.setWindowInMillis(ct.getProperty("windowInMillis", cb.getWindowInMillis()));
+        cb.setOpenDurationInMillis(ct.getProperty("openDurationInMillis", cb.getOpenDurationInMillis()));
+        cb.setHalfOpenCalls(ct.getProperty("halfOpenCalls", cb.getHalfOpenCalls()));
+        cb.setLocalExpireInMillisWhenOpen(ct.getProperty("localExpireInMillisWhenOpen",
+                cb.getLocalExpireInMillisWhenOpen()));
+        return cb;
+    }
+
     /**
      * 解析广播通道
      *
@@ -74,9 +74,15 @@ public class RedisAutoConfiguration {
             Object jedisObj = parsePool(ct);
             // 是否只从 Redis 的从节点读取数据
             boolean readFromSlave = Boolean.parseBoolean(ct.getProperty("readFromSlave", "False"));
+            // 是否按从库的延迟和错误率选择从库
+            boolean adaptiveSlaveRead = Boolean.parseBoolean(ct.getProperty("adaptiveSlaveRead", "False"));
+            // 大value拆分存储的chunk大小，0表示不拆分
+            int chunkSize = Integer.parseInt(ct.getProperty("chunkSize", "0"));
 
             RedisCacheBuilder.RedisCacheBuilderImpl builder = RedisCacheBuilder.createRedisCacheBuilder()
-                    .readFromSlave(readFromSlave);
+                    .readFromSlave(readFromSlave)
+                    .adaptiveSlaveRead(adaptiveSlaveRead)
+                    .chunkSize(chunkSize);
             if (jedisObj instanceof Pool) {
                 builder.jedisPool((Pool<Jedis>) jedisObj);
             } else {
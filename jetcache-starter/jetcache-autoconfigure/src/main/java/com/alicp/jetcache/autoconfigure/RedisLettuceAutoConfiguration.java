@@ -5,8 +5,11 @@ import com.alicp.jetcache.CacheConfigException;
 import com.alicp.jetcache.anno.CacheConsts;
 import com.alicp.jetcache.external.ExternalCacheBuilder;
 import com.alicp.jetcache.redis.lettuce.JetCacheCodec;
+import com.alicp.jetcache.redis.lettuce.LatencyAwareReadFrom;
 import com.alicp.jetcache.redis.lettuce.LettuceConnectionManager;
 import com.alicp.jetcache.redis.lettuce.RedisLettuceCacheBuilder;
+import com.alicp.jetcache.support.JavaValueDecoder;
+import com.alicp.jetcache.support.JetCacheExecutor;
 import io.lettuce.core.AbstractRedisClient;
 import io.lettuce.core.ClientOptions;
 import io.lettuce.core.ReadFrom;
@@ -26,6 +29,7 @@ import org.springframework.context.annotation.Configuration;
 
 import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -84,11 +88,26 @@ public class RedisLettuceAutoConfiguration {
             String mode = ct.getProperty("mode");
             // 异步获取结果的超时时间，默认1s
             long asyncResultTimeoutInMillis = ct.getProperty("asyncResultTimeoutInMillis", CacheConsts.ASYNC_RESULT_TIMEOUT.toMillis());
+            // 连接数，大于1时按key的hash分散到多个连接上
+            int connectionCount = ct.getProperty("connectionCount", 1);
+            // 是否在独立的线程池中解码value，避免大value阻塞IO线程
+            boolean decodeAsync = ct.getProperty("decodeAsync", false);
+            // 不超过该大小的value在IO线程中直接从网络buffer解码，需要valueDecoder使用identity number（内置的decoder都是）
+            int inlineDecodeLimit = ct.getProperty("inlineDecodeLimit", 0);
+            JetCacheCodec codec = inlineDecodeLimit > 0
+                    ? new JetCacheCodec(JavaValueDecoder.INSTANCE, inlineDecodeLimit) : new JetCacheCodec();
+            // 是否开启redis的client tracking失效本地缓存，以及是否使用BCAST模式
+            boolean clientTracking = ct.getProperty("clientTracking", false);
+            boolean trackingBcast = ct.getProperty("trackingBcast", false);
+            // tracking记录的key数量上限，超过时淘汰最久没有访问的key
+            int trackingMaxKeys = ct.getProperty("trackingMaxKeys", 100000);
             // 判断是否启用广播通道
             boolean enablePubSub = parseBroadcastChannel(ct) != null;
             ReadFrom readFrom = null;
+            // LATENCY_AWARE按从库的延迟选择，需要在client创建之后订阅它的延迟事件
+            boolean latencyAware = "LATENCY_AWARE".equalsIgnoreCase(readFromStr == null ? null : readFromStr.trim());
             // 根据读取模式字符串获取ReadFrom枚举类型
-            if (readFromStr != null) {
+            if (readFromStr != null && !latencyAware) {
                 /*
                  * MASTER：只从Master节点中读取。
                  * MASTER_PREFERRED：优先从Master节点中读取。
@@ -100,7 +119,7 @@ public class RedisLettuceAutoConfiguration {
             }
 
             AbstractRedisClient client;
-            StatefulConnection<byte[], byte[]> connection;
+            List<StatefulConnection> connections = new ArrayList<>();
             StatefulRedisPubSubConnection<byte[], byte[]> pubSubConnection = null;
             // 判断是否配置了URI
             if (map == null || map.size() == 0) {
@@ -113,27 +132,48 @@ public class RedisLettuceAutoConfiguration {
                         .collect(Collectors.toList());
 
                 if ("Cluster".equalsIgnoreCase(mode)) {
+                    if (clientTracking) {
+                        throw new CacheConfigException("clientTracking is not supported in cluster mode");
+                    }
                     // 配置为集群模式
                     client = RedisClusterClient.create(uriList);
+                    if (latencyAware) {
+                        readFrom = new LatencyAwareReadFrom(client.getResources().eventBus());
+                    }
                     // 链接集群节点并获取连接对象
-                    connection = clusterConnection(ct, readFrom, (RedisClusterClient) client, false);
+                    for (int i = 0; i < connectionCount; i++) {
+                        connections.add(clusterConnection(ct, readFrom, (RedisClusterClient) client, codec, false));
+                    }
                     if (enablePubSub) {
                         // 如果启用了广播通道，则获取与集群节点的连接对象
-                        pubSubConnection = (StatefulRedisPubSubConnection) clusterConnection(ct, readFrom, (RedisClusterClient) client, true);
+                        pubSubConnection = (StatefulRedisPubSubConnection) clusterConnection(ct, readFrom, (RedisClusterClient) client, new JetCacheCodec(), true);
                     }
                 } else {
+                    if (clientTracking && (readFromStr != null || uriList.size() > 1)) {
+                        // tracking的推送只发给执行读命令的连接，只能直连第一个uri，不能使用读写分离的MasterReplica连接
+                        throw new CacheConfigException("clientTracking can't be used with readFrom or multiple uri");
+                    }
                     // 配置为单节点模式
                     client = RedisClient.create();
+                    if (latencyAware) {
+                        readFrom = new LatencyAwareReadFrom(client.getResources().eventBus());
+                    }
                     ((RedisClient) client).setOptions(ClientOptions.builder().
                             disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS).build());
                     // 链接单节点并获取连接对象
-                    StatefulRedisMasterReplicaConnection c = MasterReplica.connect(
-                            (RedisClient) client, new JetCacheCodec(), uriList);
-                    if (readFrom != null) {
-                        // 如果指定了读取模式，则设置连接对象的读取模式
-                        c.setReadFrom(readFrom);
+                    for (int i = 0; i < connectionCount; i++) {
+                        if (clientTracking) {
+                            connections.add(((RedisClient) client).connect(codec, uriList.get(0)));
+                            continue;
+                        }
+                        StatefulRedisMasterReplicaConnection c = MasterReplica.connect(
+                                (RedisClient) client, codec, uriList);
+                        if (readFrom != null) {
+                            // 如果指定了读取模式，则设置连接对象的读取模式
+                            c.setReadFrom(readFrom);
+                        }
+                        connections.add(c);
                     }
-                    connection = c;
                     if (enablePubSub) {
                         // 如果启用了广播通道，则获取与单节点的连接对象
                         pubSubConnection = ((RedisClient) client).connectPubSub(new JetCacheCodec(), uriList.get(0));
@@ -144,10 +184,15 @@ public class RedisLettuceAutoConfiguration {
             // 创建一个 RedisLettuceCacheBuilder 构造器
             // 创建外部缓存构建器对象
             ExternalCacheBuilder externalCacheBuilder = RedisLettuceCacheBuilder.createRedisLettuceCacheBuilder()
-                    .connection(connection)
+                    .connection(connections.get(0))
                     .pubSubConnection(pubSubConnection)
                     .redisClient(client)
-                    .asyncResultTimeoutInMillis(asyncResultTimeoutInMillis);
+                    .asyncResultTimeoutInMillis(asyncResultTimeoutInMillis)
+                    .connectionCount(connectionCount)
+                    .decodeExecutor(decodeAsync ? JetCacheExecutor.decodeExecutor() : null)
+                    .clientTracking(clientTracking)
+                    .trackingBcast(trackingBcast)
+                    .trackingMaxKeys(trackingMaxKeys);
 
             // 解析通用配置
             // 解析相关配置至 RedisLettuceCacheBuilder 的 CacheConfig 中
@@ -159,7 +204,7 @@ public class RedisLettuceAutoConfiguration {
             // 开始将 Redis 客户端和安全连接保存至 LettuceConnectionManager 管理器中
             LettuceConnectionManager m = LettuceConnectionManager.defaultManager();
             // 初始化 Lettuce 连接 Redis
-            m.init(client, connection);
+            m.initConnections(client, connections);
             // 初始化 Redis 连接的相关信息保存至 LettuceObjects 中，并将相关信息保存至 AutoConfigureBeans.customContainer
             autoConfigureBeans.getCustomContainer().put(cacheAreaWithPrefix + ".connection", m.connection(client));
             // 将Lettuce连接管理器中的命令对象存入自动配置的自定义容器中
@@ -180,7 +225,8 @@ public class RedisLettuceAutoConfiguration {
          * @param pubsub 是否创建一个订阅连接
          * @return 状态保持连接对象
          */
-        private StatefulConnection<byte[], byte[]> clusterConnection(ConfigTree ct, ReadFrom readFrom, RedisClusterClient client, boolean pubsub) {
+        private StatefulConnection<byte[], byte[]> clusterConnection(ConfigTree ct, ReadFrom readFrom, RedisClusterClient client,
+                                                                     JetCacheCodec codec, boolean pubsub) {
             int enablePeriodicRefresh = ct.getProperty("enablePeriodicRefresh", 60);
             boolean enableAllAdaptiveRefreshTriggers = ct.getProperty("enableAllAdaptiveRefreshTriggers", true);
             ClusterTopologyRefreshOptions.Builder topologyOptionBuilder = ClusterTopologyRefreshOptions.builder();
@@ -197,9 +243,9 @@ public class RedisLettuceAutoConfiguration {
                     .build();
             client.setOptions(options);
             if (pubsub) {
-                return client.connectPubSub(new JetCacheCodec());
+                return client.connectPubSub(codec);
             } else {
-                StatefulRedisClusterConnection<byte[], byte[]> c = client.connect(new JetCacheCodec());
+                StatefulRedisClusterConnection<byte[], byte[]> c = client.connect(codec);
                 if (readFrom != null) {
                     c.setReadFrom(readFrom);
                 }
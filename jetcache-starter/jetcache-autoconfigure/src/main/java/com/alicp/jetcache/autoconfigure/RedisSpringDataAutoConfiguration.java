@@ -88,7 +88,9 @@ public class RedisSpringDataAutoConfiguration {
             }
 
             // 创建一个 ExternalCacheBuilder 实例，并使用 RedisSpringDataCacheBuilder 工具类创建构建器，设置 connectionFactory
-            ExternalCacheBuilder builder = RedisSpringDataCacheBuilder.createBuilder().connectionFactory(factory);
+            ExternalCacheBuilder builder = RedisSpringDataCacheBuilder.createBuilder()
+                    .connectionFactory(factory)
+                    .reactive(ct.getProperty("reactive", false));
 
             // 解析通用配置到构建器中
             parseGeneralConfig(builder, ct);
@@ -2,8 +2,11 @@ package com.alicp.jetcache.autoconfigure;
 
 import com.alicp.jetcache.CacheBuilder;
 import com.alicp.jetcache.CacheConfigException;
+import com.alicp.jetcache.anno.CacheConsts;
 import com.alicp.jetcache.external.ExternalCacheBuilder;
 import com.alicp.jetcache.redisson.RedissonCacheBuilder;
+import com.alicp.jetcache.support.JetCacheExecutor;
+import org.redisson.api.BatchOptions;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
@@ -72,7 +75,19 @@ public class RedissonAutoConfiguration {
                 client = beans.get(redissonClientName);
             }
             // 创建外部缓存构建器并设置RedissonClient
-            final ExternalCacheBuilder<?> builder = RedissonCacheBuilder.createBuilder().redissonClient(client);
+            final String batchExecutionMode = ct.getProperty("batchExecutionMode", BatchOptions.ExecutionMode.IN_MEMORY.name());
+            final BatchOptions.ExecutionMode executionMode;
+            try {
+                executionMode = BatchOptions.ExecutionMode.valueOf(batchExecutionMode.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new CacheConfigException("illegal batchExecutionMode: " + batchExecutionMode);
+            }
+            final ExternalCacheBuilder<?> builder = RedissonCacheBuilder.createBuilder()
+                    .redissonClient(client)
+                    .asyncResultTimeoutInMillis(ct.getProperty("asyncResultTimeoutInMillis", CacheConsts.ASYNC_RESULT_TIMEOUT.toMillis()))
+                    .batchExecutionMode(executionMode)
+                    .skipBatchResult(ct.getProperty("skipBatchResult", false))
+                    .decodeExecutor(ct.getProperty("decodeAsync", false) ? JetCacheExecutor.decodeExecutor() : null);
             // 解析通用配置并添加到构建器中, 重点, 里面有pubsub
             parseGeneralConfig(builder, ct);
             return builder;
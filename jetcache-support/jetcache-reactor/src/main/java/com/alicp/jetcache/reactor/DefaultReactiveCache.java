@@ -0,0 +1,184 @@
+package com.alicp.jetcache.reactor;
+
+import com.alicp.jetcache.AbstractCache;
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.CacheGetResult;
+import com.alicp.jetcache.CacheResult;
+import com.alicp.jetcache.CacheUtil;
+import com.alicp.jetcache.MultiLevelCache;
+import com.alicp.jetcache.ProxyCache;
+import com.alicp.jetcache.embedded.AbstractEmbeddedCache;
+import com.alicp.jetcache.event.CacheLoadEvent;
+import com.alicp.jetcache.external.AbstractExternalCache;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * ReactiveCache backed by the asynchronous results (CacheResult.future()) of the cache.
+ * Embedded caches, RedisLettuceCache, RedissonCache and MultiLevelCache composed by them don't block the
+ * caller thread, so the operations are executed in the subscriber thread. Other caches (for example RedisCache
+ * of jedis) are executed on the scheduler, which is Schedulers.boundedElastic() by default. It's checked for each
+ * operation, a remote cache with key generation is blocking until the generation is loaded.
+ *
+ * @author huangli
+ */
+public class DefaultReactiveCache<K, V> implements ReactiveCache<K, V> {
+
+    private final Cache<K, V> cache;
+    private final Scheduler scheduler;
+
+    // 开启了cachePenetrationProtect时，同一个key正在进行的加载
+    private final ConcurrentHashMap<K, Mono<Optional<V>>> loadingMap = new ConcurrentHashMap<>();
+
+    public DefaultReactiveCache(Cache<K, V> cache) {
+        this(cache, Schedulers.boundedElastic());
+    }
+
+    public DefaultReactiveCache(Cache<K, V> cache, Scheduler scheduler) {
+        this.cache = Objects.requireNonNull(cache);
+        this.scheduler = Objects.requireNonNull(scheduler);
+    }
+
+    static boolean isNonBlocking(Cache<?, ?> c) {
+        while (c instanceof ProxyCache) {
+            c = ((ProxyCache<?, ?>) c).getTargetCache();
+        }
+        if (c instanceof MultiLevelCache) {
+            for (Cache<?, ?> sub : ((MultiLevelCache<?, ?>) c).caches()) {
+                if (!isNonBlocking(sub)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (c instanceof AbstractEmbeddedCache) {
+            return true;
+        }
+        if (c instanceof AbstractExternalCache) {
+            return ((AbstractExternalCache<?, ?>) c).isNonBlocking();
+        }
+        return false;
+    }
+
+    public boolean isNonBlocking() {
+        return isNonBlocking(cache);
+    }
+
+    @Override
+    public Cache<K, V> getCache() {
+        return cache;
+    }
+
+    private <R extends CacheResult> Mono<R> call(Supplier<R> op) {
+        Mono<R> mono = Mono.defer(() -> {
+            R r = op.get();
+            // future完成后再读取结果码和值，这时不会阻塞
+            return Mono.fromCompletionStage(r.future().handle((rd, ex) -> r));
+        });
+        return isNonBlocking() ? mono : mono.subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<V> get(K key) {
+        return call(() -> cache.GET(key)).flatMap(DefaultReactiveCache::valueOf);
+    }
+
+    private static <V> Mono<V> valueOf(CacheGetResult<V> r) {
+        return r.isSuccess() ? Mono.justOrEmpty(r.getValue()) : Mono.empty();
+    }
+
+    @Override
+    public Mono<Map<K, V>> getAll(Set<? extends K> keys) {
+        return call(() -> cache.GET_ALL(keys)).map(r -> {
+            Map<K, V> map = new HashMap<>();
+            if (r.isSuccess() && r.getValues() != null) {
+                for (Map.Entry<K, CacheGetResult<V>> en : r.getValues().entrySet()) {
+                    CacheGetResult<V> v = en.getValue();
+                    if (v.isSuccess() && v.getValue() != null) {
+                        map.put(en.getKey(), v.getValue());
+                    }
+                }
+            }
+            return map;
+        });
+    }
+
+    @Override
+    public Mono<Void> put(K key, V value) {
+        return call(() -> cache.PUT(key, value)).then();
+    }
+
+    @Override
+    public Mono<Void> put(K key, V value, long expireAfterWrite, TimeUnit timeUnit) {
+        return call(() -> cache.PUT(key, value, expireAfterWrite, timeUnit)).then();
+    }
+
+    @Override
+    public Mono<V> computeIfAbsent(K key, Function<K, Mono<V>> loader) {
+        Objects.requireNonNull(loader);
+        return call(() -> cache.GET(key)).flatMap(r -> {
+            if (r.isSuccess()) {
+                return Mono.justOrEmpty(r.getValue());
+            }
+            return load(key, loader).flatMap(Mono::justOrEmpty);
+        });
+    }
+
+    private Mono<Optional<V>> load(K key, Function<K, Mono<V>> loader) {
+        if (!cache.config().isCachePenetrationProtect()) {
+            return loadAndPut(key, loader);
+        }
+        // cache()使加载只执行一次，订阅者取消也不会中断加载，加载结束后从loadingMap中删除
+        return loadingMap.computeIfAbsent(key, k -> loadAndPut(k, loader)
+                .doFinally(s -> loadingMap.remove(k))
+                .cache());
+    }
+
+    private Mono<Optional<V>> loadAndPut(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            long t = System.currentTimeMillis();
+            return Mono.defer(() -> loader.apply(key))
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .doOnNext(v -> notifyLoad(key, System.currentTimeMillis() - t, v.orElse(null), true))
+                    .doOnError(e -> notifyLoad(key, System.currentTimeMillis() - t, null, false))
+                    .flatMap(v -> needUpdate(v.orElse(null), loader) ?
+                            put(key, v.orElse(null)).thenReturn(v) : Mono.just(v));
+        });
+    }
+
+    private boolean needUpdate(V loadedValue, Function<K, Mono<V>> loader) {
+        if (loadedValue == null && !cache.config().isCacheNullValue()) {
+            return false;
+        }
+        return !(loader instanceof ReactiveCacheLoader && ((ReactiveCacheLoader<K, V>) loader).vetoCacheUpdate());
+    }
+
+    private void notifyLoad(K key, long millis, V value, boolean success) {
+        AbstractCache<K, V> c = CacheUtil.getAbstractCache(cache);
+        if (c != null) {
+            c.notify(new CacheLoadEvent(cache, millis, key, value, success));
+        }
+    }
+
+    @Override
+    public Mono<Void> invalidate(K key) {
+        return call(() -> cache.REMOVE(key)).then();
+    }
+
+    @Override
+    public Mono<Void> invalidateAll(Set<? extends K> keys) {
+        return call(() -> cache.REMOVE_ALL(keys)).then();
+    }
+}
@@ -0,0 +1,49 @@
+package com.alicp.jetcache.reactor;
+
+import com.alicp.jetcache.Cache;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Reactive facade of {@link Cache}, the returned Mono is lazy and does nothing until subscribed.
+ * A null value is represented as an empty Mono, so a cached null value and a missing key can't be
+ * distinguished by {@link #get(Object)}.
+ *
+ * @author huangli
+ * @see DefaultReactiveCache
+ */
+public interface ReactiveCache<K, V> {
+
+    static <K, V> ReactiveCache<K, V> of(Cache<K, V> cache) {
+        return new DefaultReactiveCache<>(cache);
+    }
+
+    Cache<K, V> getCache();
+
+    Mono<V> get(K key);
+
+    /**
+     * Get the values of the keys, the keys which not exists are not contained in the result map.
+     */
+    Mono<Map<K, V>> getAll(Set<? extends K> keys);
+
+    Mono<Void> put(K key, V value);
+
+    Mono<Void> put(K key, V value, long expireAfterWrite, TimeUnit timeUnit);
+
+    /**
+     * Get the value of the key, or subscribe the Mono returned by the loader and put the result
+     * into the cache if the key not exists. If the cache is configured with penetration protect, only one load of
+     * the same key is running in this ReactiveCache, others share the result.
+     * The loader can be a {@link ReactiveCacheLoader} to veto the update of the cache.
+     */
+    Mono<V> computeIfAbsent(K key, Function<K, Mono<V>> loader);
+
+    Mono<Void> invalidate(K key);
+
+    Mono<Void> invalidateAll(Set<? extends K> keys);
+}
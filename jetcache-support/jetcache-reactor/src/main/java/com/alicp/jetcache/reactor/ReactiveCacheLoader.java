@@ -0,0 +1,20 @@
+package com.alicp.jetcache.reactor;
+
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * @author huangli
+ */
+@FunctionalInterface
+public interface ReactiveCacheLoader<K, V> extends Function<K, Mono<V>> {
+
+    /**
+     * Called after the Mono returned by {@link #apply(Object)} emits, returns true if the loaded value should not
+     * be put into the cache.
+     */
+    default boolean vetoCacheUpdate() {
+        return false;
+    }
+}
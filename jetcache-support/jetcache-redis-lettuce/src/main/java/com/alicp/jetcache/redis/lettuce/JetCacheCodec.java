@@ -1,7 +1,12 @@
 package com.alicp.jetcache.redis.lettuce;
 
 
+import com.alicp.jetcache.support.AbstractValueDecoder;
+import com.alicp.jetcache.support.CacheEncodeException;
+import com.alicp.jetcache.support.JetCacheExecutor;
 import io.lettuce.core.codec.RedisCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 
@@ -12,6 +17,29 @@ import java.nio.ByteBuffer;
  */
 public class JetCacheCodec implements RedisCodec {
 
+    private static final Logger logger = LoggerFactory.getLogger(JetCacheCodec.class);
+
+    private final AbstractValueDecoder valueDecoder;
+    private final int inlineDecodeLimit;
+
+    public JetCacheCodec() {
+        this(null, 0);
+    }
+
+    /**
+     * Values not larger than inlineDecodeLimit are decoded directly from the network buffer in the IO thread,
+     * the decoded object is returned instead of a byte array. Larger values, values without a known identity
+     * number, and values failed to decode are copied to byte arrays as usual, so the cache decodes them again
+     * and reports the error.
+     * <p>
+     * The connection using this codec should be used only by RedisLettuceCache, and the value decoder of the
+     * caches must use identity number. The spring boot starter enables it by remote.&lt;area&gt;.inlineDecodeLimit.
+     */
+    public JetCacheCodec(AbstractValueDecoder valueDecoder, int inlineDecodeLimit) {
+        this.valueDecoder = valueDecoder;
+        this.inlineDecodeLimit = inlineDecodeLimit;
+    }
+
     @Override
     public ByteBuffer encodeKey(Object key) {
         byte[] bytes = (byte[]) key;
@@ -31,6 +59,14 @@ public class JetCacheCodec implements RedisCodec {
 
     @Override
     public Object decodeValue(ByteBuffer bytes) {
+        // 没有可识别的identity number，说明不是缓存的value，复制成byte数组返回
+        if (valueDecoder != null && bytes.remaining() <= inlineDecodeLimit && valueDecoder.isKnownFormat(bytes)) {
+            try {
+                return valueDecoder.apply(bytes);
+            } catch (CacheEncodeException e) {
+                JetCacheExecutor.loggingExecutor().execute(() -> logger.warn("inline decode failed", e));
+            }
+        }
         return convert(bytes);
     }
 
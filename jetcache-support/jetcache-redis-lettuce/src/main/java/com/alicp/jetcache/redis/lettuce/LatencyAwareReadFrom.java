@@ -0,0 +1,163 @@
+package com.alicp.jetcache.redis.lettuce;
+
+import com.alicp.jetcache.support.ReplicaSelector;
+import com.alicp.jetcache.support.ReplicaStat;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.event.EventBus;
+import io.lettuce.core.event.connection.ReconnectFailedEvent;
+import io.lettuce.core.event.metrics.CommandLatencyEvent;
+import io.lettuce.core.metrics.CommandLatencyId;
+import io.lettuce.core.metrics.CommandMetrics;
+import io.lettuce.core.models.role.RedisNodeDescription;
+import reactor.core.Disposable;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ReadFrom which selects replica by latency and error rate, uses the same strategy as the adaptive slave read
+ * of RedisCache. The latency is fed by {@link CommandLatencyEvent} of the event bus, so command latency metrics
+ * must be enabled in the ClientResources (LatencyUtils in classpath), the emit interval of the latency publisher
+ * decides how fast it adapts. The failures are fed by {@link ReconnectFailedEvent}, because lettuce doesn't tell
+ * which node a failed command is sent to, a replica which can't be reconnected several times is ejected.
+ * Falls back to the upstream if all replicas are ejected.
+ *
+ * @author huangli
+ */
+public class LatencyAwareReadFrom extends ReadFrom {
+
+    private final ReplicaSelector selector = new ReplicaSelector();
+    private final Map<String, String> resolvedNames = new ConcurrentHashMap<>();
+    private final Disposable subscription;
+
+    public LatencyAwareReadFrom() {
+        this.subscription = null;
+    }
+
+    public LatencyAwareReadFrom(EventBus eventBus) {
+        this.subscription = eventBus.get()
+                .filter(e -> e instanceof CommandLatencyEvent || e instanceof ReconnectFailedEvent)
+                .subscribe(e -> {
+                    if (e instanceof CommandLatencyEvent) {
+                        onLatencyEvent((CommandLatencyEvent) e);
+                    } else {
+                        // 连接失败时没有耗时，不更新延迟
+                        recordFailure(((ReconnectFailedEvent) e).remoteAddress());
+                    }
+                });
+    }
+
+    @Override
+    public List<RedisNodeDescription> select(Nodes nodes) {
+        List<RedisNodeDescription> replicas = new ArrayList<>();
+        List<RedisNodeDescription> upstreams = new ArrayList<>();
+        for (RedisNodeDescription node : nodes) {
+            if (node.getRole().isReplica()) {
+                replicas.add(node);
+            } else if (node.getRole().isUpstream()) {
+                upstreams.add(node);
+            }
+        }
+        if (replicas.isEmpty()) {
+            return upstreams;
+        }
+        ReplicaSelector.Replica[] candidates = new ReplicaSelector.Replica[replicas.size()];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = selector.replica(name(replicas.get(i).getUri()));
+        }
+        int index = selector.select(candidates, null);
+        List<RedisNodeDescription> result = new ArrayList<>(nodes.getNodes().size());
+        if (index < 0) {
+            // 从库都被摘除了，先从主库读
+            result.addAll(upstreams);
+            result.addAll(replicas);
+            return result;
+        }
+        result.add(replicas.get(index));
+        for (int i = 0; i < replicas.size(); i++) {
+            if (i != index) {
+                result.add(replicas.get(i));
+            }
+        }
+        result.addAll(upstreams);
+        return result;
+    }
+
+    @Override
+    protected boolean isOrderSensitive() {
+        return true;
+    }
+
+    /**
+     * Record a sample of the node, it can also be used if the latency is measured by the application.
+     */
+    public void record(SocketAddress address, long nanos, boolean success) {
+        String name = name(address);
+        if (name != null) {
+            selector.replica(name).record(nanos, success);
+        }
+    }
+
+    private void recordFailure(SocketAddress address) {
+        String name = name(address);
+        if (name != null) {
+            ReplicaSelector.Replica r = selector.replica(name);
+            r.record(r.latencyNanos(), false);
+        }
+    }
+
+    private void onLatencyEvent(CommandLatencyEvent event) {
+        // 同一个节点的各种命令按次数加权平均
+        Map<SocketAddress, long[]> sums = new HashMap<>();
+        for (Map.Entry<CommandLatencyId, CommandMetrics> en : event.getLatencies().entrySet()) {
+            CommandMetrics m = en.getValue();
+            if (m.getCount() == 0) {
+                continue;
+            }
+            CommandMetrics.CommandLatency latency = m.getCompletion();
+            Long p50 = latency.getPercentiles().get(50.0);
+            long value = p50 != null ? p50 : (latency.getMin() + latency.getMax()) / 2;
+            long[] sum = sums.computeIfAbsent(en.getKey().remoteAddress(), k -> new long[2]);
+            sum[0] += m.getTimeUnit().toNanos(value) * m.getCount();
+            sum[1] += m.getCount();
+        }
+        sums.forEach((address, sum) -> record(address, sum[0] / sum[1], true));
+    }
+
+    private String name(RedisURI uri) {
+        String key = uri.getHost() + ":" + uri.getPort();
+        return resolvedNames.computeIfAbsent(key, k -> {
+            try {
+                return InetAddress.getByName(uri.getHost()).getHostAddress() + ":" + uri.getPort();
+            } catch (Exception e) {
+                return k;
+            }
+        });
+    }
+
+    private static String name(SocketAddress address) {
+        if (!(address instanceof InetSocketAddress)) {
+            return null;
+        }
+        InetSocketAddress isa = (InetSocketAddress) address;
+        String host = isa.getAddress() != null ? isa.getAddress().getHostAddress() : isa.getHostString();
+        return host + ":" + isa.getPort();
+    }
+
+    public List<ReplicaStat> stats() {
+        return selector.stats();
+    }
+
+    public void close() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+}
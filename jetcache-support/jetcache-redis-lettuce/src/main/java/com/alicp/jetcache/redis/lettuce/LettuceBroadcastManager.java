@@ -62,7 +62,7 @@ public class LettuceBroadcastManager extends BroadcastManager {
             RedisFuture<Long> future = stringAsyncCommands.publish(channel, value);
             return new CacheResult(future.handle((rt, ex) -> {
                 if (ex != null) {
-                    JetCacheExecutor.defaultExecutor().execute(() ->
+                    JetCacheExecutor.loggingExecutor().execute(() ->
                             SquashedLogger.getLogger(logger).error("jetcache publish error", ex));
                     return new ResultData(ex);
                 } else {
@@ -0,0 +1,137 @@
+package com.alicp.jetcache.redis.lettuce;
+
+import com.alicp.jetcache.CacheConfigException;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Redis server assisted client side caching (CLIENT TRACKING) of one connection, needs RESP3.
+ * The server pushes invalidate messages to the connection when tracked keys are modified by any client.
+ *
+ * @author huangli
+ */
+public class LettuceClientTracking implements PushListener, RedisConnectionStateListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LettuceClientTracking.class);
+
+    public interface Listener {
+        /**
+         * Called in the IO thread of lettuce.
+         *
+         * @param keys the redis keys, null means all keys tracked by the connection are invalid,
+         *             for example the connection is reconnected or the server flushed the db
+         */
+        void invalidate(List<byte[]> keys);
+    }
+
+    private final StatefulRedisConnection<byte[], byte[]> connection;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // 同一个连接上只能使用一种模式，BCAST模式下每个cache注册自己的keyPrefix
+    private Boolean bcast;
+    private final List<String> prefixes = new ArrayList<>();
+
+    LettuceClientTracking(StatefulRedisConnection<byte[], byte[]> connection) {
+        this.connection = connection;
+        connection.addListener((PushListener) this);
+        connection.addListener((RedisConnectionStateListener) this);
+    }
+
+    public synchronized void register(Listener listener, boolean bcast, String prefix) {
+        if (this.bcast != null && this.bcast != bcast) {
+            throw new CacheConfigException("can't mix BCAST and default tracking mode on the same connection");
+        }
+        try {
+            if (bcast) {
+                for (String p : prefixes) {
+                    if (p.startsWith(prefix) || prefix.startsWith(p)) {
+                        throw new CacheConfigException("tracking prefix '" + prefix + "' overlaps with '" + p + "'");
+                    }
+                }
+                connection.sync().clientTracking(TrackingArgs.Builder.enabled().bcast().noloop().prefixes(prefix));
+                prefixes.add(prefix);
+            } else if (this.bcast == null) {
+                connection.sync().clientTracking(TrackingArgs.Builder.enabled().noloop());
+            }
+        } catch (RedisException e) {
+            // RESP2的连接不能接收推送消息
+            throw new CacheConfigException("enable client tracking failed", e);
+        }
+        this.bcast = bcast;
+        listeners.add(listener);
+    }
+
+    public void unregister(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void onPushMessage(PushMessage message) {
+        if (!"invalidate".equals(message.getType())) {
+            return;
+        }
+        List<Object> content = message.getContent();
+        Object keys = content.size() > 1 ? content.get(1) : null;
+        List<byte[]> list = null;
+        if (keys instanceof List) {
+            list = new ArrayList<>();
+            for (Object k : (List) keys) {
+                if (k instanceof ByteBuffer) {
+                    ByteBuffer bb = (ByteBuffer) k;
+                    byte[] bs = new byte[bb.remaining()];
+                    bb.get(bs);
+                    list.add(bs);
+                } else if (k instanceof byte[]) {
+                    list.add((byte[]) k);
+                } else if (k != null) {
+                    list.add(k.toString().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        fire(list);
+    }
+
+    private void fire(List<byte[]> keys) {
+        for (Listener l : listeners) {
+            try {
+                l.invalidate(keys);
+            } catch (Exception e) {
+                logger.error("tracking invalidate error", e);
+            }
+        }
+    }
+
+    @Override
+    public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress socketAddress) {
+        if (handler != connection) {
+            return;
+        }
+        // 重连后服务端的tracking状态已经丢失，重新开启，并且断开期间的修改无法得知，本地缓存全部失效
+        synchronized (this) {
+            if (bcast == null) {
+                return;
+            }
+            if (bcast) {
+                connection.async().clientTracking(TrackingArgs.Builder.enabled().bcast().noloop()
+                        .prefixes(prefixes.toArray(new String[0])));
+            } else {
+                connection.async().clientTracking(TrackingArgs.Builder.enabled().noloop());
+            }
+        }
+        fire(null);
+    }
+}
@@ -8,10 +8,13 @@ import io.lettuce.core.api.StatefulConnection;
 import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.cluster.RedisClusterClient;
 import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created on 2017/4/28.
@@ -25,6 +28,10 @@ public class LettuceConnectionManager {
         private Object commands;
         private Object asyncCommands;
         private Object reactiveCommands;
+        // 分片连接，下标0的连接就是connection
+        private final Map<Integer, StatefulConnection> shardConnections = new ConcurrentHashMap<>();
+        private final Map<Integer, Object> shardAsyncCommands = new ConcurrentHashMap<>();
+        private final Map<StatefulConnection, LettuceClientTracking> trackings = new ConcurrentHashMap<>();
     }
 
     private static final LettuceConnectionManager defaultManager = new LettuceConnectionManager();
@@ -54,18 +61,95 @@ public class LettuceConnectionManager {
         });
     }
 
+    /**
+     * Init with several connections, the first one is the primary connection, the others are used as shards.
+     */
+    public void initConnections(AbstractRedisClient redisClient, List<StatefulConnection> connections) {
+        map.computeIfAbsent(redisClient, key -> {
+            LettuceObjects lo = new LettuceObjects();
+            lo.connection = connections.get(0);
+            for (int i = 1; i < connections.size(); i++) {
+                lo.shardConnections.put(i, connections.get(i));
+            }
+            return lo;
+        });
+    }
+
     public StatefulConnection connection(AbstractRedisClient redisClient) {
         LettuceObjects lo = getLettuceObjectsFromMap(redisClient);
         if (lo.connection == null) {
-            if (redisClient instanceof RedisClient) {
-                lo.connection = ((RedisClient) redisClient).connect(new JetCacheCodec());
-            } else if (redisClient instanceof RedisClusterClient) {
-                lo.connection = ((RedisClusterClient) redisClient).connect(new JetCacheCodec());
+            lo.connection = connect(redisClient);
+        }
+        return lo.connection;
+    }
+
+    private StatefulConnection connect(AbstractRedisClient redisClient) {
+        if (redisClient instanceof RedisClient) {
+            return ((RedisClient) redisClient).connect(new JetCacheCodec());
+        } else if (redisClient instanceof RedisClusterClient) {
+            return ((RedisClusterClient) redisClient).connect(new JetCacheCodec());
+        } else {
+            throw new CacheConfigException("type " + redisClient.getClass() + " is not supported");
+        }
+    }
+
+    /**
+     * Get the shard connection of the index, index 0 is the primary connection. Connections which are not
+     * provided by initConnections are created from the client on demand, with the same read preference
+     * as the primary connection. A master/replica primary connection can't be copied, its shard connections
+     * must be provided by initConnections.
+     */
+    public StatefulConnection connection(AbstractRedisClient redisClient, int index) {
+        if (index == 0) {
+            return connection(redisClient);
+        }
+        StatefulConnection primary = connection(redisClient);
+        LettuceObjects lo = getLettuceObjectsFromMap(redisClient);
+        return lo.shardConnections.computeIfAbsent(index, k -> connectShard(redisClient, primary));
+    }
+
+    private StatefulConnection connectShard(AbstractRedisClient redisClient, StatefulConnection primary) {
+        if (primary instanceof StatefulRedisMasterReplicaConnection) {
+            // 不知道MasterReplica连接的节点地址，直接连接会丢失读写分离
+            throw new CacheConfigException("shard connections of a master/replica connection must be provided "
+                    + "by LettuceConnectionManager.initConnections");
+        }
+        StatefulConnection connection = connect(redisClient);
+        if (primary instanceof StatefulRedisClusterConnection) {
+            ((StatefulRedisClusterConnection) connection).setReadFrom(
+                    ((StatefulRedisClusterConnection) primary).getReadFrom());
+        }
+        return connection;
+    }
+
+    public Object asyncCommands(AbstractRedisClient redisClient, int index) {
+        if (index == 0) {
+            return asyncCommands(redisClient);
+        }
+        StatefulConnection connection = connection(redisClient, index);
+        LettuceObjects lo = getLettuceObjectsFromMap(redisClient);
+        return lo.shardAsyncCommands.computeIfAbsent(index, k -> {
+            if (connection instanceof StatefulRedisConnection) {
+                return ((StatefulRedisConnection) connection).async();
+            } else if (connection instanceof StatefulRedisClusterConnection) {
+                return ((StatefulRedisClusterConnection) connection).async();
             } else {
-                throw new CacheConfigException("type " + redisClient.getClass() + " is not supported");
+                throw new CacheConfigException("type " + connection.getClass() + " is not supported");
             }
+        });
+    }
+
+    /**
+     * Get the client tracking of the connection, the connection must be a RESP3 StatefulRedisConnection.
+     */
+    public LettuceClientTracking clientTracking(AbstractRedisClient redisClient, StatefulConnection connection) {
+        if (!(connection instanceof StatefulRedisConnection) || connection instanceof StatefulRedisMasterReplicaConnection) {
+            throw new CacheConfigException("client tracking only supports standalone redis, connection type is "
+                    + connection.getClass());
         }
-        return lo.connection;
+        LettuceObjects lo = getLettuceObjectsFromMap(redisClient);
+        return lo.trackings.computeIfAbsent(connection,
+                k -> new LettuceClientTracking((StatefulRedisConnection<byte[], byte[]>) connection));
     }
 
     public Object commands(AbstractRedisClient redisClient) {
@@ -133,6 +217,7 @@ public class LettuceConnectionManager {
         if (lo.connection != null) {
             lo.connection.close();
         }
+        lo.shardConnections.values().forEach(StatefulConnection::close);
         redisClient.shutdown();
     }
 }
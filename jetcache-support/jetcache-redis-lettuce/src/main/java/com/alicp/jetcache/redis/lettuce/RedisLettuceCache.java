@@ -9,29 +9,57 @@ import com.alicp.jetcache.CacheValueHolder;
 import com.alicp.jetcache.MultiGetResult;
 import com.alicp.jetcache.ResultData;
 import com.alicp.jetcache.external.AbstractExternalCache;
+import com.alicp.jetcache.external.KeyScanner;
+import com.alicp.jetcache.external.LockCommands;
 import com.alicp.jetcache.support.JetCacheExecutor;
+import com.alicp.jetcache.support.ReplicaStat;
 import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.KeyScanCursor;
 import io.lettuce.core.KeyValue;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScriptOutputType;
 import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulConnection;
 import io.lettuce.core.api.async.RedisKeyAsyncCommands;
 import io.lettuce.core.api.async.RedisStringAsyncCommands;
+import io.lettuce.core.api.sync.RedisKeyCommands;
+import io.lettuce.core.api.sync.RedisScriptingCommands;
 import io.lettuce.core.api.sync.RedisStringCommands;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
 import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
 import io.lettuce.core.cluster.api.reactive.RedisClusterReactiveCommands;
 import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * Created on 2017/4/28.
@@ -52,7 +80,16 @@ public class RedisLettuceCache<K, V> extends AbstractExternalCache<K, V> {
     private final LettuceConnectionManager lettuceConnectionManager;
     private final RedisStringCommands<byte[], byte[]> stringCommands;
     private final RedisStringAsyncCommands<byte[], byte[]> stringAsyncCommands;
-    private final RedisKeyAsyncCommands<byte[], byte[]> keyAsyncCommands;
+
+    // 分片连接，按key的hash选择，同一个key的命令总是在同一个连接上按顺序执行
+    private final RedisStringAsyncCommands<byte[], byte[]>[] shardCommands;
+
+    // client tracking时记录redis key对应的原始key，收到服务端的失效消息后据此通知MultiLevelCache失效本地缓存
+    // 按访问顺序排列，超过trackingMaxKeys时淘汰最久没有访问的key，访问需要持有trackLock
+    private final LinkedHashMap<ByteBuffer, K> trackedKeys;
+    private final ReentrantLock trackLock = new ReentrantLock();
+    private final LettuceClientTracking[] trackings;
+    private final LettuceClientTracking.Listener trackingListener = this::invalidateTrackedKeys;
 
     public RedisLettuceCache(RedisLettuceCacheConfig<K, V> config) {
         super(config);
@@ -65,6 +102,9 @@ public class RedisLettuceCache<K, V> extends AbstractExternalCache<K, V> {
         if (config.isExpireAfterAccess()) {
             throw new CacheConfigException("expireAfterAccess is not supported");
         }
+        if (config.getConnectionCount() < 1) {
+            throw new CacheConfigException("connectionCount must be positive: " + config.getConnectionCount());
+        }
 
         client = config.getRedisClient();
 
@@ -72,7 +112,181 @@ public class RedisLettuceCache<K, V> extends AbstractExternalCache<K, V> {
         lettuceConnectionManager.init(client, config.getConnection());
         stringCommands = (RedisStringCommands<byte[], byte[]>) lettuceConnectionManager.commands(client);
         stringAsyncCommands = (RedisStringAsyncCommands<byte[], byte[]>) lettuceConnectionManager.asyncCommands(client);
-        keyAsyncCommands = (RedisKeyAsyncCommands<byte[], byte[]>) stringAsyncCommands;
+
+        int count = config.getConnectionCount();
+        shardCommands = new RedisStringAsyncCommands[count];
+        for (int i = 0; i < count; i++) {
+            shardCommands[i] = (RedisStringAsyncCommands<byte[], byte[]>) lettuceConnectionManager.asyncCommands(client, i);
+        }
+
+        if (config.isClientTracking()) {
+            if (config.getTrackingMaxKeys() < 1) {
+                throw new CacheConfigException("trackingMaxKeys must be positive: " + config.getTrackingMaxKeys());
+            }
+            trackedKeys = new LinkedHashMap<>(16, 0.75f, true);
+            trackings = new LettuceClientTracking[count];
+            for (int i = 0; i < count; i++) {
+                trackings[i] = lettuceConnectionManager.clientTracking(client, lettuceConnectionManager.connection(client, i));
+                trackings[i].register(trackingListener, config.isTrackingBcast(), config.getKeyPrefix());
+            }
+        } else {
+            trackedKeys = null;
+            trackings = null;
+        }
+    }
+
+    /**
+     * Remember the key before sending the command, so the invalidate message can be mapped back to the key.
+     */
+    private void track(byte[] newKey, K key) {
+        if (trackedKeys == null) {
+            return;
+        }
+        K evicted = null;
+        trackLock.lock();
+        try {
+            trackedKeys.put(ByteBuffer.wrap(newKey), key);
+            if (trackedKeys.size() > config.getTrackingMaxKeys()) {
+                Iterator<K> it = trackedKeys.values().iterator();
+                evicted = it.next();
+                it.remove();
+            }
+        } finally {
+            trackLock.unlock();
+        }
+        if (evicted != null) {
+            // 淘汰的key收到失效消息时无法找到原始key，直接失效它的本地缓存
+            fireInvalidation(Collections.singleton(evicted));
+        }
+    }
+
+    /**
+     * In default tracking mode the server only tracks keys read by the connection, so read the key after writing it.
+     */
+    private boolean trackAfterWrite() {
+        return trackedKeys != null && !config.isTrackingBcast();
+    }
+
+    private void invalidateTrackedKeys(List<byte[]> keys) {
+        Set<K> invalidKeys = new HashSet<>();
+        trackLock.lock();
+        try {
+            if (keys == null) {
+                invalidKeys.addAll(trackedKeys.values());
+                trackedKeys.clear();
+            } else {
+                for (byte[] k : keys) {
+                    K key = trackedKeys.remove(ByteBuffer.wrap(k));
+                    if (key != null) {
+                        invalidKeys.add(key);
+                    }
+                }
+            }
+        } finally {
+            trackLock.unlock();
+        }
+        if (!invalidKeys.isEmpty()) {
+            fireInvalidation(invalidKeys);
+        }
+    }
+
+    int shardIndex(byte[] key) {
+        if (shardCommands.length == 1) {
+            return 0;
+        }
+        return (Arrays.hashCode(key) & Integer.MAX_VALUE) % shardCommands.length;
+    }
+
+    private RedisStringAsyncCommands<byte[], byte[]> asyncCommands(byte[] key) {
+        return shardCommands[shardIndex(key)];
+    }
+
+    /**
+     * Group keys by shard.
+     *
+     * @return index arrays of the keys, one array per shard, null if no key belongs to the shard
+     */
+    private int[][] groupByShard(byte[][] keys) {
+        int[][] groups = new int[shardCommands.length][];
+        if (shardCommands.length == 1) {
+            groups[0] = IntStream.range(0, keys.length).toArray();
+            return groups;
+        }
+        List<Integer>[] lists = new List[shardCommands.length];
+        for (int i = 0; i < keys.length; i++) {
+            int shard = shardIndex(keys[i]);
+            if (lists[shard] == null) {
+                lists[shard] = new ArrayList<>();
+            }
+            lists[shard].add(i);
+        }
+        for (int i = 0; i < lists.length; i++) {
+            if (lists[i] != null) {
+                groups[i] = lists[i].stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+        return groups;
+    }
+
+    private static byte[][] subKeys(byte[][] keys, int[] indexes) {
+        byte[][] sub = new byte[indexes.length][];
+        for (int i = 0; i < indexes.length; i++) {
+            sub[i] = keys[indexes[i]];
+        }
+        return sub;
+    }
+
+    /**
+     * The value may have been decoded by JetCacheCodec in the IO thread.
+     */
+    private CacheValueHolder<V> decodeHolder(Object value) {
+        if (value instanceof byte[]) {
+            return (CacheValueHolder<V>) valueDecoder.apply((byte[]) value);
+        }
+        return (CacheValueHolder<V>) value;
+    }
+
+    /**
+     * Run the callback which decodes values in the decode executor if it is configured, otherwise in the IO thread.
+     */
+    private <T> CompletionStage<ResultData> decode(RedisFuture<T> future, BiFunction<T, Throwable, ResultData> fn) {
+        Executor executor = config.getDecodeExecutor();
+        return executor == null ? future.handle(fn) : future.handleAsync(fn, executor);
+    }
+
+    /**
+     * Merge the results of the shards. The merged result is PART_SUCCESS if some of the shards failed.
+     */
+    private static CompletionStage<ResultData> mergeResults(List<CompletionStage<ResultData>> stages) {
+        if (stages.size() == 1) {
+            return stages.get(0);
+        }
+        CompletableFuture<ResultData>[] futures = stages.stream()
+                .map(CompletionStage::toCompletableFuture).toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures).thenApply(v -> {
+            Map<Object, Object> values = null;
+            ResultData fail = null;
+            int failCount = 0;
+            for (CompletableFuture<ResultData> f : futures) {
+                ResultData rd = f.join();
+                if (rd.getResultCode() != CacheResultCode.SUCCESS) {
+                    fail = rd;
+                    failCount++;
+                } else if (rd.getOriginData() instanceof Map) {
+                    if (values == null) {
+                        values = new HashMap<>();
+                    }
+                    values.putAll((Map) rd.getOriginData());
+                }
+            }
+            if (fail == null) {
+                return new ResultData(CacheResultCode.SUCCESS, null, values);
+            } else if (failCount == futures.length) {
+                return fail;
+            } else {
+                return new ResultData(CacheResultCode.PART_SUCCESS, fail.getMessage(), values);
+            }
+        });
     }
 
     @Override
@@ -98,6 +312,132 @@ public class RedisLettuceCache<K, V> extends AbstractExternalCache<K, V> {
         return config;
     }
 
+    @Override
+    public boolean isNonBlocking() {
+        // generation加载之前构建key会同步访问远程缓存
+        return isKeyGenerationLoaded();
+    }
+
+    /**
+     * The scan of the cluster connection iterates all upstream nodes, and unlink of keys in different slots is
+     * split by lettuce.
+     */
+    @Override
+    protected KeyScanner keyScanner() {
+        RedisKeyCommands<byte[], byte[]> keyCommands = (RedisKeyCommands<byte[], byte[]>) stringCommands;
+        return new KeyScanner() {
+            @Override
+            public ScanCursor scan(byte[] pattern, int count) {
+                ScanArgs args = ScanArgs.Builder.matches(pattern).limit(count);
+                KeyScanCursor<byte[]>[] cursor = new KeyScanCursor[1];
+                return () -> {
+                    if (cursor[0] == null) {
+                        cursor[0] = keyCommands.scan(args);
+                    } else if (cursor[0].isFinished()) {
+                        return null;
+                    } else {
+                        // 集群模式下lettuce的cursor记录了当前的节点，逐个扫描所有主节点
+                        cursor[0] = keyCommands.scan(cursor[0], args);
+                    }
+                    return cursor[0].getKeys();
+                };
+            }
+
+            @Override
+            public void unlink(List<byte[]> keys) {
+                keyCommands.unlink(keys.toArray(new byte[0][]));
+            }
+        };
+    }
+
+    @Override
+    protected LockCommands lockCommands() {
+        RedisScriptingCommands<byte[], byte[]> scriptingCommands = (RedisScriptingCommands<byte[], byte[]>) stringCommands;
+        return new LockCommands() {
+            @Override
+            public boolean setIfAbsent(byte[] key, byte[] owner, long ttlMillis) {
+                return "OK".equals(stringCommands.set(key, owner, SetArgs.Builder.nx().px(ttlMillis)));
+            }
+
+            @Override
+            public boolean compareAndDelete(byte[] key, byte[] owner, byte[] channel) {
+                Long rt = scriptingCommands.eval(UNLOCK_SCRIPT, ScriptOutputType.INTEGER, new byte[][]{key},
+                        owner, channel);
+                return rt != null && rt > 0;
+            }
+
+            @Override
+            public boolean compareAndExpire(byte[] key, byte[] owner, long ttlMillis) {
+                Long rt = scriptingCommands.eval(RENEW_SCRIPT, ScriptOutputType.INTEGER, new byte[][]{key},
+                        owner, String.valueOf(ttlMillis).getBytes());
+                return rt != null && rt > 0;
+            }
+
+            @Override
+            public long increment(byte[] key) {
+                return stringCommands.incr(key);
+            }
+
+            @Override
+            public long generation(byte[] key, long min, long ttlMillis, boolean increase) {
+                Long rt = scriptingCommands.eval(GENERATION_SCRIPT, ScriptOutputType.INTEGER, new byte[][]{key},
+                        String.valueOf(min).getBytes(), String.valueOf(ttlMillis).getBytes(),
+                        (increase ? "1" : "0").getBytes());
+                return rt == null ? 0 : rt;
+            }
+
+            /**
+             * Use a dedicated pub/sub connection, lettuce resubscribes the channel after reconnect.
+             */
+            @Override
+            public AutoCloseable subscribe(byte[] channel, Consumer<byte[]> listener) {
+                StatefulRedisPubSubConnection<byte[], byte[]> con;
+                if (client instanceof RedisClusterClient) {
+                    con = ((RedisClusterClient) client).connectPubSub(ByteArrayCodec.INSTANCE);
+                } else if (client instanceof RedisClient) {
+                    con = ((RedisClient) client).connectPubSub(ByteArrayCodec.INSTANCE);
+                } else {
+                    return null;
+                }
+                try {
+                    con.addListener(new RedisPubSubAdapter<byte[], byte[]>() {
+                        @Override
+                        public void message(byte[] c, byte[] message) {
+                            listener.accept(message);
+                        }
+                    });
+                    con.sync().subscribe(channel);
+                    return con::close;
+                } catch (RuntimeException e) {
+                    con.close();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    @Override
+    public List<ReplicaStat> getReplicaStats() {
+        StatefulConnection<byte[], byte[]> c = lettuceConnectionManager.connection(client, 0);
+        ReadFrom readFrom = null;
+        if (c instanceof StatefulRedisMasterReplicaConnection) {
+            readFrom = ((StatefulRedisMasterReplicaConnection<byte[], byte[]>) c).getReadFrom();
+        } else if (c instanceof StatefulRedisClusterConnection) {
+            readFrom = ((StatefulRedisClusterConnection<byte[], byte[]>) c).getReadFrom();
+        }
+        return readFrom instanceof LatencyAwareReadFrom ? ((LatencyAwareReadFrom) readFrom).stats() : null;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (trackings != null) {
+            for (LettuceClientTracking t : trackings) {
+                t.unregister(trackingListener);
+            }
+        }
+    }
+
     private void setTimeout(CacheResult cr) {
         Duration d = Duration.ofMillis(config.getAsyncResultTimeoutInMillis());
         cr.setTimeout(d);
@@ -108,10 +448,14 @@ public class RedisLettuceCache<K, V> extends AbstractExternalCache<K, V> {
         try {
             CacheValueHolder<V> holder = new CacheValueHolder(value, timeUnit.toMillis(expireAfterWrite));
             byte[] newKey = buildKey(key);
-            RedisFuture<String> future = stringAsyncCommands.psetex(newKey, timeUnit.toMillis(expireAfterWrite), valueEncoder.apply(holder));
+            track(newKey, key);
+            RedisFuture<String> future = asyncCommands(newKey).psetex(newKey, timeUnit.toMillis(expireAfterWrite), valueEncoder.apply(holder));
+            if (trackAfterWrite()) {
+                ((RedisKeyAsyncCommands<byte[], byte[]>) asyncCommands(newKey)).exists(newKey);
+            }
             CacheResult result = new CacheResult(future.handle((rt, ex) -> {
                 if (ex != null) {
-                    JetCacheExecutor.defaultExecutor().execute(() -> logError("PUT", key, ex));
+                    JetCacheExecutor.loggingExecutor().execute(() -> logError("PUT", key, ex));
                     return new ResultData(ex);
                 } else {
                     if ("OK".equals(rt)) {
@@ -132,17 +476,31 @@ public class RedisLettuceCache<K, V> extends AbstractExternalCache<K, V> {
     @Override
     protected CacheResult do_PUT_ALL(Map<? extends K, ? extends V> map, long expireAfterWrite, TimeUnit timeUnit) {
         try {
-            CompletionStage<Integer> future = CompletableFuture.completedFuture(0);
+            long millis = timeUnit.toMillis(expireAfterWrite);
+            // 异步命令连续写出，不等待前一个命令的响应；每个key的命令发到它所在分片的连接上，与单key的命令顺序一致
+            CompletableFuture<String>[] futures = new CompletableFuture[map.size()];
+            int index = 0;
             for (Map.Entry<? extends K, ? extends V> en : map.entrySet()) {
-                CacheValueHolder<V> holder = new CacheValueHolder(en.getValue(), timeUnit.toMillis(expireAfterWrite));
-                RedisFuture<String> resp = stringAsyncCommands.psetex(buildKey(en.getKey()), timeUnit.toMillis(expireAfterWrite), valueEncoder.apply(holder));
-                future = future.thenCombine(resp, (failCount, respStr) -> "OK".equals(respStr) ? failCount : failCount + 1);
+                CacheValueHolder<V> holder = new CacheValueHolder(en.getValue(), millis);
+                byte[] newKey = buildKey(en.getKey());
+                track(newKey, en.getKey());
+                RedisFuture<String> resp = asyncCommands(newKey).psetex(newKey, millis, valueEncoder.apply(holder));
+                futures[index++] = resp.toCompletableFuture();
+                if (trackAfterWrite()) {
+                    ((RedisKeyAsyncCommands<byte[], byte[]>) asyncCommands(newKey)).exists(newKey);
+                }
             }
-            CacheResult result = new CacheResult(future.handle((failCount, ex) -> {
+            CacheResult result = new CacheResult(CompletableFuture.allOf(futures).handle((v, ex) -> {
                 if (ex != null) {
-                    JetCacheExecutor.defaultExecutor().execute(() -> logError("PUT_ALL", "map(" + map.size() + ")", ex));
+                    JetCacheExecutor.loggingExecutor().execute(() -> logError("PUT_ALL", "map(" + map.size() + ")", ex));
                     return new ResultData(ex);
                 } else {
+                    int failCount = 0;
+                    for (CompletableFuture<String> f : futures) {
+                        if (!"OK".equals(f.join())) {
+                            failCount++;
+                        }
+                    }
                     if (failCount == 0) {
                         return new ResultData(CacheResultCode.SUCCESS, null, null);
                     } else if (failCount == map.size()) {
@@ -164,15 +522,16 @@ public class RedisLettuceCache<K, V> extends AbstractExternalCache<K, V> {
     protected CacheGetResult<V> do_GET(K key) {
         try {
             byte[] newKey = buildKey(key);
-            RedisFuture<byte[]> future = stringAsyncCommands.get(newKey);
-            CacheGetResult<V> result = new CacheGetResult<>(future.handle((valueBytes, ex) -> {
+            track(newKey, key);
+            RedisFuture<Object> future = (RedisFuture) asyncCommands(newKey).get(newKey);
+            CacheGetResult<V> result = new CacheGetResult<>(decode(future, (value, ex) -> {
                 if (ex != null) {
-                    JetCacheExecutor.defaultExecutor().execute(() -> logError("GET", key, ex));
+                    JetCacheExecutor.loggingExecutor().execute(() -> logError("GET", key, ex));
                     return new ResultData(ex);
                 } else {
                     try {
-                        if (valueBytes != null) {
-                            CacheValueHolder<V> holder = (CacheValueHolder<V>) valueDecoder.apply(valueBytes);
+                        if (value != null) {
+                            CacheValueHolder<V> holder = decodeHolder(value);
                             if (System.currentTimeMillis() >= holder.getExpireTime()) {
                                 return new ResultData(CacheResultCode.EXPIRED, null, null);
                             } else {
@@ -200,40 +559,52 @@ public class RedisLettuceCache<K, V> extends AbstractExternalCache<K, V> {
         try {
             ArrayList<K> keyList = new ArrayList<K>(keys);
             byte[][] newKeys = keyList.stream().map((k) -> buildKey(k)).toArray(byte[][]::new);
+            for (int i = 0; i < newKeys.length; i++) {
+                track(newKeys[i], keyList.get(i));
+            }
 
-            Map<K, CacheGetResult<V>> resultMap = new HashMap<>();
             if (newKeys.length == 0) {
-                return new MultiGetResult<K, V>(CacheResultCode.SUCCESS, null, resultMap);
+                return new MultiGetResult<K, V>(CacheResultCode.SUCCESS, null, new HashMap<>());
             }
-            RedisFuture<List<KeyValue<byte[],byte[]>>> mgetResults = stringAsyncCommands.mget(newKeys);
-            MultiGetResult<K, V> result = new MultiGetResult<>(mgetResults.handle((list, ex) -> {
-                if (ex != null) {
-                    JetCacheExecutor.defaultExecutor().execute(() -> logError("GET_ALL", "keys(" + keys.size() + ")", ex));
-                    return new ResultData(ex);
-                } else {
-                    try {
-                        for (int i = 0; i < list.size(); i++) {
-                            KeyValue kv = list.get(i);
-                            K key = keyList.get(i);
-                            if (kv != null && kv.hasValue()) {
-                                CacheValueHolder<V> holder = (CacheValueHolder<V>) valueDecoder.apply((byte[]) kv.getValue());
-                                if (System.currentTimeMillis() >= holder.getExpireTime()) {
-                                    resultMap.put(key, CacheGetResult.EXPIRED_WITHOUT_MSG);
+            int[][] groups = groupByShard(newKeys);
+            List<CompletionStage<ResultData>> stages = new ArrayList<>();
+            for (int shard = 0; shard < groups.length; shard++) {
+                int[] group = groups[shard];
+                if (group == null) {
+                    continue;
+                }
+                RedisFuture<List<KeyValue<byte[], byte[]>>> mgetResults = shardCommands[shard].mget(subKeys(newKeys, group));
+                stages.add(decode(mgetResults, (list, ex) -> {
+                    if (ex != null) {
+                        JetCacheExecutor.loggingExecutor().execute(() -> logError("GET_ALL", "keys(" + keys.size() + ")", ex));
+                        return new ResultData(ex);
+                    } else {
+                        try {
+                            Map<K, CacheGetResult<V>> resultMap = new HashMap<>();
+                            for (int i = 0; i < list.size(); i++) {
+                                KeyValue kv = list.get(i);
+                                K key = keyList.get(group[i]);
+                                if (kv != null && kv.hasValue()) {
+                                    CacheValueHolder<V> holder = decodeHolder(kv.getValue());
+                                    if (System.currentTimeMillis() >= holder.getExpireTime()) {
+                                        resultMap.put(key, CacheGetResult.EXPIRED_WITHOUT_MSG);
+                                    } else {
+                                        CacheGetResult<V> r = new CacheGetResult<V>(CacheResultCode.SUCCESS, null, holder);
+                                        resultMap.put(key, r);
+                                    }
                                 } else {
-                                    CacheGetResult<V> r = new CacheGetResult<V>(CacheResultCode.SUCCESS, null, holder);
-                                    resultMap.put(key, r);
+                                    resultMap.put(key, CacheGetResult.NOT_EXISTS_WITHOUT_MSG);
                                 }
-                            } else {
-                                resultMap.put(key, CacheGetResult.NOT_EXISTS_WITHOUT_MSG);
                             }
+                            return new ResultData(CacheResultCode.SUCCESS, null, resultMap);
+                        } catch (Exception exception) {
+                            logError("GET_ALL", "keys(" + keys.size() + ")", exception);
+                            return new ResultData(exception);
                         }
-                        return new ResultData(CacheResultCode.SUCCESS, null, resultMap);
-                    } catch (Exception exception) {
-                        logError("GET_ALL", "keys(" + keys.size() + ")", exception);
-                        return new ResultData(exception);
                     }
-                }
-            }));
+                }));
+            }
+            MultiGetResult<K, V> result = new MultiGetResult<>(mergeResults(stages));
             setTimeout(result);
             return result;
         } catch (Exception ex) {
@@ -245,10 +616,11 @@ public class RedisLettuceCache<K, V> extends AbstractExternalCache<K, V> {
     @Override
     protected CacheResult do_REMOVE(K key) {
         try {
-            RedisFuture<Long> future = keyAsyncCommands.del(buildKey(key));
+            byte[] newKey = buildKey(key);
+            RedisFuture<Long> future = ((RedisKeyAsyncCommands<byte[], byte[]>) asyncCommands(newKey)).del(newKey);
             CacheResult result = new CacheResult(future.handle((rt, ex) -> {
                 if (ex != null) {
-                    JetCacheExecutor.defaultExecutor().execute(() -> logError("REMOVE", key, ex));
+                    JetCacheExecutor.loggingExecutor().execute(() -> logError("REMOVE", key, ex));
                     return new ResultData(ex);
                 } else {
                     if (rt == null) {
@@ -274,15 +646,23 @@ public class RedisLettuceCache<K, V> extends AbstractExternalCache<K, V> {
     protected CacheResult do_REMOVE_ALL(Set<? extends K> keys) {
         try {
             byte[][] newKeys = keys.stream().map((k) -> buildKey(k)).toArray((len) -> new byte[keys.size()][]);
-            RedisFuture<Long> future = keyAsyncCommands.del(newKeys);
-            CacheResult result = new CacheResult(future.handle((v, ex) -> {
-                if (ex != null) {
-                    JetCacheExecutor.defaultExecutor().execute(() -> logError("REMOVE_ALL", "keys(" + keys.size() + ")", ex));
-                    return new ResultData(ex);
-                } else {
-                    return new ResultData(CacheResultCode.SUCCESS, null, null);
+            int[][] groups = groupByShard(newKeys);
+            List<CompletionStage<ResultData>> stages = new ArrayList<>();
+            for (int shard = 0; shard < groups.length; shard++) {
+                if (groups[shard] == null) {
+                    continue;
                 }
-            }));
+                RedisFuture<Long> future = ((RedisKeyAsyncCommands<byte[], byte[]>) shardCommands[shard]).del(subKeys(newKeys, groups[shard]));
+                stages.add(future.handle((v, ex) -> {
+                    if (ex != null) {
+                        JetCacheExecutor.loggingExecutor().execute(() -> logError("REMOVE_ALL", "keys(" + keys.size() + ")", ex));
+                        return new ResultData(ex);
+                    } else {
+                        return new ResultData(CacheResultCode.SUCCESS, null, null);
+                    }
+                }));
+            }
+            CacheResult result = new CacheResult(mergeResults(stages));
             setTimeout(result);
             return result;
         } catch (Exception ex) {
@@ -296,10 +676,14 @@ public class RedisLettuceCache<K, V> extends AbstractExternalCache<K, V> {
         try {
             CacheValueHolder<V> holder = new CacheValueHolder(value, timeUnit.toMillis(expireAfterWrite));
             byte[] newKey = buildKey(key);
-            RedisFuture<String> future = stringAsyncCommands.set(newKey, valueEncoder.apply(holder), SetArgs.Builder.nx().px(timeUnit.toMillis(expireAfterWrite)));
+            track(newKey, key);
+            RedisFuture<String> future = asyncCommands(newKey).set(newKey, valueEncoder.apply(holder), SetArgs.Builder.nx().px(timeUnit.toMillis(expireAfterWrite)));
+            if (trackAfterWrite()) {
+                ((RedisKeyAsyncCommands<byte[], byte[]>) asyncCommands(newKey)).exists(newKey);
+            }
             CacheResult result = new CacheResult(future.handle((rt, ex) -> {
                 if (ex != null) {
-                    JetCacheExecutor.defaultExecutor().execute(() -> logError("PUT_IF_ABSENT", key, ex));
+                    JetCacheExecutor.loggingExecutor().execute(() -> logError("PUT_IF_ABSENT", key, ex));
                     return new ResultData(ex);
                 } else {
                     if ("OK".equals(rt)) {
@@ -7,6 +7,8 @@ import io.lettuce.core.AbstractRedisClient;
 import io.lettuce.core.api.StatefulConnection;
 import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 
+import java.util.concurrent.Executor;
+
 /**
  * Created on 2017/4/28.
  *
@@ -87,4 +89,49 @@ public class RedisLettuceCacheBuilder<T extends ExternalCacheBuilder<T>> extends
     public void setAsyncResultTimeoutInMillis(long asyncResultTimeoutInMillis) {
         getConfig().setAsyncResultTimeoutInMillis(asyncResultTimeoutInMillis);
     }
+
+    public T connectionCount(int connectionCount) {
+        getConfig().setConnectionCount(connectionCount);
+        return self();
+    }
+
+    public void setConnectionCount(int connectionCount) {
+        getConfig().setConnectionCount(connectionCount);
+    }
+
+    public T decodeExecutor(Executor decodeExecutor) {
+        getConfig().setDecodeExecutor(decodeExecutor);
+        return self();
+    }
+
+    public void setDecodeExecutor(Executor decodeExecutor) {
+        getConfig().setDecodeExecutor(decodeExecutor);
+    }
+
+    public T clientTracking(boolean clientTracking) {
+        getConfig().setClientTracking(clientTracking);
+        return self();
+    }
+
+    public void setClientTracking(boolean clientTracking) {
+        getConfig().setClientTracking(clientTracking);
+    }
+
+    public T trackingBcast(boolean trackingBcast) {
+        getConfig().setTrackingBcast(trackingBcast);
+        return self();
+    }
+
+    public void setTrackingBcast(boolean trackingBcast) {
+        getConfig().setTrackingBcast(trackingBcast);
+    }
+
+    public T trackingMaxKeys(int trackingMaxKeys) {
+        getConfig().setTrackingMaxKeys(trackingMaxKeys);
+        return self();
+    }
+
+    public void setTrackingMaxKeys(int trackingMaxKeys) {
+        getConfig().setTrackingMaxKeys(trackingMaxKeys);
+    }
 }
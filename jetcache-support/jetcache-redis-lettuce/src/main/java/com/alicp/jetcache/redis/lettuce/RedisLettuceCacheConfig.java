@@ -6,6 +6,8 @@ import io.lettuce.core.AbstractRedisClient;
 import io.lettuce.core.api.StatefulConnection;
 import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 
+import java.util.concurrent.Executor;
+
 /**
  * Created on 2017/4/28.
  *
@@ -23,6 +25,31 @@ public class RedisLettuceCacheConfig<K, V> extends ExternalCacheConfig<K, V> {
 
     private long asyncResultTimeoutInMillis = CacheConsts.ASYNC_RESULT_TIMEOUT.toMillis();
 
+    /**
+     * 与Redis的连接数，大于1时按key的hash选择连接，同一个key总是使用同一个连接
+     */
+    private int connectionCount = 1;
+
+    /**
+     * 解码value的线程池，为null时在IO线程中解码，较大的value会阻塞同一连接上的其它命令
+     */
+    private Executor decodeExecutor;
+
+    /**
+     * 开启redis的client tracking(需要RESP3)，任何客户端修改了key时服务端推送失效消息，用于失效BOTH缓存的本地缓存
+     */
+    private boolean clientTracking;
+
+    /**
+     * client tracking使用BCAST模式，服务端按keyPrefix推送失效消息，不需要先读取key
+     */
+    private boolean trackingBcast;
+
+    /**
+     * client tracking时最多记录的key数量，超过时淘汰最久没有访问的key并失效它的本地缓存
+     */
+    private int trackingMaxKeys = 100000;
+
     public AbstractRedisClient getRedisClient() {
         return redisClient;
     }
@@ -62,4 +89,44 @@ public class RedisLettuceCacheConfig<K, V> extends ExternalCacheConfig<K, V> {
     public void setConnectionManager(LettuceConnectionManager connectionManager) {
         this.connectionManager = connectionManager;
     }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    public void setConnectionCount(int connectionCount) {
+        this.connectionCount = connectionCount;
+    }
+
+    public Executor getDecodeExecutor() {
+        return decodeExecutor;
+    }
+
+    public void setDecodeExecutor(Executor decodeExecutor) {
+        this.decodeExecutor = decodeExecutor;
+    }
+
+    public boolean isClientTracking() {
+        return clientTracking;
+    }
+
+    public void setClientTracking(boolean clientTracking) {
+        this.clientTracking = clientTracking;
+    }
+
+    public boolean isTrackingBcast() {
+        return trackingBcast;
+    }
+
+    public void setTrackingBcast(boolean trackingBcast) {
+        this.trackingBcast = trackingBcast;
+    }
+
+    public int getTrackingMaxKeys() {
+        return trackingMaxKeys;
+    }
+
+    public void setTrackingMaxKeys(int trackingMaxKeys) {
+        this.trackingMaxKeys = trackingMaxKeys;
+    }
 }
@@ -6,20 +6,42 @@ import com.alicp.jetcache.CacheResult;
 import com.alicp.jetcache.CacheResultCode;
 import com.alicp.jetcache.CacheValueHolder;
 import com.alicp.jetcache.MultiGetResult;
+import com.alicp.jetcache.ResultData;
 import com.alicp.jetcache.external.AbstractExternalCache;
+import com.alicp.jetcache.external.KeyScanner;
+import com.alicp.jetcache.external.LockCommands;
+import com.alicp.jetcache.support.JetCacheExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.ReactiveRedisClusterConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.ReactiveStringCommands;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.types.Expiration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 /**
@@ -43,6 +65,9 @@ public class RedisSpringDataCache<K, V> extends AbstractExternalCache<K, V> {
         if (connectionFactory == null) {
             throw new CacheConfigException("connectionFactory is required");
         }
+        if (config.isReactive() && !(connectionFactory instanceof ReactiveRedisConnectionFactory)) {
+            throw new CacheConfigException("connectionFactory must be ReactiveRedisConnectionFactory in reactive mode");
+        }
         this.config = config;
         this.valueEncoder = config.getValueEncoder();
         this.valueDecoder = config.getValueDecoder();
@@ -82,35 +107,79 @@ public class RedisSpringDataCache<K, V> extends AbstractExternalCache<K, V> {
         }
     }
 
+    /**
+     * Group the keys by slot in cluster mode, so every group can be done by one MGET/DEL.
+     * Returns the indexes of the keys of each group.
+     */
+    static List<List<Integer>> groupBySlot(byte[][] keys, boolean cluster) {
+        List<Integer> all = new ArrayList<>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            all.add(i);
+        }
+        if (!cluster) {
+            return Collections.singletonList(all);
+        }
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            groups.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(keys[i]), k -> new ArrayList<>()).add(i);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static byte[][] select(byte[][] keys, List<Integer> indexes) {
+        byte[][] rt = new byte[indexes.size()][];
+        for (int i = 0; i < rt.length; i++) {
+            rt[i] = keys[indexes.get(i)];
+        }
+        return rt;
+    }
+
+    private Map<K, CacheGetResult<V>> decodeValues(List<K> keyList, byte[][] values) {
+        Map<K, CacheGetResult<V>> resultMap = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < values.length; i++) {
+            K key = keyList.get(i);
+            if (values[i] != null) {
+                CacheValueHolder<V> holder = (CacheValueHolder<V>) valueDecoder.apply(values[i]);
+                if (now >= holder.getExpireTime()) {
+                    resultMap.put(key, CacheGetResult.EXPIRED_WITHOUT_MSG);
+                } else {
+                    resultMap.put(key, new CacheGetResult<>(CacheResultCode.SUCCESS, null, holder));
+                }
+            } else {
+                resultMap.put(key, CacheGetResult.NOT_EXISTS_WITHOUT_MSG);
+            }
+        }
+        return resultMap;
+    }
+
     @Override
     protected MultiGetResult<K, V> do_GET_ALL(Set<? extends K> keys) {
+        ArrayList<K> keyList = new ArrayList<>(keys);
+        byte[][] newKeys;
+        try {
+            newKeys = keyList.stream().map((k) -> buildKey(k)).toArray(byte[][]::new);
+        } catch (Exception ex) {
+            logError("GET_ALL", "keys(" + keys.size() + ")", ex);
+            return new MultiGetResult<>(ex);
+        }
+        if (newKeys.length == 0) {
+            return new MultiGetResult<>(CacheResultCode.SUCCESS, null, new HashMap<>());
+        }
+        if (config.isReactive()) {
+            return reactiveGetAll(keyList, newKeys);
+        }
         RedisConnection con = null;
         try {
             con = connectionFactory.getConnection();
-
-            ArrayList<K> keyList = new ArrayList<>(keys);
-            byte[][] newKeys = keyList.stream().map((k) -> buildKey(k)).toArray(byte[][]::new);
-
-            Map<K, CacheGetResult<V>> resultMap = new HashMap<>();
-            if (newKeys.length > 0) {
-                List mgetResults = con.mGet(newKeys);
-                for (int i = 0; i < mgetResults.size(); i++) {
-                    Object value = mgetResults.get(i);
-                    K key = keyList.get(i);
-                    if (value != null) {
-                        CacheValueHolder<V> holder = (CacheValueHolder<V>) valueDecoder.apply((byte[]) value);
-                        if (System.currentTimeMillis() >= holder.getExpireTime()) {
-                            resultMap.put(key, CacheGetResult.EXPIRED_WITHOUT_MSG);
-                        } else {
-                            CacheGetResult<V> r = new CacheGetResult<>(CacheResultCode.SUCCESS, null, holder);
-                            resultMap.put(key, r);
-                        }
-                    } else {
-                        resultMap.put(key, CacheGetResult.NOT_EXISTS_WITHOUT_MSG);
-                    }
+            byte[][] values = new byte[newKeys.length][];
+            for (List<Integer> group : groupBySlot(newKeys, con instanceof RedisClusterConnection)) {
+                List<byte[]> mgetResults = con.mGet(select(newKeys, group));
+                for (int i = 0; i < group.size(); i++) {
+                    values[group.get(i)] = mgetResults.get(i);
                 }
             }
-            return new MultiGetResult<>(CacheResultCode.SUCCESS, null, resultMap);
+            return new MultiGetResult<>(CacheResultCode.SUCCESS, null, decodeValues(keyList, values));
         } catch (Exception ex) {
             logError("GET_ALL", "keys(" + keys.size() + ")", ex);
             return new MultiGetResult<>(ex);
@@ -143,15 +212,34 @@ public class RedisSpringDataCache<K, V> extends AbstractExternalCache<K, V> {
 
     @Override
     protected CacheResult do_PUT_ALL(Map<? extends K, ? extends V> map, long expireAfterWrite, TimeUnit timeUnit) {
+        if (config.isReactive()) {
+            return reactivePutAll(map, expireAfterWrite, timeUnit);
+        }
         RedisConnection con = null;
         try {
             con = connectionFactory.getConnection();
+            long expireMillis = timeUnit.toMillis(expireAfterWrite);
+            List<Object> results;
+            if (openPipeline(con)) {
+                try {
+                    for (Map.Entry<? extends K, ? extends V> en : map.entrySet()) {
+                        CacheValueHolder<V> holder = new CacheValueHolder(en.getValue(), expireMillis);
+                        con.pSetEx(buildKey(en.getKey()), expireMillis, valueEncoder.apply(holder));
+                    }
+                } finally {
+                    results = con.closePipeline();
+                }
+            } else {
+                // 不支持pipeline(比如jedis的集群连接)，逐个执行
+                results = new ArrayList<>(map.size());
+                for (Map.Entry<? extends K, ? extends V> en : map.entrySet()) {
+                    CacheValueHolder<V> holder = new CacheValueHolder(en.getValue(), expireMillis);
+                    results.add(con.pSetEx(buildKey(en.getKey()), expireMillis, valueEncoder.apply(holder)));
+                }
+            }
             int failCount = 0;
-            for (Map.Entry<? extends K, ? extends V> en : map.entrySet()) {
-                CacheValueHolder<V> holder = new CacheValueHolder(en.getValue(), timeUnit.toMillis(expireAfterWrite));
-                Boolean result = con.pSetEx(buildKey(en.getKey()),
-                        timeUnit.toMillis(expireAfterWrite), valueEncoder.apply(holder));
-                if(!Boolean.TRUE.equals(result)){
+            for (Object result : results) {
+                if (!Boolean.TRUE.equals(result)) {
                     failCount++;
                 }
             }
@@ -165,6 +253,15 @@ public class RedisSpringDataCache<K, V> extends AbstractExternalCache<K, V> {
         }
     }
 
+    private boolean openPipeline(RedisConnection con) {
+        try {
+            con.openPipeline();
+            return true;
+        } catch (UnsupportedOperationException ex) {
+            return false;
+        }
+    }
+
     @Override
     protected CacheResult do_REMOVE(K key) {
         RedisConnection con = null;
@@ -191,16 +288,23 @@ public class RedisSpringDataCache<K, V> extends AbstractExternalCache<K, V> {
 
     @Override
     protected CacheResult do_REMOVE_ALL(Set<? extends K> keys) {
+        if (config.isReactive()) {
+            return reactiveRemoveAll(keys);
+        }
         RedisConnection con = null;
         try {
             con = connectionFactory.getConnection();
-            byte[][] newKeys = keys.stream().map((k) -> buildKey(k)).toArray((len) -> new byte[keys.size()][]);
-            Long result = con.del(newKeys);
-            if (result != null) {
+            byte[][] newKeys = keys.stream().map((k) -> buildKey(k)).toArray(byte[][]::new);
+            if (newKeys.length == 0) {
                 return CacheResult.SUCCESS_WITHOUT_MSG;
-            } else {
-                return new CacheResult(CacheResultCode.FAIL, "result:" + result);
             }
+            for (List<Integer> group : groupBySlot(newKeys, con instanceof RedisClusterConnection)) {
+                Long result = con.del(select(newKeys, group));
+                if (result == null) {
+                    return new CacheResult(CacheResultCode.FAIL, "result:" + result);
+                }
+            }
+            return CacheResult.SUCCESS_WITHOUT_MSG;
         } catch (Exception ex) {
             logError("REMOVE_ALL", "keys(" + keys.size() + ")", ex);
             return new CacheResult(ex);
@@ -233,6 +337,277 @@ public class RedisSpringDataCache<K, V> extends AbstractExternalCache<K, V> {
         }
     }
 
+    /**
+     * Run the command with a reactive connection, the connection is closed after the command completes.
+     */
+    private <T> CompletionStage<ResultData> reactive(Function<ReactiveRedisConnection, Mono<T>> command,
+                                                     BiFunction<T, Throwable, ResultData> fn) {
+        ReactiveRedisConnection con = ((ReactiveRedisConnectionFactory) connectionFactory).getReactiveConnection();
+        return Mono.defer(() -> command.apply(con))
+                .doFinally(s -> con.closeLater().subscribe())
+                .toFuture()
+                .handle(fn);
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        if (buffer == null || !buffer.hasRemaining()) {
+            // 响应式的MGET用空ByteBuffer表示key不存在
+            return null;
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private MultiGetResult<K, V> reactiveGetAll(List<K> keyList, byte[][] newKeys) {
+        try {
+            byte[][] values = new byte[newKeys.length][];
+            CompletionStage<ResultData> future = reactive(con -> {
+                List<List<Integer>> groups = groupBySlot(newKeys, con instanceof ReactiveRedisClusterConnection);
+                return Flux.fromIterable(groups)
+                        .flatMap(group -> {
+                            List<ByteBuffer> keys = new ArrayList<>(group.size());
+                            for (Integer i : group) {
+                                keys.add(ByteBuffer.wrap(newKeys[i]));
+                            }
+                            return con.stringCommands().mGet(keys).doOnNext(list -> {
+                                for (int i = 0; i < group.size(); i++) {
+                                    values[group.get(i)] = toBytes(list.get(i));
+                                }
+                            });
+                        })
+                        .then(Mono.just(values));
+            }, (v, ex) -> {
+                if (ex != null) {
+                    JetCacheExecutor.loggingExecutor().execute(() -> logError("GET_ALL", "keys(" + keyList.size() + ")", ex));
+                    return new ResultData(ex);
+                }
+                try {
+                    return new ResultData(CacheResultCode.SUCCESS, null, decodeValues(keyList, v));
+                } catch (Exception e) {
+                    logError("GET_ALL", "keys(" + keyList.size() + ")", e);
+                    return new ResultData(e);
+                }
+            });
+            return new MultiGetResult<>(future);
+        } catch (Exception ex) {
+            logError("GET_ALL", "keys(" + keyList.size() + ")", ex);
+            return new MultiGetResult<>(ex);
+        }
+    }
+
+    private CacheResult reactivePutAll(Map<? extends K, ? extends V> map, long expireAfterWrite, TimeUnit timeUnit) {
+        try {
+            long expireMillis = timeUnit.toMillis(expireAfterWrite);
+            List<ReactiveStringCommands.SetCommand> commands = new ArrayList<>(map.size());
+            for (Map.Entry<? extends K, ? extends V> en : map.entrySet()) {
+                CacheValueHolder<V> holder = new CacheValueHolder(en.getValue(), expireMillis);
+                commands.add(ReactiveStringCommands.SetCommand.set(ByteBuffer.wrap(buildKey(en.getKey())))
+                        .value(ByteBuffer.wrap(valueEncoder.apply(holder)))
+                        .expiring(Expiration.milliseconds(expireMillis)));
+            }
+            // 一个Publisher中的命令在同一个连接上流水线发送
+            CompletionStage<ResultData> future = reactive(con -> con.stringCommands().pSetEX(Flux.fromIterable(commands))
+                    .filter(r -> !Boolean.TRUE.equals(r.getOutput()))
+                    .count(), (failCount, ex) -> {
+                if (ex != null) {
+                    JetCacheExecutor.loggingExecutor().execute(() -> logError("PUT_ALL", "map(" + map.size() + ")", ex));
+                    return new ResultData(ex);
+                }
+                CacheResultCode code = failCount == 0 ? CacheResultCode.SUCCESS :
+                        failCount == map.size() ? CacheResultCode.FAIL : CacheResultCode.PART_SUCCESS;
+                return new ResultData(code, null, null);
+            });
+            return new CacheResult(future);
+        } catch (Exception ex) {
+            logError("PUT_ALL", "map(" + map.size() + ")", ex);
+            return new CacheResult(ex);
+        }
+    }
+
+    private CacheResult reactiveRemoveAll(Set<? extends K> keys) {
+        try {
+            byte[][] newKeys = keys.stream().map((k) -> buildKey(k)).toArray(byte[][]::new);
+            if (newKeys.length == 0) {
+                return CacheResult.SUCCESS_WITHOUT_MSG;
+            }
+            CompletionStage<ResultData> future = reactive(con -> {
+                List<List<Integer>> groups = groupBySlot(newKeys, con instanceof ReactiveRedisClusterConnection);
+                return Flux.fromIterable(groups)
+                        .flatMap(group -> {
+                            List<ByteBuffer> list = new ArrayList<>(group.size());
+                            for (Integer i : group) {
+                                list.add(ByteBuffer.wrap(newKeys[i]));
+                            }
+                            return con.keyCommands().mDel(list);
+                        })
+                        .then();
+            }, (v, ex) -> {
+                if (ex != null) {
+                    JetCacheExecutor.loggingExecutor().execute(() -> logError("REMOVE_ALL", "keys(" + keys.size() + ")", ex));
+                    return new ResultData(ex);
+                }
+                return new ResultData(CacheResultCode.SUCCESS, null, null);
+            });
+            return new CacheResult(future);
+        } catch (Exception ex) {
+            logError("REMOVE_ALL", "keys(" + keys.size() + ")", ex);
+            return new CacheResult(ex);
+        }
+    }
+
+    @Override
+    protected KeyScanner keyScanner() {
+        return new KeyScanner() {
+            @Override
+            public ScanCursor scan(byte[] pattern, int count) {
+                return new SpringDataScanCursor(ScanOptions.scanOptions().match(pattern).count(count).build(), count);
+            }
+
+            @Override
+            public void unlink(List<byte[]> keys) {
+                byte[][] keyArray = keys.toArray(new byte[0][]);
+                RedisConnection con = null;
+                try {
+                    con = connectionFactory.getConnection();
+                    for (List<Integer> group : groupBySlot(keyArray, con instanceof RedisClusterConnection)) {
+                        con.keyCommands().unlink(select(keyArray, group));
+                    }
+                } finally {
+                    closeConnection(con);
+                }
+            }
+        };
+    }
+
+    @Override
+    protected LockCommands lockCommands() {
+        return new LockCommands() {
+            @Override
+            public boolean setIfAbsent(byte[] key, byte[] owner, long ttlMillis) {
+                RedisConnection con = null;
+                try {
+                    con = connectionFactory.getConnection();
+                    return Boolean.TRUE.equals(con.stringCommands().set(key, owner,
+                            Expiration.milliseconds(ttlMillis), RedisStringCommands.SetOption.ifAbsent()));
+                } finally {
+                    closeConnection(con);
+                }
+            }
+
+            @Override
+            public boolean compareAndDelete(byte[] key, byte[] owner, byte[] channel) {
+                return eval(UNLOCK_SCRIPT, key, owner, channel);
+            }
+
+            @Override
+            public boolean compareAndExpire(byte[] key, byte[] owner, long ttlMillis) {
+                return eval(RENEW_SCRIPT, key, owner, String.valueOf(ttlMillis).getBytes());
+            }
+
+            @Override
+            public long increment(byte[] key) {
+                RedisConnection con = null;
+                try {
+                    con = connectionFactory.getConnection();
+                    return con.stringCommands().incr(key);
+                } finally {
+                    closeConnection(con);
+                }
+            }
+
+            @Override
+            public long generation(byte[] key, long min, long ttlMillis, boolean increase) {
+                Long rt = evalLong(GENERATION_SCRIPT, key, String.valueOf(min).getBytes(),
+                        String.valueOf(ttlMillis).getBytes(), (increase ? "1" : "0").getBytes());
+                return rt == null ? 0 : rt;
+            }
+
+            private boolean eval(String script, byte[]... keyAndArgs) {
+                Long rt = evalLong(script, keyAndArgs);
+                return rt != null && rt > 0;
+            }
+
+            private Long evalLong(String script, byte[]... keyAndArgs) {
+                RedisConnection con = null;
+                try {
+                    con = connectionFactory.getConnection();
+                    return con.scriptingCommands().eval(script.getBytes(), ReturnType.INTEGER, 1, keyAndArgs);
+                } finally {
+                    closeConnection(con);
+                }
+            }
+        };
+    }
+
+    /**
+     * The Cursor of spring data is bound to the connection, so the connection is held until the scan is finished
+     * or the cursor is closed. The master nodes of the cluster are scanned one by one.
+     */
+    private class SpringDataScanCursor implements KeyScanner.ScanCursor {
+        private final ScanOptions options;
+        private final int count;
+        private RedisConnection con;
+        private Iterator<RedisClusterNode> nodes;
+        private Cursor<byte[]> cursor;
+        private boolean finished;
+
+        SpringDataScanCursor(ScanOptions options, int count) {
+            this.options = options;
+            this.count = count;
+        }
+
+        @Override
+        public List<byte[]> next() {
+            if (finished) {
+                return null;
+            }
+            if (con == null) {
+                con = connectionFactory.getConnection();
+                if (con instanceof RedisClusterConnection) {
+                    nodes = ((RedisClusterConnection) con).clusterGetNodes().iterator();
+                } else {
+                    cursor = con.keyCommands().scan(options);
+                }
+            }
+            while (cursor == null || !cursor.hasNext()) {
+                closeCursor();
+                if (nodes == null || !nodes.hasNext()) {
+                    close();
+                    return null;
+                }
+                RedisClusterNode node = nodes.next();
+                if (node.isMaster() && node.isConnected()) {
+                    cursor = ((RedisClusterConnection) con).scan(node, options);
+                }
+            }
+            // Cursor是逐个返回的，这里按count攒成一批
+            List<byte[]> page = new ArrayList<>(count);
+            while (page.size() < count && cursor.hasNext()) {
+                page.add(cursor.next());
+            }
+            return page;
+        }
+
+        private void closeCursor() {
+            if (cursor != null) {
+                cursor.close();
+                cursor = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            finished = true;
+            try {
+                closeCursor();
+            } finally {
+                closeConnection(con);
+                con = null;
+            }
+        }
+    }
+
     @Override
     public <T> T unwrap(Class<T> clazz) {
         throw new UnsupportedOperationException("RedisSpringDataCache does not support unwrap");
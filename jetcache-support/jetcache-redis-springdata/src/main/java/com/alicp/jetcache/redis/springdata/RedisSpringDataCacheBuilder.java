@@ -59,4 +59,13 @@ public class RedisSpringDataCacheBuilder<T extends ExternalCacheBuilder<T>> exte
     public void setListenerContainer(RedisMessageListenerContainer listenerContainer) {
         getConfig().setListenerContainer(listenerContainer);
     }
+
+    public T reactive(boolean reactive) {
+        getConfig().setReactive(reactive);
+        return self();
+    }
+
+    public void setReactive(boolean reactive) {
+        getConfig().setReactive(reactive);
+    }
 }
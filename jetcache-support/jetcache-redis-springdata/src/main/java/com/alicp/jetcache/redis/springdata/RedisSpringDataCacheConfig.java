@@ -18,6 +18,12 @@ public class RedisSpringDataCacheConfig<K, V> extends ExternalCacheConfig<K, V>
      */
     private RedisMessageListenerContainer listenerContainer;
 
+    /**
+     * GET_ALL/PUT_ALL/REMOVE_ALL使用ReactiveRedisConnectionFactory的响应式连接异步执行，返回future结果。
+     * connectionFactory必须实现ReactiveRedisConnectionFactory(比如LettuceConnectionFactory)。
+     */
+    private boolean reactive;
+
     public RedisConnectionFactory getConnectionFactory() {
         return connectionFactory;
     }
@@ -33,4 +39,12 @@ public class RedisSpringDataCacheConfig<K, V> extends ExternalCacheConfig<K, V>
     public void setListenerContainer(RedisMessageListenerContainer listenerContainer) {
         this.listenerContainer = listenerContainer;
     }
+
+    public boolean isReactive() {
+        return reactive;
+    }
+
+    public void setReactive(boolean reactive) {
+        this.reactive = reactive;
+    }
 }
@@ -0,0 +1,219 @@
+package com.alicp.jetcache.redis;
+
+import com.alicp.jetcache.CacheException;
+import com.alicp.jetcache.support.SquashedLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.BinaryJedisPubSub;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Receives the lock release notifications of all caches using the same jedis pool (or UnifiedJedis) by one
+ * connection. Jedis subscribes in a blocking way, the connection is held by a daemon thread as long as there is
+ * any subscribed channel, and is returned when the last channel is unsubscribed.
+ *
+ * @author huangli
+ */
+class JedisLockSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(JedisLockSubscriber.class);
+
+    static final long SUBSCRIBE_TIMEOUT_MILLIS = 3000;
+
+    // 所有订阅者的注册、取消和发送SUBSCRIBE都在这个锁里，订阅者从registry移除以后不会再用它的连接发命令
+    private static final ReentrantLock registryLock = new ReentrantLock();
+    private static final Map<Object, JedisLockSubscriber> registry = new HashMap<>();
+
+    private final Object source;
+    private final Supplier<Object> connectionSupplier;
+    private final Map<ByteBuffer, Consumer<byte[]>> listeners = new ConcurrentHashMap<>();
+    private final Map<ByteBuffer, CountDownLatch> pending = new HashMap<>();
+    // 当前连接上已经发送过SUBSCRIBE的channel，每次重连重新计算
+    private final Set<ByteBuffer> requested = new HashSet<>();
+    private volatile PubSub pubSub;
+    private volatile boolean closed;
+
+    private JedisLockSubscriber(Object source, Supplier<Object> connectionSupplier) {
+        this.source = source;
+        this.connectionSupplier = connectionSupplier;
+    }
+
+    /**
+     * Subscribe the channel, return after the subscription is confirmed by the server.
+     *
+     * @param source             the jedis pool or UnifiedJedis, the caches with the same source share a connection
+     * @param connectionSupplier gets a connection from the source
+     * @throws CacheException if the subscription is not confirmed in {@value #SUBSCRIBE_TIMEOUT_MILLIS} ms
+     */
+    static AutoCloseable subscribe(Object source, Supplier<Object> connectionSupplier, byte[] channel,
+                                   Consumer<byte[]> listener) {
+        ByteBuffer key = ByteBuffer.wrap(channel);
+        CountDownLatch latch = new CountDownLatch(1);
+        JedisLockSubscriber s;
+        registryLock.lock();
+        try {
+            s = registry.get(source);
+            boolean start = s == null;
+            if (start) {
+                s = new JedisLockSubscriber(source, connectionSupplier);
+                registry.put(source, s);
+            }
+            if (s.listeners.putIfAbsent(key, listener) != null) {
+                throw new CacheException("channel is already subscribed: " + new String(channel, StandardCharsets.UTF_8));
+            }
+            s.pending.put(key, latch);
+            if (start) {
+                s.start();
+            } else {
+                s.sendSubscribe();
+            }
+        } finally {
+            registryLock.unlock();
+        }
+        JedisLockSubscriber subscriber = s;
+        AutoCloseable handle = () -> subscriber.unsubscribe(key, listener);
+        boolean confirmed;
+        try {
+            confirmed = latch.await(SUBSCRIBE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            confirmed = false;
+        }
+        if (!confirmed) {
+            subscriber.unsubscribe(key, listener);
+            throw new CacheException("subscribe " + new String(channel, StandardCharsets.UTF_8)
+                    + " not confirmed in " + SUBSCRIBE_TIMEOUT_MILLIS + "ms");
+        }
+        return handle;
+    }
+
+    private void unsubscribe(ByteBuffer key, Consumer<byte[]> listener) {
+        registryLock.lock();
+        try {
+            if (!listeners.remove(key, listener)) {
+                return;
+            }
+            pending.remove(key);
+            PubSub p = pubSub;
+            if (listeners.isEmpty()) {
+                // 最后一个channel，停止线程并归还连接；已经发送的SUBSCRIBE在onSubscribe里检查closed
+                registry.remove(source);
+                closed = true;
+                if (p != null && p.isSubscribed()) {
+                    p.unsubscribe();
+                }
+            } else if (requested.remove(key) && p != null && p.isSubscribed()) {
+                p.unsubscribe(key.array());
+            }
+        } catch (Exception e) {
+            logger.warn("unsubscribe lock release channel failed: {}", e.toString());
+        } finally {
+            registryLock.unlock();
+        }
+    }
+
+    private void start() {
+        Thread thread = new Thread(this::run, "LockSub_" + Integer.toHexString(System.identityHashCode(source)));
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        while (!closed) {
+            byte[][] channels;
+            PubSub p = new PubSub();
+            registryLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                requested.clear();
+                requested.addAll(listeners.keySet());
+                channels = requested.stream().map(ByteBuffer::array).toArray(byte[][]::new);
+                pubSub = p;
+            } finally {
+                registryLock.unlock();
+            }
+            Object jedis = null;
+            try {
+                jedis = connectionSupplier.get();
+                if (jedis instanceof Jedis) {
+                    ((Jedis) jedis).subscribe(p, channels);
+                } else {
+                    ((UnifiedJedis) jedis).subscribe(p, channels);
+                }
+            } catch (Throwable e) {
+                SquashedLogger.getLogger(logger).error("run lock release subscribe thread error: {}", e);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ex) {
+                    // ignore
+                }
+            } finally {
+                RedisCache.closeJedis(jedis);
+            }
+        }
+    }
+
+    // 在registryLock中调用，连接已经订阅时直接发送，否则在下一个onSubscribe或者重连时发送
+    private void sendSubscribe() {
+        PubSub p = pubSub;
+        if (p == null || !p.isSubscribed()) {
+            return;
+        }
+        for (ByteBuffer key : listeners.keySet()) {
+            if (requested.add(key)) {
+                p.subscribe(key.array());
+            }
+        }
+    }
+
+    private class PubSub extends BinaryJedisPubSub {
+        @Override
+        public void onMessage(byte[] channel, byte[] message) {
+            Consumer<byte[]> listener = listeners.get(ByteBuffer.wrap(channel));
+            if (listener != null) {
+                try {
+                    listener.accept(message);
+                } catch (Exception e) {
+                    // 异常不能抛出，否则会中断订阅循环
+                    logger.warn("lock release listener error: {}", e.toString());
+                }
+            }
+        }
+
+        @Override
+        public void onSubscribe(byte[] channel, int subscribedChannels) {
+            registryLock.lock();
+            try {
+                if (closed) {
+                    // 订阅完成之前已经全部取消
+                    unsubscribe();
+                    return;
+                }
+                CountDownLatch latch = pending.remove(ByteBuffer.wrap(channel));
+                if (latch != null) {
+                    latch.countDown();
+                }
+                // 连接订阅完成之前加入的channel
+                sendSubscribe();
+            } finally {
+                registryLock.unlock();
+            }
+        }
+    }
+}
@@ -9,10 +9,16 @@ import com.alicp.jetcache.CacheResultCode;
 import com.alicp.jetcache.CacheValueHolder;
 import com.alicp.jetcache.MultiGetResult;
 import com.alicp.jetcache.external.AbstractExternalCache;
+import com.alicp.jetcache.external.ChunkManifest;
+import com.alicp.jetcache.external.KeyScanner;
+import com.alicp.jetcache.external.LockCommands;
+import com.alicp.jetcache.support.ReplicaSelector;
+import com.alicp.jetcache.support.ReplicaStat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.ClusterPipeline;
 import redis.clients.jedis.Connection;
+import redis.clients.jedis.ConnectionPool;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPooled;
@@ -21,10 +27,15 @@ import redis.clients.jedis.Response;
 import redis.clients.jedis.UnifiedJedis;
 import redis.clients.jedis.commands.KeyBinaryCommands;
 import redis.clients.jedis.commands.KeyPipelineBinaryCommands;
+import redis.clients.jedis.commands.PipelineBinaryCommands;
+import redis.clients.jedis.commands.ScriptingKeyBinaryCommands;
 import redis.clients.jedis.commands.StringBinaryCommands;
 import redis.clients.jedis.commands.StringPipelineBinaryCommands;
+import redis.clients.jedis.params.ScanParams;
 import redis.clients.jedis.params.SetParams;
 import redis.clients.jedis.providers.ClusterConnectionProvider;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.util.JedisClusterCRC16;
 import redis.clients.jedis.util.Pool;
 
 import java.io.Closeable;
@@ -33,13 +44,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 // 使用Jedis连接Redis，对远程的缓存数据进行操作
 // 实现了以DO_开头的方法，也就是通过Jedis操作缓存数据
@@ -56,6 +68,10 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
 
     private static ThreadLocalRandom random = ThreadLocalRandom.current();
 
+    // 自适应从库读取时记录每个从库的延迟和错误率，为null时按slaveReadWeights随机选择
+    private final ReplicaSelector replicaSelector;
+    private final ReplicaSelector.Replica[] slaveReplicas;
+
     public RedisCache(RedisCacheConfig<K, V> config) {
         super(config);
         this.config = config;
@@ -88,6 +104,16 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
         if (config.isExpireAfterAccess()) {
             throw new CacheConfigException("expireAfterAccess is not supported");
         }
+        if (config.isReadFromSlave() && config.isAdaptiveSlaveRead()) {
+            replicaSelector = new ReplicaSelector();
+            slaveReplicas = new ReplicaSelector.Replica[slaveCount()];
+            for (int i = 0; i < slaveReplicas.length; i++) {
+                slaveReplicas[i] = replicaSelector.replica("slave" + i);
+            }
+        } else {
+            replicaSelector = null;
+            slaveReplicas = null;
+        }
         UnifiedJedis jedis = config.getJedis();
         if (jedis != null && jedis instanceof JedisCluster) {
             try {
@@ -140,18 +166,203 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
     }
 
     Object readCommands() {
+        return readCommands(selectSlave());
+    }
+
+    /**
+     * @return index of the slave, -1 means reading from master
+     */
+    int selectSlave() {
         if (!config.isReadFromSlave()) {
+            return -1;
+        }
+        if (replicaSelector == null) {
+            return randomIndex(config.getSlaveReadWeights());
+        }
+        // 所有从库都被摘除时从主库读取
+        return replicaSelector.select(slaveReplicas, config.getSlaveReadWeights());
+    }
+
+    Object readCommands(int slave) {
+        if (slave < 0) {
             return writeCommands();
         }
-        int[] weights = config.getSlaveReadWeights();
-        int index = randomIndex(weights);
         if (config.getSlaves() != null) {
-            return config.getSlaves()[index];
+            return config.getSlaves()[slave];
         } else {
-            return config.getJedisSlavePools()[index].getResource();
+            return config.getJedisSlavePools()[slave].getResource();
+        }
+    }
+
+    private void recordSlave(int slave, long startNanos, boolean success) {
+        if (slave >= 0 && slaveReplicas != null) {
+            slaveReplicas[slave].record(System.nanoTime() - startNanos, success);
+        }
+    }
+
+    /**
+     * In cluster mode every master node is scanned by its own connection, and the keys are deleted by slot groups.
+     */
+    @Override
+    protected KeyScanner keyScanner() {
+        return new KeyScanner() {
+            @Override
+            public ScanCursor scan(byte[] pattern, int count) {
+                ScanParams params = new ScanParams().match(pattern).count(count);
+                UnifiedJedis jedis = config.getJedis();
+                if (jedis instanceof JedisCluster) {
+                    return new ClusterScanCursor(new ArrayList<>(((JedisCluster) jedis).getClusterNodes().values()),
+                            params);
+                }
+                byte[][] cursor = {null};
+                // 每一页都重新获取连接，两页之间不占用连接
+                return () -> {
+                    if (cursor[0] != null && Arrays.equals(cursor[0], ScanParams.SCAN_POINTER_START_BINARY)) {
+                        return null;
+                    }
+                    byte[] start = cursor[0] == null ? ScanParams.SCAN_POINTER_START_BINARY : cursor[0];
+                    ScanResult<byte[]> result;
+                    if (jedis != null) {
+                        result = jedis.scan(start, params);
+                    } else {
+                        try (Jedis j = config.getJedisPool().getResource()) {
+                            result = j.scan(start, params);
+                        }
+                    }
+                    cursor[0] = result.getCursorAsBytes();
+                    return result.getResult();
+                };
+            }
+
+            @Override
+            public void unlink(List<byte[]> keys) {
+                byte[][] keyArray = keys.toArray(new byte[0][]);
+                UnifiedJedis jedis = config.getJedis();
+                if (jedis instanceof JedisCluster) {
+                    for (int[] group : groupBySlot(keyArray)) {
+                        jedis.unlink(subKeys(keyArray, group));
+                    }
+                } else if (jedis != null) {
+                    jedis.unlink(keyArray);
+                } else {
+                    try (Jedis j = config.getJedisPool().getResource()) {
+                        j.unlink(keyArray);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Scan the master nodes of the cluster one by one.
+     */
+    private static class ClusterScanCursor implements KeyScanner.ScanCursor {
+        private final List<ConnectionPool> nodes;
+        private final ScanParams params;
+        private int nodeIndex;
+        // 为null表示当前节点还没有开始扫描
+        private byte[] cursor;
+
+        ClusterScanCursor(List<ConnectionPool> nodes, ScanParams params) {
+            this.nodes = nodes;
+            this.params = params;
+        }
+
+        @Override
+        public List<byte[]> next() {
+            if (nodeIndex >= nodes.size()) {
+                return null;
+            }
+            try (Jedis node = new Jedis(nodes.get(nodeIndex).getResource())) {
+                // 从库的key和主库相同，而且不能删除
+                if (cursor == null && !node.info("replication").contains("role:master")) {
+                    nodeIndex++;
+                    return Collections.emptyList();
+                }
+                ScanResult<byte[]> result = node.scan(cursor == null ? ScanParams.SCAN_POINTER_START_BINARY : cursor,
+                        params);
+                cursor = result.getCursorAsBytes();
+                if (Arrays.equals(cursor, ScanParams.SCAN_POINTER_START_BINARY)) {
+                    nodeIndex++;
+                    cursor = null;
+                }
+                return result.getResult();
+            }
         }
     }
 
+    @Override
+    protected LockCommands lockCommands() {
+        return new LockCommands() {
+            @Override
+            public boolean setIfAbsent(byte[] key, byte[] owner, long ttlMillis) {
+                Object commands = writeCommands();
+                try {
+                    return "OK".equals(((StringBinaryCommands) commands).set(key, owner,
+                            new SetParams().nx().px(ttlMillis)));
+                } finally {
+                    closeJedis(commands);
+                }
+            }
+
+            @Override
+            public boolean compareAndDelete(byte[] key, byte[] owner, byte[] channel) {
+                return eval(UNLOCK_SCRIPT, key, owner, channel);
+            }
+
+            @Override
+            public boolean compareAndExpire(byte[] key, byte[] owner, long ttlMillis) {
+                return eval(RENEW_SCRIPT, key, owner, String.valueOf(ttlMillis).getBytes());
+            }
+
+            @Override
+            public long increment(byte[] key) {
+                Object commands = writeCommands();
+                try {
+                    return ((StringBinaryCommands) commands).incr(key);
+                } finally {
+                    closeJedis(commands);
+                }
+            }
+
+            /**
+             * The caches using the same pool share one subscribe connection, see {@link JedisLockSubscriber}.
+             */
+            @Override
+            public AutoCloseable subscribe(byte[] channel, Consumer<byte[]> listener) {
+                Object source = config.getJedis() != null ? config.getJedis() : config.getJedisPool();
+                return JedisLockSubscriber.subscribe(source, RedisCache.this::writeCommands, channel, listener);
+            }
+
+            @Override
+            public long generation(byte[] key, long min, long ttlMillis, boolean increase) {
+                Object rt = evalObject(GENERATION_SCRIPT, key, String.valueOf(min).getBytes(),
+                        String.valueOf(ttlMillis).getBytes(), (increase ? "1" : "0").getBytes());
+                return rt instanceof Long ? (Long) rt : 0;
+            }
+
+            private boolean eval(String script, byte[] key, byte[]... args) {
+                Object rt = evalObject(script, key, args);
+                return rt instanceof Long && (Long) rt > 0;
+            }
+
+            private Object evalObject(String script, byte[] key, byte[]... args) {
+                Object commands = writeCommands();
+                try {
+                    return ((ScriptingKeyBinaryCommands) commands).eval(script.getBytes(),
+                            Collections.singletonList(key), Arrays.asList(args));
+                } finally {
+                    closeJedis(commands);
+                }
+            }
+        };
+    }
+
+    @Override
+    public List<ReplicaStat> getReplicaStats() {
+        return replicaSelector == null ? null : replicaSelector.stats();
+    }
+
     static int randomIndex(int[] weights) {
         int sumOfWeights = 0;
         for (int w : weights) {
@@ -188,10 +399,23 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
     @Override
     protected CacheGetResult<V> do_GET(K key) {
         StringBinaryCommands commands = null;
+        int slave = selectSlave();
+        long startNanos = System.nanoTime();
+        boolean success = false;
         try {
             byte[] newKey = buildKey(key);
-            commands = (StringBinaryCommands) readCommands();
+            commands = (StringBinaryCommands) readCommands(slave);
             byte[] bytes = commands.get(newKey);
+            ChunkManifest manifest = ChunkManifest.parse(bytes);
+            if (manifest != null) {
+                // 大value拆分存储，过期了就不用读chunk
+                if (System.currentTimeMillis() >= manifest.getExpireTime()) {
+                    success = true;
+                    return CacheGetResult.EXPIRED_WITHOUT_MSG;
+                }
+                bytes = manifest.assemble(mget(commands, manifest.chunkKeys(newKey)));
+            }
+            success = true;
             if (bytes != null) {
                 CacheValueHolder<V> holder = (CacheValueHolder<V>) valueDecoder.apply(bytes);
                 if (System.currentTimeMillis() >= holder.getExpireTime()) {
@@ -205,6 +429,7 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
             logError("GET", key, ex);
             return new CacheGetResult(ex);
         } finally {
+            recordSlave(slave, startNanos, success);
             closeJedis(commands);
         }
     }
@@ -217,32 +442,59 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
         // define the result object early to gain statefulFunction feature.
         Map<K, CacheGetResult<V>> resultMap = new HashMap<>();
 
+        int slave = selectSlave();
+        long startNanos = System.nanoTime();
+        boolean[] success = new boolean[1];
         try {
-            StringBinaryCommands readCommands = (StringBinaryCommands) readCommands();
+            StringBinaryCommands readCommands = (StringBinaryCommands) readCommands(slave);
             ArrayList<K> keyList = new ArrayList<K>(keys);
             byte[][] newKeys = keyList.stream().map(this::buildKey).toArray(byte[][]::new);
 
             return this.<StringBinaryCommands, StringPipelineBinaryCommands, MultiGetResult<K, V>>doWithPipeline(readCommands, false, (pipeline) -> {
                 List<byte[]> results;
+                Exception groupFail = null;
                 if (pipeline != null) {
-                    List<Response<byte[]>> responseList = new ArrayList<>();
-
-                    for (byte[] newKey : newKeys) {
-                        Response<byte[]> response = pipeline.get(newKey);
-                        responseList.add(response);
+                    // 集群模式下按slot分组，每组一个MGET，ClusterPipeline把不同节点的命令并行发出
+                    List<int[]> groups = groupBySlot(newKeys);
+                    List<Response<List<byte[]>>> responseList = new ArrayList<>(groups.size());
+                    for (int[] group : groups) {
+                        responseList.add(pipeline.mget(subKeys(newKeys, group)));
                     }
 
                     sync(pipeline);
 
-                    results = responseList.stream().map(Response::get).collect(Collectors.toList());
+                    results = new ArrayList<>(Collections.nCopies(newKeys.length, null));
+                    for (int i = 0; i < groups.size(); i++) {
+                        int[] group = groups.get(i);
+                        try {
+                            List<byte[]> values = responseList.get(i).get();
+                            for (int j = 0; j < group.length; j++) {
+                                results.set(group[j], values.get(j));
+                            }
+                        } catch (Exception e) {
+                            // 某个节点失败时只影响这一组key
+                            groupFail = e;
+                            for (int index : group) {
+                                resultMap.put(keyList.get(index), new CacheGetResult<>(e));
+                            }
+                        }
+                    }
                 } else {
-                    results = readCommands.mget(newKeys);
+                    results = new ArrayList<>(readCommands.mget(newKeys));
                 }
+                readChunks(readCommands, newKeys, results);
+                success[0] = true;
 
                 for (int i = 0; i < results.size(); i++) {
                     Object value = results.get(i);
                     K key = keyList.get(i);
-                    if (value != null) {
+                    if (resultMap.containsKey(key)) {
+                        continue;
+                    }
+                    if (ChunkManifest.isManifest((byte[]) value)) {
+                        // readChunks没有替换的manifest是已经过期的
+                        resultMap.put(key, CacheGetResult.EXPIRED_WITHOUT_MSG);
+                    } else if (value != null) {
                         CacheValueHolder<V> holder = (CacheValueHolder<V>) valueDecoder.apply((byte[]) value);
                         if (System.currentTimeMillis() >= holder.getExpireTime()) {
                             resultMap.put(key, CacheGetResult.EXPIRED_WITHOUT_MSG);
@@ -255,6 +507,10 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
                     }
                 }
 
+                if (groupFail != null) {
+                    logError("GET_ALL", "keys(" + keys.size() + ")", groupFail);
+                    return new MultiGetResult<K, V>(CacheResultCode.PART_SUCCESS, groupFail.toString(), resultMap);
+                }
                 return new MultiGetResult<K, V>(CacheResultCode.SUCCESS, null, resultMap);
             });
         } catch (Exception ex) {
@@ -264,6 +520,8 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
             } else {
                 return new MultiGetResult<K, V>(ex);
             }
+        } finally {
+            recordSlave(slave, startNanos, success[0]);
         }
     }
 
@@ -273,8 +531,12 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
         try {
             CacheValueHolder<V> holder = new CacheValueHolder(value, timeUnit.toMillis(expireAfterWrite));
             byte[] newKey = buildKey(key);
+            byte[] bytes = valueEncoder.apply(holder);
+            if (isChunked(bytes)) {
+                return putChunks(newKey, bytes, timeUnit.toMillis(expireAfterWrite), holder.getExpireTime(), false);
+            }
             commands = (StringBinaryCommands) writeCommands();
-            String rt = commands.psetex(newKey, timeUnit.toMillis(expireAfterWrite), valueEncoder.apply(holder));
+            String rt = commands.psetex(newKey, timeUnit.toMillis(expireAfterWrite), bytes);
             if ("OK".equals(rt)) {
                 return CacheResult.SUCCESS_WITHOUT_MSG;
             } else {
@@ -294,32 +556,241 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
             return CacheResult.SUCCESS_WITHOUT_MSG;
         }
         try {
+            long ttl = timeUnit.toMillis(expireAfterWrite);
+            // 需要拆分的大value单独写入
+            List<byte[]> chunkedKeys = new ArrayList<>();
+            List<CacheValueHolder<V>> chunkedHolders = new ArrayList<>();
+            List<byte[]> chunkedValues = new ArrayList<>();
             StringBinaryCommands writeCommands = (StringBinaryCommands) writeCommands();
-            return this.<StringBinaryCommands, StringPipelineBinaryCommands, CacheResult>doWithPipeline(writeCommands, true, pipeline -> {
-                int failCount = 0;
+            // 直接写入的和拆分写入的失败数一起计算，全部失败才返回FAIL
+            int[] failCount = new int[1];
+            Exception fail = this.<StringBinaryCommands, StringPipelineBinaryCommands, Exception>doWithPipeline(writeCommands, true, pipeline -> {
+                Exception ex = null;
                 List<Response<String>> responses = new ArrayList<>();
                 for (Map.Entry<? extends K, ? extends V> en : map.entrySet()) {
-                    CacheValueHolder<V> holder = new CacheValueHolder(en.getValue(), timeUnit.toMillis(expireAfterWrite));
-                    Response<String> resp = pipeline.psetex(buildKey(en.getKey()), timeUnit.toMillis(expireAfterWrite), valueEncoder.apply(holder));
+                    CacheValueHolder<V> holder = new CacheValueHolder(en.getValue(), ttl);
+                    byte[] bytes = valueEncoder.apply(holder);
+                    if (isChunked(bytes)) {
+                        chunkedKeys.add(buildKey(en.getKey()));
+                        chunkedHolders.add(holder);
+                        chunkedValues.add(bytes);
+                        continue;
+                    }
+                    Response<String> resp = pipeline.psetex(buildKey(en.getKey()), ttl, bytes);
                     responses.add(resp);
                 }
 
                 sync(pipeline);
 
                 for (Response<String> resp : responses) {
-                    if (!"OK".equals(resp.get())) {
-                        failCount++;
+                    try {
+                        if (!"OK".equals(resp.get())) {
+                            failCount[0]++;
+                        }
+                    } catch (Exception e) {
+                        // 集群模式下某个节点失败，不影响其它节点的结果
+                        ex = e;
+                        failCount[0]++;
                     }
                 }
-                return failCount == 0 ? CacheResult.SUCCESS_WITHOUT_MSG :
-                        failCount == map.size() ? CacheResult.FAIL_WITHOUT_MSG : CacheResult.PART_SUCCESS_WITHOUT_MSG;
+                return ex;
             });
+            for (int i = 0; i < chunkedKeys.size(); i++) {
+                try {
+                    CacheResult r = putChunks(chunkedKeys.get(i), chunkedValues.get(i), ttl,
+                            chunkedHolders.get(i).getExpireTime(), false);
+                    if (!r.isSuccess()) {
+                        failCount[0]++;
+                    }
+                } catch (Exception e) {
+                    fail = e;
+                    failCount[0]++;
+                }
+            }
+            if (failCount[0] == 0) {
+                return CacheResult.SUCCESS_WITHOUT_MSG;
+            }
+            boolean allFail = failCount[0] == map.size();
+            if (fail != null) {
+                logError("PUT_ALL", "map(" + map.size() + ")", fail);
+                return new CacheResult(allFail ? CacheResultCode.FAIL : CacheResultCode.PART_SUCCESS, fail.toString());
+            }
+            return allFail ? CacheResult.FAIL_WITHOUT_MSG : CacheResult.PART_SUCCESS_WITHOUT_MSG;
         } catch (Exception ex) {
             logError("PUT_ALL", "map(" + map.size() + ")", ex);
             return new CacheResult(ex);
         }
     }
 
+    private boolean isChunked(byte[] bytes) {
+        return config.getChunkSize() > 0 && bytes.length > config.getChunkSize();
+    }
+
+    /**
+     * Write the chunks first, then the manifest. Readers see either the old manifest or the new one,
+     * and the chunks of the old value are removed after the manifest is replaced.
+     */
+    private CacheResult putChunks(byte[] newKey, byte[] value, long ttl, long expireTime, boolean ifAbsent) {
+        ChunkManifest manifest = ChunkManifest.create(expireTime, value.length, config.getChunkSize());
+        byte[][] chunkKeys = manifest.chunkKeys(newKey);
+        byte[] old = this.<Object, PipelineBinaryCommands, byte[]>doWithPipeline(writeCommands(), true, pipeline -> {
+            Response<byte[]> oldResp = ifAbsent ? null : pipeline.get(newKey);
+            // chunk和manifest的过期时间相同
+            List<Response<String>> responses = new ArrayList<>(chunkKeys.length);
+            for (int i = 0; i < chunkKeys.length; i++) {
+                responses.add(pipeline.psetex(chunkKeys[i], ttl, manifest.chunk(value, i)));
+            }
+            sync(pipeline);
+            for (Response<String> resp : responses) {
+                if (!"OK".equals(resp.get())) {
+                    throw new CacheException("write chunk failed: " + resp.get());
+                }
+            }
+            return oldResp == null ? null : oldResp.get();
+        });
+        ChunkManifest oldManifest = ChunkManifest.parse(old);
+        String rt = this.<Object, PipelineBinaryCommands, String>doWithPipeline(writeCommands(), true, pipeline -> {
+            Response<String> resp = ifAbsent ? pipeline.set(newKey, manifest.encode(), new SetParams().nx().px(ttl))
+                    : pipeline.psetex(newKey, ttl, manifest.encode());
+            if (oldManifest != null) {
+                del(pipeline, oldManifest.chunkKeys(newKey));
+            }
+            sync(pipeline);
+            return resp.get();
+        });
+        if ("OK".equals(rt)) {
+            return CacheResult.SUCCESS_WITHOUT_MSG;
+        }
+        removeKeys(chunkKeys);
+        return rt == null ? CacheResult.EXISTS_WITHOUT_MSG : new CacheResult(CacheResultCode.FAIL, rt);
+    }
+
+    private CacheResult removeChunked(Object key, byte[] newKey) {
+        try {
+            Object[] rt = this.<Object, PipelineBinaryCommands, Object[]>doWithPipeline(writeCommands(), true, pipeline -> {
+                Response<byte[]> old = pipeline.get(newKey);
+                Response<Long> del = pipeline.del(newKey);
+                sync(pipeline);
+                return new Object[]{old.get(), del.get()};
+            });
+            ChunkManifest manifest = ChunkManifest.parse((byte[]) rt[0]);
+            if (manifest != null) {
+                removeKeys(manifest.chunkKeys(newKey));
+            }
+            Long count = (Long) rt[1];
+            if (count == null) {
+                return CacheResult.FAIL_WITHOUT_MSG;
+            } else if (count == 1) {
+                return CacheResult.SUCCESS_WITHOUT_MSG;
+            } else if (count == 0) {
+                return new CacheResult(CacheResultCode.NOT_EXISTS, null);
+            } else {
+                return CacheResult.FAIL_WITHOUT_MSG;
+            }
+        } catch (Exception ex) {
+            logError("REMOVE", key, ex);
+            return new CacheResult(ex);
+        }
+    }
+
+    private void removeKeys(byte[][] keys) {
+        try {
+            this.<Object, PipelineBinaryCommands, Object>doWithPipeline(writeCommands(), true, pipeline -> {
+                del(pipeline, keys);
+                sync(pipeline);
+                return null;
+            });
+        } catch (Exception e) {
+            // chunk设置了过期时间，删除失败也会自动清理
+            logger.warn("remove chunks error: {}", e.toString());
+        }
+    }
+
+    private void del(PipelineBinaryCommands pipeline, byte[][] keys) {
+        if (pipeline instanceof ClusterPipeline) {
+            for (int[] group : groupBySlot(keys)) {
+                pipeline.del(subKeys(keys, group));
+            }
+        } else {
+            pipeline.del(keys);
+        }
+    }
+
+    private byte[][] chunkKeysOf(byte[][] keys) {
+        StringBinaryCommands commands = null;
+        try {
+            commands = (StringBinaryCommands) writeCommands();
+            List<byte[]> values = mget(commands, keys);
+            List<byte[]> chunkKeys = new ArrayList<>();
+            for (int i = 0; i < keys.length; i++) {
+                ChunkManifest manifest = ChunkManifest.parse(values.get(i));
+                if (manifest != null) {
+                    chunkKeys.addAll(Arrays.asList(manifest.chunkKeys(keys[i])));
+                }
+            }
+            return chunkKeys.toArray(new byte[0][]);
+        } finally {
+            closeJedis(commands);
+        }
+    }
+
+    /**
+     * Replace the manifests in the values with the assembled values, the chunks of all values are read in one batch.
+     * Expired manifests are not replaced, and the value is null if any chunk is missing.
+     */
+    private void readChunks(StringBinaryCommands commands, byte[][] keys, List<byte[]> values) {
+        List<Integer> indexes = new ArrayList<>();
+        List<ChunkManifest> manifests = new ArrayList<>();
+        List<byte[]> chunkKeys = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < values.size(); i++) {
+            ChunkManifest manifest = ChunkManifest.parse(values.get(i));
+            if (manifest != null && now < manifest.getExpireTime()) {
+                indexes.add(i);
+                manifests.add(manifest);
+                chunkKeys.addAll(Arrays.asList(manifest.chunkKeys(keys[i])));
+            }
+        }
+        if (manifests.isEmpty()) {
+            return;
+        }
+        List<byte[]> chunks = mget(commands, chunkKeys.toArray(new byte[0][]));
+        int offset = 0;
+        for (int i = 0; i < manifests.size(); i++) {
+            ChunkManifest manifest = manifests.get(i);
+            int count = manifest.chunkCount();
+            values.set(indexes.get(i), manifest.assemble(chunks.subList(offset, offset + count)));
+            offset += count;
+        }
+    }
+
+    private List<byte[]> mget(StringBinaryCommands commands, byte[][] keys) {
+        if (!(commands instanceof JedisCluster)) {
+            return commands.mget(keys);
+        }
+        // 集群模式下chunk分布在不同的slot，按slot分组后用pipeline读取
+        ClusterPipeline pipeline = new ClusterPipeline(provider);
+        try {
+            List<int[]> groups = groupBySlot(keys);
+            List<Response<List<byte[]>>> responses = new ArrayList<>(groups.size());
+            for (int[] group : groups) {
+                responses.add(pipeline.mget(subKeys(keys, group)));
+            }
+            pipeline.sync();
+            List<byte[]> results = new ArrayList<>(Collections.nCopies(keys.length, null));
+            for (int i = 0; i < groups.size(); i++) {
+                int[] group = groups.get(i);
+                List<byte[]> values = responses.get(i).get();
+                for (int j = 0; j < group.length; j++) {
+                    results.set(group[j], values.get(j));
+                }
+            }
+            return results;
+        } finally {
+            close(pipeline);
+        }
+    }
+
 
     @Override
     protected CacheResult do_REMOVE(K key) {
@@ -327,6 +798,9 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
     }
 
     private CacheResult REMOVE_impl(Object key, byte[] newKey) {
+        if (config.getChunkSize() > 0) {
+            return removeChunked(key, newKey);
+        }
         KeyBinaryCommands commands = null;
         try {
             commands = (KeyBinaryCommands) writeCommands();
@@ -355,23 +829,46 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
         }
         long[] count = new long[1];
         try {
-            KeyBinaryCommands writeCommands = (KeyBinaryCommands) writeCommands();
             byte[][] newKeys = keys.stream().map((k) -> buildKey(k)).toArray((len) -> new byte[keys.size()][]);
-            return this.<KeyBinaryCommands, KeyPipelineBinaryCommands, CacheResult>doWithPipeline(writeCommands, false, (pipeline) -> {
+            // 删除之前读取manifest，删除以后再删除对应的chunk，否则chunk要等到过期才能清理
+            byte[][] chunkKeys = config.getChunkSize() > 0 ? chunkKeysOf(newKeys) : null;
+            KeyBinaryCommands writeCommands = (KeyBinaryCommands) writeCommands();
+            CacheResult result = this.<KeyBinaryCommands, KeyPipelineBinaryCommands, CacheResult>doWithPipeline(writeCommands, false, (pipeline) -> {
 
                 if (pipeline != null) {
-                    for (byte[] newKey : newKeys) {
-                        pipeline.del(newKey);
-                        count[0]++;
+                    // 集群模式下按slot分组，每组一个DEL
+                    List<int[]> groups = groupBySlot(newKeys);
+                    List<Response<Long>> responses = new ArrayList<>(groups.size());
+                    for (int[] group : groups) {
+                        responses.add(pipeline.del(subKeys(newKeys, group)));
                     }
 
                     sync(pipeline);
+
+                    Exception fail = null;
+                    for (Response<Long> resp : responses) {
+                        try {
+                            resp.get();
+                            count[0]++;
+                        } catch (Exception e) {
+                            fail = e;
+                        }
+                    }
+                    if (fail != null) {
+                        logError("REMOVE_ALL", "keys(" + keys.size() + ")", fail);
+                        return new CacheResult(count[0] > 0 ? CacheResultCode.PART_SUCCESS : CacheResultCode.FAIL,
+                                fail.toString());
+                    }
                 } else {
                     writeCommands.del(newKeys);
                 }
 
                 return CacheResult.SUCCESS_WITHOUT_MSG;
             });
+            if (chunkKeys != null && chunkKeys.length > 0) {
+                removeKeys(chunkKeys);
+            }
+            return result;
         } catch (Exception ex) {
             logError("REMOVE_ALL", "keys(" + keys.size() + ")", ex);
             if (count[0] > 0) {
@@ -388,11 +885,15 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
         try {
             CacheValueHolder<V> holder = new CacheValueHolder(value, timeUnit.toMillis(expireAfterWrite));
             byte[] newKey = buildKey(key);
+            byte[] bytes = valueEncoder.apply(holder);
+            if (isChunked(bytes)) {
+                return putChunks(newKey, bytes, timeUnit.toMillis(expireAfterWrite), holder.getExpireTime(), true);
+            }
             SetParams params = new SetParams();
             params.nx()
                     .px(timeUnit.toMillis(expireAfterWrite));
             commands = (StringBinaryCommands) writeCommands();
-            String rt = commands.set(newKey, valueEncoder.apply(holder), params);
+            String rt = commands.set(newKey, bytes, params);
             if ("OK".equals(rt)) {
                 return CacheResult.SUCCESS_WITHOUT_MSG;
             } else if (rt == null) {
@@ -452,6 +953,31 @@ public class RedisCache<K, V> extends AbstractExternalCache<K, V> {
         }
     }
 
+    /**
+     * Group keys by cluster hash slot, so that a multi-key command can be sent for each group.
+     *
+     * @return index arrays of the keys, one array per slot
+     */
+    static List<int[]> groupBySlot(byte[][] keys) {
+        Map<Integer, List<Integer>> slots = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            slots.computeIfAbsent(JedisClusterCRC16.getSlot(keys[i]), k -> new ArrayList<>()).add(i);
+        }
+        List<int[]> groups = new ArrayList<>(slots.size());
+        for (List<Integer> indexes : slots.values()) {
+            groups.add(indexes.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return groups;
+    }
+
+    private static byte[][] subKeys(byte[][] keys, int[] indexes) {
+        byte[][] sub = new byte[indexes.length][];
+        for (int i = 0; i < indexes.length; i++) {
+            sub[i] = keys[indexes[i]];
+        }
+        return sub;
+    }
+
     private <T> void sync(T pipeline) {
         if (pipeline instanceof Pipeline) {
             ((Pipeline) pipeline).sync();
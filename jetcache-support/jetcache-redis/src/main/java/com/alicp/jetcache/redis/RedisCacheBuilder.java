@@ -98,4 +98,22 @@ public class RedisCacheBuilder<T extends ExternalCacheBuilder<T>> extends Extern
         getConfig().setSlaveReadWeights(slaveReadWeights);
     }
 
+    public T adaptiveSlaveRead(boolean adaptiveSlaveRead) {
+        getConfig().setAdaptiveSlaveRead(adaptiveSlaveRead);
+        return self();
+    }
+
+    public void setAdaptiveSlaveRead(boolean adaptiveSlaveRead) {
+        getConfig().setAdaptiveSlaveRead(adaptiveSlaveRead);
+    }
+
+    public T chunkSize(int chunkSize) {
+        getConfig().setChunkSize(chunkSize);
+        return self();
+    }
+
+    public void setChunkSize(int chunkSize) {
+        getConfig().setChunkSize(chunkSize);
+    }
+
 }
@@ -18,6 +18,10 @@ public class RedisCacheConfig<K, V> extends ExternalCacheConfig<K, V> {
     private UnifiedJedis[] slaves;
     private boolean readFromSlave;
     private int[] slaveReadWeights;
+    // 按从库的延迟和错误率选择从库，连续失败的从库会被暂时摘除
+    private boolean adaptiveSlaveRead;
+    // 编码后大于chunkSize的value拆成多个chunk key存储，0表示不拆分
+    private int chunkSize;
 
     public Pool<Jedis> getJedisPool() {
         return jedisPool;
@@ -66,4 +70,20 @@ public class RedisCacheConfig<K, V> extends ExternalCacheConfig<K, V> {
     public void setSlaveReadWeights(int... slaveReadWeights) {
         this.slaveReadWeights = slaveReadWeights;
     }
+
+    public boolean isAdaptiveSlaveRead() {
+        return adaptiveSlaveRead;
+    }
+
+    public void setAdaptiveSlaveRead(boolean adaptiveSlaveRead) {
+        this.adaptiveSlaveRead = adaptiveSlaveRead;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
 }
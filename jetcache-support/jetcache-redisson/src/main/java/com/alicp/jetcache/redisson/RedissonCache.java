@@ -2,22 +2,38 @@ package com.alicp.jetcache.redisson;
 
 import com.alicp.jetcache.*;
 import com.alicp.jetcache.external.AbstractExternalCache;
+import com.alicp.jetcache.external.KeyScanner;
+import com.alicp.jetcache.external.LockCommands;
 import com.alicp.jetcache.support.CacheEncodeException;
+import com.alicp.jetcache.support.JetCacheExecutor;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.BatchResult;
 import org.redisson.api.RBatch;
 import org.redisson.api.RBucket;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
 import org.redisson.client.codec.ByteArrayCodec;
 import org.redisson.client.codec.Codec;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -49,6 +65,98 @@ public class RedissonCache<K, V> extends AbstractExternalCache<K, V> {
         return this.config;
     }
 
+    @Override
+    public boolean isNonBlocking() {
+        // generation加载之前构建key会同步访问远程缓存
+        return isKeyGenerationLoaded();
+    }
+
+    /**
+     * RKeys scans all master nodes in cluster mode, and splits the UNLINK by slot.
+     */
+    @Override
+    protected KeyScanner keyScanner() {
+        return new KeyScanner() {
+            @Override
+            public ScanCursor scan(final byte[] pattern, final int count) {
+                final String p = new String(pattern, StandardCharsets.UTF_8);
+                // 迭代器按需执行SCAN，每次取出count个key
+                final Iterator<String> it = client.getKeys().getKeysByPattern(p, count).iterator();
+                return () -> {
+                    if (!it.hasNext()) {
+                        return null;
+                    }
+                    final List<byte[]> page = new ArrayList<>(count);
+                    while (page.size() < count && it.hasNext()) {
+                        page.add(it.next().getBytes(StandardCharsets.UTF_8));
+                    }
+                    return page;
+                };
+            }
+
+            @Override
+            public void unlink(final List<byte[]> keys) {
+                client.getKeys().unlink(keys.stream()
+                        .map(k -> new String(k, StandardCharsets.UTF_8)).toArray(String[]::new));
+            }
+        };
+    }
+
+    @Override
+    protected LockCommands lockCommands() {
+        return new LockCommands() {
+            @Override
+            public boolean setIfAbsent(final byte[] key, final byte[] owner, final long ttlMillis) {
+                return client.getBucket(toName(key), getCodec()).setIfAbsent(owner, Duration.ofMillis(ttlMillis));
+            }
+
+            @Override
+            public boolean compareAndDelete(final byte[] key, final byte[] owner, final byte[] channel) {
+                return eval(UNLOCK_SCRIPT, key, owner, channel);
+            }
+
+            @Override
+            public boolean compareAndExpire(final byte[] key, final byte[] owner, final long ttlMillis) {
+                return eval(RENEW_SCRIPT, key, owner, String.valueOf(ttlMillis).getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public long increment(final byte[] key) {
+                return client.getAtomicLong(toName(key)).incrementAndGet();
+            }
+
+            @Override
+            public AutoCloseable subscribe(final byte[] channel, final Consumer<byte[]> listener) {
+                final RTopic topic = client.getTopic(toName(channel), getCodec());
+                final int id = topic.addListener(byte[].class, (c, msg) -> listener.accept(msg));
+                return () -> topic.removeListener(id);
+            }
+
+            @Override
+            public long generation(final byte[] key, final long min, final long ttlMillis, final boolean increase) {
+                final Long rt = evalLong(GENERATION_SCRIPT, key, String.valueOf(min).getBytes(StandardCharsets.UTF_8),
+                        String.valueOf(ttlMillis).getBytes(StandardCharsets.UTF_8),
+                        (increase ? "1" : "0").getBytes(StandardCharsets.UTF_8));
+                return rt == null ? 0 : rt;
+            }
+
+            private boolean eval(final String script, final byte[] key, final Object... args) {
+                final Long rt = evalLong(script, key, args);
+                return rt != null && rt > 0;
+            }
+
+            private Long evalLong(final String script, final byte[] key, final Object... args) {
+                final String name = toName(key);
+                return client.getScript(getCodec()).eval(name, RScript.Mode.READ_WRITE, script,
+                        RScript.ReturnType.INTEGER, Collections.<Object>singletonList(name), args);
+            }
+
+            private String toName(final byte[] key) {
+                return new String(key, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
     @Override
     public <T> T unwrap(final Class<T> clazz) {
         throw new UnsupportedOperationException("RedissonCache does not support unwrap");
@@ -106,20 +214,63 @@ public class RedissonCache<K, V> extends AbstractExternalCache<K, V> {
         return null;
     }
 
+    private void setTimeout(final CacheResult cr) {
+        cr.setTimeout(Duration.ofMillis(config.getAsyncResultTimeoutInMillis()));
+    }
+
+    private RBatch createBatch() {
+        BatchOptions options = BatchOptions.defaults().executionMode(config.getBatchExecutionMode());
+        if (config.isSkipBatchResult()) {
+            options = options.skipResult();
+        }
+        return this.client.createBatch(options);
+    }
+
+    private static boolean isExpired(final CacheValueHolder<?> holder, final long now) {
+        final long expire = holder.getExpireTime();
+        return expire > 0 && now >= expire;
+    }
+
+    private CacheGetResult<V> toGetResult(final CacheValueHolder<V> holder, final long now) {
+        if (Objects.isNull(holder)) {
+            return CacheGetResult.NOT_EXISTS_WITHOUT_MSG;
+        }
+        return isExpired(holder, now) ? CacheGetResult.EXPIRED_WITHOUT_MSG :
+                new CacheGetResult<>(CacheResultCode.SUCCESS, null, holder);
+    }
+
+    /**
+     * Run the callback which decodes values in the decode executor if it is configured, otherwise in the IO thread.
+     */
+    private <T> CompletionStage<ResultData> decode(final RFuture<T> future,
+                                                   final BiFunction<T, Throwable, ResultData> fn) {
+        final Executor executor = config.getDecodeExecutor();
+        return executor == null ? future.handle(fn) : future.handleAsync(fn, executor);
+    }
+
+    private void asyncLogError(final String action, final Object key, final Throwable ex) {
+        JetCacheExecutor.loggingExecutor().execute(() -> logError(action, key, ex));
+    }
+
     @Override
-    @SuppressWarnings({"unchecked"})
     protected CacheGetResult<V> do_GET(final K key) {
         try {
             final RBucket<byte[]> rb = this.client.getBucket(getCacheKey(key), getCodec());
-            final CacheValueHolder<V> holder = decoder(key, rb.get());
-            if (Objects.nonNull(holder)) {
-                final long now = System.currentTimeMillis(), expire = holder.getExpireTime();
-                if (expire > 0 && now >= expire) {
-                    return CacheGetResult.EXPIRED_WITHOUT_MSG;
+            final CacheGetResult<V> result = new CacheGetResult<>(decode(rb.getAsync(), (data, ex) -> {
+                if (ex != null) {
+                    asyncLogError("GET", key, ex);
+                    return new ResultData(ex);
                 }
-                return new CacheGetResult<>(CacheResultCode.SUCCESS, null, holder);
-            }
-            return CacheGetResult.NOT_EXISTS_WITHOUT_MSG;
+                final CacheValueHolder<V> holder = decoder(key, data);
+                if (Objects.isNull(holder)) {
+                    return new ResultData(CacheResultCode.NOT_EXISTS, null, null);
+                } else if (isExpired(holder, System.currentTimeMillis())) {
+                    return new ResultData(CacheResultCode.EXPIRED, null, null);
+                }
+                return new ResultData(CacheResultCode.SUCCESS, null, holder);
+            }));
+            setTimeout(result);
+            return result;
         } catch (Throwable e) {
             logError("GET", key, e);
             return new CacheGetResult<>(e);
@@ -127,38 +278,31 @@ public class RedissonCache<K, V> extends AbstractExternalCache<K, V> {
     }
 
     @Override
-    @SuppressWarnings({"unchecked"})
     protected MultiGetResult<K, V> do_GET_ALL(final Set<? extends K> keys) {
         try {
-            final Map<K, CacheGetResult<V>> retMap = new HashMap<>(1 << 4);
-            if (Objects.nonNull(keys) && !keys.isEmpty()) {
-                final Map<K, String> keyMap = new HashMap<>(keys.size());
-                keys.stream().filter(Objects::nonNull).forEach(k -> {
-                    final String key = getCacheKey(k);
-                    if (Objects.nonNull(key)) {
-                        keyMap.put(k, key);
-                    }
-                });
-                if (!keyMap.isEmpty()) {
-                    final Map<String, byte[]> kvMap = this.client.getBuckets(getCodec()).get(keyMap.values().toArray(new String[0]));
-                    final long now = System.currentTimeMillis();
-                    for (K k : keys) {
-                        final String key = keyMap.get(k);
-                        if (Objects.nonNull(key) && Objects.nonNull(kvMap)) {
-                            final CacheValueHolder<V> holder = decoder(k, kvMap.get(key));
-                            if (Objects.nonNull(holder)) {
-                                final long expire = holder.getExpireTime();
-                                final CacheGetResult<V> ret = (expire > 0 && now >= expire) ? CacheGetResult.EXPIRED_WITHOUT_MSG :
-                                        new CacheGetResult<>(CacheResultCode.SUCCESS, null, holder);
-                                retMap.put(k, ret);
-                                continue;
-                            }
-                        }
-                        retMap.put(k, CacheGetResult.NOT_EXISTS_WITHOUT_MSG);
-                    }
-                }
+            if (Objects.isNull(keys) || keys.isEmpty()) {
+                return new MultiGetResult<>(CacheResultCode.SUCCESS, null, new HashMap<>());
             }
-            return new MultiGetResult<>(CacheResultCode.SUCCESS, null, retMap);
+            final Map<K, String> keyMap = new HashMap<>(keys.size());
+            keys.stream().filter(Objects::nonNull).forEach(k -> keyMap.put(k, getCacheKey(k)));
+            final RFuture<Map<String, byte[]>> future = this.client.getBuckets(getCodec())
+                    .getAsync(keyMap.values().toArray(new String[0]));
+            final MultiGetResult<K, V> result = new MultiGetResult<>(decode(future, (kvMap, ex) -> {
+                if (ex != null) {
+                    asyncLogError("GET_ALL", "keys(" + keys.size() + ")", ex);
+                    return new ResultData(ex);
+                }
+                final Map<K, CacheGetResult<V>> retMap = new HashMap<>(keys.size());
+                final long now = System.currentTimeMillis();
+                for (K k : keys) {
+                    final String key = keyMap.get(k);
+                    final byte[] data = Objects.nonNull(key) && Objects.nonNull(kvMap) ? kvMap.get(key) : null;
+                    retMap.put(k, toGetResult(decoder(k, data), now));
+                }
+                return new ResultData(CacheResultCode.SUCCESS, null, retMap);
+            }));
+            setTimeout(result);
+            return result;
         } catch (Throwable e) {
             logError("GET_ALL", "keys(" + (Objects.nonNull(keys) ? keys.size() : 0) + ")", e);
             return new MultiGetResult<>(e);
@@ -169,8 +313,17 @@ public class RedissonCache<K, V> extends AbstractExternalCache<K, V> {
     protected CacheResult do_PUT(final K key, final V value, final long expireAfterWrite, final TimeUnit timeUnit) {
         try {
             final CacheValueHolder<V> holder = new CacheValueHolder<>(value, timeUnit.toMillis(expireAfterWrite));
-            this.client.getBucket(getCacheKey(key), getCodec()).set(encoder(holder), expireAfterWrite, timeUnit);
-            return CacheGetResult.SUCCESS_WITHOUT_MSG;
+            final RFuture<Void> future = this.client.getBucket(getCacheKey(key), getCodec())
+                    .setAsync(encoder(holder), expireAfterWrite, timeUnit);
+            final CacheResult result = new CacheResult(future.handle((v, ex) -> {
+                if (ex != null) {
+                    asyncLogError("PUT", key, ex);
+                    return new ResultData(ex);
+                }
+                return new ResultData(CacheResultCode.SUCCESS, null, null);
+            }));
+            setTimeout(result);
+            return result;
         } catch (Throwable e) {
             logError("PUT", key, e);
             return new CacheResult(e);
@@ -180,27 +333,48 @@ public class RedissonCache<K, V> extends AbstractExternalCache<K, V> {
     @Override
     protected CacheResult do_PUT_ALL(final Map<? extends K, ? extends V> map, final long expireAfterWrite, final TimeUnit timeUnit) {
         try {
-            if (Objects.nonNull(map) && !map.isEmpty()) {
-                final long expire = timeUnit.toMillis(expireAfterWrite);
-                final RBatch batch = this.client.createBatch();
-                map.forEach((k, v) -> {
-                    final CacheValueHolder<V> holder = new CacheValueHolder<>(v, expire);
-                    batch.getBucket(getCacheKey(k), getCodec()).setAsync(encoder(holder), expireAfterWrite, timeUnit);
-                });
-                batch.execute();
-            }
-            return CacheResult.SUCCESS_WITHOUT_MSG;
+            if (Objects.isNull(map) || map.isEmpty()) {
+                return CacheResult.SUCCESS_WITHOUT_MSG;
+            }
+            final long expire = timeUnit.toMillis(expireAfterWrite);
+            final RBatch batch = createBatch();
+            map.forEach((k, v) -> {
+                final CacheValueHolder<V> holder = new CacheValueHolder<>(v, expire);
+                batch.getBucket(getCacheKey(k), getCodec()).setAsync(encoder(holder), expireAfterWrite, timeUnit);
+            });
+            return batchResult(batch.executeAsync(), "PUT_ALL", "map(" + map.size() + ")");
         } catch (Throwable e) {
             logError("PUT_ALL", "map(" + map.size() + ")", e);
             return new CacheResult(e);
         }
     }
 
+    private CacheResult batchResult(final RFuture<BatchResult<?>> future, final String action, final String key) {
+        final CacheResult result = new CacheResult(future.handle((r, ex) -> {
+            if (ex != null) {
+                asyncLogError(action, key, ex);
+                return new ResultData(ex);
+            }
+            return new ResultData(CacheResultCode.SUCCESS, null, null);
+        }));
+        setTimeout(result);
+        return result;
+    }
+
     @Override
     protected CacheResult do_REMOVE(final K key) {
         try {
-            final boolean ret = this.client.getBucket(getCacheKey(key), getCodec()).delete();
-            return ret ? CacheResult.SUCCESS_WITHOUT_MSG : CacheResult.FAIL_WITHOUT_MSG;
+            final RFuture<Boolean> future = this.client.getBucket(getCacheKey(key), getCodec()).deleteAsync();
+            final CacheResult result = new CacheResult(future.handle((ret, ex) -> {
+                if (ex != null) {
+                    asyncLogError("REMOVE", key, ex);
+                    return new ResultData(ex);
+                }
+                return new ResultData(Boolean.TRUE.equals(ret) ? CacheResultCode.SUCCESS : CacheResultCode.FAIL,
+                        null, null);
+            }));
+            setTimeout(result);
+            return result;
         } catch (Throwable e) {
             logError("REMOVE", key, e);
             return new CacheResult(e);
@@ -210,12 +384,12 @@ public class RedissonCache<K, V> extends AbstractExternalCache<K, V> {
     @Override
     protected CacheResult do_REMOVE_ALL(final Set<? extends K> keys) {
         try {
-            if (Objects.nonNull(keys) && !keys.isEmpty()) {
-                final RBatch batch = this.client.createBatch();
-                keys.forEach(key -> batch.getBucket(getCacheKey(key), getCodec()).deleteAsync());
-                batch.execute();
+            if (Objects.isNull(keys) || keys.isEmpty()) {
+                return CacheResult.SUCCESS_WITHOUT_MSG;
             }
-            return CacheResult.SUCCESS_WITHOUT_MSG;
+            final RBatch batch = createBatch();
+            keys.forEach(key -> batch.getBucket(getCacheKey(key), getCodec()).deleteAsync());
+            return batchResult(batch.executeAsync(), "REMOVE_ALL", "keys(" + keys.size() + ")");
         } catch (Throwable e) {
             logError("REMOVE_ALL", "keys(" + keys.size() + ")", e);
             return new CacheResult(e);
@@ -227,11 +401,21 @@ public class RedissonCache<K, V> extends AbstractExternalCache<K, V> {
         try {
             final Duration expire = Duration.ofMillis(timeUnit.toMillis(expireAfterWrite));
             final CacheValueHolder<V> holder = new CacheValueHolder<>(value, expire.toMillis());
-            final boolean success = this.client.getBucket(getCacheKey(key), getCodec()).setIfAbsent(encoder(holder), expire);
-            return success ? CacheResult.SUCCESS_WITHOUT_MSG : CacheResult.EXISTS_WITHOUT_MSG;
+            final RFuture<Boolean> future = this.client.getBucket(getCacheKey(key), getCodec())
+                    .setIfAbsentAsync(encoder(holder), expire);
+            final CacheResult result = new CacheResult(future.handle((success, ex) -> {
+                if (ex != null) {
+                    asyncLogError("PUT_IF_ABSENT", key, ex);
+                    return new ResultData(ex);
+                }
+                return new ResultData(Boolean.TRUE.equals(success) ? CacheResultCode.SUCCESS : CacheResultCode.EXISTS,
+                        null, null);
+            }));
+            setTimeout(result);
+            return result;
         } catch (Throwable e) {
             logError("PUT_IF_ABSENT", key, e);
             return new CacheResult(e);
         }
     }
-}
\ No newline at end of file
+}
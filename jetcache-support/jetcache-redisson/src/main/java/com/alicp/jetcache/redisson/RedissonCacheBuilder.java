@@ -3,8 +3,11 @@ package com.alicp.jetcache.redisson;
 import com.alicp.jetcache.CacheManager;
 import com.alicp.jetcache.external.ExternalCacheBuilder;
 import com.alicp.jetcache.support.BroadcastManager;
+import org.redisson.api.BatchOptions;
 import org.redisson.api.RedissonClient;
 
+import java.util.concurrent.Executor;
+
 /**
  * Created on 2022/7/12.
  *
@@ -39,6 +42,42 @@ public class RedissonCacheBuilder<T extends ExternalCacheBuilder<T>> extends Ext
         return self();
     }
 
+    public T asyncResultTimeoutInMillis(final long asyncResultTimeoutInMillis) {
+        this.getConfig().setAsyncResultTimeoutInMillis(asyncResultTimeoutInMillis);
+        return self();
+    }
+
+    public void setAsyncResultTimeoutInMillis(final long asyncResultTimeoutInMillis) {
+        this.getConfig().setAsyncResultTimeoutInMillis(asyncResultTimeoutInMillis);
+    }
+
+    public T batchExecutionMode(final BatchOptions.ExecutionMode batchExecutionMode) {
+        this.getConfig().setBatchExecutionMode(batchExecutionMode);
+        return self();
+    }
+
+    public void setBatchExecutionMode(final BatchOptions.ExecutionMode batchExecutionMode) {
+        this.getConfig().setBatchExecutionMode(batchExecutionMode);
+    }
+
+    public T skipBatchResult(final boolean skipBatchResult) {
+        this.getConfig().setSkipBatchResult(skipBatchResult);
+        return self();
+    }
+
+    public void setSkipBatchResult(final boolean skipBatchResult) {
+        this.getConfig().setSkipBatchResult(skipBatchResult);
+    }
+
+    public T decodeExecutor(final Executor decodeExecutor) {
+        this.getConfig().setDecodeExecutor(decodeExecutor);
+        return self();
+    }
+
+    public void setDecodeExecutor(final Executor decodeExecutor) {
+        this.getConfig().setDecodeExecutor(decodeExecutor);
+    }
+
     @Override
     public boolean supportBroadcast() {
         return true;
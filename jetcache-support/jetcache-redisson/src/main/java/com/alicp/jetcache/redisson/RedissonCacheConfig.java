@@ -1,8 +1,12 @@
 package com.alicp.jetcache.redisson;
 
+import com.alicp.jetcache.anno.CacheConsts;
 import com.alicp.jetcache.external.ExternalCacheConfig;
+import org.redisson.api.BatchOptions;
 import org.redisson.api.RedissonClient;
 
+import java.util.concurrent.Executor;
+
 /**
  * Created on 2022/7/12.
  *
@@ -11,6 +15,23 @@ import org.redisson.api.RedissonClient;
 public class RedissonCacheConfig<K, V> extends ExternalCacheConfig<K, V> {
     private RedissonClient redissonClient;
 
+    private long asyncResultTimeoutInMillis = CacheConsts.ASYNC_RESULT_TIMEOUT.toMillis();
+
+    /**
+     * PUT_ALL/REMOVE_ALL使用的RBatch执行模式
+     */
+    private BatchOptions.ExecutionMode batchExecutionMode = BatchOptions.ExecutionMode.IN_MEMORY;
+
+    /**
+     * RBatch不返回每个命令的结果，批量写入只关心是否发送成功时可以减少响应的开销
+     */
+    private boolean skipBatchResult;
+
+    /**
+     * GET/GET_ALL解码value的线程池，为null时在redisson的netty IO线程中解码
+     */
+    private Executor decodeExecutor;
+
     public RedissonClient getRedissonClient() {
         return redissonClient;
     }
@@ -18,4 +39,36 @@ public class RedissonCacheConfig<K, V> extends ExternalCacheConfig<K, V> {
     public void setRedissonClient(final RedissonClient redissonClient) {
         this.redissonClient = redissonClient;
     }
+
+    public long getAsyncResultTimeoutInMillis() {
+        return asyncResultTimeoutInMillis;
+    }
+
+    public void setAsyncResultTimeoutInMillis(final long asyncResultTimeoutInMillis) {
+        this.asyncResultTimeoutInMillis = asyncResultTimeoutInMillis;
+    }
+
+    public BatchOptions.ExecutionMode getBatchExecutionMode() {
+        return batchExecutionMode;
+    }
+
+    public void setBatchExecutionMode(final BatchOptions.ExecutionMode batchExecutionMode) {
+        this.batchExecutionMode = batchExecutionMode;
+    }
+
+    public boolean isSkipBatchResult() {
+        return skipBatchResult;
+    }
+
+    public void setSkipBatchResult(final boolean skipBatchResult) {
+        this.skipBatchResult = skipBatchResult;
+    }
+
+    public Executor getDecodeExecutor() {
+        return decodeExecutor;
+    }
+
+    public void setDecodeExecutor(final Executor decodeExecutor) {
+        this.decodeExecutor = decodeExecutor;
+    }
 }
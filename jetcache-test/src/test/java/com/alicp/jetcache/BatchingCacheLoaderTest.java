@@ -0,0 +1,144 @@
+package com.alicp.jetcache;
+
+import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author huangli
+ */
+public class BatchingCacheLoaderTest {
+
+    private static class CountLoader implements CacheLoader<String, String> {
+        private final AtomicInteger loadAllCount = new AtomicInteger();
+        private volatile boolean fail;
+
+        @Override
+        public String load(String key) throws Throwable {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, String> loadAll(Set<String> keys) throws Throwable {
+            loadAllCount.incrementAndGet();
+            if (fail) {
+                throw new SQLException();
+            }
+            Map<String, String> map = new HashMap<>();
+            for (String k : keys) {
+                map.put(k, k + "_V");
+            }
+            return map;
+        }
+    }
+
+    private static String[] concurrentGet(Cache<String, String> cache, int threadCount) throws Exception {
+        String[] results = new String[threadCount];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch end = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            int index = i;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    results[index] = cache.get("K" + index);
+                } catch (Exception e) {
+                    results[index] = e.getClass().getSimpleName();
+                } finally {
+                    end.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        Assert.assertTrue(end.await(5, TimeUnit.SECONDS));
+        return results;
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        CountLoader loader = new CountLoader();
+        Cache<String, String> cache = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder()
+                .loader(loader)
+                .loaderBatch(100, 200, TimeUnit.MILLISECONDS)
+                .buildCache();
+        String[] results = concurrentGet(cache, 10);
+        for (int i = 0; i < results.length; i++) {
+            Assert.assertEquals("K" + i + "_V", results[i]);
+        }
+        Assert.assertEquals(1, loader.loadAllCount.get());
+
+        // loaded values are cached
+        Assert.assertEquals("K0_V", cache.get("K0"));
+        Assert.assertEquals(1, loader.loadAllCount.get());
+    }
+
+    @Test
+    public void testMaxBatchSize() throws Exception {
+        CountLoader loader = new CountLoader();
+        BatchingCacheLoader<String, String> batchingLoader = new BatchingCacheLoader<>(loader, 10000, 5);
+        Cache<String, String> cache = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder()
+                .loader(batchingLoader)
+                .buildCache();
+        // batch is dispatched when full, not after the window
+        long t = System.currentTimeMillis();
+        String[] results = concurrentGet(cache, 10);
+        Assert.assertTrue(System.currentTimeMillis() - t < 5000);
+        for (int i = 0; i < results.length; i++) {
+            Assert.assertEquals("K" + i + "_V", results[i]);
+        }
+        Assert.assertEquals(2, loader.loadAllCount.get());
+    }
+
+    @Test
+    public void testLoadFail() throws Exception {
+        CountLoader loader = new CountLoader();
+        loader.fail = true;
+        Cache<String, String> cache = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder()
+                .loader(loader)
+                .loaderBatch(100, 100, TimeUnit.MILLISECONDS)
+                .buildCache();
+        String[] results = concurrentGet(cache, 5);
+        for (String r : results) {
+            Assert.assertEquals(CacheInvokeException.class.getSimpleName(), r);
+        }
+        Assert.assertEquals(1, loader.loadAllCount.get());
+    }
+
+    @Test
+    public void testLoadTimeout() throws Throwable {
+        CountDownLatch release = new CountDownLatch(1);
+        CacheLoader<String, String> loader = new CacheLoader<String, String>() {
+            @Override
+            public String load(String key) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Map<String, String> loadAll(Set<String> keys) throws Throwable {
+                release.await();
+                return new HashMap<>();
+            }
+        };
+        BatchingCacheLoader<String, String> batchingLoader =
+                new BatchingCacheLoader<>(loader, 10, 100, Duration.ofMillis(100));
+        long t = System.currentTimeMillis();
+        try {
+            batchingLoader.load("K1");
+            Assert.fail();
+        } catch (CacheInvokeException e) {
+            // the caller gives up after the timeout although loadAll is still running
+            Assert.assertTrue(System.currentTimeMillis() - t < 5000);
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.alicp.jetcache;
+
+import com.alicp.jetcache.anno.CacheConsts;
+import com.alicp.jetcache.embedded.CaffeineCacheBuilder;
+import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
+import com.alicp.jetcache.event.CacheClearEvent;
+import com.alicp.jetcache.event.CacheEvent;
+import com.alicp.jetcache.external.MockRemoteCacheBuilder;
+import com.alicp.jetcache.support.BroadcastManager;
+import com.alicp.jetcache.support.CacheMessage;
+import com.alicp.jetcache.support.CacheNotifyMonitor;
+import com.alicp.jetcache.support.JavaValueDecoder;
+import com.alicp.jetcache.support.JavaValueEncoder;
+import com.alicp.jetcache.test.anno.TestUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author huangli
+ */
+public class CacheClearTest {
+
+    @Test
+    public void testEmbedded() {
+        List<CacheEvent> events = new CopyOnWriteArrayList<>();
+        Cache<String, String> c1 = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder()
+                .addMonitor(events::add)
+                .buildCache();
+        Cache<String, String> c2 = CaffeineCacheBuilder.createCaffeineCacheBuilder().buildCache();
+        for (Cache<String, String> c : new Cache[]{c1, c2}) {
+            c.put("K1", "V1");
+            c.put("K2", "V2");
+            assertTrue(c.CLEAR().isSuccess());
+            assertNull(c.get("K1"));
+            assertNull(c.get("K2"));
+            c.put("K1", "V1");
+            assertEquals("V1", c.get("K1"));
+        }
+        TestUtil.waitUtil(true, () -> events.stream().anyMatch(e -> e instanceof CacheClearEvent));
+
+        Cache<String, String> proxy = new SimpleProxyCache<>(c1);
+        proxy.clear();
+        assertNull(c1.get("K1"));
+    }
+
+    @Test
+    public void testMultiLevelAndBroadcast() throws Exception {
+        Cache<String, String> local = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder().buildCache();
+        Cache<String, String> remote = MockRemoteCacheBuilder.createMockRemoteCacheBuilder()
+                .keyPrefix("clearTest_")
+                .buildCache();
+        Cache<String, String> mc = MultiLevelCacheBuilder.createMultiLevelCacheBuilder()
+                .addCache(local, remote)
+                .buildCache();
+
+        List<CacheMessage> messages = new CopyOnWriteArrayList<>();
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        TestBroadcastManager bm = new TestBroadcastManager(cacheManager, messages);
+        cacheManager.putBroadcastManager(CacheConsts.DEFAULT_AREA, bm);
+        cacheManager.putCache(CacheConsts.DEFAULT_AREA, "clearTest", mc);
+        mc.config().getMonitors().add(new CacheNotifyMonitor(cacheManager, "clearTest"));
+
+        mc.put("K1", "V1");
+        messages.clear();
+        assertTrue(mc.CLEAR().isSuccess());
+        assertNull(local.get("K1"));
+        assertNull(remote.get("K1"));
+        TestUtil.waitUtil(1, messages::size);
+        assertEquals(CacheMessage.TYPE_CLEAR, messages.get(0).getType());
+
+        // 其它JVM发来的消息只清除本地缓存
+        local.put("K2", "V2");
+        remote.put("K2", "V2");
+        CacheMessage m = messages.get(0);
+        m.setSourceId("otherJvm");
+        bm.receive(m);
+        assertNull(local.get("K2"));
+        assertEquals("V2", remote.get("K2"));
+
+        // 自己发出的消息忽略
+        local.put("K2", "V2");
+        m.setSourceId(bm.getSourceId());
+        bm.receive(m);
+        assertEquals("V2", local.get("K2"));
+    }
+
+    private static class TestBroadcastManager extends BroadcastManager {
+        private final List<CacheMessage> messages;
+
+        TestBroadcastManager(CacheManager cacheManager, List<CacheMessage> messages) {
+            super(cacheManager);
+            this.messages = messages;
+        }
+
+        @Override
+        public CacheResult publish(CacheMessage cacheMessage) {
+            messages.add(cacheMessage);
+            return CacheResult.SUCCESS_WITHOUT_MSG;
+        }
+
+        @Override
+        public void startSubscribe() {
+        }
+
+        void receive(CacheMessage m) {
+            processNotification(JavaValueEncoder.INSTANCE.apply(m), JavaValueDecoder.INSTANCE);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.alicp.jetcache;
 
 import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
+import com.alicp.jetcache.external.MockRemoteCacheBuilder;
 import com.alicp.jetcache.support.DefaultCacheMonitor;
+import com.alicp.jetcache.support.JetCacheExecutor;
 import com.alicp.jetcache.test.AbstractCacheTest;
 import org.junit.Assert;
 import org.junit.Test;
@@ -11,6 +13,10 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -30,6 +36,170 @@ public class LoadingCacheTest extends AbstractCacheTest {
         errorTest();
     }
 
+    @Test
+    public void staleTest() throws Exception {
+        staleTest(LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder());
+        staleTest(MockRemoteCacheBuilder.createMockRemoteCacheBuilder());
+    }
+
+    @Test
+    public void stalePutIfAbsentTest() throws Exception {
+        stalePutIfAbsentTest(LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder());
+        stalePutIfAbsentTest(MockRemoteCacheBuilder.createMockRemoteCacheBuilder());
+    }
+
+    private static void stalePutIfAbsentTest(AbstractCacheBuilder builder) throws Exception {
+        Cache cache = builder.staleWhileRevalidate(1000, TimeUnit.MILLISECONDS).buildCache();
+        // ttl比保留时间短，写入后马上读也不能是EXPIRED
+        Assert.assertTrue(cache.PUT_IF_ABSENT("K1", "V1", 200, TimeUnit.MILLISECONDS).isSuccess());
+        CacheGetResult r = cache.GET("K1");
+        Assert.assertEquals(CacheResultCode.SUCCESS, r.getResultCode());
+        Assert.assertEquals("V1", r.getValue());
+        Assert.assertEquals(CacheResultCode.EXISTS,
+                cache.PUT_IF_ABSENT("K1", "V2", 200, TimeUnit.MILLISECONDS).getResultCode());
+        Thread.sleep(300);
+        Assert.assertEquals(CacheResultCode.EXPIRED, cache.GET("K1").getResultCode());
+        cache.close();
+    }
+
+    @Test
+    public void loaderTimeoutTest() throws Exception {
+        AtomicBoolean slow = new AtomicBoolean(false);
+        Cache cache = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder()
+                .expireAfterWrite(50, TimeUnit.MILLISECONDS)
+                .staleIfError(10, TimeUnit.SECONDS)
+                .loaderTimeout(100, TimeUnit.MILLISECONDS)
+                .loader((key) -> {
+                    if (slow.get()) {
+                        Thread.sleep(1000);
+                    }
+                    return key + "_V";
+                })
+                .buildCache();
+        Assert.assertEquals("K1_V", cache.get("K1"));
+
+        slow.set(true);
+        Thread.sleep(60);
+        long t = System.currentTimeMillis();
+        // timeout, the stale value is returned
+        Assert.assertEquals("K1_V", cache.get("K1"));
+        // timeout, no stale value
+        try {
+            cache.get("K2");
+            Assert.fail();
+        } catch (CacheInvokeException e) {
+            // expected
+        }
+        Assert.assertTrue(System.currentTimeMillis() - t < 1000);
+        cache.close();
+    }
+
+    @Test
+    public void hedgedLoadTest() throws Exception {
+        AtomicBoolean slow = new AtomicBoolean(false);
+        AtomicInteger count = new AtomicInteger();
+        Cache cache = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder()
+                .loaderHedgePercentile(0.9)
+                .loader((key) -> {
+                    if ("K_SLOW".equals(key)) {
+                        count.incrementAndGet();
+                    }
+                    if (slow.compareAndSet(true, false)) {
+                        Thread.sleep(2000);
+                    }
+                    return key + "_V";
+                })
+                .buildCache();
+        // collect latency samples
+        for (int i = 0; i < 32; i++) {
+            Assert.assertEquals("K" + i + "_V", cache.get("K" + i));
+        }
+
+        slow.set(true);
+        long t = System.currentTimeMillis();
+        Assert.assertEquals("K_SLOW_V", cache.get("K_SLOW"));
+        Assert.assertTrue(System.currentTimeMillis() - t < 1000);
+        Assert.assertEquals(2, count.get());
+        cache.close();
+    }
+
+    @Test
+    public void hedgeDelayExcludeQueueTimeTest() throws Exception {
+        TimedLoader timedLoader = new TimedLoader();
+        for (int i = 0; i < 16; i++) {
+            timedLoader.record(TimeUnit.MILLISECONDS.toNanos(1), 0.9);
+        }
+        Assert.assertEquals(TimedLoader.MIN_HEDGE_DELAY_NANOS, timedLoader.getHedgeDelayNanos());
+
+        ExecutorService oldExecutor = JetCacheExecutor.loaderExecutor();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        JetCacheExecutor.setLoaderExecutor(executor);
+        try {
+            // the load waits 100ms in the queue of loader executor, it's much longer than the hedge delay
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            });
+            AtomicInteger count = new AtomicInteger();
+            Assert.assertEquals("K1_V", timedLoader.load("K1", k -> {
+                count.incrementAndGet();
+                return k + "_V";
+            }, null, 0.9));
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+            // fast loads are not hedged
+            Assert.assertEquals(1, count.get());
+        } finally {
+            JetCacheExecutor.setLoaderExecutor(oldExecutor);
+        }
+    }
+
+    private static void staleTest(AbstractCacheBuilder builder) throws Exception {
+        AtomicInteger count = new AtomicInteger(0);
+        AtomicBoolean fail = new AtomicBoolean(false);
+        DefaultCacheMonitor monitor = new DefaultCacheMonitor("staleTest");
+        Cache cache = builder.expireAfterWrite(200, TimeUnit.MILLISECONDS)
+                .staleWhileRevalidate(200, TimeUnit.MILLISECONDS)
+                .staleIfError(1000, TimeUnit.MILLISECONDS)
+                .addMonitor(monitor)
+                .loader((key) -> {
+                    if (fail.get()) {
+                        throw new SQLException();
+                    }
+                    return key + "_V" + count.getAndIncrement();
+                })
+                .buildCache();
+        Assert.assertEquals("K1_V0", cache.get("K1"));
+
+        // logically expired, the stale value is returned and reloaded in background
+        Thread.sleep(300);
+        Assert.assertEquals(CacheResultCode.EXPIRED, cache.GET("K1").getResultCode());
+        Assert.assertEquals("K1_V0", cache.get("K1"));
+        Thread.sleep(100);
+        Assert.assertEquals("K1_V1", cache.get("K1"));
+        Assert.assertEquals(2, count.get());
+
+        // out of stale-while-revalidate window, load failed, the stale value is returned
+        fail.set(true);
+        Thread.sleep(400);
+        Assert.assertEquals("K1_V1", cache.get("K1"));
+
+        // out of stale-if-error window
+        Thread.sleep(800);
+        try {
+            cache.get("K1");
+            Assert.fail();
+        } catch (CacheInvokeException e) {
+            // expected
+        }
+        Assert.assertEquals(1, monitor.getCacheStat().getStaleCount());
+        Assert.assertEquals(1, monitor.getCacheStat().getStaleIfErrorCount());
+        cache.close();
+    }
+
     public static void loadingCacheTest(Cache cache, long waitMillis) throws Exception {
         AtomicInteger count = new AtomicInteger(0);
         CacheLoader oldLoader = cache.config().getLoader();
@@ -2,6 +2,7 @@ package com.alicp.jetcache;
 
 import com.alicp.jetcache.embedded.CaffeineCacheBuilder;
 import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
+import com.alicp.jetcache.event.CachePutEvent;
 import com.alicp.jetcache.external.AbstractExternalCache;
 import com.alicp.jetcache.external.MockRemoteCacheBuilder;
 import com.alicp.jetcache.support.DefaultCacheMonitor;
@@ -16,6 +17,7 @@ import java.sql.SQLException;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -63,6 +65,42 @@ public class RefreshCacheTest extends AbstractCacheTest {
         computeIfAbsentTest(cache);
     }
 
+    @Test
+    public void earlyRefreshTest() throws Exception {
+        AtomicInteger count = new AtomicInteger(0);
+        CountDownLatch putLatch = new CountDownLatch(2);
+        Cache<Object, Object> cache = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder()
+                .expireAfterWrite(10, TimeUnit.SECONDS)
+                .loader((key) -> {
+                    // the load time must be at least 1ms, or there is no sample for the gap
+                    Thread.sleep(5);
+                    return key + "_V" + count.getAndIncrement();
+                })
+                .refreshPolicy(RefreshPolicy.newEarlyRefreshPolicy(0.001))
+                .addMonitor(event -> {
+                    if (event instanceof CachePutEvent) {
+                        putLatch.countDown();
+                    }
+                })
+                .buildCache();
+        Assert.assertEquals("K1_V0", cache.get("K1"));
+
+        // with a tiny beta the gap is far less than the remaining ttl, reads never trigger early refresh
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals("K1_V0", cache.get("K1"));
+        }
+        Assert.assertEquals(1, count.get());
+
+        // with a huge beta the gap always exceeds the remaining ttl, the stale value is returned and reloaded in background
+        cache.config().getRefreshPolicy().setEarlyRefreshBeta(1e12);
+        Assert.assertEquals("K1_V0", cache.get("K1"));
+        Assert.assertTrue(putLatch.await(5, TimeUnit.SECONDS));
+        cache.config().getRefreshPolicy().setEarlyRefreshBeta(0.001);
+        Assert.assertEquals("K1_V1", cache.get("K1"));
+        Assert.assertEquals(2, count.get());
+        cache.close();
+    }
+
     public static void computeIfAbsentTest(Cache<Object, Object> cache) throws Exception {
         RefreshPolicy oldPolicy = cache.config().getRefreshPolicy();
         cache.config().setRefreshPolicy(RefreshPolicy.newPolicy(50, TimeUnit.MILLISECONDS));
@@ -223,7 +261,7 @@ public class RefreshCacheTest extends AbstractCacheTest {
             Assert.assertEquals(3, monitor.getCacheStat().getGetHitCount());
             Assert.assertEquals(2 + 2/*timestamp*/, monitor.getCacheStat().getGetMissCount());
             Assert.assertEquals(4, monitor.getCacheStat().getLoadCount());
-            Assert.assertEquals(4 + 2/*timestamp*/ + 2/*tryLock -> putIfAbsent*/, monitor.getCacheStat().getPutCount());
+            Assert.assertEquals(4 + 2/*timestamp*/, monitor.getCacheStat().getPutCount());
         } else {
             Assert.assertEquals(5, monitor.getCacheStat().getGetCount());
             Assert.assertEquals(3, monitor.getCacheStat().getGetHitCount());
@@ -237,7 +275,7 @@ public class RefreshCacheTest extends AbstractCacheTest {
             Assert.assertEquals(4, monitor.getCacheStat().getGetHitCount());
             Assert.assertEquals(2 + 2, monitor.getCacheStat().getGetMissCount());
             Assert.assertEquals(4, monitor.getCacheStat().getLoadCount());
-            Assert.assertEquals(4 + 2 + 2, monitor.getCacheStat().getPutCount());
+            Assert.assertEquals(4 + 2, monitor.getCacheStat().getPutCount());
         } else {
             Assert.assertEquals(6, monitor.getCacheStat().getGetCount());
             Assert.assertEquals(4, monitor.getCacheStat().getGetHitCount());
@@ -23,7 +23,11 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -334,4 +338,52 @@ public class CacheHandlerTest {
         assertEquals(x1, x2);
     }
 
+    public static class ReactiveService {
+        private int count;
+
+        public Mono<Integer> mono(int p) {
+            return Mono.fromSupplier(() -> p + count++);
+        }
+
+        public Flux<Integer> flux(int p) {
+            return Flux.defer(() -> Flux.just(p, count++));
+        }
+    }
+
+    @Test
+    public void testMono() throws Throwable {
+        ReactiveService service = new ReactiveService();
+        Method method = ReactiveService.class.getMethod("mono", int.class);
+        cachedAnnoConfig.setDefineMethod(method);
+        Object[] args = new Object[]{100};
+        Mono<Integer> m1 = (Mono<Integer>) CacheHandler.invoke(createCachedInvokeContext(() -> method.invoke(service, args), method, args));
+        // 订阅时才执行原方法
+        assertEquals(0, service.count);
+        assertEquals(100, m1.block());
+        Mono<Integer> m2 = (Mono<Integer>) CacheHandler.invoke(createCachedInvokeContext(() -> method.invoke(service, args), method, args));
+        assertEquals(100, m2.block());
+        assertEquals(1, service.count);
+        assertEquals(100, cache.get(args));
+
+        cachedAnnoConfig.setPostCondition("result > 1000");
+        cachedAnnoConfig.setPostConditionEvaluator(null);
+        Object[] args2 = new Object[]{200};
+        m1 = (Mono<Integer>) CacheHandler.invoke(createCachedInvokeContext(() -> method.invoke(service, args2), method, args2));
+        assertEquals(201, m1.block());
+        assertNull(cache.get(args2));
+    }
+
+    @Test
+    public void testFlux() throws Throwable {
+        ReactiveService service = new ReactiveService();
+        Method method = ReactiveService.class.getMethod("flux", int.class);
+        cachedAnnoConfig.setDefineMethod(method);
+        Object[] args = new Object[]{100};
+        Flux<Integer> f1 = (Flux<Integer>) CacheHandler.invoke(createCachedInvokeContext(() -> method.invoke(service, args), method, args));
+        assertEquals(Arrays.asList(100, 0), f1.collectList().block());
+        Flux<Integer> f2 = (Flux<Integer>) CacheHandler.invoke(createCachedInvokeContext(() -> method.invoke(service, args), method, args));
+        assertEquals(Arrays.asList(100, 0), f2.collectList().block());
+        assertEquals(1, service.count);
+    }
+
 }
@@ -40,8 +40,23 @@ public class DefaultEncoderParserTest {
         assertEquals(JavaValueEncoder.class, encoder.getClass());
         assertFalse(encoder.isUseIdentityNumber());
 
+        encoder = (AbstractValueEncoder) parser.parseEncoder("kryo5+compact");
+        assertEquals(CompactValueEncoder.class, encoder.getClass());
+        assertEquals(Kryo5ValueEncoder.class, ((CompactValueEncoder) encoder).getPayloadEncoder().getClass());
+
+        encoder = (AbstractValueEncoder) parser.parseEncoder("kryo5+lz4+compact?compressThreshold=2048");
+        assertEquals(CompactValueEncoder.class, encoder.getClass());
+        Lz4ValueEncoder lz4 = (Lz4ValueEncoder) ((CompactValueEncoder) encoder).getPayloadEncoder();
+        assertEquals(2048, lz4.getThreshold());
+        assertEquals(Kryo5ValueEncoder.class, lz4.getPayloadEncoder().getClass());
+        lz4 = (Lz4ValueEncoder) parser.parseEncoder("java+lz4");
+        assertEquals(Lz4ValueEncoder.DEFAULT_THRESHOLD, lz4.getThreshold());
+
         assertThrows(CacheConfigException.class, () -> parser.parseEncoder(null));
         assertThrows(CacheConfigException.class, () -> parser.parseEncoder("xxx"));
+        assertThrows(CacheConfigException.class, () -> parser.parseEncoder("kryo5+xxx"));
+        assertThrows(CacheConfigException.class, () -> parser.parseEncoder("kryo5+lz4?compressThreshold=x"));
+        assertThrows(CacheConfigException.class, () -> parser.parseEncoder("kryo5+compact?useIdentityNumber=false"));
     }
 
     @Test
@@ -55,7 +70,13 @@ public class DefaultEncoderParserTest {
         assertEquals(JavaValueDecoder.class, decoder.getClass());
         assertFalse(decoder.isUseIdentityNumber());
 
+        decoder = (AbstractValueDecoder) parser.parseDecoder("kryo5+lz4+compact");
+        assertEquals(Kryo5ValueDecoder.class, decoder.getClass());
+        assertTrue(decoder.isUseIdentityNumber());
+
         assertThrows(CacheConfigException.class, () -> parser.parseDecoder(null));
         assertThrows(CacheConfigException.class, () -> parser.parseDecoder("xxx"));
+        assertThrows(CacheConfigException.class, () -> parser.parseDecoder("kryo5+xxx"));
+        assertThrows(CacheConfigException.class, () -> parser.parseDecoder("kryo5+compact?useIdentityNumber=false"));
     }
 }
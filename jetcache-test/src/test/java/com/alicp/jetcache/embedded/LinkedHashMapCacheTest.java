@@ -7,6 +7,7 @@ import com.alicp.jetcache.Cache;
 import com.alicp.jetcache.CacheConfig;
 import com.alicp.jetcache.CacheResultCode;
 import com.alicp.jetcache.VirtualThreadUtil;
+import com.alicp.jetcache.support.BinaryKeyConvertor;
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.cglib.core.ReflectUtils;
@@ -75,5 +76,12 @@ public class LinkedHashMapCacheTest extends AbstractEmbeddedCacheTest {
         Assert.assertEquals(CacheResultCode.NOT_EXISTS, cache.GET("K1").getResultCode());
     }
 
-
+    @Test
+    public void binaryKeyTest() {
+        cache = EmbeddedCacheBuilder.createEmbeddedCacheBuilder()
+                .buildFunc(getBuildFunc()).keyConvertor(BinaryKeyConvertor.INSTANCE).buildCache();
+        cache.put(new Object[]{1, "2"}, "V");
+        Assert.assertEquals("V", cache.get(new Object[]{1, "2"}));
+        Assert.assertNull(cache.get(new Object[]{1, "3"}));
+    }
 }
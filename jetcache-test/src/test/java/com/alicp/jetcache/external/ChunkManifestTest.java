@@ -0,0 +1,75 @@
+package com.alicp.jetcache.external;
+
+import org.junit.Assert;
+import org.junit.Test;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author huangli
+ */
+public class ChunkManifestTest {
+
+    @Test
+    public void test() {
+        byte[] value = new byte[250];
+        new Random().nextBytes(value);
+        ChunkManifest m = ChunkManifest.create(12345L, value.length, 100);
+        Assert.assertEquals(3, m.chunkCount());
+
+        byte[] bytes = m.encode();
+        Assert.assertTrue(ChunkManifest.isManifest(bytes));
+        ChunkManifest m2 = ChunkManifest.parse(bytes);
+        Assert.assertEquals(12345L, m2.getExpireTime());
+        Assert.assertEquals(250, m2.getTotalLength());
+        Assert.assertEquals(100, m2.getChunkSize());
+        Assert.assertEquals(m.getGeneration(), m2.getGeneration());
+
+        List<byte[]> chunks = new ArrayList<>();
+        for (int i = 0; i < m.chunkCount(); i++) {
+            chunks.add(m.chunk(value, i));
+        }
+        Assert.assertEquals(50, chunks.get(2).length);
+        Assert.assertArrayEquals(value, m2.assemble(chunks));
+
+        chunks.set(1, null);
+        Assert.assertNull(m2.assemble(chunks));
+        Assert.assertNull(m2.assemble(chunks.subList(0, 1)));
+    }
+
+    @Test
+    public void testChunkKeys() {
+        ChunkManifest m = ChunkManifest.create(0, 250, 100);
+        byte[][] keys = m.chunkKeys("K".getBytes());
+        Assert.assertEquals(3, keys.length);
+        Assert.assertEquals("{K}:chunk:" + Long.toHexString(m.getGeneration()) + ":2", new String(keys[2]));
+
+        // 每次写入的chunk key都不同
+        ChunkManifest m2 = ChunkManifest.create(0, 250, 100);
+        Assert.assertFalse(Arrays.equals(keys[0], m2.chunkKeys("K".getBytes())[0]));
+    }
+
+    @Test
+    public void testChunkKeySlot() {
+        ChunkManifest m = ChunkManifest.create(0, 250, 100);
+        for (String key : new String[]{"K", "p_{tag}K", "p_{K"}) {
+            int slot = JedisClusterCRC16.getSlot(key.getBytes());
+            for (byte[] chunkKey : m.chunkKeys(key.getBytes())) {
+                Assert.assertEquals(key, slot, JedisClusterCRC16.getSlot(chunkKey));
+            }
+        }
+        Assert.assertEquals("p_{tag}K:chunk:" + Long.toHexString(m.getGeneration()) + ":0",
+                new String(m.chunkKeys("p_{tag}K".getBytes())[0]));
+    }
+
+    @Test
+    public void testNotManifest() {
+        Assert.assertFalse(ChunkManifest.isManifest(null));
+        Assert.assertFalse(ChunkManifest.isManifest(new byte[29]));
+        Assert.assertNull(ChunkManifest.parse("V".getBytes()));
+    }
+}
@@ -42,4 +42,22 @@ public class ExternalCacheBuildKeyTest {
         strKey = "" + new String(RefreshCache.TIMESTAMP_KEY_SUFFIX);
         assertArrayEquals(strKey.getBytes(), c.buildKey(strKey.getBytes()));
     }
+
+    @Test
+    public void testPrefix() {
+        String[] prefix = {"p1_"};
+        MockRemoteCache c = (MockRemoteCache) MockRemoteCacheBuilder.createMockRemoteCacheBuilder()
+                .keyPrefixSupplier(() -> prefix[0])
+                .buildCache();
+        assertArrayEquals("p1_K".getBytes(), c.buildKey("K"));
+        assertArrayEquals("p1_K2".getBytes(), c.buildKey("K2"));
+
+        prefix[0] = "p2_";
+        assertArrayEquals("p2_K".getBytes(), c.buildKey("K"));
+
+        ((ExternalCacheConfig) c.config()).setKeyPrefixSupplier(() -> "p3_");
+        assertArrayEquals("p3_K".getBytes(), c.buildKey("K"));
+        c.config().setKeyConvertor((KeyConvertor) o -> "C");
+        assertArrayEquals("p3_C".getBytes(), c.buildKey("K"));
+    }
 }
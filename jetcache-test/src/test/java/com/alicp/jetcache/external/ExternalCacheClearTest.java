@@ -0,0 +1,158 @@
+package com.alicp.jetcache.external;
+
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.CacheConfigException;
+import com.alicp.jetcache.CacheResult;
+import com.alicp.jetcache.CacheResultCode;
+import com.alicp.jetcache.test.anno.TestUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author huangli
+ */
+public class ExternalCacheClearTest {
+
+    @Test
+    public void testScanPattern() {
+        assertArrayEquals("p_*".getBytes(StandardCharsets.UTF_8),
+                AbstractExternalCache.scanPattern("p_".getBytes(StandardCharsets.UTF_8)));
+        assertArrayEquals("a\\*b\\?c\\[d\\]e\\\\*".getBytes(StandardCharsets.UTF_8),
+                AbstractExternalCache.scanPattern("a*b?c[d]e\\".getBytes(StandardCharsets.UTF_8)));
+        assertArrayEquals("*".getBytes(StandardCharsets.UTF_8), AbstractExternalCache.scanPattern(new byte[0]));
+    }
+
+    @Test
+    public void testClear() {
+        String[] prefix = {"cx_"};
+        Cache<String, String> c1 = MockRemoteCacheBuilder.createMockRemoteCacheBuilder()
+                .keyPrefixSupplier(() -> prefix[0])
+                .clearBatchSize(2)
+                .buildCache();
+        // 这个key可以被没有转义的pattern "c*_*" 匹配上
+        c1.put("K0", "X0");
+        prefix[0] = "c*_";
+        for (int i = 0; i < 5; i++) {
+            c1.put("K" + i, "V" + i);
+        }
+
+        CacheResult r = c1.CLEAR();
+        assertTrue(r.isSuccess());
+        assertEquals("deleted 5 keys", r.getMessage());
+        for (int i = 0; i < 5; i++) {
+            assertNull(c1.get("K" + i));
+        }
+
+        r = c1.CLEAR();
+        assertEquals("deleted 0 keys", r.getMessage());
+
+        prefix[0] = "cx_";
+        assertEquals("X0", c1.get("K0"));
+        // clear()不等待后台的删除完成
+        c1.clear();
+        TestUtil.waitUtil(null, () -> c1.get("K0"));
+    }
+
+    @Test
+    public void testRateLimitAndError() {
+        List<List<byte[]>> unlinked = new ArrayList<>();
+        AtomicInteger closeCount = new AtomicInteger();
+        MockRemoteCacheConfig<Object, Object> config = new MockRemoteCacheConfig<>();
+        config.setKeyPrefix("p_");
+        config.setClearBatchSize(3);
+        config.setClearKeysPerSecond(100);
+        MockRemoteCache<Object, Object> cache = new MockRemoteCache<Object, Object>(config) {
+            @Override
+            protected KeyScanner keyScanner() {
+                return new KeyScanner() {
+                    @Override
+                    public ScanCursor scan(byte[] pattern, int count) {
+                        int[] index = new int[1];
+                        return new ScanCursor() {
+                            @Override
+                            public List<byte[]> next() {
+                                if (index[0] >= 5) {
+                                    return null;
+                                }
+                                int i = index[0]++;
+                                List<byte[]> page = new ArrayList<>();
+                                page.add(new byte[]{(byte) i});
+                                page.add(new byte[]{(byte) (i + 10)});
+                                return page;
+                            }
+
+                            @Override
+                            public void close() {
+                                closeCount.incrementAndGet();
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void unlink(List<byte[]> keys) {
+                        assertTrue(keys.size() <= 3);
+                        unlinked.add(new ArrayList<>(keys));
+                    }
+                };
+            }
+        };
+        long t = System.currentTimeMillis();
+        CacheResult r = cache.CLEAR();
+        assertEquals(CacheResultCode.SUCCESS, r.getResultCode());
+        assertEquals("deleted 10 keys", r.getMessage());
+        assertEquals(4, unlinked.size());
+        // 10个key，每秒100个，至少要100ms
+        assertTrue(System.currentTimeMillis() - t >= 90);
+        assertEquals(1, closeCount.get());
+
+        MockRemoteCache<Object, Object> errorCache = new MockRemoteCache<Object, Object>(config) {
+            @Override
+            protected KeyScanner keyScanner() {
+                return new KeyScanner() {
+                    @Override
+                    public ScanCursor scan(byte[] pattern, int count) {
+                        return () -> {
+                            throw new IllegalStateException("mock error");
+                        };
+                    }
+
+                    @Override
+                    public void unlink(List<byte[]> keys) {
+                    }
+                };
+            }
+        };
+        assertEquals(CacheResultCode.FAIL, errorCache.CLEAR().getResultCode());
+    }
+
+    @Test
+    public void testPrefixWithoutSeparator() {
+        Cache<String, String> user = MockRemoteCacheBuilder.createMockRemoteCacheBuilder()
+                .keyPrefix("user")
+                .buildCache();
+        user.put("K1", "V1");
+        // "user*"会匹配到"userProfile"等其它缓存的key，不允许清除
+        assertEquals(CacheResultCode.FAIL, user.CLEAR().getResultCode());
+        assertEquals("V1", user.get("K1"));
+        assertEquals(CacheResultCode.FAIL, MockRemoteCacheBuilder.createMockRemoteCacheBuilder()
+                .keyPrefix("").buildCache().CLEAR().getResultCode());
+    }
+
+    @Test
+    public void testConfig() {
+        assertThrows(CacheConfigException.class, () -> MockRemoteCacheBuilder.createMockRemoteCacheBuilder()
+                .clearBatchSize(0).buildCache());
+        assertThrows(CacheConfigException.class, () -> MockRemoteCacheBuilder.createMockRemoteCacheBuilder()
+                .clearKeysPerSecond(-1).buildCache());
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
 import java.util.Date;
 
 /**
@@ -49,6 +51,38 @@ public class ExternalKeyUtilTest {
         }
     }
 
+    @Test
+    public void testUtf8() throws Exception {
+        String[] keys = {"", "abc", "\u00e9t\u00e9", "\u4e2d\u6587key", "\ud83d\ude00x", "a\ud83dx", "\ude00", "\ud83d"};
+        for (String k : keys) {
+            byte[] expect = ("PRI" + k).getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(k.getBytes(StandardCharsets.UTF_8).length, ExternalKeyUtil.utf8Length(k));
+            Assert.assertArrayEquals(expect, buildKey(k));
+        }
+        Assert.assertArrayEquals("PRIInteger123".getBytes(StandardCharsets.UTF_8), buildKey(123));
+        Assert.assertArrayEquals(buildKey("123"),
+                ExternalKeyUtil.buildKeyAfterConvert("123", "PRI".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testDate() throws Exception {
+        Date d = new Date();
+        String expect = "PRIDate" + new SimpleDateFormat("yyyyMMddHHmmss,SSS").format(d);
+        Assert.assertArrayEquals(expect.getBytes(), buildKey(d));
+    }
+
+    @Test
+    public void testSerializableKey() throws Exception {
+        C c = new C();
+        c.b = new String(new char[100 * 1024]);
+        byte[] large = buildKey(c);
+        c.b = "123";
+        byte[] small = buildKey(c);
+        Assert.assertTrue(small.length < large.length);
+        Assert.assertArrayEquals(small, buildKey(c));
+        Assert.assertArrayEquals("PRI".getBytes(), java.util.Arrays.copyOf(small, 3));
+    }
+
     private byte[] buildKey(Object key) throws Exception {
         return ExternalKeyUtil.buildKeyAfterConvert(key, "PRI");
     }
@@ -0,0 +1,253 @@
+package com.alicp.jetcache.external;
+
+import com.alicp.jetcache.AutoReleaseLock;
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author huangli
+ */
+public class ExternalLockTest {
+
+    private static MockRemoteCache<Object, Object> createCache() {
+        return (MockRemoteCache<Object, Object>) MockRemoteCacheBuilder.createMockRemoteCacheBuilder()
+                .keyPrefix("lock_")
+                .buildCache();
+    }
+
+    @Test
+    public void testLock() {
+        MockRemoteCache<Object, Object> cache = createCache();
+        AutoReleaseLock lock = cache.tryLock("K1", 10, TimeUnit.SECONDS);
+        assertNotNull(lock);
+        assertNull(cache.tryLock("K1", 10, TimeUnit.SECONDS));
+        AutoReleaseLock lock2 = cache.tryLock("K2", 10, TimeUnit.SECONDS);
+        // fencing token单调递增
+        assertTrue(lock2.getFencingToken() > lock.getFencingToken());
+        lock.close();
+        lock2.close();
+
+        AutoReleaseLock lock3 = cache.tryLock("K1", 10, TimeUnit.SECONDS);
+        assertNotNull(lock3);
+        assertTrue(lock3.getFencingToken() > lock2.getFencingToken());
+        lock3.close();
+    }
+
+    @Test
+    public void testFencingTokenBeforeSet() {
+        MockRemoteCacheConfig<Object, Object> config = (MockRemoteCacheConfig<Object, Object>) MockRemoteCacheBuilder
+                .createMockRemoteCacheBuilder().keyPrefix("lock_").getConfig();
+        List<String> calls = new CopyOnWriteArrayList<>();
+        MockRemoteCache<Object, Object> cache = new MockRemoteCache<Object, Object>(config) {
+            @Override
+            protected LockCommands lockCommands() {
+                LockCommands c = super.lockCommands();
+                return (LockCommands) Proxy.newProxyInstance(LockCommands.class.getClassLoader(),
+                        new Class[]{LockCommands.class}, (proxy, method, args) -> {
+                            calls.add(method.getName());
+                            return method.invoke(c, args);
+                        });
+            }
+        };
+        AutoReleaseLock lock = cache.tryLock("K1", 10, TimeUnit.SECONDS);
+        assertNotNull(lock);
+        // 锁过期后被别人拿到时，旧的持有者的token一定更小
+        assertEquals(Arrays.asList("increment", "setIfAbsent"), calls);
+        lock.close();
+    }
+
+    @Test
+    public void testUnlockOthers() throws Exception {
+        MockRemoteCache<Object, Object> cache = createCache();
+        AutoReleaseLock lock = cache.tryLock("K1", 50, TimeUnit.MILLISECONDS);
+        assertNotNull(lock);
+        Thread.sleep(80);
+        AutoReleaseLock lock2 = cache.tryLock("K1", 10, TimeUnit.SECONDS);
+        assertNotNull(lock2);
+        // 过期后的锁释放时不能删除别人的锁
+        lock.close();
+        assertNull(cache.tryLock("K1", 10, TimeUnit.SECONDS));
+        lock2.close();
+        assertNotNull(cache.tryLock("K1", 10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRenewLease() throws Exception {
+        MockRemoteCache<Object, Object> cache = createCache();
+        ExternalLock lock = (ExternalLock) cache.tryLock("K1", 60, TimeUnit.MILLISECONDS, true);
+        assertNotNull(lock);
+        Thread.sleep(200);
+        assertTrue(lock.isHeld());
+        assertNull(cache.tryLock("K1", 10, TimeUnit.SECONDS));
+        lock.close();
+        assertFalse(lock.isHeld());
+        assertNotNull(cache.tryLock("K1", 10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTryLockAndRun() {
+        MockRemoteCache<Object, Object> cache = createCache();
+        int[] count = new int[1];
+        assertTrue(cache.tryLockAndRun("K1", 10, TimeUnit.SECONDS, () -> {
+            count[0]++;
+            assertFalse(cache.tryLockAndRun("K1", 10, TimeUnit.SECONDS, () -> count[0]++));
+        }));
+        assertEquals(1, count[0]);
+        assertTrue(cache.tryLockAndRun("K1", 10, TimeUnit.SECONDS, () -> count[0]++));
+        assertEquals(2, count[0]);
+    }
+
+    @Test
+    public void testLockWakeUp() throws Exception {
+        MockRemoteCache<Object, Object> cache = createCache();
+        AutoReleaseLock lock = cache.tryLock("K1", 10, TimeUnit.SECONDS);
+        AtomicReference<AutoReleaseLock> waited = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread t = new Thread(() -> {
+            waited.set(cache.lock("K1", 10, 5, TimeUnit.SECONDS));
+            latch.countDown();
+        });
+        t.start();
+        Thread.sleep(50);
+        assertEquals(1, latch.getCount());
+        long start = System.nanoTime();
+        lock.close();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        // 不用等到轮询间隔
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(
+                AbstractExternalCache.LOCK_POLL_MILLIS_SUBSCRIBED / 2));
+        assertNotNull(waited.get());
+        assertTrue(waited.get().getFencingToken() > lock.getFencingToken());
+        waited.get().close();
+        cache.close();
+    }
+
+    @Test
+    public void testPassWakeUp() throws Exception {
+        LockWaiters waiters = new LockWaiters();
+        ByteBuffer key = ByteBuffer.wrap("K1".getBytes());
+        CountDownLatch woken = new CountDownLatch(1);
+        Thread t = new Thread(() -> {
+            LockSupport.park();
+            woken.countDown();
+        });
+        waiters.add(key, Thread.currentThread());
+        waiters.add(key, t);
+        t.start();
+        // 队头拿到锁离开，不需要唤醒下一个
+        waiters.remove(key, Thread.currentThread(), false);
+        assertFalse(woken.await(100, TimeUnit.MILLISECONDS));
+
+        waiters.add(key, Thread.currentThread());
+        waiters.wakeUp(key);
+        assertTrue(woken.await(1, TimeUnit.SECONDS));
+        waiters.remove(key, t, false);
+
+        CountDownLatch woken2 = new CountDownLatch(1);
+        Thread t2 = new Thread(() -> {
+            LockSupport.park();
+            woken2.countDown();
+        });
+        waiters.add(key, t2);
+        t2.start();
+        Thread.sleep(50);
+        // 队头超时离开，可能收到过的唤醒传给下一个等待者
+        waiters.remove(key, Thread.currentThread(), true);
+        assertTrue(woken2.await(1, TimeUnit.SECONDS));
+        waiters.remove(key, t2, false);
+    }
+
+    @Test
+    public void testLockTimeout() throws Exception {
+        MockRemoteCache<Object, Object> cache = createCache();
+        assertNotNull(cache.lock("K1", 10, 1, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        assertNull(cache.lock("K1", 10000, 100, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+
+        // 锁过期没有释放通知，通过轮询获得锁
+        assertNotNull(cache.lock("K2", 100, 1000, TimeUnit.MILLISECONDS));
+        assertNotNull(cache.lock("K2", 100, 1000, TimeUnit.MILLISECONDS));
+
+        Thread.currentThread().interrupt();
+        assertNull(cache.lock("K1", 10000, 1000, TimeUnit.MILLISECONDS));
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    public void testLockWithoutPubSub() throws Exception {
+        MockRemoteCacheConfig<Object, Object> config = (MockRemoteCacheConfig<Object, Object>) MockRemoteCacheBuilder
+                .createMockRemoteCacheBuilder().keyPrefix("lock_").getConfig();
+        MockRemoteCache<Object, Object> cache = new MockRemoteCache<Object, Object>(config) {
+            @Override
+            protected LockCommands lockCommands() {
+                LockCommands c = super.lockCommands();
+                return new LockCommands() {
+                    @Override
+                    public boolean setIfAbsent(byte[] key, byte[] owner, long ttlMillis) {
+                        return c.setIfAbsent(key, owner, ttlMillis);
+                    }
+
+                    @Override
+                    public boolean compareAndDelete(byte[] key, byte[] owner, byte[] channel) {
+                        return c.compareAndDelete(key, owner, channel);
+                    }
+
+                    @Override
+                    public boolean compareAndExpire(byte[] key, byte[] owner, long ttlMillis) {
+                        return c.compareAndExpire(key, owner, ttlMillis);
+                    }
+
+                    @Override
+                    public long increment(byte[] key) {
+                        return c.increment(key);
+                    }
+
+                    @Override
+                    public long generation(byte[] key, long min, long ttlMillis, boolean increase) {
+                        return c.generation(key, min, ttlMillis, increase);
+                    }
+                };
+            }
+        };
+        assertNotNull(cache.lock("K1", 100, 1000, TimeUnit.MILLISECONDS));
+        long start = System.nanoTime();
+        assertNotNull(cache.lock("K1", 100, 1000, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(
+                100 + AbstractExternalCache.LOCK_POLL_MILLIS * 2));
+    }
+
+    @Test
+    public void testLockOfEmbeddedCache() throws Exception {
+        Cache<Object, Object> cache = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder().buildCache();
+        AutoReleaseLock lock = cache.lock("K1", 10, 1, TimeUnit.SECONDS);
+        assertNotNull(lock);
+        assertNull(cache.lock("K1", 10, 50, TimeUnit.MILLISECONDS));
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            lock.close();
+        }).start();
+        assertNotNull(cache.lock("K1", 10, 1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,309 @@
+package com.alicp.jetcache.external;
+
+import com.alicp.jetcache.AutoReleaseLock;
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.CacheException;
+import com.alicp.jetcache.CacheLoader;
+import com.alicp.jetcache.CacheManager;
+import com.alicp.jetcache.CacheResult;
+import com.alicp.jetcache.RefreshCache;
+import com.alicp.jetcache.RefreshPolicy;
+import com.alicp.jetcache.SimpleCacheManager;
+import com.alicp.jetcache.anno.CacheConsts;
+import com.alicp.jetcache.support.BroadcastManager;
+import com.alicp.jetcache.support.CacheMessage;
+import com.alicp.jetcache.support.CacheNotifyMonitor;
+import com.alicp.jetcache.support.JavaValueDecoder;
+import com.alicp.jetcache.support.JavaValueEncoder;
+import com.alicp.jetcache.test.anno.TestUtil;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author huangli
+ */
+public class KeyGenerationTest {
+
+    private MockRemoteCache<String, String> create(String keyPrefix) {
+        return (MockRemoteCache) MockRemoteCacheBuilder.createMockRemoteCacheBuilder()
+                .keyPrefix(keyPrefix)
+                .keyGeneration(true)
+                .keyGenerationRefreshMillis(0)
+                .buildCache();
+    }
+
+    // 模拟两个JVM访问同一个远程缓存
+    private static void share(MockRemoteCache<?, ?> from, MockRemoteCache<?, ?> to) throws Exception {
+        Field f = MockRemoteCache.class.getDeclaredField("cache");
+        f.setAccessible(true);
+        f.set(to, f.get(from));
+    }
+
+    private static boolean containsKey(MockRemoteCache<?, ?> cache, String key) {
+        LinkedHashMap<?, ?> map = cache.unwrap(LinkedHashMap.class);
+        return map.containsKey(ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testClear() {
+        MockRemoteCache<String, String> cache = create("gen_");
+        cache.put("K1", "V1");
+        assertEquals("V1", cache.get("K1"));
+        assertTrue(containsKey(cache, "gen___generation"));
+
+        CacheResult r = cache.CLEAR();
+        assertTrue(r.isSuccess());
+        assertTrue(r.getMessage().startsWith("generation "));
+        long generation = Long.parseLong(r.getMessage().substring("generation ".length()));
+        assertNull(cache.get("K1"));
+        // 旧的key没有删除，等待过期
+        assertEquals(2, cache.unwrap(LinkedHashMap.class).size());
+
+        cache.put("K1", "V2");
+        assertEquals("V2", cache.get("K1"));
+        assertTrue(containsKey(cache, "gen_g" + generation + "_K1"));
+
+        assertTrue(cache.CLEAR().isSuccess());
+        assertNull(cache.get("K1"));
+        cache.close();
+    }
+
+    @Test
+    public void testPrefixSupplier() {
+        String[] prefix = {"p1_"};
+        Cache<String, String> cache = MockRemoteCacheBuilder.createMockRemoteCacheBuilder()
+                .keyPrefixSupplier(() -> prefix[0])
+                .keyGeneration(true)
+                .buildCache();
+        cache.put("K1", "V1");
+        prefix[0] = "p2_";
+        cache.put("K1", "V2");
+        assertTrue(cache.CLEAR().isSuccess());
+        assertNull(cache.get("K1"));
+
+        // 每个前缀有自己的generation
+        prefix[0] = "p1_";
+        assertEquals("V1", cache.get("K1"));
+        cache.close();
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        MockRemoteCache<String, String> c1 = create("refresh_");
+        MockRemoteCache<String, String> c2 = create("refresh_");
+        share(c1, c2);
+        c1.put("K1", "V1");
+        assertEquals("V1", c2.get("K1"));
+
+        assertTrue(c1.CLEAR().isSuccess());
+        assertNull(c1.get("K1"));
+        // c2还没有收到通知
+        assertEquals("V1", c2.get("K1"));
+        c2.refreshKeyGeneration();
+        assertNull(c2.get("K1"));
+
+        c2.put("K2", "V2");
+        assertEquals("V2", c1.get("K2"));
+        c1.close();
+        c2.close();
+    }
+
+    @Test
+    public void testLockNotClearedByGeneration() {
+        MockRemoteCache<String, String> cache = create("gen_lock_");
+        AutoReleaseLock lock = cache.tryLock("K1", 10, TimeUnit.SECONDS);
+        assertNotNull(lock);
+        assertTrue(containsKey(cache, "gen_lock_K1"));
+        assertTrue(cache.CLEAR().isSuccess());
+        // generation变化以后锁还是同一把
+        assertNull(cache.tryLock("K1", 10, TimeUnit.SECONDS));
+        lock.close();
+        assertNotNull(cache.tryLock("K1", 10, TimeUnit.SECONDS));
+        cache.close();
+    }
+
+    @Test
+    public void testRefreshLockNotClearedByGeneration() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger count1 = new AtomicInteger();
+        AtomicInteger count2 = new AtomicInteger();
+        RefreshCache<String, String> c1 = createRefreshCache("refresh_lock_", k -> {
+            if (count1.incrementAndGet() > 1) {
+                // 定时刷新拿到分布式锁以后卡住
+                locked.countDown();
+                release.await();
+            }
+            return "V1";
+        });
+        RefreshCache<String, String> c2 = createRefreshCache("refresh_lock_", k -> {
+            count2.incrementAndGet();
+            return "V2";
+        });
+        share((MockRemoteCache) c1.getTargetCache(), (MockRemoteCache) c2.getTargetCache());
+
+        assertEquals("V1", c1.get("K1"));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        assertTrue(c1.CLEAR().isSuccess());
+        // CLEAR以后c2同步加载一次，它的定时刷新还是拿不到c1持有的刷新锁
+        assertEquals("V2", c2.get("K1"));
+        Thread.sleep(300);
+        assertEquals(1, count2.get());
+
+        release.countDown();
+        c1.close();
+        c2.close();
+    }
+
+    private RefreshCache<String, String> createRefreshCache(String keyPrefix, CacheLoader<String, String> loader) {
+        return (RefreshCache) MockRemoteCacheBuilder.createMockRemoteCacheBuilder()
+                .keyPrefix(keyPrefix)
+                .keyGeneration(true)
+                .keyGenerationRefreshMillis(0)
+                .loader(loader)
+                .refreshPolicy(RefreshPolicy.newPolicy(50, TimeUnit.MILLISECONDS))
+                .buildCache();
+    }
+
+    @Test
+    public void testConcurrentClear() throws Exception {
+        MockRemoteCache<String, String> c1 = create("concurrent_");
+        MockRemoteCache<String, String> c2 = create("concurrent_");
+        share(c1, c2);
+        c1.put("K1", "V1");
+        // 两个JVM同时CLEAR得到的generation不同，而且都比原来的大
+        long g1 = Long.parseLong(c1.CLEAR().getMessage().substring("generation ".length()));
+        long g2 = Long.parseLong(c2.CLEAR().getMessage().substring("generation ".length()));
+        assertEquals(g1 + 1, g2);
+        c1.refreshKeyGeneration();
+        c1.put("K1", "V2");
+        assertEquals("V2", c2.get("K1"));
+        c1.close();
+        c2.close();
+    }
+
+    @Test
+    public void testLoadFailBackoff() throws Exception {
+        AtomicInteger loadCount = new AtomicInteger();
+        AtomicBoolean fail = new AtomicBoolean(true);
+        MockRemoteCacheConfig<String, String> config = (MockRemoteCacheConfig<String, String>) MockRemoteCacheBuilder
+                .createMockRemoteCacheBuilder().keyPrefix("backoff_").keyGeneration(true)
+                .keyGenerationRefreshMillis(0).getConfig();
+        MockRemoteCache<String, String> cache = new MockRemoteCache<String, String>(config) {
+            @Override
+            protected LockCommands lockCommands() {
+                LockCommands c = super.lockCommands();
+                return (LockCommands) Proxy.newProxyInstance(LockCommands.class.getClassLoader(),
+                        new Class[]{LockCommands.class}, (proxy, method, args) -> {
+                            if (method.getName().equals("generation")) {
+                                loadCount.incrementAndGet();
+                                if (fail.get()) {
+                                    throw new IllegalStateException("mock error");
+                                }
+                            }
+                            return method.invoke(c, args);
+                        });
+            }
+        };
+        // MockRemoteCache构建key的异常直接抛出，redis的实现会返回FAIL
+        assertThrows(IllegalStateException.class, () -> cache.GET("K1"));
+        assertEquals(1, loadCount.get());
+        // 退避期间直接失败，不访问远程缓存
+        assertThrows(CacheException.class, () -> cache.GET("K1"));
+        assertThrows(CacheException.class, () -> cache.PUT("K1", "V1"));
+        assertEquals(1, loadCount.get());
+
+        fail.set(false);
+        Thread.sleep(AbstractExternalCache.GENERATION_RETRY_MIN_MILLIS + 20);
+        assertTrue(cache.PUT("K1", "V1").isSuccess());
+        assertEquals("V1", cache.get("K1"));
+        assertEquals(2, loadCount.get());
+        cache.close();
+    }
+
+    @Test
+    public void testPeriodicRefresh() throws Exception {
+        MockRemoteCache<String, String> c1 = create("periodic_");
+        MockRemoteCache<String, String> c2 = (MockRemoteCache) MockRemoteCacheBuilder
+                .createMockRemoteCacheBuilder()
+                .keyPrefix("periodic_")
+                .keyGeneration(true)
+                .keyGenerationRefreshMillis(20)
+                .buildCache();
+        share(c1, c2);
+        c1.put("K1", "V1");
+        assertEquals("V1", c2.get("K1"));
+        assertTrue(c1.CLEAR().isSuccess());
+        TestUtil.waitUtil(null, () -> c2.get("K1"));
+        c1.close();
+        c2.close();
+    }
+
+    @Test
+    public void testBroadcast() throws Exception {
+        MockRemoteCache<String, String> c1 = create("broadcast_");
+        MockRemoteCache<String, String> c2 = create("broadcast_");
+        share(c1, c2);
+
+        List<CacheMessage> messages = new CopyOnWriteArrayList<>();
+        SimpleCacheManager m1 = new SimpleCacheManager();
+        m1.putBroadcastManager(CacheConsts.DEFAULT_AREA, new TestBroadcastManager(m1, messages));
+        m1.putCache(CacheConsts.DEFAULT_AREA, "genCache", c1);
+        c1.config().getMonitors().add(new CacheNotifyMonitor(m1, "genCache"));
+        SimpleCacheManager m2 = new SimpleCacheManager();
+        TestBroadcastManager bm2 = new TestBroadcastManager(m2, messages);
+        m2.putBroadcastManager(CacheConsts.DEFAULT_AREA, bm2);
+        m2.putCache(CacheConsts.DEFAULT_AREA, "genCache", c2);
+
+        c1.put("K1", "V1");
+        assertEquals("V1", c2.get("K1"));
+        assertTrue(c1.CLEAR().isSuccess());
+        TestUtil.waitUtil(1, messages::size);
+        assertEquals(CacheMessage.TYPE_CLEAR, messages.get(0).getType());
+
+        bm2.receive(messages.get(0));
+        assertNull(c2.get("K1"));
+        c1.close();
+        c2.close();
+    }
+
+    private static class TestBroadcastManager extends BroadcastManager {
+        private final List<CacheMessage> messages;
+
+        TestBroadcastManager(CacheManager cacheManager, List<CacheMessage> messages) {
+            super(cacheManager);
+            this.messages = messages;
+        }
+
+        @Override
+        public CacheResult publish(CacheMessage cacheMessage) {
+            messages.add(cacheMessage);
+            return CacheResult.SUCCESS_WITHOUT_MSG;
+        }
+
+        @Override
+        public void startSubscribe() {
+        }
+
+        void receive(CacheMessage m) {
+            processNotification(JavaValueEncoder.INSTANCE.apply(m), JavaValueDecoder.INSTANCE);
+        }
+    }
+}
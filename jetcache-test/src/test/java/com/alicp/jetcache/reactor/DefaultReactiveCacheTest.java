@@ -0,0 +1,215 @@
+package com.alicp.jetcache.reactor;
+
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.MultiLevelCacheBuilder;
+import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
+import com.alicp.jetcache.external.LockCommands;
+import com.alicp.jetcache.external.MockRemoteCache;
+import com.alicp.jetcache.external.MockRemoteCacheBuilder;
+import com.alicp.jetcache.external.MockRemoteCacheConfig;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author huangli
+ */
+public class DefaultReactiveCacheTest {
+
+    private Cache<Object, Object> local() {
+        return LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder()
+                .limit(100)
+                .expireAfterWrite(10, TimeUnit.SECONDS)
+                .buildCache();
+    }
+
+    private Cache<Object, Object> remote() {
+        return new MockRemoteCacheBuilder()
+                .limit(100)
+                .expireAfterWrite(10, TimeUnit.SECONDS)
+                .buildCache();
+    }
+
+    @Test
+    public void testLocal() {
+        DefaultReactiveCache<Object, Object> c = new DefaultReactiveCache<>(local());
+        assertTrue(c.isNonBlocking());
+        baseTest(c);
+    }
+
+    @Test
+    public void testRemote() {
+        DefaultReactiveCache<Object, Object> c = new DefaultReactiveCache<>(remote());
+        assertFalse(c.isNonBlocking());
+        baseTest(c);
+    }
+
+    @Test
+    public void testMultiLevel() {
+        Cache<Object, Object> l1 = local();
+        Cache<Object, Object> l2 = local();
+        Cache<Object, Object> cache = MultiLevelCacheBuilder.createMultiLevelCacheBuilder()
+                .addCache(l1, l2)
+                .buildCache();
+        DefaultReactiveCache<Object, Object> c = new DefaultReactiveCache<>(cache);
+        assertTrue(c.isNonBlocking());
+        baseTest(c);
+
+        l2.put("M1", "V1");
+        assertEquals("V1", c.get("M1").block());
+        // 从l2获取到的值会写入l1
+        assertEquals("V1", l1.get("M1"));
+
+        l2.put("M2", "V2");
+        Map<Object, Object> map = c.getAll(new HashSet<>(Arrays.asList("M1", "M2", "M3"))).block();
+        assertEquals(2, map.size());
+        assertEquals("V2", l1.get("M2"));
+
+        cache = MultiLevelCacheBuilder.createMultiLevelCacheBuilder()
+                .addCache(local(), remote())
+                .buildCache();
+        assertFalse(new DefaultReactiveCache<>(cache).isNonBlocking());
+    }
+
+    @Test
+    public void testKeyGenerationNotLoaded() {
+        List<String> loadThreads = new CopyOnWriteArrayList<>();
+        MockRemoteCacheConfig<Object, Object> config = (MockRemoteCacheConfig<Object, Object>) MockRemoteCacheBuilder
+                .createMockRemoteCacheBuilder().keyPrefix("reactive_gen_").keyGeneration(true)
+                .keyGenerationRefreshMillis(0).getConfig();
+        MockRemoteCache<Object, Object> remote = new MockRemoteCache<Object, Object>(config) {
+            @Override
+            public boolean isNonBlocking() {
+                return isKeyGenerationLoaded();
+            }
+
+            @Override
+            protected LockCommands lockCommands() {
+                LockCommands c = super.lockCommands();
+                return (LockCommands) Proxy.newProxyInstance(LockCommands.class.getClassLoader(),
+                        new Class[]{LockCommands.class}, (proxy, method, args) -> {
+                            if (method.getName().equals("generation")) {
+                                loadThreads.add(Thread.currentThread().getName());
+                            }
+                            return method.invoke(c, args);
+                        });
+            }
+        };
+        Scheduler scheduler = Schedulers.newSingle("reactiveGen");
+        try {
+            DefaultReactiveCache<Object, Object> c = new DefaultReactiveCache<>(remote, scheduler);
+            // generation加载之前在scheduler中执行，不阻塞订阅线程
+            assertFalse(c.isNonBlocking());
+            assertNull(c.put("K1", "V1").block());
+            assertEquals(1, loadThreads.size());
+            assertTrue(loadThreads.get(0).startsWith("reactiveGen"));
+
+            assertTrue(c.isNonBlocking());
+            assertEquals("V1", c.get("K1").block());
+            assertEquals(1, loadThreads.size());
+        } finally {
+            scheduler.dispose();
+            remote.close();
+        }
+    }
+
+    private void baseTest(ReactiveCache<Object, Object> c) {
+        assertNull(c.get("K1").block());
+        assertNull(c.put("K1", "V1").block());
+        assertEquals("V1", c.get("K1").block());
+        assertEquals("V1", c.getCache().get("K1"));
+
+        c.put("K2", "V2", 10, TimeUnit.SECONDS).block();
+        Map<Object, Object> map = c.getAll(new HashSet<>(Arrays.asList("K1", "K2", "K3"))).block();
+        assertEquals(2, map.size());
+        assertEquals("V2", map.get("K2"));
+
+        c.invalidate("K1").block();
+        assertNull(c.get("K1").block());
+        c.invalidateAll(new HashSet<>(Arrays.asList("K1", "K2"))).block();
+        assertNull(c.get("K2").block());
+
+        AtomicInteger count = new AtomicInteger();
+        Mono<Object> mono = c.computeIfAbsent("K3", k -> Mono.fromSupplier(() -> "V" + count.incrementAndGet()));
+        assertEquals(0, count.get());
+        assertEquals("V1", mono.block());
+        assertEquals("V1", mono.block());
+        assertEquals(1, count.get());
+        assertEquals("V1", c.getCache().get("K3"));
+
+        // 默认不缓存null
+        assertNull(c.computeIfAbsent("K4", k -> Mono.empty()).block());
+        assertFalse(c.getCache().GET("K4").isSuccess());
+
+        ReactiveCacheLoader<Object, Object> vetoLoader = new ReactiveCacheLoader<Object, Object>() {
+            @Override
+            public Mono<Object> apply(Object k) {
+                return Mono.just("V5");
+            }
+
+            @Override
+            public boolean vetoCacheUpdate() {
+                return true;
+            }
+        };
+        assertEquals("V5", c.computeIfAbsent("K5", vetoLoader).block());
+        assertNull(c.getCache().get("K5"));
+
+        assertThrows(IllegalStateException.class, () -> c.computeIfAbsent("K6",
+                k -> Mono.error(new IllegalStateException())).block());
+        assertNull(c.getCache().get("K6"));
+    }
+
+    @Test
+    public void testCacheNullValue() {
+        Cache<Object, Object> cache = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder()
+                .cacheNullValue(true)
+                .buildCache();
+        ReactiveCache<Object, Object> c = ReactiveCache.of(cache);
+        AtomicInteger count = new AtomicInteger();
+        assertNull(c.computeIfAbsent("K1", k -> Mono.fromRunnable(count::incrementAndGet)).block());
+        assertNull(c.computeIfAbsent("K1", k -> Mono.fromRunnable(count::incrementAndGet)).block());
+        assertEquals(1, count.get());
+        assertTrue(cache.GET("K1").isSuccess());
+    }
+
+    @Test
+    public void testPenetrationProtect() throws Exception {
+        Cache<Object, Object> cache = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder()
+                .cachePenetrateProtect(true)
+                .buildCache();
+        ReactiveCache<Object, Object> c = ReactiveCache.of(cache);
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        Mono<Object> loader = Mono.fromCallable(() -> {
+            latch.await();
+            return (Object) ("V" + count.incrementAndGet());
+        }).subscribeOn(Schedulers.boundedElastic());
+        Mono<Object> m1 = c.computeIfAbsent("K1", k -> loader).cache();
+        Mono<Object> m2 = c.computeIfAbsent("K1", k -> loader).cache();
+        m1.subscribe();
+        m2.subscribe();
+        latch.countDown();
+        assertEquals("V1", m1.block(Duration.ofSeconds(5)));
+        assertEquals("V1", m2.block(Duration.ofSeconds(5)));
+        assertEquals(1, count.get());
+    }
+}
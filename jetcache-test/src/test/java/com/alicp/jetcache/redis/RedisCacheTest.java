@@ -3,6 +3,7 @@ package com.alicp.jetcache.redis;
 import com.alicp.jetcache.Cache;
 import com.alicp.jetcache.LoadingCacheTest;
 import com.alicp.jetcache.RefreshCacheTest;
+import com.alicp.jetcache.external.ChunkManifest;
 import com.alicp.jetcache.redis.lettuce.RedisLettuceCacheTest;
 import com.alicp.jetcache.support.*;
 import com.alicp.jetcache.test.external.AbstractExternalCacheTest;
@@ -18,9 +19,16 @@ import redis.clients.jedis.JedisSentinelPool;
 import redis.clients.jedis.UnifiedJedis;
 import redis.clients.jedis.util.Pool;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -123,6 +131,91 @@ public class RedisCacheTest extends AbstractExternalCacheTest {
         int time = 3000;
         cache = createCacheBuilder(jedis).buildCache();
         concurrentTest(thread, 500, time);
+
+        chunkTest(jedis);
+    }
+
+    private void chunkTest(Object jedis) throws Exception {
+        cache = createCacheBuilder(jedis)
+                .chunkSize(100)
+                .expireAfterWrite(500, TimeUnit.MILLISECONDS)
+                .buildCache();
+        baseTest();
+        expireAfterWriteTest(cache.config().getExpireAfterWriteInMillis());
+
+        char[] cs = new char[10000];
+        Arrays.fill(cs, 'a');
+        String large = new String(cs);
+        cache.put("chunk_K1", large);
+        cache.put("chunk_K2", "V2");
+        Assert.assertEquals(large, cache.get("chunk_K1"));
+        Map<Object, Object> values = cache.getAll(new HashSet<>(Arrays.asList("chunk_K1", "chunk_K2", "chunk_K3")));
+        Assert.assertEquals(2, values.size());
+        Assert.assertEquals(large, values.get("chunk_K1"));
+        Assert.assertEquals("V2", values.get("chunk_K2"));
+
+        // 覆盖写入和删除
+        cache.put("chunk_K1", large + "b");
+        Assert.assertEquals(large + "b", cache.get("chunk_K1"));
+        Assert.assertFalse(cache.putIfAbsent("chunk_K1", large));
+        Assert.assertTrue(cache.remove("chunk_K1"));
+        Assert.assertNull(cache.get("chunk_K1"));
+        Assert.assertTrue(cache.putIfAbsent("chunk_K1", large));
+        Assert.assertEquals(large, cache.get("chunk_K1"));
+
+        Map<Object, Object> map = new HashMap<>();
+        map.put("chunk_K4", large);
+        map.put("chunk_K5", "V5");
+        cache.putAll(map);
+        Assert.assertEquals(large, cache.get("chunk_K4"));
+        Assert.assertEquals("V5", cache.get("chunk_K5"));
+        byte[] key4 = ((RedisCache) cache).buildKey("chunk_K4");
+        byte[][] chunkKeys = ChunkManifest.parse(rawGet(jedis, key4)).chunkKeys(key4);
+        cache.removeAll(map.keySet());
+        Assert.assertNull(cache.get("chunk_K4"));
+        // removeAll同时删除chunk
+        for (byte[] chunkKey : chunkKeys) {
+            Assert.assertNull(rawGet(jedis, chunkKey));
+        }
+    }
+
+    private static byte[] rawGet(Object jedis, byte[] key) {
+        if (jedis instanceof Pool) {
+            try (Jedis j = ((Pool<Jedis>) jedis).getResource()) {
+                return j.get(key);
+            }
+        }
+        return ((UnifiedJedis) jedis).get(key);
+    }
+
+    @Test
+    public void testLockSubscriber() throws Exception {
+        GenericObjectPoolConfig pc = new GenericObjectPoolConfig();
+        pc.setMaxTotal(2);
+        JedisPool pool = new JedisPool(pc, "127.0.0.1", 6379);
+        List<AutoCloseable> subscriptions = new ArrayList<>();
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        for (int i = 0; i < 5; i++) {
+            byte[] channel = ("lockSubTest_" + i).getBytes();
+            // 返回时已经订阅成功，马上发布的消息不会丢
+            subscriptions.add(JedisLockSubscriber.subscribe(pool, pool::getResource, channel,
+                    m -> received.add(new String(m))));
+            try (Jedis jedis = pool.getResource()) {
+                jedis.publish(channel, ("K" + i).getBytes());
+            }
+            Assert.assertEquals("K" + i, received.poll(1, TimeUnit.SECONDS));
+        }
+        // 所有channel共用一个连接
+        Assert.assertEquals(1, pool.getNumActive());
+        for (AutoCloseable c : subscriptions) {
+            c.close();
+        }
+        // 全部取消以后归还连接
+        for (int i = 0; i < 100 && pool.getNumActive() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, pool.getNumActive());
+        pool.close();
     }
 
     @Test
@@ -149,6 +242,16 @@ public class RedisCacheTest extends AbstractExternalCacheTest {
         }
     }
 
+    @Test
+    public void testGroupBySlot() {
+        byte[][] keys = new byte[][]{"{user}1".getBytes(), "a".getBytes(), "{user}2".getBytes(), "b".getBytes()};
+        List<int[]> groups = RedisCache.groupBySlot(keys);
+        Assert.assertEquals(3, groups.size());
+        Assert.assertArrayEquals(new int[]{0, 2}, groups.get(0));
+        Assert.assertArrayEquals(new int[]{1}, groups.get(1));
+        Assert.assertArrayEquals(new int[]{3}, groups.get(2));
+    }
+
     @Test
     public void readFromSlaveTest() throws Exception {
         GenericObjectPoolConfig pc = new GenericObjectPoolConfig();
@@ -1,8 +1,14 @@
 package com.alicp.jetcache.redis.lettuce;
 
+import com.alicp.jetcache.CacheValueHolder;
+import com.alicp.jetcache.support.Kryo5ValueDecoder;
+import com.alicp.jetcache.support.Kryo5ValueEncoder;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 /**
  * Created on 2017/5/9.
  *
@@ -23,4 +29,26 @@ public class JetCacheCodecTest {
         Assert.assertArrayEquals(bs, (byte[]) codec.decodeValue(codec.encodeValue(bs)));
 
     }
+
+    @Test
+    public void testInlineDecode() {
+        JetCacheCodec codec = new JetCacheCodec(Kryo5ValueDecoder.INSTANCE, 100);
+        CacheValueHolder h = new CacheValueHolder("V", 1000);
+        CacheValueHolder h2 = (CacheValueHolder) codec.decodeValue(ByteBuffer.wrap(Kryo5ValueEncoder.INSTANCE.apply(h)));
+        Assert.assertEquals("V", h2.getValue());
+
+        // larger than the limit
+        char[] cs = new char[200];
+        Arrays.fill(cs, 'a');
+        byte[] large = Kryo5ValueEncoder.INSTANCE.apply(new CacheValueHolder(new String(cs), 1000));
+        Assert.assertArrayEquals(large, (byte[]) codec.decodeValue(ByteBuffer.wrap(large)));
+
+        // no identity number
+        byte[] bs = new byte[]{1, 2, 3};
+        Assert.assertArrayEquals(bs, (byte[]) codec.decodeValue(ByteBuffer.wrap(bs)));
+
+        // known identity number but broken, the bytes are returned and the cache reports the error
+        byte[] broken = Arrays.copyOf(Kryo5ValueEncoder.INSTANCE.apply(h), 6);
+        Assert.assertArrayEquals(broken, (byte[]) codec.decodeValue(ByteBuffer.wrap(broken)));
+    }
 }
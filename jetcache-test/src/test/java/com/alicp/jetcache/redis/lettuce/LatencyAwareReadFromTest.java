@@ -0,0 +1,100 @@
+package com.alicp.jetcache.redis.lettuce;
+
+import com.alicp.jetcache.support.ReplicaStat;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.event.DefaultEventBus;
+import io.lettuce.core.event.connection.ReconnectFailedEvent;
+import io.lettuce.core.models.role.RedisInstance;
+import io.lettuce.core.models.role.RedisNodeDescription;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author huangli
+ */
+public class LatencyAwareReadFromTest {
+
+    private RedisNodeDescription node(int port, RedisInstance.Role role) {
+        RedisNodeDescription node = mock(RedisNodeDescription.class);
+        when(node.getUri()).thenReturn(RedisURI.create("127.0.0.1", port));
+        when(node.getRole()).thenReturn(role);
+        return node;
+    }
+
+    private ReadFrom.Nodes nodes(List<RedisNodeDescription> list) {
+        ReadFrom.Nodes nodes = mock(ReadFrom.Nodes.class);
+        when(nodes.getNodes()).thenReturn(list);
+        when(nodes.iterator()).thenAnswer(invoke -> list.iterator());
+        return nodes;
+    }
+
+    @Test
+    public void testSelect() {
+        RedisNodeDescription master = node(6379, RedisInstance.Role.UPSTREAM);
+        RedisNodeDescription fast = node(6380, RedisInstance.Role.REPLICA);
+        RedisNodeDescription slow = node(6381, RedisInstance.Role.REPLICA);
+        List<RedisNodeDescription> list = Arrays.asList(master, fast, slow);
+        ReadFrom.Nodes nodes = nodes(list);
+
+        LatencyAwareReadFrom readFrom = new LatencyAwareReadFrom();
+        readFrom.record(new InetSocketAddress("127.0.0.1", 6380), 1_000_000, true);
+        readFrom.record(new InetSocketAddress("127.0.0.1", 6381), 50_000_000, true);
+        int slowCount = 0;
+        for (int i = 0; i < 1000; i++) {
+            List<RedisNodeDescription> selected = readFrom.select(nodes);
+            assertEquals(3, selected.size());
+            // 主库总是最后的备选
+            assertEquals(master, selected.get(2));
+            if (selected.get(0) == slow) {
+                slowCount++;
+            }
+        }
+        assertTrue(slowCount < 400);
+
+        // 从库都被摘除时从主库读取
+        for (int i = 0; i < 3; i++) {
+            readFrom.record(new InetSocketAddress("127.0.0.1", 6380), 1_000_000, false);
+            readFrom.record(new InetSocketAddress("127.0.0.1", 6381), 1_000_000, false);
+        }
+        assertEquals(master, readFrom.select(nodes).get(0));
+        assertEquals(2, readFrom.stats().size());
+    }
+
+    @Test
+    public void testEjectFailingReplica() {
+        RedisNodeDescription master = node(6379, RedisInstance.Role.UPSTREAM);
+        RedisNodeDescription failing = node(6380, RedisInstance.Role.REPLICA);
+        RedisNodeDescription healthy = node(6381, RedisInstance.Role.REPLICA);
+        ReadFrom.Nodes nodes = nodes(Arrays.asList(master, failing, healthy));
+        DefaultEventBus eventBus = new DefaultEventBus(Schedulers.immediate());
+        LatencyAwareReadFrom readFrom = new LatencyAwareReadFrom(eventBus);
+        readFrom.record(new InetSocketAddress("127.0.0.1", 6380), 1_000_000, true);
+        readFrom.record(new InetSocketAddress("127.0.0.1", 6381), 1_000_000, true);
+
+        InetSocketAddress local = new InetSocketAddress("127.0.0.1", 50000);
+        for (int i = 1; i <= 3; i++) {
+            eventBus.publish(new ReconnectFailedEvent(local, new InetSocketAddress("127.0.0.1", 6380),
+                    new IOException("connection refused"), i));
+        }
+        // 连续重连失败的从库被摘除，不再作为首选
+        for (int i = 0; i < 100; i++) {
+            assertEquals(healthy, readFrom.select(nodes).get(0));
+        }
+        ReplicaStat stat = readFrom.stats().get(0);
+        assertEquals("127.0.0.1:6380", stat.getName());
+        assertEquals(3, stat.getErrorCount());
+        assertTrue(stat.isEjected());
+        readFrom.close();
+    }
+}
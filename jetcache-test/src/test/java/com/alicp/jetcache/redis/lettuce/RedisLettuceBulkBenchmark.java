@@ -0,0 +1,74 @@
+package com.alicp.jetcache.redis.lettuce;
+
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.support.Fastjson2KeyConvertor;
+import com.alicp.jetcache.support.JavaValueDecoder;
+import com.alicp.jetcache.support.JavaValueEncoder;
+import io.lettuce.core.RedisClient;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Throughput of PUT_ALL/GET_ALL/REMOVE_ALL at different batch sizes, needs a redis server at 127.0.0.1:6379.
+ *
+ * @author huangli
+ */
+public class RedisLettuceBulkBenchmark {
+
+    private static final int[] BATCH_SIZES = {10, 100, 1000};
+    private static final int TOTAL_KEYS = 200000;
+
+    public static void main(String[] args) {
+        RedisClient client = RedisClient.create("redis://127.0.0.1");
+        Cache<String, String> cache = RedisLettuceCacheBuilder.createRedisLettuceCacheBuilder()
+                .redisClient(client)
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .valueEncoder(JavaValueEncoder.INSTANCE)
+                .valueDecoder(JavaValueDecoder.INSTANCE)
+                .keyPrefix("bulkBenchmark_")
+                .buildCache();
+        try {
+            for (int batchSize : BATCH_SIZES) {
+                Map<String, String> map = new HashMap<>();
+                for (int i = 0; i < batchSize; i++) {
+                    map.put("K" + i, "V" + i);
+                }
+                Set<String> keys = map.keySet();
+                int rounds = TOTAL_KEYS / batchSize;
+                // warm up
+                for (int i = 0; i < rounds / 10; i++) {
+                    cache.PUT_ALL(map).getResultCode();
+                }
+
+                long t = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    cache.PUT_ALL(map).getResultCode();
+                }
+                report("PUT_ALL", batchSize, rounds, System.nanoTime() - t);
+
+                t = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    cache.GET_ALL(keys).getResultCode();
+                }
+                report("GET_ALL", batchSize, rounds, System.nanoTime() - t);
+
+                t = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    cache.REMOVE_ALL(keys).getResultCode();
+                }
+                report("REMOVE_ALL", batchSize, rounds, System.nanoTime() - t);
+            }
+        } finally {
+            cache.close();
+            LettuceConnectionManager.defaultManager().removeAndClose(client);
+        }
+    }
+
+    private static void report(String op, int batchSize, int rounds, long nanos) {
+        double ms = nanos / 1_000_000.0;
+        System.out.printf("%-10s batch=%-5d avg=%8.3fms keys/s=%10.0f%n", op, batchSize, ms / rounds,
+                batchSize * rounds / (ms / 1000));
+    }
+}
@@ -4,28 +4,39 @@
 package com.alicp.jetcache.redis.lettuce;
 
 import com.alicp.jetcache.*;
+import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
 import com.alicp.jetcache.support.Fastjson2KeyConvertor;
 import io.lettuce.core.KeyValue;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisFuture;
+import io.lettuce.core.TrackingArgs;
 import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -35,6 +46,7 @@ import static org.mockito.Mockito.*;
 public class RedisLettuceCacheFailTest {
 
     private RedisClient client;
+    private StatefulRedisConnection connection;
     private RedisAsyncCommands asyncCommands;
     private Cache cache;
     private Function<byte[], Object> valueDecoder;
@@ -42,7 +54,7 @@ public class RedisLettuceCacheFailTest {
     @BeforeEach
     public void setup() {
         client = mock(RedisClient.class);
-        StatefulRedisConnection connection = mock(StatefulRedisConnection.class);
+        connection = mock(StatefulRedisConnection.class);
         asyncCommands = mock(RedisAsyncCommands.class);
         when(client.connect((JetCacheCodec) any())).thenReturn(connection);
         when(connection.sync()).thenReturn(null);
@@ -154,7 +166,7 @@ public class RedisLettuceCacheFailTest {
 
     @Test
     public void test_PUT_ALL() {
-        when(asyncCommands.psetex(any(), anyLong(), any()))
+        when(connection.dispatch(anyCollection()))
                 .thenThrow(new RuntimeException("err"));
         Map m = new HashMap();
         m.put("K", "V");
@@ -212,4 +224,188 @@ public class RedisLettuceCacheFailTest {
         assertEquals(CacheResultCode.FAIL, cr.getResultCode());
         assertEquals("XXX", cr.getMessage());
     }
+
+    @Test
+    public void test_GET_ALL_Sharded() {
+        RedisClient shardClient = mock(RedisClient.class);
+        StatefulRedisConnection c1 = mock(StatefulRedisConnection.class);
+        StatefulRedisConnection c2 = mock(StatefulRedisConnection.class);
+        RedisAsyncCommands a1 = mock(RedisAsyncCommands.class);
+        RedisAsyncCommands a2 = mock(RedisAsyncCommands.class);
+        when(shardClient.connect((JetCacheCodec) any())).thenReturn(c1).thenReturn(c2);
+        when(c1.async()).thenReturn(a1);
+        when(c2.async()).thenReturn(a2);
+        RedisLettuceCache shardCache = (RedisLettuceCache) RedisLettuceCacheBuilder.createRedisLettuceCacheBuilder()
+                .redisClient(shardClient)
+                .connectionCount(2)
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .keyPrefix("fail_test")
+                .buildCache();
+        try {
+            // find one key for each shard
+            String k1 = null;
+            String k2 = null;
+            for (int i = 0; k1 == null || k2 == null; i++) {
+                String k = "K" + i;
+                int shard = shardCache.shardIndex(shardCache.buildKey(k));
+                assertEquals(shard, shardCache.shardIndex(shardCache.buildKey(k)));
+                if (shard == 0 && k1 == null) {
+                    k1 = k;
+                } else if (shard == 1 && k2 == null) {
+                    k2 = k;
+                }
+            }
+            byte[] newKey1 = shardCache.buildKey(k1);
+            RedisFuture f1 = mockFuture(Arrays.asList(KeyValue.empty(newKey1)), null);
+            RedisFuture f2 = mockFuture(null, new RuntimeException("err"));
+            when(a1.mget(any())).thenReturn(f1);
+            when(a2.mget(any())).thenReturn(f2);
+
+            HashSet s = new HashSet();
+            s.add(k1);
+            s.add(k2);
+            MultiGetResult cr = shardCache.GET_ALL(s);
+            assertEquals(CacheResultCode.PART_SUCCESS, cr.getResultCode());
+            assertEquals(CacheResultCode.NOT_EXISTS, ((CacheGetResult) cr.getValues().get(k1)).getResultCode());
+            assertNull(cr.getValues().get(k2));
+        } finally {
+            LettuceConnectionManager.defaultManager().removeAndClose(shardClient);
+        }
+    }
+
+    @Test
+    public void test_ShardOfMasterReplica() {
+        RedisClient shardClient = mock(RedisClient.class);
+        StatefulRedisMasterReplicaConnection c = mock(StatefulRedisMasterReplicaConnection.class);
+        try {
+            // a plain connection from the client would lose the master/replica topology and readFrom
+            assertThrows(CacheConfigException.class, () -> RedisLettuceCacheBuilder.createRedisLettuceCacheBuilder()
+                    .redisClient(shardClient)
+                    .connection(c)
+                    .connectionCount(2)
+                    .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                    .keyPrefix("fail_test")
+                    .buildCache());
+            verify(shardClient, never()).connect((JetCacheCodec) any());
+        } finally {
+            LettuceConnectionManager.defaultManager().removeAndClose(shardClient);
+        }
+    }
+
+    @Test
+    public void test_GET_DecodeExecutor() {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "decodeThread"));
+        Cache decodeCache = RedisLettuceCacheBuilder.createRedisLettuceCacheBuilder()
+                .redisClient(client)
+                .valueDecoder(valueDecoder)
+                .decodeExecutor(executor)
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .keyPrefix("fail_test")
+                .buildCache();
+        try {
+            String[] threadName = new String[1];
+            when(valueDecoder.apply(any())).thenAnswer(invoke -> {
+                threadName[0] = Thread.currentThread().getName();
+                return new CacheValueHolder("V", 10000);
+            });
+            RedisFuture redisFuture = mock(RedisFuture.class);
+            when(redisFuture.handleAsync(any(), any())).thenAnswer((invoke) -> {
+                BiFunction function = invoke.getArgument(0);
+                return CompletableFuture.supplyAsync(() -> function.apply(new byte[]{0x01}, null),
+                        invoke.getArgument(1));
+            });
+            when(asyncCommands.get(any())).thenReturn(redisFuture);
+            CacheGetResult cr = decodeCache.GET("K");
+            assertEquals(CacheResultCode.SUCCESS, cr.getResultCode());
+            assertEquals("V", cr.getValue());
+            assertEquals("decodeThread", threadName[0]);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test_ClientTracking() {
+        RedisClient trackingClient = mock(RedisClient.class);
+        StatefulRedisConnection c = mock(StatefulRedisConnection.class);
+        RedisCommands syncCommands = mock(RedisCommands.class);
+        RedisAsyncCommands async = mock(RedisAsyncCommands.class);
+        when(trackingClient.connect((JetCacheCodec) any())).thenReturn(c);
+        when(c.sync()).thenReturn(syncCommands);
+        when(c.async()).thenReturn(async);
+        RedisFuture getFuture = mockFuture(null, null);
+        when(async.get(any())).thenReturn(getFuture);
+        try {
+            RedisLettuceCache remote = (RedisLettuceCache) RedisLettuceCacheBuilder.createRedisLettuceCacheBuilder()
+                    .redisClient(trackingClient)
+                    .clientTracking(true)
+                    .trackingBcast(true)
+                    .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                    .keyPrefix("tracking_test")
+                    .buildCache();
+            verify(syncCommands).clientTracking(any(TrackingArgs.class));
+            ArgumentCaptor<PushListener> captor = ArgumentCaptor.forClass(PushListener.class);
+            verify(c).addListener(captor.capture());
+
+            Cache local = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder().buildCache();
+            Cache cache = MultiLevelCacheBuilder.createMultiLevelCacheBuilder()
+                    .addCache(local, remote).buildCache();
+            cache.GET("K1");
+            cache.GET("K2");
+            local.put("K1", "V1");
+            local.put("K2", "V2");
+
+            captor.getValue().onPushMessage(pushMessage("invalidate",
+                    Arrays.asList(ByteBuffer.wrap(remote.buildKey("K1")))));
+            assertNull(local.get("K1"));
+            assertEquals("V2", local.get("K2"));
+
+            captor.getValue().onPushMessage(pushMessage("invalidate", null));
+            assertNull(local.get("K2"));
+            cache.close();
+        } finally {
+            LettuceConnectionManager.defaultManager().removeAndClose(trackingClient);
+        }
+    }
+
+    @Test
+    public void test_ClientTrackingMaxKeys() {
+        RedisClient trackingClient = mock(RedisClient.class);
+        StatefulRedisConnection c = mock(StatefulRedisConnection.class);
+        RedisAsyncCommands async = mock(RedisAsyncCommands.class);
+        when(trackingClient.connect((JetCacheCodec) any())).thenReturn(c);
+        when(c.sync()).thenReturn(mock(RedisCommands.class));
+        when(c.async()).thenReturn(async);
+        RedisFuture getFuture = mockFuture(null, null);
+        when(async.get(any())).thenReturn(getFuture);
+        try {
+            RedisLettuceCache remote = (RedisLettuceCache) RedisLettuceCacheBuilder.createRedisLettuceCacheBuilder()
+                    .redisClient(trackingClient)
+                    .clientTracking(true)
+                    .trackingMaxKeys(1)
+                    .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                    .keyPrefix("tracking_max_test")
+                    .buildCache();
+            Cache local = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder().buildCache();
+            Cache cache = MultiLevelCacheBuilder.createMultiLevelCacheBuilder()
+                    .addCache(local, remote).buildCache();
+            cache.GET("K1");
+            local.put("K1", "V1");
+            // 超过trackingMaxKeys，K1不再被跟踪，它的本地缓存直接失效
+            cache.GET("K2");
+            local.put("K2", "V2");
+            assertNull(local.get("K1"));
+            assertEquals("V2", local.get("K2"));
+            cache.close();
+        } finally {
+            LettuceConnectionManager.defaultManager().removeAndClose(trackingClient);
+        }
+    }
+
+    private PushMessage pushMessage(String type, Object keys) {
+        PushMessage m = mock(PushMessage.class);
+        when(m.getType()).thenReturn(type);
+        when(m.getContent()).thenReturn(Arrays.asList(ByteBuffer.wrap(type.getBytes()), keys));
+        return m;
+    }
 }
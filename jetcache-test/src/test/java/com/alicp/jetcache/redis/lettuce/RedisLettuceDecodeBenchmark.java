@@ -0,0 +1,76 @@
+package com.alicp.jetcache.redis.lettuce;
+
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.support.Fastjson2KeyConvertor;
+import com.alicp.jetcache.support.JavaValueDecoder;
+import com.alicp.jetcache.support.JavaValueEncoder;
+import com.alicp.jetcache.support.JetCacheExecutor;
+import io.lettuce.core.RedisClient;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Latency of small value GET while other threads read large values, with and without decode executor.
+ * Needs a redis server at 127.0.0.1:6379.
+ *
+ * @author huangli
+ */
+public class RedisLettuceDecodeBenchmark {
+
+    private static final int LARGE_VALUE_SIZE = 1024 * 1024;
+    private static final int LARGE_READER_THREADS = 4;
+    private static final int SMALL_GET_COUNT = 20000;
+
+    public static void main(String[] args) throws Exception {
+        run("io thread", null);
+        run("decode executor", JetCacheExecutor.decodeExecutor());
+    }
+
+    private static void run(String name, Executor decodeExecutor) throws Exception {
+        RedisClient client = RedisClient.create("redis://127.0.0.1");
+        Cache<String, Object> cache = RedisLettuceCacheBuilder.createRedisLettuceCacheBuilder()
+                .redisClient(client)
+                .decodeExecutor(decodeExecutor)
+                .keyConvertor(Fastjson2KeyConvertor.INSTANCE)
+                .valueEncoder(JavaValueEncoder.INSTANCE)
+                .valueDecoder(JavaValueDecoder.INSTANCE)
+                .keyPrefix("decodeBenchmark_")
+                .buildCache();
+        AtomicBoolean stop = new AtomicBoolean(false);
+        CountDownLatch readersStopped = new CountDownLatch(LARGE_READER_THREADS);
+        try {
+            cache.put("small", "V");
+            cache.put("large", new byte[LARGE_VALUE_SIZE]);
+            for (int i = 0; i < LARGE_READER_THREADS; i++) {
+                new Thread(() -> {
+                    while (!stop.get()) {
+                        cache.GET("large").getResultCode();
+                    }
+                    readersStopped.countDown();
+                }).start();
+            }
+
+            long[] latencies = new long[SMALL_GET_COUNT];
+            for (int i = 0; i < SMALL_GET_COUNT; i++) {
+                long t = System.nanoTime();
+                cache.GET("small").getResultCode();
+                latencies[i] = System.nanoTime() - t;
+            }
+            Arrays.sort(latencies);
+            System.out.printf("%-16s small GET p50=%8.3fms p99=%8.3fms p999=%8.3fms%n", name,
+                    percentile(latencies, 0.5), percentile(latencies, 0.99), percentile(latencies, 0.999));
+        } finally {
+            stop.set(true);
+            readersStopped.await();
+            cache.close();
+            LettuceConnectionManager.defaultManager().removeAndClose(client);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1_000_000.0;
+    }
+}
@@ -18,9 +18,13 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 /**
  * Created on 2016/10/8.
  *
@@ -46,6 +50,33 @@ public class RedisSpringDataCacheTest extends AbstractExternalCacheTest {
     }
 
 
+    @Test
+    public void lettuceReactiveTest() throws Exception {
+        LettuceConnectionFactory connectionFactory =  new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("127.0.0.1", 6379));
+        connectionFactory.afterPropertiesSet();
+        cache = RedisSpringDataCacheBuilder.createBuilder()
+                .keyConvertor(FastjsonKeyConvertor.INSTANCE)
+                .valueEncoder(JavaValueEncoder.INSTANCE)
+                .valueDecoder(JavaValueDecoder.INSTANCE)
+                .connectionFactory(connectionFactory)
+                .reactive(true)
+                .keyPrefix(new Random().nextInt() + "")
+                .expireAfterWrite(500, TimeUnit.MILLISECONDS)
+                .buildCache();
+        baseTest();
+        expireAfterWriteTest(cache.config().getExpireAfterWriteInMillis());
+    }
+
+    @Test
+    public void groupBySlotTest() {
+        byte[][] keys = new byte[][]{"{a}1".getBytes(), "{b}1".getBytes(), "{a}2".getBytes()};
+        assertEquals(Collections.singletonList(Arrays.asList(0, 1, 2)),
+                RedisSpringDataCache.groupBySlot(keys, false));
+        assertEquals(Arrays.asList(Arrays.asList(0, 2), Collections.singletonList(1)),
+                RedisSpringDataCache.groupBySlot(keys, true));
+    }
+
     private void doTest(RedisConnectionFactory connectionFactory) throws Exception {
 
 
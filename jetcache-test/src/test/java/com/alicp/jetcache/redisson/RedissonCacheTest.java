@@ -8,13 +8,20 @@ import com.alicp.jetcache.support.JavaValueEncoder;
 import com.alicp.jetcache.support.KryoValueDecoder;
 import com.alicp.jetcache.support.KryoValueEncoder;
 import com.alicp.jetcache.test.external.AbstractExternalCacheTest;
+import org.junit.Assert;
 import org.junit.Test;
 import org.redisson.Redisson;
+import org.redisson.api.BatchOptions;
 import org.redisson.api.RedissonClient;
 import org.redisson.config.Config;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created on 2022/7/13.
@@ -67,6 +74,39 @@ public class RedissonCacheTest extends AbstractExternalCacheTest {
                 .buildCache();
         nullKeyConvertorTest();
 
+        cache = RedissonCacheBuilder.createBuilder()
+                .keyConvertor(FastjsonKeyConvertor.INSTANCE)
+                .valueEncoder(JavaValueEncoder.INSTANCE)
+                .valueDecoder(JavaValueDecoder.INSTANCE)
+                .redissonClient(redissonClient)
+                .batchExecutionMode(BatchOptions.ExecutionMode.IN_MEMORY_ATOMIC)
+                .asyncResultTimeoutInMillis(2000)
+                .keyPrefix(new Random().nextInt() + "")
+                .buildCache();
+        baseTest();
+
+        // 批量写不返回每个命令的结果，解码在单独的线程池中进行
+        final ExecutorService decodeExecutor = Executors.newFixedThreadPool(2, r -> new Thread(r, "decodeThread"));
+        final AtomicReference<String> decodeThread = new AtomicReference<>();
+        try {
+            cache = RedissonCacheBuilder.createBuilder()
+                    .keyConvertor(FastjsonKeyConvertor.INSTANCE)
+                    .valueEncoder(JavaValueEncoder.INSTANCE)
+                    .valueDecoder(bytes -> {
+                        decodeThread.set(Thread.currentThread().getName());
+                        return JavaValueDecoder.INSTANCE.apply(bytes);
+                    })
+                    .redissonClient(redissonClient)
+                    .skipBatchResult(true)
+                    .decodeExecutor(decodeExecutor)
+                    .keyPrefix(new Random().nextInt() + "")
+                    .buildCache();
+            baseTest();
+            skipBatchResultTest(decodeThread);
+        } finally {
+            decodeExecutor.shutdown();
+        }
+
         int thread = 10;
         int time = 3000;
         cache = RedissonCacheBuilder.createBuilder()
@@ -78,4 +118,19 @@ public class RedissonCacheTest extends AbstractExternalCacheTest {
                 .buildCache();
         concurrentTest(thread, 500, time);
     }
+
+    private void skipBatchResultTest(final AtomicReference<String> decodeThread) {
+        final Map<String, String> map = new HashMap<>();
+        map.put("SKIP_K1", "V1");
+        map.put("SKIP_K2", "V2");
+        Assert.assertTrue(cache.PUT_ALL(map).isSuccess());
+        Assert.assertEquals(map, cache.getAll(map.keySet()));
+        Assert.assertTrue(cache.REMOVE_ALL(map.keySet()).isSuccess());
+        Assert.assertTrue(cache.getAll(map.keySet()).isEmpty());
+
+        cache.put("SKIP_K1", "V1");
+        decodeThread.set(null);
+        Assert.assertEquals("V1", cache.get("SKIP_K1"));
+        Assert.assertEquals("decodeThread", decodeThread.get());
+    }
 }
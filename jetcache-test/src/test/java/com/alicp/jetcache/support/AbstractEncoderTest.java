@@ -3,6 +3,7 @@ package com.alicp.jetcache.support;
 import com.alicp.jetcache.CacheValueHolder;
 import com.alicp.jetcache.VirtualThreadUtil;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -86,6 +87,25 @@ public class AbstractEncoderTest {
         assertEquals("34", cm2.getKeys()[1]);
     }
 
+    protected void byteBufferTest(AbstractValueDecoder d) {
+        // heap buffer which does not start at the beginning of the array
+        decoder = bytes -> {
+            byte[] padded = new byte[bytes.length + 10];
+            System.arraycopy(bytes, 0, padded, 5, bytes.length);
+            ByteBuffer buffer = ByteBuffer.wrap(padded, 5, bytes.length);
+            Object o = d.apply(buffer);
+            assertEquals(5, buffer.position());
+            return o;
+        };
+        baseTest();
+        decoder = bytes -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            return d.apply(buffer);
+        };
+        baseTest();
+    }
+
     private void testMap(Map m) {
         m.put(1, "1");
         m.put(2, "2");
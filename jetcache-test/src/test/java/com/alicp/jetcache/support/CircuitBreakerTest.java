@@ -0,0 +1,205 @@
+package com.alicp.jetcache.support;
+
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.CacheGetResult;
+import com.alicp.jetcache.CacheResult;
+import com.alicp.jetcache.CacheResultCode;
+import com.alicp.jetcache.MultiLevelCacheBuilder;
+import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
+import com.alicp.jetcache.external.MockRemoteCache;
+import com.alicp.jetcache.external.MockRemoteCacheBuilder;
+import com.alicp.jetcache.external.MockRemoteCacheConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author huangli
+ */
+public class CircuitBreakerTest {
+
+    private static CircuitBreaker create() {
+        CircuitBreaker cb = new CircuitBreaker("test");
+        cb.setMinimumCalls(10);
+        cb.setOpenDurationInMillis(50);
+        cb.setHalfOpenCalls(2);
+        return cb;
+    }
+
+    private static void call(CircuitBreaker cb, long nanos, boolean success) {
+        CircuitBreaker.Permit p = cb.tryAcquire();
+        assertNotNull(p);
+        cb.record(p, nanos, success);
+    }
+
+    @Test
+    public void testFailureRate() throws Exception {
+        CircuitBreaker cb = create();
+        for (int i = 0; i < 5; i++) {
+            call(cb, 1000, true);
+        }
+        // 请求数不够，不计算失败率
+        for (int i = 0; i < 4; i++) {
+            call(cb, 1000, false);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+        call(cb, 1000, false);
+        assertEquals(CircuitBreaker.State.OPEN, cb.getState());
+        assertNull(cb.tryAcquire());
+
+        Thread.sleep(60);
+        // 半开状态只放过halfOpenCalls个探测请求
+        CircuitBreaker.Permit p1 = cb.tryAcquire();
+        CircuitBreaker.Permit p2 = cb.tryAcquire();
+        assertNotNull(p1);
+        assertNotNull(p2);
+        assertNull(cb.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, cb.getState());
+        cb.record(p1, 1000, true);
+        cb.record(p2, 1000, false);
+        assertEquals(CircuitBreaker.State.OPEN, cb.getState());
+
+        Thread.sleep(60);
+        p1 = cb.tryAcquire();
+        p2 = cb.tryAcquire();
+        cb.record(p1, 1000, true);
+        cb.record(p2, 1000, true);
+        assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+
+        CircuitBreakerStat stat = cb.stat();
+        assertEquals(CircuitBreaker.State.CLOSED, stat.getState());
+        assertEquals(2, stat.getOpenCount());
+        assertEquals(5, stat.getStateChangeCount());
+        assertEquals(2, stat.getRejectedCount());
+    }
+
+    @Test
+    public void testSlowCall() {
+        CircuitBreaker cb = create();
+        cb.setSlowCallDurationInMillis(10);
+        for (int i = 0; i < 10; i++) {
+            call(cb, i < 7 ? 20_000_000 : 1000, true);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+        call(cb, 20_000_000, true);
+        assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+        call(cb, 20_000_000, true);
+        // 9/12 = 75%
+        assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+        call(cb, 20_000_000, true);
+        // 10/13 = 76%
+        assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+        call(cb, 20_000_000, true);
+        assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+        call(cb, 20_000_000, true);
+        // 12/15 = 80%
+        assertEquals(CircuitBreaker.State.OPEN, cb.getState());
+    }
+
+    @Test
+    public void testStalePermit() throws Exception {
+        CircuitBreaker cb = create();
+        CircuitBreaker.Permit stale = cb.tryAcquire();
+        for (int i = 0; i < 10; i++) {
+            call(cb, 1000, false);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, cb.getState());
+        Thread.sleep(60);
+        CircuitBreaker.Permit probe = cb.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, probe.getState());
+        // 关闭状态发出、半开状态才返回的请求不能当作探测请求
+        cb.record(stale, 1000, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, cb.getState());
+        cb.record(stale, 1000, true);
+        cb.record(probe, 1000, true);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, cb.getState());
+        call(cb, 1000, true);
+        assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+        // 打开之前发出的慢请求也不计入新的统计窗口
+        cb.record(probe, 20_000_000_000L, false);
+        assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+    }
+
+    private static class FailingRemoteCache<K, V> extends MockRemoteCache<K, V> {
+        final AtomicBoolean fail = new AtomicBoolean();
+
+        FailingRemoteCache(MockRemoteCacheConfig<K, V> config) {
+            super(config);
+        }
+
+        @Override
+        protected CacheGetResult<V> do_GET(K key) {
+            return fail.get() ? new CacheGetResult<>(new IllegalStateException("mock fail")) : super.do_GET(key);
+        }
+
+        @Override
+        protected CacheResult do_PUT(K key, V value, long expireAfterWrite, TimeUnit timeUnit) {
+            return fail.get() ? new CacheResult(new IllegalStateException("mock fail"))
+                    : super.do_PUT(key, value, expireAfterWrite, timeUnit);
+        }
+
+        @Override
+        protected CacheResult do_REMOVE(K key) {
+            // 和redis的实现一样，删除不存在的key返回FAIL
+            return super.do_GET(key).isSuccess() ? super.do_REMOVE(key) : new CacheResult(CacheResultCode.FAIL, null);
+        }
+    }
+
+    @Test
+    public void testRemoteCache() throws Exception {
+        CircuitBreaker cb = create();
+        cb.setLocalExpireInMillisWhenOpen(100000);
+        MockRemoteCacheConfig<String, String> config = (MockRemoteCacheConfig) MockRemoteCacheBuilder
+                .createMockRemoteCacheBuilder()
+                .keyPrefix("cb_")
+                .circuitBreaker(cb)
+                .getConfig();
+        FailingRemoteCache<String, String> remote = new FailingRemoteCache<>(config);
+        Cache<String, String> local = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder()
+                .expireAfterWrite(50, TimeUnit.MILLISECONDS)
+                .buildCache();
+        Cache<String, String> cache = MultiLevelCacheBuilder.createMultiLevelCacheBuilder()
+                .addCache(local, remote)
+                .useExpireOfSubCache(true)
+                .buildCache();
+
+        cache.put("K1", "V1");
+        assertEquals("V1", remote.get("K1"));
+
+        // 没有异常的FAIL（比如删除不存在的key）不算失败
+        for (int i = 0; i < 10; i++) {
+            assertEquals(CacheResultCode.FAIL, remote.REMOVE("absent").getResultCode());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+
+        remote.fail.set(true);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(CacheResultCode.FAIL, remote.GET("K1").getResultCode());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, cb.getState());
+        long rejected = remote.getCircuitBreakerStat().getRejectedCount();
+        CacheGetResult<String> r = remote.GET("K1");
+        assertEquals(CacheResultCode.FAIL, r.getResultCode());
+        assertEquals(CacheResult.MSG_CIRCUIT_OPEN, r.getMessage());
+        assertEquals(rejected + 1, remote.getCircuitBreakerStat().getRejectedCount());
+
+        // 熔断期间只写本地缓存，并且延长本地缓存的过期时间
+        assertEquals(CacheResultCode.PART_SUCCESS, cache.PUT("K2", "V2").getResultCode());
+        Thread.sleep(100);
+        assertEquals("V2", local.get("K2"));
+        assertEquals("V2", cache.get("K2"));
+
+        // 恢复以后探测请求成功，关闭熔断器
+        remote.fail.set(false);
+        Thread.sleep(60);
+        assertEquals("V1", remote.get("K1"));
+        assertEquals("V1", remote.get("K1"));
+        assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+        cache.close();
+    }
+}
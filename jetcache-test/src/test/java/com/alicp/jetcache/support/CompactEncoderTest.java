@@ -0,0 +1,95 @@
+package com.alicp.jetcache.support;
+
+import com.alicp.jetcache.CacheConfigException;
+import com.alicp.jetcache.CacheValueHolder;
+import com.alicp.jetcache.anno.SerialPolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author huangli
+ */
+public class CompactEncoderTest extends AbstractEncoderTest {
+
+    private AbstractValueDecoder decoder(AbstractValueDecoder d) {
+        // baseTest中的holder只有10ms的过期时间，这里不跳过过期数据的payload
+        DecoderMap map = new DecoderMap();
+        map.initDefaultDecoder();
+        map.register(SerialPolicy.IDENTITY_NUMBER_COMPACT, new CompactValueDecoder(false));
+        d.setDecoderMap(map);
+        return d;
+    }
+
+    @Test
+    public void test() {
+        encoder = new CompactValueEncoder(Kryo5ValueEncoder.INSTANCE);
+        decoder = decoder(new Kryo5ValueDecoder(true));
+        baseTest();
+
+        encoder = new CompactValueEncoder(JavaValueEncoder.INSTANCE);
+        decoder = decoder(new JavaValueDecoder(true));
+        baseTest();
+
+        encoder = new CompactValueEncoder(KryoValueEncoder.INSTANCE);
+        decoder = decoder(new Kryo5ValueDecoder(true));
+        baseTest();
+
+        encoder = new CompactValueEncoder(Fastjson2ValueEncoder.INSTANCE);
+        decoder = decoder(new JavaValueDecoder(true));
+        baseTest();
+    }
+
+    @Test
+    public void byteBufferTest() {
+        encoder = new CompactValueEncoder(Kryo5ValueEncoder.INSTANCE);
+        byteBufferTest(decoder(new Kryo5ValueDecoder(true)));
+    }
+
+    @Test
+    public void compatibleTest() {
+        // 旧格式仍然可以读
+        encoder = Kryo5ValueEncoder.INSTANCE;
+        decoder = decoder(new Kryo5ValueDecoder(true));
+        baseTest();
+        encoder = JavaValueEncoder.INSTANCE;
+        baseTest();
+    }
+
+    @Test
+    public void expireTest() {
+        CompactValueEncoder encoder = new CompactValueEncoder(Kryo5ValueEncoder.INSTANCE);
+        CacheValueHolder<String> h = new CacheValueHolder<>("V", 100000);
+        byte[] bytes = encoder.apply(h);
+        assertEquals(h.getExpireTime(), CompactValueDecoder.readExpireTime(bytes));
+        assertEquals(-1, CompactValueDecoder.readExpireTime(Kryo5ValueEncoder.INSTANCE.apply(h)));
+        // header(4) + version + flags + 6字节的varint
+        assertEquals(12, bytes.length - Kryo5ValueEncoder.INSTANCE.apply("V").length);
+
+        CacheValueHolder<?> h2 = (CacheValueHolder<?>) Kryo5ValueDecoder.INSTANCE.apply(bytes);
+        assertEquals("V", h2.getValue());
+        assertEquals(h.getExpireTime(), h2.getExpireTime());
+
+        h.setExpireTime(System.currentTimeMillis() - 1);
+        bytes = encoder.apply(h);
+        // payload被破坏也不影响，因为过期数据不会反序列化payload
+        bytes[bytes.length - 1] = (byte) 0xFF;
+        bytes[bytes.length - 2] = (byte) 0xFF;
+        h2 = (CacheValueHolder<?>) Kryo5ValueDecoder.INSTANCE.apply(bytes);
+        assertNull(h2.getValue());
+        assertEquals(h.getExpireTime(), h2.getExpireTime());
+    }
+
+    @Test
+    public void errorTest() {
+        assertThrows(CacheConfigException.class, () -> new CompactValueEncoder(new Kryo5ValueEncoder(false)));
+
+        byte[] bytes = new CompactValueEncoder(Kryo5ValueEncoder.INSTANCE).apply(new CacheValueHolder<>("V", 100000));
+        bytes[4] = 100;
+        assertThrows(CacheEncodeException.class, () -> Kryo5ValueDecoder.INSTANCE.apply(bytes));
+        assertTrue(CompactValueDecoder.readExpireTime(bytes) < 0);
+    }
+}
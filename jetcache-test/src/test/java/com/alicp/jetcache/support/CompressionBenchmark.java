@@ -0,0 +1,100 @@
+package com.alicp.jetcache.support;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Size and encode/decode time of the values with and without LZ4, across several payload shapes.
+ *
+ * @author huangli
+ */
+public class CompressionBenchmark {
+
+    private static final int WARMUP_COUNT = 2000;
+    private static final int COUNT = 5000;
+
+    public static void main(String[] args) {
+        Map<String, Object> payloads = new LinkedHashMap<>();
+        TestObject small = new TestObject();
+        small.setId(100);
+        small.setName("name");
+        small.setEmail("someone@example.com");
+        payloads.put("small object", small);
+        payloads.put("object list", objectList(500));
+        payloads.put("text map", textMap(200));
+        payloads.put("random longs", randomLongs(2000));
+        byte[] random = new byte[16 * 1024];
+        new Random(0).nextBytes(random);
+        payloads.put("random bytes", random);
+
+        Map<String, AbstractValueEncoder> encoders = new LinkedHashMap<>();
+        encoders.put("KRYO5", Kryo5ValueEncoder.INSTANCE);
+        encoders.put("KRYO5+LZ4", new Lz4ValueEncoder(Kryo5ValueEncoder.INSTANCE));
+        encoders.put("FASTJSON2", Fastjson2ValueEncoder.INSTANCE);
+        encoders.put("FASTJSON2+LZ4", new Lz4ValueEncoder(Fastjson2ValueEncoder.INSTANCE));
+        encoders.put("JAVA", JavaValueEncoder.INSTANCE);
+        encoders.put("JAVA+LZ4", new Lz4ValueEncoder(JavaValueEncoder.INSTANCE));
+
+        System.out.printf("%-14s %-14s %10s %12s %12s%n", "payload", "encoder", "bytes", "encode(us)", "decode(us)");
+        for (Map.Entry<String, Object> p : payloads.entrySet()) {
+            for (Map.Entry<String, AbstractValueEncoder> e : encoders.entrySet()) {
+                run(p.getKey(), p.getValue(), e.getKey(), e.getValue(), Kryo5ValueDecoder.INSTANCE);
+            }
+        }
+    }
+
+    private static void run(String payloadName, Object payload, String encoderName,
+                            Function<Object, byte[]> encoder, Function<byte[], Object> decoder) {
+        byte[] bytes = null;
+        for (int i = 0; i < WARMUP_COUNT; i++) {
+            bytes = encoder.apply(payload);
+            decoder.apply(bytes);
+        }
+        long t = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+            bytes = encoder.apply(payload);
+        }
+        double encodeMicros = (System.nanoTime() - t) / 1000.0 / COUNT;
+        t = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+            decoder.apply(bytes);
+        }
+        double decodeMicros = (System.nanoTime() - t) / 1000.0 / COUNT;
+        System.out.printf("%-14s %-14s %10d %12.3f %12.3f%n", payloadName, encoderName, bytes.length,
+                encodeMicros, decodeMicros);
+    }
+
+    private static List<TestObject> objectList(int size) {
+        List<TestObject> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            TestObject o = new TestObject();
+            o.setId(i);
+            o.setName("name" + i);
+            o.setEmail("user" + i + "@example.com");
+            list.add(o);
+        }
+        return list;
+    }
+
+    private static HashMap<String, String> textMap(int size) {
+        HashMap<String, String> m = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            m.put("key" + i, "{\"status\":\"ACTIVE\",\"description\":\"item " + i + " of the catalog\"}");
+        }
+        return m;
+    }
+
+    private static ArrayList<Long> randomLongs(int size) {
+        Random r = new Random(0);
+        ArrayList<Long> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(r.nextLong());
+        }
+        return list;
+    }
+}
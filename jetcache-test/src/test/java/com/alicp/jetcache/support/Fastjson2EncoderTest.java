@@ -34,6 +34,16 @@ public class Fastjson2EncoderTest extends AbstractEncoderTest {
         baseTest();
     }
 
+    @Test
+    public void byteBufferTest() {
+        encoder = Fastjson2ValueEncoder.INSTANCE;
+        registerDecoder(Fastjson2ValueDecoder.INSTANCE);
+        byteBufferTest(Fastjson2ValueDecoder.INSTANCE);
+
+        encoder = new Fastjson2ValueEncoder(false);
+        byteBufferTest(new Fastjson2ValueDecoder(false));
+    }
+
     @Test
     public void compatibleTest() {
         encoder = Fastjson2ValueEncoder.INSTANCE;
@@ -22,6 +22,15 @@ public class JavaEncoderTest extends AbstractEncoderTest {
         baseTest();
     }
 
+    @Test
+    public void byteBufferTest() {
+        encoder = JavaValueEncoder.INSTANCE;
+        byteBufferTest(JavaValueDecoder.INSTANCE);
+
+        encoder = new JavaValueEncoder(false);
+        byteBufferTest(new JavaValueDecoder(false));
+    }
+
     @Test
     public void compoundTest() {
         encoder = (p) -> JavaValueEncoder.INSTANCE.apply(JavaValueEncoder.INSTANCE.apply(p));
@@ -0,0 +1,114 @@
+package com.alicp.jetcache.support;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author huangli
+ */
+public class JetCacheExecutorTest {
+
+    @Test
+    public void testRejectedCount() throws Exception {
+        String name = "testRejectedCount";
+        testRejectedCount(name, false);
+        Assert.assertEquals(1, JetCacheExecutor.getRejectedCount(name));
+        testRejectedCount(name, true);
+        Assert.assertEquals(2, JetCacheExecutor.getRejectedCount(name));
+    }
+
+    private void testRejectedCount(String name, boolean abort) throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1), new JetCacheExecutor.CountingDiscardPolicy(name, abort));
+        try {
+            executor.execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            });
+            executor.execute(() -> {
+            });
+            try {
+                executor.execute(() -> {
+                });
+                Assert.assertFalse(abort);
+            } catch (RejectedExecutionException e) {
+                Assert.assertTrue(abort);
+            }
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCallerRuns() {
+        String name = "testCallerRuns";
+        CountDownLatch latch = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1), new JetCacheExecutor.CountingCallerRunsPolicy(name));
+        try {
+            executor.execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            });
+            executor.execute(() -> {
+            });
+            Thread[] runThread = new Thread[1];
+            executor.execute(() -> runThread[0] = Thread.currentThread());
+            Assert.assertSame(Thread.currentThread(), runThread[0]);
+            Assert.assertEquals(1, JetCacheExecutor.getRejectedCount(name));
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRoleExecutors() {
+        Assert.assertSame(JetCacheExecutor.heavyIOExecutor(), JetCacheExecutor.refreshExecutor());
+        Assert.assertSame(JetCacheExecutor.defaultExecutor(), JetCacheExecutor.maintenanceExecutor());
+
+        ScheduledExecutorService refreshExecutor = new ScheduledThreadPoolExecutor(1);
+        try {
+            JetCacheExecutor.setRefreshExecutor(refreshExecutor);
+            Assert.assertSame(refreshExecutor, JetCacheExecutor.refreshExecutor());
+        } finally {
+            JetCacheExecutor.setRefreshExecutor(null);
+            refreshExecutor.shutdown();
+        }
+        Assert.assertSame(JetCacheExecutor.heavyIOExecutor(), JetCacheExecutor.refreshExecutor());
+
+        boolean found = JetCacheExecutor.executorStats().stream()
+                .anyMatch(s -> JetCacheExecutor.HEAVY_IO.equals(s.getName()));
+        Assert.assertTrue(found);
+    }
+
+    @Test
+    public void testVirtualThread() throws Exception {
+        ExecutorService executor = JetCacheExecutor.virtualThreadExecutor();
+        if (executor == null) {
+            // JDK does not support virtual thread
+            Assert.assertFalse(JetCacheExecutor.isVirtualThreadEnabled());
+            return;
+        }
+        Future<Boolean> f = executor.submit(() -> Thread.currentThread().getName().isEmpty());
+        Assert.assertTrue(f.get(1, TimeUnit.SECONDS));
+    }
+}
@@ -7,6 +7,14 @@ import com.alicp.jetcache.test.support.DynamicQuery;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -35,6 +43,68 @@ public class KeyConvertorTest {
         test(JacksonKeyConvertor.INSTANCE);
     }
 
+    @Test
+    public void testBinary() {
+        BinaryKeyConvertor convertor = new BinaryKeyConvertor();
+        convertor.register(C.class, (c, w) -> {
+            w.writeLong(c.getId());
+            w.writeObject(c.getName());
+            w.writeObject(c.getEmail());
+            w.writeObject(c.getMate());
+        });
+        // byte[]按内容比较
+        test(k -> {
+            Object o = convertor.apply(k);
+            return o instanceof byte[] ? ByteBuffer.wrap((byte[]) o) : o;
+        });
+    }
+
+    @Test
+    public void testBinaryLayout() {
+        BinaryKeyConvertor c = BinaryKeyConvertor.INSTANCE;
+        Assert.assertEquals("K", c.apply("K"));
+        byte[] bs = new byte[]{1, 2};
+        Assert.assertSame(bs, c.apply(bs));
+        Assert.assertNull(c.apply(null));
+
+        Assert.assertArrayEquals(new byte[]{BinaryKeyConvertor.INT, 2}, (byte[]) c.apply(1));
+        Assert.assertArrayEquals(new byte[]{BinaryKeyConvertor.INT, 1}, (byte[]) c.apply(-1));
+        Assert.assertArrayEquals(new byte[]{BinaryKeyConvertor.LONG, 2}, (byte[]) c.apply(1L));
+        Assert.assertArrayEquals(new byte[]{BinaryKeyConvertor.TRUE}, (byte[]) c.apply(true));
+        Assert.assertArrayEquals(new byte[]{BinaryKeyConvertor.ARRAY, 2, BinaryKeyConvertor.STRING, 1, 'a',
+                BinaryKeyConvertor.NULL}, (byte[]) c.apply(new Object[]{"a", null}));
+        Assert.assertArrayEquals(new byte[]{BinaryKeyConvertor.ENUM, 4, 'D', 'A', 'Y', 'S'},
+                (byte[]) c.apply(TimeUnit.DAYS));
+        Assert.assertEquals(17, ((byte[]) c.apply(UUID.randomUUID())).length);
+
+        // 相同内容的不同类型不相等
+        Assert.assertNotEquals(ByteBuffer.wrap((byte[]) c.apply(1)), ByteBuffer.wrap((byte[]) c.apply(1L)));
+        Assert.assertNotEquals(ByteBuffer.wrap((byte[]) c.apply(new Object[]{"a"})),
+                ByteBuffer.wrap((byte[]) c.apply(new Object[]{'a'})));
+        Assert.assertArrayEquals((byte[]) c.apply(Arrays.asList(1, "2")), (byte[]) c.apply(new Object[]{1, "2"}));
+        Assert.assertArrayEquals((byte[]) c.apply(new int[]{1, 2}), (byte[]) c.apply(new Object[]{1, 2}));
+
+        long now = System.currentTimeMillis();
+        Assert.assertArrayEquals((byte[]) c.apply(new Date(now)), (byte[]) c.apply(new Date(now)));
+        Assert.assertArrayEquals((byte[]) c.apply(LocalDateTime.of(2020, 1, 1, 0, 0)),
+                (byte[]) c.apply(LocalDateTime.of(2020, 1, 1, 0, 0)));
+        Assert.assertNotEquals(ByteBuffer.wrap((byte[]) c.apply(Instant.ofEpochSecond(1, 1))),
+                ByteBuffer.wrap((byte[]) c.apply(Instant.ofEpochSecond(1, 2))));
+        Assert.assertNotEquals(ByteBuffer.wrap((byte[]) c.apply(new BigDecimal("1.0"))),
+                ByteBuffer.wrap((byte[]) c.apply(new BigDecimal("1.00"))));
+
+        try {
+            c.apply(new C());
+            Assert.fail();
+        } catch (CacheEncodeException e) {
+        }
+        // 大key不影响后续的转换
+        Object[] large = new Object[10000];
+        Arrays.fill(large, "abcdefghijklmn");
+        Assert.assertTrue(((byte[]) c.apply(large)).length > 64 * 1024);
+        Assert.assertArrayEquals(new byte[]{BinaryKeyConvertor.INT, 2}, (byte[]) c.apply(1));
+    }
+
     private void test(Function<Object, Object> g) {
         Object k1, k2, k3;
 
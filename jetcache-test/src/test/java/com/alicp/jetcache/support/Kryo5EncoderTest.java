@@ -23,6 +23,15 @@ public class Kryo5EncoderTest extends AbstractEncoderTest {
         baseTest();
     }
 
+    @Test
+    public void byteBufferTest() {
+        encoder = Kryo5ValueEncoder.INSTANCE;
+        byteBufferTest(Kryo5ValueDecoder.INSTANCE);
+
+        encoder = new Kryo5ValueEncoder(false);
+        byteBufferTest(new Kryo5ValueDecoder(false));
+    }
+
     @Test
     public void compoundTest() {
         encoder = (p) -> Kryo5ValueEncoder.INSTANCE.apply(Kryo5ValueEncoder.INSTANCE.apply(p));
@@ -26,6 +26,15 @@ public class KryoEncoderTest extends AbstractEncoderTest {
         baseTest();
     }
 
+    @Test
+    public void byteBufferTest() {
+        encoder = KryoValueEncoder.INSTANCE;
+        byteBufferTest(KryoValueDecoder.INSTANCE);
+
+        encoder = new KryoValueEncoder(false);
+        byteBufferTest(new KryoValueDecoder(false));
+    }
+
     @Test
     public void compoundTest() {
         encoder = (p) -> KryoValueEncoder.INSTANCE.apply(KryoValueEncoder.INSTANCE.apply(p));
@@ -0,0 +1,128 @@
+package com.alicp.jetcache.support;
+
+import com.alicp.jetcache.CacheConfigException;
+import com.alicp.jetcache.CacheValueHolder;
+import com.alicp.jetcache.anno.SerialPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author huangli
+ */
+public class Lz4EncoderTest extends AbstractEncoderTest {
+
+    @Test
+    public void test() {
+        // 阈值为0时所有值都尝试压缩
+        encoder = new Lz4ValueEncoder(Kryo5ValueEncoder.INSTANCE, 0);
+        decoder = Kryo5ValueDecoder.INSTANCE;
+        baseTest();
+
+        encoder = new Lz4ValueEncoder(JavaValueEncoder.INSTANCE, 0);
+        decoder = JavaValueDecoder.INSTANCE;
+        baseTest();
+
+        encoder = new Lz4ValueEncoder(Fastjson2ValueEncoder.INSTANCE, 0);
+        decoder = Kryo5ValueDecoder.INSTANCE;
+        baseTest();
+
+        encoder = new Lz4ValueEncoder(Kryo5ValueEncoder.INSTANCE);
+        decoder = Kryo5ValueDecoder.INSTANCE;
+        baseTest();
+    }
+
+    @Test
+    public void byteBufferTest() {
+        encoder = new Lz4ValueEncoder(Kryo5ValueEncoder.INSTANCE, 0);
+        byteBufferTest(Kryo5ValueDecoder.INSTANCE);
+        encoder = new Lz4ValueEncoder(JavaValueEncoder.INSTANCE, 0);
+        byteBufferTest(JavaValueDecoder.INSTANCE);
+    }
+
+    @Test
+    public void compactTest() {
+        char[] cs = new char[10000];
+        Arrays.fill(cs, 'a');
+        CacheValueHolder<String> h = new CacheValueHolder<>(new String(cs), 100000);
+
+        byte[] bytes = new CompactValueEncoder(new Lz4ValueEncoder(Kryo5ValueEncoder.INSTANCE)).apply(h);
+        // 先压缩再封装，不用解压就能读到过期时间
+        assertEquals(h.getExpireTime(), CompactValueDecoder.readExpireTime(bytes));
+        assertTrue(bytes.length < 1000);
+        CacheValueHolder<?> h2 = (CacheValueHolder<?>) Kryo5ValueDecoder.INSTANCE.apply(bytes);
+        assertEquals(h.getValue(), h2.getValue());
+
+        bytes = new Lz4ValueEncoder(new CompactValueEncoder(Kryo5ValueEncoder.INSTANCE)).apply(h);
+        assertTrue(bytes.length < 1000);
+        h2 = (CacheValueHolder<?>) Kryo5ValueDecoder.INSTANCE.apply(bytes);
+        assertEquals(h.getValue(), h2.getValue());
+        assertEquals(h.getExpireTime(), h2.getExpireTime());
+    }
+
+    @Test
+    public void thresholdTest() {
+        Lz4ValueEncoder encoder = new Lz4ValueEncoder(Kryo5ValueEncoder.INSTANCE, 1000);
+        char[] cs = new char[10000];
+        Arrays.fill(cs, 'a');
+        String large = new String(cs);
+
+        // 小于阈值不压缩
+        byte[] bytes = encoder.apply("12345");
+        assertArrayEquals(Kryo5ValueEncoder.INSTANCE.apply("12345"), bytes);
+
+        bytes = encoder.apply(large);
+        byte[] header = new byte[4];
+        writeHeader(header, SerialPolicy.IDENTITY_NUMBER_LZ4);
+        assertArrayEquals(header, Arrays.copyOf(bytes, 4));
+        assertTrue(bytes.length < 1000);
+        assertEquals(large, Kryo5ValueDecoder.INSTANCE.apply(bytes));
+
+        // 压缩后没有变小也不压缩
+        byte[] random = new byte[5000];
+        new Random().nextBytes(random);
+        bytes = encoder.apply(random);
+        assertArrayEquals(Kryo5ValueEncoder.INSTANCE.apply(random), bytes);
+
+        CompressionStat stat = encoder.stat();
+        assertEquals("LZ4", stat.getAlgorithm());
+        assertEquals(1, stat.getCompressCount());
+        assertEquals(2, stat.getSkipCount());
+        assertTrue(stat.ratio() > 10);
+        assertTrue(stat.getCompressNanos() > 0);
+    }
+
+    @Test
+    public void errorTest() {
+        assertThrows(CacheConfigException.class, () -> new Lz4ValueEncoder(new Kryo5ValueEncoder(false)));
+
+        char[] cs = new char[10000];
+        Arrays.fill(cs, 'a');
+        byte[] bytes = new Lz4ValueEncoder(Kryo5ValueEncoder.INSTANCE, 0).apply(new String(cs));
+        byte[] broken = Arrays.copyOf(bytes, bytes.length - 5);
+        assertThrows(CacheEncodeException.class, () -> Kryo5ValueDecoder.INSTANCE.apply(broken));
+
+        // 头部的原始长度超过上限或者压缩比不可能达到，不分配内存
+        byte[] huge = new byte[32];
+        int index = CompactValueEncoder.writeInt(huge, 0, SerialPolicy.IDENTITY_NUMBER_LZ4);
+        CompactValueEncoder.writeVarLong(huge, index, Lz4ValueDecoder.MAX_RAW_LENGTH + 1L);
+        assertThrows(CacheEncodeException.class, () -> Lz4ValueDecoder.INSTANCE.apply(huge));
+        byte[] tooLarge = new byte[32];
+        index = CompactValueEncoder.writeInt(tooLarge, 0, SerialPolicy.IDENTITY_NUMBER_LZ4);
+        CompactValueEncoder.writeVarLong(tooLarge, index, 1024 * 1024);
+        assertThrows(CacheEncodeException.class, () -> Lz4ValueDecoder.INSTANCE.apply(tooLarge));
+    }
+
+    @Test
+    public void gcTest() {
+        encoder = new Lz4ValueEncoder(Kryo5ValueEncoder.INSTANCE);
+        decoder = Kryo5ValueDecoder.INSTANCE;
+        super.gcTest();
+    }
+}
@@ -0,0 +1,69 @@
+package com.alicp.jetcache.support;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author huangli
+ */
+public class ReplicaSelectorTest {
+
+    @Test
+    public void testPreferFast() {
+        ReplicaSelector selector = new ReplicaSelector();
+        ReplicaSelector.Replica fast = selector.replica("fast");
+        ReplicaSelector.Replica slow = selector.replica("slow");
+        ReplicaSelector.Replica[] candidates = {fast, slow};
+        fast.record(1_000_000, true);
+        slow.record(50_000_000, true);
+        int slowCount = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (selector.select(candidates, null) == 1) {
+                slowCount++;
+            }
+        }
+        // 只有两个候选时，两次随机都选中慢的才会选它
+        Assert.assertTrue(slowCount < 400);
+
+        // 权重为0的从库不会被选中
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(1, selector.select(candidates, new int[]{0, 100}));
+        }
+    }
+
+    @Test
+    public void testEjectAndProbe() throws Exception {
+        ReplicaSelector selector = new ReplicaSelector();
+        ReplicaSelector.Replica r0 = selector.replica("r0");
+        ReplicaSelector.Replica r1 = selector.replica("r1");
+        ReplicaSelector.Replica[] candidates = {r0, r1};
+        for (int i = 0; i < 3; i++) {
+            r0.record(1_000_000, false);
+        }
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(1, selector.select(candidates, null));
+        }
+        for (int i = 0; i < 3; i++) {
+            r1.record(1_000_000, false);
+        }
+        Assert.assertEquals(-1, selector.select(candidates, null));
+
+        List<ReplicaStat> stats = selector.stats();
+        Assert.assertEquals("r0", stats.get(0).getName());
+        Assert.assertTrue(stats.get(0).isEjected());
+        Assert.assertEquals(3, stats.get(0).getErrorCount());
+
+        // 摘除到期后只放一个探测请求
+        Thread.sleep(1100);
+        int probe = selector.select(candidates, null);
+        Assert.assertTrue(probe >= 0);
+        int other = selector.select(candidates, null);
+        Assert.assertNotEquals(probe, other);
+        Assert.assertEquals(-1, selector.select(candidates, null));
+
+        candidates[probe].record(1_000_000, true);
+        Assert.assertEquals(probe, selector.select(candidates, null));
+    }
+}